@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.message.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.microsoft.azure.eventhubs.benchmarks.BenchmarkMessages;
+import com.microsoft.azure.servicebus.PassByRef;
+
+/**
+ * The receive path after the link: decoding the delivered bytes, {@link EventData#EventData(Message)} and
+ * {@link EventDataUtil#toEventDataCollection}, plus the system properties every processor reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDataDecodeBenchmark
+{
+	@Param({ "16", "1024", "65536" })
+	public int payloadSize;
+
+	@Param({ "0", "4", "16" })
+	public int propertyCount;
+
+	@Param({ "1", "10", "100" })
+	public int batchSize;
+
+	private List<Message> messages;
+	private byte[][] encodedMessages;
+
+	@Setup
+	public void setup()
+	{
+		this.messages = BenchmarkMessages.receivedMessages(this.batchSize, this.payloadSize, this.propertyCount);
+		this.encodedMessages = new byte[this.batchSize][];
+		for (int index = 0; index < this.batchSize; index++)
+		{
+			this.encodedMessages[index] = BenchmarkMessages.encode(this.messages.get(index));
+		}
+	}
+
+	@Benchmark
+	public void decodeAndCreateEventData(final Blackhole blackhole)
+	{
+		// as MessageReceiver.onReceiveComplete and the PartitionReceiver do per delivery
+		for (byte[] encoded : this.encodedMessages)
+		{
+			final Message message = Proton.message();
+			message.decode(encoded, 0, encoded.length);
+			consume(new EventData(message), blackhole);
+		}
+	}
+
+	@Benchmark
+	public void createEventData(final Blackhole blackhole)
+	{
+		for (Message message : this.messages)
+		{
+			consume(new EventData(message), blackhole);
+		}
+	}
+
+	@Benchmark
+	public void toEventDataCollection(final Blackhole blackhole)
+	{
+		final PassByRef<Message> lastMessage = new PassByRef<Message>();
+		for (EventData eventData : EventDataUtil.toEventDataCollection(this.messages, lastMessage))
+		{
+			consume(eventData, blackhole);
+		}
+
+		blackhole.consume(lastMessage.get());
+	}
+
+	private static void consume(final EventData eventData, final Blackhole blackhole)
+	{
+		blackhole.consume(eventData.getBytes());
+		blackhole.consume(eventData.getSystemProperties().getOffset());
+		blackhole.consume(eventData.getSystemProperties().getSequenceNumber());
+		blackhole.consume(eventData.getProperties());
+	}
+}
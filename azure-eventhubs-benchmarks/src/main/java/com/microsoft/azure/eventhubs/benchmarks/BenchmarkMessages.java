@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * Builds the AMQP messages the benchmarks work on - shaped like the ones the client sends and receives.
+ */
+public final class BenchmarkMessages
+{
+	// seeded, so that every run - and every fork - works on the same bytes
+	private static final long SEED = 0x5eed;
+
+	private BenchmarkMessages()
+	{
+	}
+
+	/**
+	 * @param payloadSize size of the body
+	 * @param compressible whether the body is repetitive json-like text, or random bytes
+	 * @return the body of an event
+	 */
+	public static byte[] payload(final int payloadSize, final boolean compressible)
+	{
+		final byte[] payload = new byte[payloadSize];
+		final Random random = new Random(SEED);
+		if (!compressible)
+		{
+			random.nextBytes(payload);
+			return payload;
+		}
+
+		final StringBuilder json = new StringBuilder(payloadSize + 64);
+		for (int reading = 0; json.length() < payloadSize; reading++)
+		{
+			json.append("{\"deviceId\":\"device-").append(random.nextInt(16))
+				.append("\",\"reading\":").append(reading)
+				.append(",\"temperature\":").append(20 + random.nextInt(10))
+				.append(",\"status\":\"ok\"},");
+		}
+
+		final byte[] jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(jsonBytes, 0, payload, 0, payloadSize);
+		return payload;
+	}
+
+	/**
+	 * @return a message as the client sends it - a data body and application properties
+	 */
+	public static Message sentMessage(final int payloadSize, final int propertyCount)
+	{
+		final Message message = Proton.message();
+		message.setBody(new Data(new Binary(payload(payloadSize, true))));
+		if (propertyCount > 0)
+		{
+			message.setApplicationProperties(new ApplicationProperties(properties(propertyCount)));
+		}
+
+		return message;
+	}
+
+	/**
+	 * @return a message as the service delivers it - a sent message plus the EventHubs system annotations
+	 */
+	public static Message receivedMessage(final int payloadSize, final int propertyCount, final long sequenceNumber)
+	{
+		final Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+		annotations.put(AmqpConstants.OFFSET, Long.toString(sequenceNumber * 1024));
+		annotations.put(AmqpConstants.SEQUENCE_NUMBER, sequenceNumber);
+		annotations.put(AmqpConstants.ENQUEUED_TIME_UTC, new Date(1500000000000L + sequenceNumber));
+
+		final Message message = sentMessage(payloadSize, propertyCount);
+		message.setMessageAnnotations(new MessageAnnotations(annotations));
+		return message;
+	}
+
+	/**
+	 * @return batchSize received messages, with consecutive sequence numbers
+	 */
+	public static List<Message> receivedMessages(final int batchSize, final int payloadSize, final int propertyCount)
+	{
+		final List<Message> messages = new ArrayList<Message>(batchSize);
+		for (int index = 0; index < batchSize; index++)
+		{
+			messages.add(receivedMessage(payloadSize, propertyCount, index));
+		}
+
+		return messages;
+	}
+
+	/**
+	 * @return the message encoded - as it is read off the wire
+	 */
+	public static byte[] encode(final Message message)
+	{
+		final byte[] buffer = new byte[1024 * 1024];
+		final int encodedSize = message.encode(buffer, 0, buffer.length);
+		final byte[] encoded = new byte[encodedSize];
+		System.arraycopy(buffer, 0, encoded, 0, encodedSize);
+		return encoded;
+	}
+
+	private static Map<String, Object> properties(final int propertyCount)
+	{
+		final Map<String, Object> properties = new HashMap<String, Object>();
+		for (int index = 0; index < propertyCount; index++)
+		{
+			// a mix of the value types applications use - of those AmqpUtil can size
+			switch (index % 3)
+			{
+				case 0:
+					properties.put("property-" + index, "value-" + index);
+					break;
+				case 1:
+					properties.put("property-" + index, (long) index);
+					break;
+				default:
+					properties.put("property-" + index, index * 0.5d);
+					break;
+			}
+		}
+
+		return properties;
+	}
+}
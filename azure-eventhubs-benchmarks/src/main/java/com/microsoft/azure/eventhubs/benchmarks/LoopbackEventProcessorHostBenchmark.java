@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.benchmarks;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.lib.Mock.LoopbackBroker;
+import com.microsoft.azure.eventprocessorhost.CloseReason;
+import com.microsoft.azure.eventprocessorhost.EventProcessorHost;
+import com.microsoft.azure.eventprocessorhost.EventProcessorOptions;
+import com.microsoft.azure.eventprocessorhost.IEventProcessor;
+import com.microsoft.azure.eventprocessorhost.IEventProcessorFactory;
+import com.microsoft.azure.eventprocessorhost.InMemoryCheckpointManager;
+import com.microsoft.azure.eventprocessorhost.InMemoryLeaseManager;
+import com.microsoft.azure.eventprocessorhost.PartitionContext;
+
+/**
+ * {@link EventProcessorHost} end to end - lease acquisition, receive pumps and processor dispatch - draining
+ * {@value #PARTITION_COUNT} partitions of an in-process {@link LoopbackBroker}, filled before the run.
+ * <p>
+ * Each invocation starts a new host, with in-memory leases and checkpoints, so that it reads every partition from the start;
+ * the score is the time per event, including the time the host takes to start and own all partitions.
+ * {@code checkpoint} checkpoints the last event of every batch, as most processors do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoopbackEventProcessorHostBenchmark
+{
+	private static final int PARTITION_COUNT = 4;
+	private static final int EVENTS_PER_PARTITION = 25000;
+	private static final int EVENT_COUNT = PARTITION_COUNT * EVENTS_PER_PARTITION;
+	private static final long DRAIN_TIMEOUT_SECONDS = 300;
+
+	@Param({ "10", "100" })
+	public int maxBatchSize;
+
+	@Param({ "false", "true" })
+	public boolean checkpoint;
+
+	private LoopbackBroker broker;
+	private EventProcessorHost host;
+	private AtomicLong processedCount;
+	private CountDownLatch drainedLatch;
+
+	@Setup
+	public void setup() throws IOException, InterruptedException, ExecutionException
+	{
+		this.broker = LoopbackBroker.create("benchmark", PARTITION_COUNT, EVENTS_PER_PARTITION);
+		for (String partitionId : this.broker.getPartitionIds())
+		{
+			this.broker.appendEvents(partitionId, EVENTS_PER_PARTITION, 128).get();
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void createHost() throws InterruptedException, ExecutionException
+	{
+		final InMemoryCheckpointManager checkpointManager = new InMemoryCheckpointManager();
+		final InMemoryLeaseManager leaseManager = new InMemoryLeaseManager();
+		this.host = new EventProcessorHost("benchmark-" + UUID.randomUUID().toString(), this.broker.getEventHubName(),
+				EventHubClient.DEFAULT_CONSUMER_GROUP_NAME, this.broker.getConnectionString().toString(), checkpointManager, leaseManager);
+		checkpointManager.initialize(this.host);
+		leaseManager.initialize(this.host);
+
+		// the in-memory stores are shared by all hosts in the process - drop the leases and checkpoints of the previous invocation
+		leaseManager.deleteLeaseStore().get();
+		checkpointManager.deleteCheckpointStore().get();
+
+		this.processedCount = new AtomicLong();
+		this.drainedLatch = new CountDownLatch(1);
+	}
+
+	@TearDown(Level.Invocation)
+	public void stopHost() throws InterruptedException, ExecutionException
+	{
+		this.host.unregisterEventProcessor();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		this.broker.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENT_COUNT)
+	public void drain() throws Exception
+	{
+		final EventProcessorOptions processorOptions = EventProcessorOptions.getDefaultOptions();
+		processorOptions.setMaxBatchSize(this.maxBatchSize);
+
+		this.host.registerEventProcessorFactory(new IEventProcessorFactory<IEventProcessor>()
+		{
+			@Override
+			public IEventProcessor createEventProcessor(PartitionContext context)
+			{
+				return new CountingProcessor();
+			}
+		}, processorOptions).get();
+
+		if (!this.drainedLatch.await(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+		{
+			throw new IllegalStateException(String.format("processed %s of %s events in %s seconds", this.processedCount.get(), EVENT_COUNT, DRAIN_TIMEOUT_SECONDS));
+		}
+	}
+
+	private final class CountingProcessor implements IEventProcessor
+	{
+		@Override
+		public void onOpen(PartitionContext context)
+		{
+		}
+
+		@Override
+		public void onClose(PartitionContext context, CloseReason reason)
+		{
+		}
+
+		@Override
+		public void onEvents(PartitionContext context, Iterable<EventData> events) throws Exception
+		{
+			EventData lastEvent = null;
+			int eventCount = 0;
+			for (EventData event : events)
+			{
+				lastEvent = event;
+				eventCount++;
+			}
+
+			if (checkpoint && lastEvent != null)
+			{
+				context.checkpointAsync(lastEvent);
+			}
+
+			if (processedCount.addAndGet(eventCount) >= EVENT_COUNT)
+			{
+				drainedLatch.countDown();
+			}
+		}
+
+		@Override
+		public void onError(PartitionContext context, Throwable error)
+		{
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.ReceiverOptions;
+import com.microsoft.azure.eventhubs.lib.Mock.LoopbackBroker;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+/**
+ * {@link PartitionReceiver} end to end - flow, transport, decode and settle - draining {@value #EVENT_COUNT} events
+ * from a partition of an in-process {@link LoopbackBroker}, filled before the run.
+ * <p>
+ * Each invocation opens a new receiver at the start of the partition - outside of the measurement - and receives until it
+ * has every event. The score is the time per event; the receiver is never starved, so this is the client's ceiling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoopbackReceiveBenchmark
+{
+	private static final int EVENT_COUNT = 100000;
+
+	@Param({ "false", "true" })
+	public boolean atMostOnce;
+
+	@Param({ "128", "1024" })
+	public int payloadSize;
+
+	@Param({ "100", "999" })
+	public int prefetchCount;
+
+	private LoopbackBroker broker;
+	private EventHubClient ehClient;
+	private PartitionReceiver receiver;
+
+	@Setup
+	public void setup() throws IOException, ServiceBusException, InterruptedException, ExecutionException
+	{
+		this.broker = LoopbackBroker.create("benchmark", 1, EVENT_COUNT);
+		this.broker.appendEvents(this.broker.getPartitionIds()[0], EVENT_COUNT, this.payloadSize).get();
+		this.ehClient = EventHubClient.createFromConnectionStringSync(this.broker.getConnectionString().toString());
+	}
+
+	@Setup(Level.Invocation)
+	public void openReceiver() throws ServiceBusException
+	{
+		final ReceiverOptions receiverOptions = new ReceiverOptions();
+		receiverOptions.setAtMostOnce(this.atMostOnce);
+		this.receiver = this.ehClient.createReceiverSync(EventHubClient.DEFAULT_CONSUMER_GROUP_NAME, this.broker.getPartitionIds()[0],
+				PartitionReceiver.START_OF_STREAM, receiverOptions);
+		this.receiver.setPrefetchCount(this.prefetchCount);
+	}
+
+	@TearDown(Level.Invocation)
+	public void closeReceiver() throws ServiceBusException
+	{
+		this.receiver.closeSync();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, ServiceBusException
+	{
+		this.ehClient.closeSync();
+		this.broker.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENT_COUNT)
+	public long receive() throws ServiceBusException
+	{
+		long lastSequenceNumber = -1;
+		int receivedCount = 0;
+		while (receivedCount < EVENT_COUNT)
+		{
+			final Iterable<EventData> events = this.receiver.receiveSync(this.prefetchCount);
+			if (events == null)
+			{
+				throw new IllegalStateException(String.format("receive timed out after %s of %s events", receivedCount, EVENT_COUNT));
+			}
+
+			for (EventData event : events)
+			{
+				lastSequenceNumber = event.getSystemProperties().getSequenceNumber();
+				receivedCount++;
+			}
+		}
+
+		return lastSequenceNumber;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.benchmarks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.eventhubs.SenderOptions;
+import com.microsoft.azure.eventhubs.lib.Mock.LoopbackBroker;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+/**
+ * {@link PartitionSender} end to end - encode, reactor, transport and disposition - against an in-process {@link LoopbackBroker}.
+ * <p>
+ * {@code send} keeps up to {@value #MAX_PENDING_SENDS} sends outstanding, as a pipelining producer does - the {@code events}
+ * counter is the events per second. {@code sendSync} is the round trip of one send, until the broker accepts it.
+ * {@code sendLatencyMillis} delays every accept at the broker, to see how much of it pipelining hides.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopbackSendBenchmark
+{
+	private static final int MAX_PENDING_SENDS = 64;
+
+	// sent events are not read back - keep the partition log small
+	private static final int PARTITION_CAPACITY = 1000;
+
+	@Param({ "false", "true" })
+	public boolean atMostOnce;
+
+	@Param({ "128", "1024" })
+	public int payloadSize;
+
+	@Param({ "1", "100" })
+	public int batchSize;
+
+	@Param({ "0", "5" })
+	public int sendLatencyMillis;
+
+	private final ArrayDeque<CompletableFuture<Void>> pendingSends = new ArrayDeque<CompletableFuture<Void>>();
+
+	private LoopbackBroker broker;
+	private EventHubClient ehClient;
+	private PartitionSender sender;
+	private EventData event;
+	private List<EventData> batch;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class EventCounters
+	{
+		public long events;
+
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			this.events = 0;
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException, ServiceBusException
+	{
+		this.broker = LoopbackBroker.create("benchmark", 1, PARTITION_CAPACITY);
+		this.broker.setSendLatency(Duration.ofMillis(this.sendLatencyMillis));
+		this.ehClient = EventHubClient.createFromConnectionStringSync(this.broker.getConnectionString().toString());
+
+		final SenderOptions senderOptions = new SenderOptions();
+		senderOptions.setAtMostOnce(this.atMostOnce);
+		this.sender = this.ehClient.createPartitionSenderSync(this.broker.getPartitionIds()[0], senderOptions);
+
+		this.event = new EventData(BenchmarkMessages.payload(this.payloadSize, false));
+		this.batch = new LinkedList<EventData>();
+		for (int i = 0; i < this.batchSize; i++)
+		{
+			this.batch.add(new EventData(BenchmarkMessages.payload(this.payloadSize, false)));
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void drainPendingSends()
+	{
+		while (!this.pendingSends.isEmpty())
+		{
+			this.pendingSends.poll().join();
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, ServiceBusException
+	{
+		this.sender.closeSync();
+		this.ehClient.closeSync();
+		this.broker.close();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void send(final EventCounters counters) throws ServiceBusException
+	{
+		this.pendingSends.add(this.batchSize == 1 ? this.sender.send(this.event) : this.sender.send(this.batch));
+		if (this.pendingSends.size() > MAX_PENDING_SENDS)
+		{
+			this.pendingSends.poll().join();
+		}
+
+		counters.events += this.batchSize;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void sendSync() throws ServiceBusException
+	{
+		if (this.batchSize == 1)
+		{
+			this.sender.sendSync(this.event);
+		}
+		else
+		{
+			this.sender.sendSync(this.batch);
+		}
+	}
+}
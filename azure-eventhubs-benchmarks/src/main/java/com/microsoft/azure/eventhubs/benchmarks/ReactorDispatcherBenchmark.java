@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.engine.HandlerException;
+import org.apache.qpid.proton.reactor.Reactor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.servicebus.amqp.DispatchHandler;
+import com.microsoft.azure.servicebus.amqp.ReactorDispatcher;
+
+/**
+ * {@link ReactorDispatcher#invoke(DispatchHandler)} - how every send, receive and close reaches the reactor thread -
+ * with a running Reactor draining the work, as in the client.
+ * <p>
+ * {@code invoke} queues a new handler each time - as receives do - from 1 and 4 threads; {@code invokeCoalesced} re-queues
+ * the same handler - as the sender's send work, which runs once for all the invokes queued before it runs. Callers wait for the
+ * Reactor once too much work is queued, so these measure the sustained rate. {@code invokeAndWait} is the round trip to the
+ * reactor thread and back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactorDispatcherBenchmark
+{
+	private static final int MAX_QUEUE_DEPTH = 10000;
+
+	private final DispatchHandler sharedHandler = newHandler();
+
+	private Reactor reactor;
+	private ReactorDispatcher dispatcher;
+	private Thread reactorThread;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		this.reactor = Proton.reactor();
+		this.reactor.setTimeout(20);
+		this.dispatcher = new ReactorDispatcher(this.reactor);
+		this.reactor.start();
+		this.reactorThread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				while (!Thread.interrupted())
+				{
+					try
+					{
+						if (!reactor.process())
+							break;
+					}
+					catch (HandlerException handlerException)
+					{
+						reactor.collector().pop();
+					}
+				}
+			}
+		}, "benchmark-reactor");
+		this.reactorThread.start();
+	}
+
+	@TearDown
+	public void tearDown() throws InterruptedException
+	{
+		this.reactorThread.interrupt();
+		this.reactorThread.join(TimeUnit.SECONDS.toMillis(5));
+		this.reactor.free();
+	}
+
+	@Benchmark
+	public void invoke() throws IOException
+	{
+		this.invokeBounded(newHandler());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void invokeContended() throws IOException
+	{
+		this.invokeBounded(newHandler());
+	}
+
+	@Benchmark
+	public void invokeCoalesced() throws IOException
+	{
+		this.invokeBounded(this.sharedHandler);
+	}
+
+	@Benchmark
+	public void invokeAndWait() throws IOException, InterruptedException
+	{
+		final CountDownLatch dispatchedLatch = new CountDownLatch(1);
+		this.dispatcher.invoke(new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				dispatchedLatch.countDown();
+			}
+		});
+
+		dispatchedLatch.await();
+	}
+
+	private void invokeBounded(final DispatchHandler handler) throws IOException
+	{
+		this.dispatcher.invoke(handler);
+		if (this.dispatcher.getQueueDepth() > MAX_QUEUE_DEPTH)
+		{
+			while (this.dispatcher.getQueueDepth() > MAX_QUEUE_DEPTH / 2)
+			{
+				Thread.yield();
+			}
+		}
+	}
+
+	private static DispatchHandler newHandler()
+	{
+		return new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+			}
+		};
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The pending sends of {@link MessageSender} - how a send waits for link credit and for its outcome - without the link.
+ * <p>
+ * {@code sendPath} runs the three steps of a send on the threads that run them in the client: 3 threads enqueue sends, as callers of
+ * {@code send} do, while one thread - the reactor's - drains them retries first, and looks each up by its delivery tag again to complete it,
+ * as {@code onSendComplete} does. Producers wait for the drain once too many sends are queued, so this measures the sustained rate.
+ * {@code roundTrip} runs all three steps on each of 4 threads, for the contention on the map and the queues alone.
+ * Run with {@code -prof gc} for the allocation per send.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PendingSendsBenchmark
+{
+	private static final int MAX_QUEUE_DEPTH = 10000;
+	// one send in this many is a retry
+	private static final int RETRY_INTERVAL = 100;
+
+	private final Object send = new Object();
+	private final AtomicLong nextDeliveryTag = new AtomicLong();
+	private PendingSends<Object> pendingSends;
+
+	@Setup
+	public void setup()
+	{
+		this.pendingSends = new PendingSends<Object>();
+	}
+
+	@Benchmark
+	@Group("sendPath")
+	@GroupThreads(3)
+	public void enqueue()
+	{
+		final long tag = this.nextDeliveryTag.incrementAndGet();
+		this.pendingSends.add(tag, this.send, tag % RETRY_INTERVAL == 0);
+
+		if (this.pendingSends.size() > MAX_QUEUE_DEPTH)
+		{
+			while (this.pendingSends.size() > MAX_QUEUE_DEPTH / 2)
+			{
+				Thread.yield();
+			}
+		}
+	}
+
+	@Benchmark
+	@Group("sendPath")
+	@GroupThreads(1)
+	public Object drainAndComplete()
+	{
+		final Long tag = this.nextTag();
+		if (tag == null)
+		{
+			return null;
+		}
+
+		// once to hand the send to the link, and once more on its outcome
+		this.pendingSends.get(tag);
+		return this.pendingSends.remove(tag);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Object roundTrip()
+	{
+		final long tag = this.nextDeliveryTag.incrementAndGet();
+		this.pendingSends.add(tag, this.send, tag % RETRY_INTERVAL == 0);
+
+		final Long drained = this.nextTag();
+		if (drained == null)
+		{
+			return null;
+		}
+
+		this.pendingSends.get(drained);
+		return this.pendingSends.remove(drained);
+	}
+
+	// as MessageSender.processSendWork does
+	private Long nextTag()
+	{
+		final Long retryTag = this.pendingSends.pollRetry();
+		return retryTag != null ? retryTag : this.pendingSends.pollNew();
+	}
+}
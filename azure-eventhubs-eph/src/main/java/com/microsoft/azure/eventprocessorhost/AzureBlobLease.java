@@ -13,6 +13,7 @@ import com.microsoft.azure.storage.blob.LeaseState;
 class AzureBlobLease extends Lease
 {
 	private transient CloudBlockBlob blob; // do not serialize
+	private transient boolean leaseStateFetched = false; // blob properties came from a listing, no need to download them again
 	private String offset = null; // null means checkpoint is uninitialized
 	private long sequenceNumber = 0;
 	
@@ -46,6 +47,8 @@ class AzureBlobLease extends Lease
 	
 	CloudBlockBlob getBlob() { return this.blob; }
 	
+	void setLeaseStateFetched() { this.leaseStateFetched = true; }
+	
 	void setOffset(String offset) { this.offset = offset; }
 	
 	String getOffset() { return this.offset; }
@@ -62,7 +65,16 @@ class AzureBlobLease extends Lease
 	@Override
 	public boolean isExpired() throws Exception
 	{
-		this.blob.downloadAttributes(); // Get the latest metadata
+		// A lease built from a blob listing already carries the lease state as of the listing, so the
+		// first check uses it as is. Any later check downloads the current state.
+		if (this.leaseStateFetched)
+		{
+			this.leaseStateFetched = false;
+		}
+		else
+		{
+			this.blob.downloadAttributes(); // Get the latest metadata
+		}
 		LeaseState currentState = this.blob.getProperties().getLeaseState();
 		return (currentState != LeaseState.LEASED); 
 	}
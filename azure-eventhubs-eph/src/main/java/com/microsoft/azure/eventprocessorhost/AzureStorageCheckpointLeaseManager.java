@@ -9,7 +9,10 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.NoSuchElementException;
 import java.util.concurrent.*;
 import java.util.logging.Level;
 
@@ -20,6 +23,7 @@ import com.microsoft.azure.storage.CloudStorageAccount;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageExtendedErrorInformation;
+import com.microsoft.azure.storage.blob.BlobListingDetails;
 import com.microsoft.azure.storage.blob.BlobRequestOptions;
 import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
@@ -50,6 +54,10 @@ class AzureStorageCheckpointLeaseManager implements ICheckpointManager, ILeaseMa
     private enum UploadActivity { Create, Acquire, Release, Update };
 
     private Hashtable<String, Checkpoint> latestCheckpoint = new Hashtable<String, Checkpoint>(); 
+    
+    // Last known content of each lease blob, keyed by partition id. getAllLeases compares the ETags in the blob
+    // listing against these and only downloads the leases which were changed since.
+    private ConcurrentHashMap<String, DownloadedLease> downloadedLeases = new ConcurrentHashMap<String, DownloadedLease>();
 
     
     AzureStorageCheckpointLeaseManager(String storageConnectionString)
@@ -292,7 +300,8 @@ class AzureStorageCheckpointLeaseManager implements ICheckpointManager, ILeaseMa
 			this.host.logWithHost(Level.WARNING, "Failure while deleting lease store", e);
 			retval = false;
 		}
-    	
+    	this.downloadedLeases.clear();
+
     	return retval;
     }
     
@@ -302,7 +311,8 @@ class AzureStorageCheckpointLeaseManager implements ICheckpointManager, ILeaseMa
         return EventProcessorHost.getExecutorService().submit(() -> getLeaseSync(partitionId));
     }
     
-    private AzureBlobLease getLeaseSync(String partitionId) throws URISyntaxException, IOException, StorageException
+    // Package-private, like listLeaseBlobs, getLeaseBlobEtag and downloadLeaseText: tests without a storage account stand in for the storage calls.
+    AzureBlobLease getLeaseSync(String partitionId) throws URISyntaxException, IOException, StorageException
     {
     	AzureBlobLease retval = null;
     	
@@ -319,14 +329,65 @@ class AzureStorageCheckpointLeaseManager implements ICheckpointManager, ILeaseMa
     public Iterable<Future<Lease>> getAllLeases() throws IllegalEntityException
     {
         ArrayList<Future<Lease>> leaseFutures = new ArrayList<Future<Lease>>();
-        Iterable<String> partitionIds = this.host.getPartitionManager().getPartitionIds(); 
+        Iterable<String> partitionIds = this.host.getPartitionManager().getPartitionIds();
+
+        // One listing of the consumer group directory returns the ETag and lease state of every lease blob.
+        // Leases whose ETag has not changed since they were last downloaded or uploaded are served from memory,
+        // and the lease state from the listing spares isExpired a separate call per lease.
+        HashMap<String, CloudBlockBlob> listedBlobs = null;
+        try
+        {
+        	listedBlobs = listLeaseBlobs();
+        }
+        catch (StorageException | URISyntaxException | NoSuchElementException e)
+        {
+        	this.host.logWithHost(Level.WARNING, "Failure listing lease blobs, getting leases one by one", e);
+        }
+
         for (String id : partitionIds)
         {
-            leaseFutures.add(getLease(id));
+        	CloudBlockBlob listedBlob = (listedBlobs != null) ? listedBlobs.get(id) : null;
+        	if (listedBlob == null)
+        	{
+        		leaseFutures.add(getLease(id));
+        		continue;
+        	}
+
+        	DownloadedLease downloaded = this.downloadedLeases.get(id);
+        	if ((downloaded != null) && downloaded.etag.equals(getLeaseBlobEtag(listedBlob)))
+        	{
+        		AzureBlobLease lease = new AzureBlobLease(downloaded.lease, listedBlob);
+        		lease.setLeaseStateFetched();
+        		leaseFutures.add(CompletableFuture.completedFuture(lease));
+        	}
+        	else
+        	{
+        		leaseFutures.add(EventProcessorHost.getExecutorService().submit(() ->
+        		{
+        			AzureBlobLease lease = downloadLease(listedBlob);
+        			lease.setLeaseStateFetched();
+        			return lease;
+        		}));
+        	}
         }
         return leaseFutures;
     }
 
+    HashMap<String, CloudBlockBlob> listLeaseBlobs() throws StorageException, URISyntaxException
+    {
+    	HashMap<String, CloudBlockBlob> listedBlobs = new HashMap<String, CloudBlockBlob>();
+    	for (ListBlobItem item : this.consumerGroupDirectory.listBlobs("", true, EnumSet.noneOf(BlobListingDetails.class), null, null))
+    	{
+    		if (item instanceof CloudBlockBlob)
+    		{
+    			CloudBlockBlob blob = (CloudBlockBlob)item;
+    			String name = blob.getName();
+    			listedBlobs.put(name.substring(name.lastIndexOf('/') + 1), blob);
+    		}
+    	}
+    	return listedBlobs;
+    }
+
     @Override
     public Future<Lease> createLeaseIfNotExists(String partitionId)
     {
@@ -379,6 +440,7 @@ class AzureStorageCheckpointLeaseManager implements ICheckpointManager, ILeaseMa
     {
     	this.host.logWithHostAndPartition(Level.FINE, lease.getPartitionId(), "Deleting lease");
     	lease.getBlob().deleteIfExists();
+    	this.downloadedLeases.remove(lease.getPartitionId());
     	return null;
     }
 
@@ -567,18 +629,39 @@ class AzureStorageCheckpointLeaseManager implements ICheckpointManager, ILeaseMa
 
     private AzureBlobLease downloadLease(CloudBlockBlob blob) throws StorageException, IOException
     {
-    	String jsonLease = blob.downloadText();
+    	String jsonLease = downloadLeaseText(blob);
     	this.host.logWithHost(Level.FINEST, "Raw JSON downloaded: " + jsonLease);
     	AzureBlobLease rehydrated = this.gson.fromJson(jsonLease, AzureBlobLease.class);
     	AzureBlobLease blobLease = new AzureBlobLease(rehydrated, blob);
-    	
+
     	if (blobLease.getOffset() != null)
     	{
     		this.latestCheckpoint.put(blobLease.getPartitionId(), blobLease.getCheckpoint());
     	}
-    	
+    	rememberLease(blobLease, blob);
+
     	return blobLease;
     }
+
+    String downloadLeaseText(CloudBlockBlob blob) throws StorageException, IOException
+    {
+    	return blob.downloadText();
+    }
+
+    // A listing, downloadText and uploadText all leave the ETag of the blob in its properties.
+    String getLeaseBlobEtag(CloudBlockBlob blob)
+    {
+    	return blob.getProperties().getEtag();
+    }
+
+    private void rememberLease(AzureBlobLease lease, CloudBlockBlob blob)
+    {
+    	String etag = getLeaseBlobEtag(blob);
+    	if (etag != null)
+    	{
+    		this.downloadedLeases.put(lease.getPartitionId(), new DownloadedLease(etag, new AzureBlobLease(lease)));
+    	}
+    }
     
     private void uploadLease(AzureBlobLease lease, CloudBlockBlob blob, AccessCondition condition, UploadActivity activity) throws StorageException, IOException
     {
@@ -605,6 +688,7 @@ class AzureStorageCheckpointLeaseManager implements ICheckpointManager, ILeaseMa
     	
     	String jsonLease = this.gson.toJson(lease);
  		blob.uploadText(jsonLease, null, condition, null, null);
+ 		rememberLease(lease, blob);
 		// During create, we blindly try upload and it may throw. Doing the logging after the upload
 		// avoids a spurious trace in that case.
 		this.host.logWithHostAndPartition(Level.FINEST, lease.getPartitionId(), "Raw JSON uploading for " + activity + ": " + jsonLease);
@@ -639,4 +723,16 @@ class AzureStorageCheckpointLeaseManager implements ICheckpointManager, ILeaseMa
     	}
     	return retval;
     }
+
+    private static class DownloadedLease
+    {
+    	final String etag;
+    	final AzureBlobLease lease;
+
+    	DownloadedLease(String etag, AzureBlobLease lease)
+    	{
+    		this.etag = etag;
+    		this.lease = lease;
+    	}
+    }
 }
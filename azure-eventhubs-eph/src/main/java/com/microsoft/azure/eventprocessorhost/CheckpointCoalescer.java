@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.eventprocessorhost;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Collects the checkpoints requested for one partition and writes them to the checkpoint manager in the background.
+ * <p>
+ * At most one write per partition is in flight at any time. Checkpoints requested while a write is in flight, or before
+ * the flush policy calls for a write, are coalesced: only the latest position is written, and the futures of all
+ * coalesced requests complete when it is. A write is started when the pending checkpoint is at least flushEventCount
+ * events past the last written one, when the oldest pending request is flushInterval old, or when flush() is called.
+ */
+class CheckpointCoalescer
+{
+	private final EventProcessorHost host;
+	private final PartitionContext context;
+	private final int flushEventCount;
+	private final Duration flushInterval;
+
+	// All of the below are guarded by this.
+	private Checkpoint pending = null;
+	private CompletableFuture<Void> pendingWritten = null;
+	private ScheduledFuture<?> pendingTimer = null;
+	private boolean flushRequested = false;
+	private boolean flushIntervalElapsed = false;
+	private CompletableFuture<Void> inFlightWritten = null;
+	private boolean hasWritten = false;
+	private long lastWrittenSequenceNumber = 0;
+
+	/**
+	 * @param flushEventCount	write once the pending checkpoint is this many events ahead of the last write, 0 to not write by event count
+	 * @param flushInterval		write once a checkpoint has been pending this long, null to not write by time
+	 */
+	CheckpointCoalescer(EventProcessorHost host, PartitionContext context, int flushEventCount, Duration flushInterval)
+	{
+		this.host = host;
+		this.context = context;
+		this.flushEventCount = flushEventCount;
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Sets the position which is already in the checkpoint store, the event count of the flush policy is measured from it.
+	 */
+	synchronized void setWrittenSequenceNumber(long sequenceNumber)
+	{
+		this.hasWritten = true;
+		this.lastWrittenSequenceNumber = sequenceNumber;
+	}
+
+	/**
+	 * Requests a checkpoint. A checkpoint behind the one already pending does not move the pending position.
+	 *
+	 * @return a future which completes when a checkpoint at or past the requested one has been written
+	 */
+	CompletableFuture<Void> request(Checkpoint checkpoint)
+	{
+		CompletableFuture<Void> written = null;
+		boolean startWrite = false;
+		synchronized (this)
+		{
+			if (this.pending == null)
+			{
+				this.pending = checkpoint;
+				this.pendingWritten = new CompletableFuture<Void>();
+				if (this.flushInterval != null)
+				{
+					final CompletableFuture<Void> timedWrite = this.pendingWritten;
+					this.pendingTimer = FlushTimer.INSTANCE.schedule(() -> onFlushIntervalElapsed(timedWrite), this.flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+				}
+			}
+			else if (checkpoint.getSequenceNumber() >= this.pending.getSequenceNumber())
+			{
+				this.pending = checkpoint;
+			}
+			written = this.pendingWritten;
+			startWrite = shouldStartWrite();
+		}
+
+		if (startWrite)
+		{
+			startWrite();
+		}
+		return written;
+	}
+
+	/**
+	 * Writes any pending checkpoint regardless of the flush policy.
+	 *
+	 * @return a future which completes when all checkpoints requested so far have been written
+	 */
+	CompletableFuture<Void> flush()
+	{
+		CompletableFuture<Void> written = null;
+		boolean startWrite = false;
+		synchronized (this)
+		{
+			if (this.pending != null)
+			{
+				this.flushRequested = true;
+				written = this.pendingWritten;
+				startWrite = shouldStartWrite();
+			}
+			else if (this.inFlightWritten != null)
+			{
+				written = this.inFlightWritten;
+			}
+			else
+			{
+				written = CompletableFuture.completedFuture(null);
+			}
+		}
+
+		if (startWrite)
+		{
+			startWrite();
+		}
+		return written;
+	}
+
+	// Call while synchronized.
+	private boolean shouldStartWrite()
+	{
+		if ((this.pending == null) || (this.inFlightWritten != null))
+		{
+			// Nothing to write, or the write in flight will start the next one when it is done.
+			return false;
+		}
+		if (this.flushRequested || this.flushIntervalElapsed)
+		{
+			return true;
+		}
+		if ((this.flushEventCount > 0) &&
+			(!this.hasWritten || ((this.pending.getSequenceNumber() - this.lastWrittenSequenceNumber) >= this.flushEventCount)))
+		{
+			return true;
+		}
+		return false;
+	}
+
+	private void onFlushIntervalElapsed(CompletableFuture<Void> timedWrite)
+	{
+		boolean startWrite = false;
+		synchronized (this)
+		{
+			// The timer may belong to a checkpoint which was already written for another reason.
+			if (this.pendingWritten == timedWrite)
+			{
+				this.flushIntervalElapsed = true;
+				startWrite = shouldStartWrite();
+			}
+		}
+
+		if (startWrite)
+		{
+			startWrite();
+		}
+	}
+
+	private void startWrite()
+	{
+		final Checkpoint writing;
+		final CompletableFuture<Void> written;
+		synchronized (this)
+		{
+			// Another thread may have taken the pending checkpoint between the decision and here.
+			if ((this.pending == null) || (this.inFlightWritten != null))
+			{
+				return;
+			}
+			writing = this.pending;
+			written = this.pendingWritten;
+			if (this.pendingTimer != null)
+			{
+				this.pendingTimer.cancel(false);
+			}
+			this.pending = null;
+			this.pendingWritten = null;
+			this.pendingTimer = null;
+			this.flushRequested = false;
+			this.flushIntervalElapsed = false;
+			this.inFlightWritten = written;
+		}
+
+		this.host.logWithHostAndPartition(Level.FINER, writing.getPartitionId(), "Saving checkpoint: " +
+				writing.getOffset() + "//" + writing.getSequenceNumber());
+		try
+		{
+			EventProcessorHost.getExecutorService().submit(() ->
+			{
+				Throwable failure = null;
+				try
+				{
+					this.host.getCheckpointManager().updateCheckpoint(this.context.getLease(), writing).get();
+				}
+				catch (ExecutionException e)
+				{
+					failure = (e.getCause() != null) ? e.getCause() : e;
+				}
+				catch (Exception e)
+				{
+					failure = e;
+				}
+				onWriteCompleted(writing, written, failure);
+				return null;
+			});
+		}
+		catch (Exception e)
+		{
+			// Most likely the executor was shut down.
+			onWriteCompleted(writing, written, e);
+		}
+	}
+
+	private void onWriteCompleted(Checkpoint writing, CompletableFuture<Void> written, Throwable failure)
+	{
+		boolean startWrite = false;
+		synchronized (this)
+		{
+			this.inFlightWritten = null;
+			if (failure == null)
+			{
+				this.hasWritten = true;
+				this.lastWrittenSequenceNumber = writing.getSequenceNumber();
+			}
+			startWrite = shouldStartWrite();
+		}
+
+		if (failure == null)
+		{
+			written.complete(null);
+		}
+		else
+		{
+			this.host.logWithHostAndPartition(Level.WARNING, writing.getPartitionId(), "Failure saving checkpoint " +
+					writing.getOffset() + "//" + writing.getSequenceNumber(), failure);
+			written.completeExceptionally(failure);
+		}
+
+		if (startWrite)
+		{
+			startWrite();
+		}
+	}
+
+	// The timer only decides when a write is due, the write itself runs on the host's executor.
+	// Its daemon thread ends once no write has been pending for a while, and is started again by the next one.
+	private static class FlushTimer
+	{
+		private static final long IDLE_TIMEOUT_SECONDS = 30;
+		static final ScheduledExecutorService INSTANCE = createTimer();
+
+		private static ScheduledExecutorService createTimer()
+		{
+			ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, (runnable) ->
+			{
+				Thread thread = new Thread(runnable, "eph-checkpoint-timer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			timer.setRemoveOnCancelPolicy(true);
+			timer.setKeepAliveTime(IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			timer.allowCoreThreadTimeOut(true);
+			return timer;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.eventprocessorhost;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+/**
+ * A host-level pool of EventHubClients, shared by the partition pumps of one EventProcessorHost.
+ * <p>
+ * Each EventHubClient is a connection with its own reactor thread, so instead of one client per owned partition
+ * the pool keeps at most a fixed number of clients and spreads partitions across them as links on the shared connections.
+ * Clients are created on first use and reference-counted: a client is closed when the last partition using it is released.
+ */
+class EventHubClientPool
+{
+	private final EventProcessorHost host;
+	private final Slot[] slots;
+
+	EventHubClientPool(EventProcessorHost host, int poolSize)
+	{
+		if (poolSize <= 0)
+		{
+			throw new IllegalArgumentException("Connection pool size must be greater than 0");
+		}
+
+		this.host = host;
+		this.slots = new Slot[poolSize];
+		for (int i = 0; i < poolSize; i++)
+		{
+			this.slots[i] = new Slot(i);
+		}
+	}
+
+	/**
+	 * Takes a reference on the least used client, creating the client if needed. The caller must release the
+	 * reference when done with it - whether or not the client could be created.
+	 *
+	 * @param partitionId	partition the client is for, used for logging only
+	 * @return				reference to a shared client
+	 */
+	synchronized ClientReference acquire(String partitionId) throws ServiceBusException, IOException
+	{
+		Slot leastUsed = this.slots[0];
+		for (Slot slot : this.slots)
+		{
+			if (slot.refCount < leastUsed.refCount)
+			{
+				leastUsed = slot;
+			}
+		}
+
+		// A client which failed to open is replaced, so that partitions retrying the open don't keep getting the same failure.
+		if ((leastUsed.client == null) || leastUsed.client.isCompletedExceptionally() || leastUsed.client.isCancelled())
+		{
+			this.host.logWithHostAndPartition(Level.FINE, partitionId, "Creating pooled EH client " + leastUsed.index);
+			leastUsed.client = EventHubClient.createFromConnectionString(this.host.getEventHubConnectionString());
+		}
+
+		leastUsed.refCount++;
+		this.host.logWithHostAndPartition(Level.FINER, partitionId, "Using pooled EH client " + leastUsed.index + ", partitions on client: " + leastUsed.refCount);
+		return new ClientReference(leastUsed, leastUsed.client);
+	}
+
+	private synchronized void release(ClientReference reference)
+	{
+		Slot slot = reference.slot;
+		slot.refCount--;
+		// The count covers every reference to the slot, including ones to a client which failed and was replaced.
+		if ((slot.refCount == 0) && (slot.client != null))
+		{
+			this.host.logWithHost(Level.FINE, "Closing pooled EH client " + slot.index);
+			slot.client.thenAccept((client) -> client.close());
+			slot.client = null;
+		}
+	}
+
+	/**
+	 * Number of partitions currently using each pooled client.
+	 */
+	synchronized int[] getReferenceCounts()
+	{
+		int[] counts = new int[this.slots.length];
+		for (int i = 0; i < this.slots.length; i++)
+		{
+			counts[i] = this.slots[i].refCount;
+		}
+		return counts;
+	}
+
+	private static class Slot
+	{
+		final int index;
+		CompletableFuture<EventHubClient> client = null;
+		int refCount = 0;
+
+		Slot(int index)
+		{
+			this.index = index;
+		}
+	}
+
+	class ClientReference
+	{
+		private final Slot slot;
+		private final CompletableFuture<EventHubClient> client;
+		private boolean released = false;
+
+		private ClientReference(Slot slot, CompletableFuture<EventHubClient> client)
+		{
+			this.slot = slot;
+			this.client = client;
+		}
+
+		/**
+		 * A future for the shared client, which is safe to cancel - cancelling it does not affect other users of the client.
+		 */
+		CompletableFuture<EventHubClient> getClient()
+		{
+			return this.client.thenApply((client) -> client);
+		}
+
+		void release()
+		{
+			synchronized (EventHubClientPool.this)
+			{
+				if (!this.released)
+				{
+					this.released = true;
+					EventHubClientPool.this.release(this);
+				}
+			}
+		}
+	}
+}
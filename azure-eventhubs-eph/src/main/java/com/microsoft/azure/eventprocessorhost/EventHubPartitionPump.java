@@ -10,6 +10,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
 import com.microsoft.azure.eventhubs.EventData;
@@ -24,9 +25,11 @@ class EventHubPartitionPump extends PartitionPump
 {
     private CompletableFuture<?> internalOperationFuture = null;
     
+	private EventHubClientPool.ClientReference clientReference = null;
 	private EventHubClient eventHubClient = null;
 	private PartitionReceiver partitionReceiver = null;
     private InternalReceiveHandler internalReceiveHandler = null;
+    private Executor processorExecutor = null;
 
 	EventHubPartitionPump(EventProcessorHost host, Pump pump, Lease lease)
 	{
@@ -79,7 +82,10 @@ class EventHubPartitionPump extends PartitionPump
             // meaning it is safe to set the handler and start calling IEventProcessor.onEvents.
             // Set the status to running before setting the javaClient handler, so the IEventProcessor.onEvents can never race and see status != running.
             this.pumpStatus = PartitionPumpStatus.PP_RUNNING;
-            this.partitionReceiver.setReceiveHandler(this.internalReceiveHandler, this.host.getEventProcessorOptions().getInvokeProcessorAfterReceiveTimeout());
+            // onEvents runs on the host's processor pool, which has a thread for each running pump, up to a limit.
+            this.processorExecutor = EventProcessorHost.acquireProcessorExecutor();
+            this.partitionReceiver.setReceiveHandler(this.internalReceiveHandler, this.host.getEventProcessorOptions().getInvokeProcessorAfterReceiveTimeout(),
+            		this.processorExecutor);
         }
         
         if (this.pumpStatus == PartitionPumpStatus.PP_OPENFAILED)
@@ -92,15 +98,24 @@ class EventHubPartitionPump extends PartitionPump
     
     private void openClients() throws ServiceBusException, IOException, InterruptedException, ExecutionException
     {
-    	// Create new client
+    	// Get a client from the host's pool. The reference is released in cleanUpClients, even if the client failed to open.
     	this.host.logWithHostAndPartition(Level.FINER, this.partitionContext, "Opening EH client");
-		this.internalOperationFuture = EventHubClient.createFromConnectionString(this.host.getEventHubConnectionString());
+    	if (this.clientReference != null)
+    	{
+    		// Left over from a failed attempt. Let go of it, so that a client which failed to open gets replaced.
+    		this.clientReference.release();
+    	}
+		this.clientReference = this.host.getClientPool().acquire(this.partitionContext.getPartitionId());
+		this.internalOperationFuture = this.clientReference.getClient();
 		this.eventHubClient = (EventHubClient) this.internalOperationFuture.get();
 		this.internalOperationFuture = null;
 		
 	// Create new receiver and set options
         ReceiverOptions options = new ReceiverOptions();
         options.setReceiverRuntimeMetricEnabled(this.host.getEventProcessorOptions().getReceiverRuntimeMetricEnabled());
+        options.setPrefetchBytes(this.host.getEventProcessorOptions().getPrefetchBytes());
+        options.setPrefetchBudget(this.host.getEventProcessorOptions().getPrefetchBudget());
+        options.setPayloadDecodingEnabled(this.host.getEventProcessorOptions().getPayloadDecodingEnabled());
     	Object startAt = this.partitionContext.getInitialOffset();
     	long epoch = this.lease.getEpoch();
     	this.host.logWithHostAndPartition(Level.FINER, this.partitionContext, "Opening EH receiver with epoch " + epoch + " at location " + startAt);
@@ -132,6 +147,8 @@ class EventHubPartitionPump extends PartitionPump
 		}
 		this.partitionReceiver.setPrefetchCount(this.host.getEventProcessorOptions().getPrefetchCount());
 		this.partitionReceiver.setReceiveTimeout(this.host.getEventProcessorOptions().getReceiveTimeOut());
+		this.partitionReceiver.setReceiveBatchOptions(this.host.getEventProcessorOptions().getMinBatchSize(),
+				this.host.getEventProcessorOptions().getMaxBatchWaitTime());
 		this.internalOperationFuture = null;
 		
         this.host.logWithHostAndPartition(Level.FINER, this.partitionContext, "EH client and receiver creation finished");
@@ -154,11 +171,19 @@ class EventHubPartitionPump extends PartitionPump
         	this.partitionReceiver.close();
         	this.partitionReceiver = null;
         }
+
+        if (this.processorExecutor != null)
+        {
+        	EventProcessorHost.releaseProcessorExecutor(this.processorExecutor);
+        	this.processorExecutor = null;
+        }
         
-        if (this.eventHubClient != null)
+        // The client is shared with other partitions - the pool closes it when the last partition using it lets go.
+        if (this.clientReference != null)
         {
-        	this.host.logWithHostAndPartition(Level.FINER, this.partitionContext, "Closing EH client");
-        	this.eventHubClient.close();
+        	this.host.logWithHostAndPartition(Level.FINER, this.partitionContext, "Releasing EH client");
+        	this.clientReference.release();
+        	this.clientReference = null;
         	this.eventHubClient = null;
         }
     }
@@ -178,10 +203,11 @@ class EventHubPartitionPump extends PartitionPump
     		// Disconnect any processor from the receiver so the processor won't get
     		// any more calls. But a call could be in progress right now. 
     		this.partitionReceiver.setReceiveHandler(null);
-    		
-            // Close the EH clients. Errors are swallowed, nothing we could do about them anyway.
-            cleanUpClients();
     	}
+    	
+        // Close the EH clients. Errors are swallowed, nothing we could do about them anyway.
+        // Done even if there is no receiver, so that the reference on the pooled client is released.
+        cleanUpClients();
     }
     
     
@@ -200,11 +226,11 @@ class EventHubPartitionPump extends PartitionPump
                         EventHubPartitionPump.this.partitionContext.setRuntimeInformation(EventHubPartitionPump.this.partitionReceiver.getRuntimeInformation());
                     }
                     
-                    // This method is called on the thread that the Java EH client uses to run the pump.
-                    // There is one pump per EventHubClient. Since each PartitionPump creates a new EventHubClient,
-                    // using that thread to call onEvents does no harm. Even if onEvents is slow, the pump will
-                    // get control back each time onEvents returns, and be able to receive a new batch of messages
-                    // with which to make the next onEvents call. The pump gains nothing by running faster than onEvents.
+                    // This method is called on a thread of the host's processor pool, once a batch of events has arrived.
+                    // The client issues the next receive only after this returns, so there is at most one call per
+                    // PartitionReceiver at a time, and no thread is held while waiting for events. A slow onEvents
+                    // holds back only its own partition: the receiver grants the service credit as events are handed
+                    // out, so it gains nothing by prefetching further ahead of onEvents.
 
                     // The underlying client returns null if there are no events, but the contract for IEventProcessor
                     // is different and is expecting an empty iterable if there are no events (and invoke processor after
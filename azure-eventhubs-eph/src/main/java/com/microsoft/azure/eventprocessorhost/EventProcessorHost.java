@@ -13,6 +13,7 @@ import java.security.InvalidKeyException;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -30,6 +31,7 @@ public final class EventProcessorHost
     private PartitionManager partitionManager;
     private IEventProcessorFactory<?> processorFactory = null;
     private EventProcessorOptions processorOptions;
+    private EventHubClientPool clientPool;
 
     // Thread pool is shared among all instances of EventProcessorHost
     // weOwnExecutor exists to support user-supplied thread pools if we add that feature later.
@@ -39,6 +41,14 @@ public final class EventProcessorHost
     private static int executorRefCount = 0;
     private static Boolean weOwnExecutor = true;
     private static boolean autoShutdownExecutor = false;
+
+    // IEventProcessor.onEvents calls of all partition pumps in the process run on their own pool when we own the executor:
+    // a receiver has at most one call in progress, so the pool is sized to one thread per running pump, up to
+    // MAX_PROCESSOR_THREADS, beyond which calls wait in its queue. Its threads are daemons and end when idle.
+    private static final int MAX_PROCESSOR_THREADS = Math.max(16, 2 * Runtime.getRuntime().availableProcessors());
+    private static final Object processorExecutorSynchronizer = new Object();
+    private static ThreadPoolExecutor processorExecutor = null;
+    private static int processorPumpCount = 0;
     
     public final static String EVENTPROCESSORHOST_TRACE = "eventprocessorhost.trace";
 	private static final Logger TRACE_LOGGER = Logger.getLogger(EventProcessorHost.EVENTPROCESSORHOST_TRACE);
@@ -366,6 +376,10 @@ public final class EventProcessorHost
 		        else
 		        {
 		        	EventProcessorHost.weOwnExecutor = true;
+		        	// Unbounded on purpose: lease and checkpoint operations block on storage calls, and tasks on this pool
+		        	// wait on the futures of other tasks on it - a bounded pool could have all of its threads waiting on
+		        	// tasks queued behind them. The thread count follows the number of partitions and the storage latency.
+		        	// onEvents calls, which are the user's code, run on the bounded processor pool instead.
 		        	EventProcessorHost.executorService = Executors.newCachedThreadPool();
 		        	EventProcessorHost.executorRefCount++;
 		        }
@@ -402,6 +416,64 @@ public final class EventProcessorHost
     
     // All of these accessors are for internal use only.
     static ExecutorService getExecutorService() { return EventProcessorHost.executorService; }
+
+    // Called by a partition pump before it starts calling onEvents - release with releaseProcessorExecutor once it has stopped.
+    // A user-supplied ExecutorService is used as is: its owner decides how it is bounded.
+    static Executor acquireProcessorExecutor()
+    {
+    	if (!EventProcessorHost.weOwnExecutor)
+    	{
+    		return EventProcessorHost.executorService;
+    	}
+
+    	synchronized (EventProcessorHost.processorExecutorSynchronizer)
+    	{
+    		if (EventProcessorHost.processorExecutor == null)
+    		{
+    			final AtomicInteger threadCount = new AtomicInteger();
+    			EventProcessorHost.processorExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), (runnable) ->
+    			{
+    				Thread thread = new Thread(runnable, "eph-processor-" + threadCount.incrementAndGet());
+    				thread.setDaemon(true);
+    				return thread;
+    			});
+    			EventProcessorHost.processorExecutor.allowCoreThreadTimeOut(true);
+    		}
+
+    		EventProcessorHost.processorPumpCount++;
+    		resizeProcessorExecutor();
+    		return EventProcessorHost.processorExecutor;
+    	}
+    }
+
+    static void releaseProcessorExecutor(Executor executor)
+    {
+    	synchronized (EventProcessorHost.processorExecutorSynchronizer)
+    	{
+    		if ((executor != null) && (executor == EventProcessorHost.processorExecutor))
+    		{
+    			EventProcessorHost.processorPumpCount--;
+    			resizeProcessorExecutor();
+    		}
+    	}
+    }
+
+    // Call with processorExecutorSynchronizer held.
+    private static void resizeProcessorExecutor()
+    {
+    	final int size = Math.max(1, Math.min(EventProcessorHost.MAX_PROCESSOR_THREADS, EventProcessorHost.processorPumpCount));
+    	// The core size can never be set above the maximum: grow the maximum first, shrink it last.
+    	if (size > EventProcessorHost.processorExecutor.getMaximumPoolSize())
+    	{
+    		EventProcessorHost.processorExecutor.setMaximumPoolSize(size);
+    		EventProcessorHost.processorExecutor.setCorePoolSize(size);
+    	}
+    	else
+    	{
+    		EventProcessorHost.processorExecutor.setCorePoolSize(size);
+    		EventProcessorHost.processorExecutor.setMaximumPoolSize(size);
+    	}
+    }
     ICheckpointManager getCheckpointManager() { return this.checkpointManager; }
     ILeaseManager getLeaseManager() { return this.leaseManager; }
     PartitionManager getPartitionManager() { return this.partitionManager; }
@@ -409,6 +481,7 @@ public final class EventProcessorHost
     String getEventHubPath() { return this.eventHubPath; }
     String getConsumerGroupName() { return this.consumerGroupName; }
     EventProcessorOptions getEventProcessorOptions() { return this.processorOptions; }
+    EventHubClientPool getClientPool() { return this.clientPool; }
     
     /**
      * Register class for event processor and start processing.
@@ -506,6 +579,7 @@ public final class EventProcessorHost
         logWithHost(Level.FINE, "Starting event processing");
         this.processorFactory = factory;
         this.processorOptions = processorOptions;
+        this.clientPool = new EventHubClientPool(this, processorOptions.getConnectionPoolSize());
         return EventProcessorHost.executorService.submit(() -> this.partitionManager.initialize()); 
     }
 
@@ -10,15 +10,25 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.ReceiverOptions;
+import com.microsoft.azure.servicebus.PrefetchBudget;
 
 public final class EventProcessorOptions
 {
 	private Consumer<ExceptionReceivedEventArgs> exceptionNotificationHandler = null;
     private Boolean invokeProcessorAfterReceiveTimeout = false;
     private boolean receiverRuntimeMetricEnabled = false;
+    private boolean payloadDecodingEnabled = false;
     private int maxBatchSize = 10;
+    private int minBatchSize = 1;
+    private Duration maxBatchWaitTime = Duration.ZERO;
     private int prefetchCount = 300;
+    private long prefetchBytes = 0;
+    private PrefetchBudget prefetchBudget = null;
     private Duration receiveTimeOut = Duration.ofMinutes(1);
+    private int connectionPoolSize = 4;
+    private int checkpointFlushEventCount = 1;
+    private Duration checkpointFlushInterval = null;
     private Function<String, Object> initialOffsetProvider = (partitionId) -> { return PartitionReceiver.START_OF_STREAM; };
 
     /***
@@ -27,11 +37,19 @@ public final class EventProcessorOptions
      * The default values are:
      * <pre>
      * MaxBatchSize: 10
+     * MinBatchSize: 1
+     * MaxBatchWaitTime: 0 (no wait)
      * ReceiveTimeOut: 1 minute
      * PrefetchCount: 300
+     * PrefetchBytes: 0 (no limit)
+     * PrefetchBudget: null (no budget)
      * InitialOffsetProvider: uses the last offset checkpointed, or START_OF_STREAM
      * InvokeProcessorAfterReceiveTimeout: false
      * ReceiverRuntimeMetricEnabled: false
+     * PayloadDecodingEnabled: false
+     * ConnectionPoolSize: 4
+     * CheckpointFlushEventCount: 1
+     * CheckpointFlushInterval: null (no time-based flush)
      * </pre>
      * 
      * @return an EventProcessorOptions instance with all options set to the default values
@@ -80,6 +98,52 @@ public final class EventProcessorOptions
         this.maxBatchSize = maxBatchSize;
     }
 
+    /**
+     * Returns the number of events to wait for before calling IEventProcessor.onEvents
+     * 
+     * @return the minimum number of events passed to one call to IEventProcessor.onEvents, unless MaxBatchWaitTime passes first
+     */
+    public int getMinBatchSize()
+    {
+        return this.minBatchSize;
+    }
+
+    /**
+     * Sets the number of events to wait for before calling IEventProcessor.onEvents. Waiting for larger batches
+     * cuts the per-call processing and checkpointing cost when events trickle in. The wait is bounded by MaxBatchWaitTime.
+     * 
+     * The default is 1.
+     *  
+     * @param minBatchSize the minimum number of events passed to one call to IEventProcessor.onEvents
+     */
+    public void setMinBatchSize(int minBatchSize)
+    {
+        this.minBatchSize = minBatchSize;
+    }
+
+    /**
+     * Returns the longest to wait for MinBatchSize events before calling IEventProcessor.onEvents with fewer
+     * 
+     * @return the maximum wait time
+     */
+    public Duration getMaxBatchWaitTime()
+    {
+        return this.maxBatchWaitTime;
+    }
+
+    /**
+     * Sets the longest to wait for MinBatchSize events. Once it passes, IEventProcessor.onEvents is called with
+     * the events available - or, if there are none, with the next event.
+     * 
+     * The default is 0.
+     *  
+     * @param maxBatchWaitTime the maximum wait time
+     */
+    public void setMaxBatchWaitTime(Duration maxBatchWaitTime)
+    {
+        this.maxBatchWaitTime = maxBatchWaitTime;
+    }
+
     /**
      * Returns the timeout for receive operations.
      * 
@@ -122,6 +186,53 @@ public final class EventProcessorOptions
         this.prefetchCount = prefetchCount;
     }
 
+    /***
+     * Returns the limit on the size of the events prefetched by each partition's client.
+     * 
+     * @return the limit in bytes, or 0 if only the prefetch count applies
+     */
+    public long getPrefetchBytes()
+    {
+        return this.prefetchBytes;
+    }
+
+    /***
+     * Sets a limit on the size of the events prefetched by each partition's client, in addition to the prefetch count.
+     * 
+     * The host's memory for prefetched events is then bounded by roughly this times the number of partitions it owns,
+     * even when the events are large. The default is 0, no limit.
+     * 
+     * @param prefetchBytes  The new limit in bytes.
+     */
+    public void setPrefetchBytes(long prefetchBytes)
+    {
+        this.prefetchBytes = prefetchBytes;
+    }
+
+    /***
+     * Returns the budget shared by the clients of all partitions for their prefetched events.
+     * 
+     * @return the budget, or null if there is none
+     */
+    public PrefetchBudget getPrefetchBudget()
+    {
+        return this.prefetchBudget;
+    }
+
+    /***
+     * Sets a budget shared by the clients of all partitions the host owns, so that the size of the events prefetched
+     * by the host stays under the budget's limit however many partitions it owns. Busy partitions get a larger share of the
+     * budget than idle ones. The same budget can be shared by several hosts in a process.
+     * 
+     * The default is null, no budget.
+     * 
+     * @param prefetchBudget  The budget.
+     */
+    public void setPrefetchBudget(PrefetchBudget prefetchBudget)
+    {
+        this.prefetchBudget = prefetchBudget;
+    }
+
     /***
      * If there is no checkpoint for a partition, the initialOffsetProvider function is used to determine
      * the offset at which to start receiving events for that partition.
@@ -199,6 +310,109 @@ public final class EventProcessorOptions
         this.receiverRuntimeMetricEnabled = value;
     }
 
+    /**
+     * Gets whether events sent compressed with a {@link com.microsoft.azure.eventhubs.PayloadCodec} are decompressed before they are passed to onEvents.
+     * @return true if received events are decompressed
+     * @see ReceiverOptions#setPayloadDecodingEnabled(boolean)
+     */
+    public boolean getPayloadDecodingEnabled()
+    {
+        return this.payloadDecodingEnabled;
+    }
+
+    /**
+     * Knob to enable/disable decompressing events sent with a {@link com.microsoft.azure.eventhubs.PayloadCodec}, for the receivers of all partitions.
+     * Disabled by default - enable it only for Event Hubs whose senders are trusted.
+     * @param value the {@link boolean} to indicate, whether, received events should be decompressed
+     * @see ReceiverOptions#setPayloadDecodingEnabled(boolean)
+     */
+    public void setPayloadDecodingEnabled(boolean value)
+    {
+        this.payloadDecodingEnabled = value;
+    }
+
+    /***
+     * Returns the maximum number of connections to Event Hubs which the EventProcessorHost shares among the partitions it owns.
+     * 
+     * @return the maximum number of connections
+     */
+    public int getConnectionPoolSize()
+    {
+        return this.connectionPoolSize;
+    }
+
+    /***
+     * Sets the maximum number of connections to Event Hubs which the EventProcessorHost shares among the partitions it owns.
+     * 
+     * Each connection has its own thread. The receivers for the owned partitions are spread evenly across the connections,
+     * and a connection is closed once none of the owned partitions use it. The default is 4.
+     * 
+     * @param connectionPoolSize  the new maximum number of connections, must be greater than 0
+     */
+    public void setConnectionPoolSize(int connectionPoolSize)
+    {
+        if (connectionPoolSize <= 0)
+        {
+            throw new IllegalArgumentException("Connection pool size must be greater than 0");
+        }
+        this.connectionPoolSize = connectionPoolSize;
+    }
+
+    /***
+     * Returns how many events a checkpoint requested with PartitionContext.checkpointAsync must be past the last
+     * written checkpoint before it is written.
+     * 
+     * @return the event count which triggers a checkpoint write, 0 if writes are not triggered by event count
+     */
+    public int getCheckpointFlushEventCount()
+    {
+        return this.checkpointFlushEventCount;
+    }
+
+    /***
+     * Sets how many events a checkpoint requested with PartitionContext.checkpointAsync must be past the last
+     * written checkpoint before it is written.
+     * 
+     * Regardless of this setting, at most one checkpoint write per partition is in flight, and checkpoints requested
+     * meanwhile are coalesced into one write of the latest position. The default of 1 writes as soon as the previous
+     * write is done. Pending checkpoints are always written when the partition is closed or the lease is lost.
+     * 
+     * @param checkpointFlushEventCount  the event count which triggers a write, or 0 to rely on the flush interval and close only
+     */
+    public void setCheckpointFlushEventCount(int checkpointFlushEventCount)
+    {
+        if (checkpointFlushEventCount < 0)
+        {
+            throw new IllegalArgumentException("Checkpoint flush event count must not be negative");
+        }
+        this.checkpointFlushEventCount = checkpointFlushEventCount;
+    }
+
+    /***
+     * Returns how long a checkpoint requested with PartitionContext.checkpointAsync may stay pending before it is written.
+     * 
+     * @return the maximum time a checkpoint stays pending, null if writes are not triggered by time
+     */
+    public Duration getCheckpointFlushInterval()
+    {
+        return this.checkpointFlushInterval;
+    }
+
+    /***
+     * Sets how long a checkpoint requested with PartitionContext.checkpointAsync may stay pending before it is written,
+     * whether or not the flush event count has been reached. The default is null, no time-based writes.
+     * 
+     * @param checkpointFlushInterval  the maximum time a checkpoint stays pending, or null
+     */
+    public void setCheckpointFlushInterval(Duration checkpointFlushInterval)
+    {
+        if ((checkpointFlushInterval != null) && (checkpointFlushInterval.isNegative() || checkpointFlushInterval.isZero()))
+        {
+            throw new IllegalArgumentException("Checkpoint flush interval must be positive or null");
+        }
+        this.checkpointFlushInterval = checkpointFlushInterval;
+    }
+
     void notifyOfException(String hostname, Exception exception, String action)
     {
     	notifyOfException(hostname, exception, action, ExceptionReceivedEventArgs.NO_ASSOCIATED_PARTITION);
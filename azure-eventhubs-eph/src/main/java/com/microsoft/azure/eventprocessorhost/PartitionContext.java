@@ -6,6 +6,7 @@
 package com.microsoft.azure.eventprocessorhost;
 
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -25,6 +26,7 @@ public class PartitionContext
     private String offset = PartitionReceiver.START_OF_STREAM;
     private long sequenceNumber = 0;
     private ReceiverRuntimeInformation runtimeInformation;
+    private final CheckpointCoalescer checkpointCoalescer;
     
     PartitionContext(EventProcessorHost host, String partitionId, String eventHubPath, String consumerGroupName)
     {
@@ -34,6 +36,9 @@ public class PartitionContext
         this.consumerGroupName = consumerGroupName;
 
       this.runtimeInformation = new ReceiverRuntimeInformation(partitionId);
+
+        EventProcessorOptions options = (host.getEventProcessorOptions() != null) ? host.getEventProcessorOptions() : EventProcessorOptions.getDefaultOptions();
+        this.checkpointCoalescer = new CheckpointCoalescer(host, this, options.getCheckpointFlushEventCount(), options.getCheckpointFlushInterval());
     }
 
     public String getConsumerGroupName()
@@ -125,6 +130,7 @@ public class PartitionContext
 	    	this.offset = startingCheckpoint.getOffset();
 	    	startAt = this.offset;
 	    	this.sequenceNumber = startingCheckpoint.getSequenceNumber();
+	    	this.checkpointCoalescer.setWrittenSequenceNumber(this.sequenceNumber);
 	    	this.host.logWithHostAndPartition(Level.FINER, this.partitionId, "Retrieved starting offset " + this.offset + "//" + this.sequenceNumber);
     	}
     	
@@ -133,6 +139,8 @@ public class PartitionContext
 
     /**
      * Writes the current offset and sequenceNumber to the checkpoint store via the checkpoint manager.
+     * <p>
+     * Any checkpoint still pending from checkpointAsync is written as well, and the call returns when the write is done.
      * @throws IllegalArgumentException  If this.sequenceNumber is less than the last checkpointed value  
      * @throws ExecutionException 
      * @throws InterruptedException 
@@ -149,6 +157,20 @@ public class PartitionContext
     	persistCheckpoint(capturedCheckpoint);
     }
 
+    /**
+     * Requests a checkpoint at the current offset and sequenceNumber without waiting for it to be written.
+     * <p>
+     * Checkpoints requested asynchronously are written in the background according to the checkpoint flush policy in
+     * EventProcessorOptions. Requests made before an earlier one was written are coalesced, so that only the latest
+     * position is written. Any pending checkpoint is also written when the partition is closed.
+     * 
+     * @return a future which completes when a checkpoint at or past the current position has been written
+     */
+    public CompletableFuture<Void> checkpointAsync()
+    {
+    	return this.checkpointCoalescer.request(new Checkpoint(this.partitionId, this.offset, this.sequenceNumber));
+    }
+
     /**
      * Stores the offset and sequenceNumber from the provided received EventData instance, then writes those
      * values to the checkpoint store via the checkpoint manager.
@@ -162,12 +184,28 @@ public class PartitionContext
     {
     	persistCheckpoint(new Checkpoint(this.partitionId, event.getSystemProperties().getOffset(), event.getSystemProperties().getSequenceNumber()));
     }
+
+    /**
+     * Requests a checkpoint at the offset and sequenceNumber of the provided received EventData instance, without
+     * waiting for it to be written. See {@link #checkpointAsync()}.
+     * 
+     * @param event  A received EventData with valid offset and sequenceNumber
+     * @return a future which completes when a checkpoint at or past the event has been written
+     */
+    public CompletableFuture<Void> checkpointAsync(EventData event)
+    {
+    	return this.checkpointCoalescer.request(new Checkpoint(this.partitionId, event.getSystemProperties().getOffset(), event.getSystemProperties().getSequenceNumber()));
+    }
     
     private void persistCheckpoint(Checkpoint persistThis) throws IllegalArgumentException, InterruptedException, ExecutionException
     {
-    	this.host.logWithHostAndPartition(Level.FINER, persistThis.getPartitionId(), "Saving checkpoint: " +
-    			persistThis.getOffset() + "//" + persistThis.getSequenceNumber());
-		
-        this.host.getCheckpointManager().updateCheckpoint(this.lease, persistThis).get();
+    	this.checkpointCoalescer.request(persistThis);
+    	this.checkpointCoalescer.flush().get();
+    }
+
+    // Writes any checkpoint pending from checkpointAsync, called when the partition is closed.
+    CompletableFuture<Void> flushCheckpoints()
+    {
+    	return this.checkpointCoalescer.flush();
     }
 }
@@ -8,17 +8,8 @@ package com.microsoft.azure.eventprocessorhost;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.concurrent.Callable;
@@ -26,23 +17,11 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import com.microsoft.azure.servicebus.ConnectionStringBuilder;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubRuntimeInformation;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
 import com.microsoft.azure.servicebus.IllegalEntityException;
-import com.microsoft.azure.servicebus.SharedAccessSignatureTokenProvider;
-import com.microsoft.azure.servicebus.StringUtil;
+import com.microsoft.azure.servicebus.ServiceBusException;
 
 class PartitionManager
 {
@@ -52,6 +31,8 @@ class PartitionManager
 
     private List<String> partitionIds = null;
     
+    private EventHubClientPool.ClientReference managementClientReference = null;
+    
     private Future<?> partitionsFuture = null;
     private boolean keepGoing = true;
 
@@ -68,55 +49,59 @@ class PartitionManager
 
             try
             {
-                    String contentEncoding = StandardCharsets.UTF_8.name();
-                    ConnectionStringBuilder connectionString = new ConnectionStringBuilder(this.host.getEventHubConnectionString());
-                    URI namespaceUri = new URI("https", connectionString.getEndpoint().getHost(), null, null);
-                    String resourcePath = String.join("/", 
-                                    namespaceUri.toString(),
-                                    connectionString.getEntityPath(),
-                                    "consumergroups",
-                                    this.host.getConsumerGroupName(),
-                                    "partitions");
-
-                    String authorizationToken = connectionString.getSharedAccessSignature();
-                    if (StringUtil.isNullOrEmpty(authorizationToken))
-                    {
-                            authorizationToken = SharedAccessSignatureTokenProvider.generateSharedAccessSignature(
-                                    connectionString.getSasKeyName(), connectionString.getSasKey(), 
-                                    resourcePath, Duration.ofMinutes(20));
-                    }
-
-                    URLConnection connection = new URL(resourcePath).openConnection();
-                    connection.addRequestProperty("Authorization", authorizationToken);
-                    connection.setRequestProperty("Content-Type", "application/atom+xml;type=entry");
-                    connection.setRequestProperty("charset", contentEncoding);
-                    InputStream responseStream = connection.getInputStream();
-
-                    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-                    DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-                    Document doc = docBuilder.parse(responseStream);
-
-                    XPath xpath = XPathFactory.newInstance().newXPath();
-                    NodeList partitionIdsNodes = (NodeList) xpath.evaluate("//feed/entry/title", doc.getDocumentElement(), XPathConstants.NODESET);
-                    if (partitionIdsNodes.getLength() == 0)
-                    {
-                            throw new IllegalEntityException("EventHub does not exist");
-                    }
+            	// Ask the $management node over an AMQP connection of the client pool, instead of the REST endpoint, so
+            	// startup doesn't pay for a separate TLS handshake. The pumps then reuse the same connection.
+            	EventHubRuntimeInformation runtimeInformation = null;
+            	if (this.host.getClientPool() != null)
+            	{
+            		if (this.managementClientReference == null)
+            		{
+            			this.managementClientReference = this.host.getClientPool().acquire("$management");
+            		}
+            		EventHubClient client = this.managementClientReference.getClient().get();
+            		runtimeInformation = client.getRuntimeInformation().get();
+            		this.checkConsumerGroup(client, runtimeInformation);
+            	}
+            	else
+            	{
+            		EventHubClient client = EventHubClient.createFromConnectionStringSync(this.host.getEventHubConnectionString());
+            		try
+            		{
+            			runtimeInformation = client.getRuntimeInformationSync();
+            			this.checkConsumerGroup(client, runtimeInformation);
+            		}
+            		finally
+            		{
+            			client.closeSync();
+            		}
+            	}
 
-                    for (int partitionIndex = 0; partitionIndex < partitionIdsNodes.getLength(); partitionIndex++)
-                    {
-                            this.partitionIds.add(partitionIdsNodes.item(partitionIndex).getTextContent());    		
-                    }
+            	for (String id : runtimeInformation.getPartitionIds())
+            	{
+            		this.partitionIds.add(id);
+            	}
             }
-            catch(XPathExpressionException|ParserConfigurationException|IOException|InvalidKeyException|NoSuchAlgorithmException|URISyntaxException|SAXException exception)
+            catch (EPHConfigurationException exception)
             {
-                    String errorMessage = String.format(Locale.US, "Encountered error while fetching the list of EventHub PartitionIds: %s", exception.getMessage());
-                    if (exception instanceof FileNotFoundException)
-                    {
-                            errorMessage = "Consumer group does not exist";
-                    }
-                    this.host.logWithHost(Level.SEVERE, errorMessage);
-                    throw new EPHConfigurationException(errorMessage, exception);
+            	this.partitionIds = null;
+            	throw exception;
+            }
+            catch (InterruptedException | ExecutionException | ServiceBusException | IOException exception)
+            {
+            	Exception cause = ((exception instanceof ExecutionException) && (exception.getCause() instanceof Exception)) ? (Exception) exception.getCause() : exception;
+            	if (exception instanceof InterruptedException)
+            	{
+            		Thread.currentThread().interrupt();
+            	}
+            	this.partitionIds = null;
+            	if (cause instanceof IllegalEntityException)
+            	{
+            		this.host.logWithHost(Level.SEVERE, "EventHub does not exist");
+            		throw (IllegalEntityException) cause;
+            	}
+            	String errorMessage = String.format(Locale.US, "Encountered error while fetching the list of EventHub PartitionIds: %s", cause.getMessage());
+            	this.host.logWithHost(Level.SEVERE, errorMessage);
+            	throw new EPHConfigurationException(errorMessage, cause);
             }
 
             this.host.logWithHost(Level.FINE, "Eventhub " + this.host.getEventHubPath() + " count of partitions: " + this.partitionIds.size());
@@ -129,6 +114,48 @@ class PartitionManager
         return this.partitionIds;
     }
 
+    // The runtime information does not involve the consumer group, so a missing one would only show when every pump fails to open
+    // its receiver. Open a receiver on the first partition instead, and fail startup the way the REST feed of the partitions did.
+    private void checkConsumerGroup(EventHubClient client, EventHubRuntimeInformation runtimeInformation) throws ServiceBusException, InterruptedException
+    {
+    	if (runtimeInformation.getPartitionIds() == null || runtimeInformation.getPartitionIds().length == 0)
+    	{
+    		return;
+    	}
+
+    	PartitionReceiver receiver = null;
+    	try
+    	{
+    		// from now on - no events are due yet, so there is nothing to prefetch
+    		receiver = client.createReceiver(this.host.getConsumerGroupName(), runtimeInformation.getPartitionIds()[0], Instant.now()).get();
+    	}
+    	catch (ExecutionException exception)
+    	{
+    		if (exception.getCause() instanceof IllegalEntityException)
+    		{
+    			this.host.logWithHost(Level.SEVERE, "Consumer group does not exist");
+    			throw new EPHConfigurationException("Consumer group does not exist", (IllegalEntityException) exception.getCause());
+    		}
+
+    		// any other failure - for ex: the epoch receiver of a running host owning the partition - means the consumer group exists
+    		this.host.logWithHost(Level.FINE, "Could not open a receiver to check the consumer group, the pumps report it if it is missing", exception.getCause());
+    	}
+    	finally
+    	{
+    		if (receiver != null)
+    		{
+    			try
+    			{
+    				receiver.closeSync();
+    			}
+    			catch (ServiceBusException exception)
+    			{
+    				this.host.logWithHost(Level.FINE, "Failure closing the consumer group check receiver", exception);
+    			}
+    		}
+    	}
+    }
+
     // Testability hook: allows a test subclass to insert dummy pump.
     Pump createPumpTestHook()
     {
@@ -244,6 +271,12 @@ class PartitionManager
 			}
     	}
     	
+    	if (this.managementClientReference != null)
+    	{
+    		this.managementClientReference.release();
+    		this.managementClientReference = null;
+    	}
+    	
     	this.host.logWithHost(Level.FINE, "Partition manager exiting");
     	
     	return null;
@@ -122,7 +122,21 @@ abstract class PartitionPump
             	this.host.getEventProcessorOptions().notifyOfException(this.host.getHostName(), e, "Closing Event Processor", this.lease.getPartitionId());
             }
         }
-        
+
+        if (this.partitionContext != null)
+        {
+	        try
+	        {
+	        	// Write any checkpoint the processor requested with checkpointAsync, including from onClose, before
+	        	// the lease is released. If the lease was lost the write is expected to fail, which is only traced.
+	        	this.partitionContext.flushCheckpoints().get();
+	        }
+	        catch (Exception e)
+	        {
+	        	this.host.logWithHostAndPartition(Level.WARNING, this.partitionContext, "Failure writing pending checkpoint on close", e);
+	        }
+        }
+
         if (reason != CloseReason.LeaseLost)
         {
 	        // Since this pump is dead, release the lease. 
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.eventprocessorhost;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+
+import static org.junit.Assert.*;
+
+public class AzureStorageLeaseListingTest
+{
+	private static final List<String> PARTITION_IDS = Arrays.asList("0", "1", "2");
+
+	private FakeStorageLeaseManager leaseManager;
+
+	@Before
+	public void setup() throws Exception
+	{
+		this.leaseManager = new FakeStorageLeaseManager();
+		EventProcessorHost host = new EventProcessorHost("dummyHost", "NOTREAL", EventHubClient.DEFAULT_CONSUMER_GROUP_NAME,
+				TestUtilities.syntacticallyCorrectDummyConnectionString, this.leaseManager, this.leaseManager);
+		this.leaseManager.initialize(host);
+		host.setPartitionManager(new PartitionManager(host)
+		{
+			@Override
+			Iterable<String> getPartitionIds()
+			{
+				return PARTITION_IDS;
+			}
+		});
+
+		for (String id : PARTITION_IDS)
+		{
+			this.leaseManager.store(id, "etag-" + id + "-1", "owner" + id, 100);
+		}
+	}
+
+	@Test
+	public void firstScanListsOnceAndDownloadsEveryLease() throws Exception
+	{
+		HashMap<String, AzureBlobLease> leases = getAllLeases();
+
+		assertEquals(1, this.leaseManager.listCount);
+		assertEquals(PARTITION_IDS.size(), this.leaseManager.downloaded.size());
+		assertTrue("partitions in the listing were fetched one by one", this.leaseManager.fetchedOneByOne.isEmpty());
+		for (String id : PARTITION_IDS)
+		{
+			assertEquals("owner" + id, leases.get(id).getOwner());
+			assertEquals("100", leases.get(id).getOffset());
+			assertSame(this.leaseManager.blobs.get(id), leases.get(id).getBlob());
+		}
+	}
+
+	@Test
+	public void unchangedLeasesAreServedFromMemory() throws Exception
+	{
+		getAllLeases();
+		this.leaseManager.downloaded.clear();
+
+		HashMap<String, AzureBlobLease> leases = getAllLeases();
+
+		assertEquals(2, this.leaseManager.listCount);
+		assertTrue("unchanged leases were downloaded again", this.leaseManager.downloaded.isEmpty());
+		for (String id : PARTITION_IDS)
+		{
+			assertEquals("owner" + id, leases.get(id).getOwner());
+			assertEquals(100, leases.get(id).getSequenceNumber());
+			assertSame("the lease should carry the blob of the latest listing", this.leaseManager.blobs.get(id), leases.get(id).getBlob());
+		}
+	}
+
+	@Test
+	public void changedEtagDownloadsTheLeaseAgain() throws Exception
+	{
+		getAllLeases();
+		this.leaseManager.downloaded.clear();
+
+		// another host took partition 1 and checkpointed
+		this.leaseManager.store("1", "etag-1-2", "otherHost", 250);
+		HashMap<String, AzureBlobLease> leases = getAllLeases();
+
+		assertEquals(Collections.singletonList("1"), Arrays.asList(this.leaseManager.downloaded.toArray()));
+		assertEquals("otherHost", leases.get("1").getOwner());
+		assertEquals("250", leases.get("1").getOffset());
+		assertEquals("owner0", leases.get("0").getOwner());
+
+		// the new content is what is remembered from now on
+		this.leaseManager.downloaded.clear();
+		assertEquals("otherHost", getAllLeases().get("1").getOwner());
+		assertTrue(this.leaseManager.downloaded.isEmpty());
+	}
+
+	@Test
+	public void partitionsMissingFromTheListingAreFetchedOneByOne() throws Exception
+	{
+		this.leaseManager.listed.remove("2");
+		getAllLeases();
+
+		assertEquals(Collections.singletonList("2"), Arrays.asList(this.leaseManager.fetchedOneByOne.toArray()));
+		assertEquals(2, this.leaseManager.downloaded.size());
+	}
+
+	@Test
+	public void failedListingFallsBackToFetchingOneByOne() throws Exception
+	{
+		this.leaseManager.listingFails = true;
+		HashMap<String, AzureBlobLease> leases = getAllLeases();
+
+		assertEquals(PARTITION_IDS.size(), this.leaseManager.fetchedOneByOne.size());
+		assertEquals(PARTITION_IDS.size(), leases.size());
+	}
+
+	private HashMap<String, AzureBlobLease> getAllLeases() throws Exception
+	{
+		HashMap<String, AzureBlobLease> leases = new HashMap<String, AzureBlobLease>();
+		for (Future<Lease> future : this.leaseManager.getAllLeases())
+		{
+			AzureBlobLease lease = (AzureBlobLease) future.get(10, TimeUnit.SECONDS);
+			leases.put(lease.getPartitionId(), lease);
+		}
+		return leases;
+	}
+
+	// Stands in for the storage calls of the lease scan - there is no storage account behind it.
+	private static class FakeStorageLeaseManager extends AzureStorageCheckpointLeaseManager
+	{
+		final ConcurrentHashMap<String, CloudBlockBlob> blobs = new ConcurrentHashMap<String, CloudBlockBlob>();
+		final ConcurrentHashMap<String, String> etags = new ConcurrentHashMap<String, String>();
+		final ConcurrentHashMap<String, String> contents = new ConcurrentHashMap<String, String>();
+		final HashMap<String, CloudBlockBlob> listed = new HashMap<String, CloudBlockBlob>();
+		final ConcurrentLinkedQueue<String> downloaded = new ConcurrentLinkedQueue<String>();
+		final ConcurrentLinkedQueue<String> fetchedOneByOne = new ConcurrentLinkedQueue<String>();
+		volatile boolean listingFails = false;
+		int listCount = 0;
+
+		FakeStorageLeaseManager()
+		{
+			super("UseDevelopmentStorage=true", "leaselistingtest");
+		}
+
+		// a listing returns a new blob object every time
+		void store(String partitionId, String etag, String owner, long sequenceNumber) throws Exception
+		{
+			CloudBlockBlob blob = new CloudBlockBlob(new URI("http://127.0.0.1:10000/devstoreaccount1/leaselistingtest/$Default/" + partitionId));
+			AzureBlobLease lease = new AzureBlobLease(partitionId, blob);
+			lease.setOwner(owner);
+			lease.setOffset(Long.toString(sequenceNumber));
+			lease.setSequenceNumber(sequenceNumber);
+
+			this.blobs.put(partitionId, blob);
+			this.etags.put(partitionId, etag);
+			this.contents.put(partitionId, new Gson().toJson(lease));
+			this.listed.put(partitionId, blob);
+		}
+
+		@Override
+		HashMap<String, CloudBlockBlob> listLeaseBlobs() throws StorageException
+		{
+			this.listCount++;
+			if (this.listingFails)
+			{
+				throw new StorageException("ServerBusy", "listing failed", null);
+			}
+			return new HashMap<String, CloudBlockBlob>(this.listed);
+		}
+
+		@Override
+		String getLeaseBlobEtag(CloudBlockBlob blob)
+		{
+			return this.etags.get(partitionIdOf(blob));
+		}
+
+		@Override
+		String downloadLeaseText(CloudBlockBlob blob)
+		{
+			String partitionId = partitionIdOf(blob);
+			this.downloaded.add(partitionId);
+			return this.contents.get(partitionId);
+		}
+
+		@Override
+		AzureBlobLease getLeaseSync(String partitionId)
+		{
+			this.fetchedOneByOne.add(partitionId);
+			return new AzureBlobLease(partitionId, this.blobs.get(partitionId));
+		}
+
+		private static String partitionIdOf(CloudBlockBlob blob)
+		{
+			String name = blob.getName();
+			return name.substring(name.lastIndexOf('/') + 1);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.eventprocessorhost;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventHubClient;
+
+import static org.junit.Assert.*;
+
+public class CheckpointCoalescerTest
+{
+	private RecordingCheckpointManager checkpointManager;
+	private EventProcessorHost host;
+	private PartitionContext context;
+
+	@Before
+	public void setup()
+	{
+		this.checkpointManager = new RecordingCheckpointManager();
+		this.host = new EventProcessorHost("dummyHost", "NOTREAL", EventHubClient.DEFAULT_CONSUMER_GROUP_NAME,
+				TestUtilities.syntacticallyCorrectDummyConnectionString, this.checkpointManager, new InMemoryLeaseManager());
+		this.context = new PartitionContext(this.host, "0", "NOTREAL", EventHubClient.DEFAULT_CONSUMER_GROUP_NAME);
+	}
+
+	@Test
+	public void requestsDuringWriteAreCoalesced() throws Exception
+	{
+		CheckpointCoalescer coalescer = new CheckpointCoalescer(this.host, this.context, 1, null);
+		this.checkpointManager.gate.drainPermits();
+
+		CompletableFuture<Void> first = coalescer.request(checkpoint(1));
+		List<CompletableFuture<Void>> coalesced = new ArrayList<CompletableFuture<Void>>();
+		for (long sequenceNumber = 2; sequenceNumber <= 10; sequenceNumber++)
+		{
+			coalesced.add(coalescer.request(checkpoint(sequenceNumber)));
+		}
+		assertFalse("write completed while gated", first.isDone());
+
+		this.checkpointManager.gate.release(100);
+		first.get(5, TimeUnit.SECONDS);
+		for (CompletableFuture<Void> written : coalesced)
+		{
+			written.get(5, TimeUnit.SECONDS);
+		}
+
+		assertEquals("unexpected writes", asList(1L, 10L), this.checkpointManager.written);
+	}
+
+	@Test
+	public void eventCountAndFlushTriggerWrites() throws Exception
+	{
+		CheckpointCoalescer coalescer = new CheckpointCoalescer(this.host, this.context, 5, null);
+		coalescer.setWrittenSequenceNumber(0);
+
+		for (long sequenceNumber = 1; sequenceNumber < 5; sequenceNumber++)
+		{
+			coalescer.request(checkpoint(sequenceNumber));
+		}
+		Thread.sleep(100);
+		assertTrue("written before event count was reached", this.checkpointManager.written.isEmpty());
+
+		coalescer.request(checkpoint(5)).get(5, TimeUnit.SECONDS);
+		assertEquals("unexpected writes", asList(5L), this.checkpointManager.written);
+
+		CompletableFuture<Void> pending = coalescer.request(checkpoint(6));
+		coalescer.flush().get(5, TimeUnit.SECONDS);
+		assertTrue(pending.isDone());
+		assertEquals("unexpected writes", asList(5L, 6L), this.checkpointManager.written);
+	}
+
+	@Test
+	public void flushIntervalTriggersWrite() throws Exception
+	{
+		CheckpointCoalescer coalescer = new CheckpointCoalescer(this.host, this.context, 0, Duration.ofMillis(50));
+
+		coalescer.request(checkpoint(1));
+		coalescer.request(checkpoint(2)).get(5, TimeUnit.SECONDS);
+
+		assertEquals("unexpected writes", asList(2L), this.checkpointManager.written);
+	}
+
+	private static Checkpoint checkpoint(long sequenceNumber)
+	{
+		return new Checkpoint("0", String.valueOf(sequenceNumber * 100), sequenceNumber);
+	}
+
+	private static List<Long> asList(Long... sequenceNumbers)
+	{
+		List<Long> retval = new ArrayList<Long>();
+		Collections.addAll(retval, sequenceNumbers);
+		return retval;
+	}
+
+	private static class RecordingCheckpointManager implements ICheckpointManager
+	{
+		final Semaphore gate = new Semaphore(Integer.MAX_VALUE);
+		final List<Long> written = Collections.synchronizedList(new ArrayList<Long>());
+
+		@Override
+		public Future<Void> updateCheckpoint(Lease lease, Checkpoint checkpoint)
+		{
+			return EventProcessorHost.getExecutorService().submit(() ->
+			{
+				this.gate.acquire();
+				this.written.add(checkpoint.getSequenceNumber());
+				return null;
+			});
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public Future<Void> updateCheckpoint(Checkpoint checkpoint) { throw new UnsupportedOperationException(); }
+
+		@Override
+		public Future<Boolean> checkpointStoreExists() { throw new UnsupportedOperationException(); }
+
+		@Override
+		public Future<Boolean> createCheckpointStoreIfNotExists() { throw new UnsupportedOperationException(); }
+
+		@Override
+		public Future<Boolean> deleteCheckpointStore() { throw new UnsupportedOperationException(); }
+
+		@Override
+		public Future<Checkpoint> getCheckpoint(String partitionId) { throw new UnsupportedOperationException(); }
+
+		@Override
+		public Future<Checkpoint> createCheckpointIfNotExists(String partitionId) { throw new UnsupportedOperationException(); }
+
+		@Override
+		public Future<Void> deleteCheckpoint(String partitionId) { throw new UnsupportedOperationException(); }
+	}
+}
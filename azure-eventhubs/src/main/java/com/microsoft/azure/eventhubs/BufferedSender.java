@@ -0,0 +1,767 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.ClientEntity;
+import com.microsoft.azure.servicebus.ServiceBusException;
+import com.microsoft.azure.servicebus.StringUtil;
+
+/**
+ * Sends single {@link EventData}'s in batches: events are collected into one {@link EventDataBatch} per partitionId, per partitionKey,
+ * or for round-robin sends - and a batch is sent when it is full, or when {@link BufferedSenderOptions#getLingerTime()} has passed since its first event.
+ * <p>
+ * The future returned for each event completes when the batch carrying it is acknowledged by the service, or fails with the batch.
+ * Events for the same partitionId or partitionKey are sent in the order they were added.
+ * <p>
+ * The memory held by buffered batches - those being filled and those waiting for acknowledgement - is bounded by
+ * {@link BufferedSenderOptions#getMaxBufferedBytes()}, which can be exceeded by at most one batch per sending thread.
+ * Every batch counts with the maximum message size from its first event on, as that is the size of the buffer it is encoded into.
+ * When the buffer is full sends block, or fail, as set in the {@link BufferedSenderOptions}.
+ * <p>
+ * Create an instance using {@link EventHubClient#createBufferedSender(BufferedSenderOptions)}. This class is thread-safe.
+ */
+public final class BufferedSender extends ClientEntity
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	// every event gets its own future over the batch's, so that one caller completing it cannot complete the others
+	private static final Function<Void, Void> PER_EVENT_FUTURE = new Function<Void, Void>()
+	{
+		@Override
+		public Void apply(Void voidArg)
+		{
+			return null;
+		}
+	};
+
+	private final ISendTarget target;
+	private final int maxMessageSize;
+	private final Duration lingerTime;
+	private final long maxBufferedBytes;
+	private final boolean blockWhenBufferFull;
+	private final Duration maxBlockTime;
+	private final PayloadCodec payloadCodec;
+	private final PartitionResolver partitionResolver;
+	private final ConcurrentHashMap<String, Accumulator> accumulators;
+	private final Set<CompletableFuture<Void>> pendingBatches;
+	private final Object bufferSync;
+
+	private long bufferedBytes;
+
+	BufferedSender(final ClientEntity parent, final ISendTarget target, final int maxMessageSize, final BufferedSenderOptions options)
+	{
+		this(parent, target, maxMessageSize, options, null);
+	}
+
+	BufferedSender(final ClientEntity parent, final ISendTarget target, final int maxMessageSize, final BufferedSenderOptions options, final PartitionResolver partitionResolver)
+	{
+		super(StringUtil.getRandomString(), parent);
+
+		final BufferedSenderOptions senderOptions = options != null ? options : new BufferedSenderOptions();
+		this.target = target;
+		this.maxMessageSize = maxMessageSize;
+		this.lingerTime = senderOptions.getLingerTime();
+		this.maxBufferedBytes = senderOptions.getMaxBufferedBytes();
+		this.blockWhenBufferFull = senderOptions.getBlockWhenBufferFull();
+		this.maxBlockTime = senderOptions.getMaxBlockTime();
+		this.payloadCodec = senderOptions.getPayloadCodec();
+		this.partitionResolver = partitionResolver;
+		this.accumulators = new ConcurrentHashMap<String, Accumulator>();
+		this.pendingBatches = ConcurrentHashMap.<CompletableFuture<Void>>newKeySet();
+		this.bufferSync = new Object();
+	}
+
+	static CompletableFuture<BufferedSender> create(final EventHubClient client, final int maxMessageSize, final BufferedSenderOptions options)
+	{
+		if (options == null || !options.getRoutePartitionKeysOnClient())
+		{
+			return CompletableFuture.completedFuture(new BufferedSender(client, new ClientSendTarget(client), maxMessageSize, options));
+		}
+
+		return client.getRuntimeInformation().handle(new BiFunction<EventHubRuntimeInformation, Throwable, BufferedSender>()
+		{
+			@Override
+			public BufferedSender apply(EventHubRuntimeInformation runtimeInformation, Throwable error)
+			{
+				PartitionResolver resolver = null;
+				if (error == null && runtimeInformation.getPartitionCount() > 0)
+				{
+					resolver = new PartitionResolver(runtimeInformation.getPartitionIds());
+				}
+				else if (TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US,
+							"BufferedSender could not determine the partitions of the EventHub, partitionKey sends go through the service: %s",
+							error == null ? "no partitions" : unwrap(error).toString()));
+				}
+
+				return new BufferedSender(client, new ClientSendTarget(client), maxMessageSize, options, resolver);
+			}
+		});
+	}
+
+	/**
+	 * Adds the {@link EventData} to the batch which is sent to EventHub without a partitionKey, like {@link EventHubClient#send(EventData)}.
+	 * @param eventData the {@link EventData} to be sent.
+	 * @return a CompletableFuture that completes when the batch carrying the event is acknowledged.
+	 */
+	public CompletableFuture<Void> send(final EventData eventData)
+	{
+		return this.add(eventData, "", null, null);
+	}
+
+	/**
+	 * Adds the {@link EventData} to the batch of the partitionKey, like {@link EventHubClient#send(EventData, String)}.
+	 * <p>
+	 * If {@link #getRoutesPartitionKeysOnClient()}, the partition is resolved here instead, and the event is added to the batch of that partition
+	 * as by {@link #sendToPartition(EventData, String)}.
+	 * @param eventData    the {@link EventData} to be sent.
+	 * @param partitionKey the partitionKey will be hash'ed to determine the partitionId to send the batch to.
+	 * @return a CompletableFuture that completes when the batch carrying the event is acknowledged.
+	 */
+	public CompletableFuture<Void> send(final EventData eventData, final String partitionKey)
+	{
+		if (partitionKey == null)
+		{
+			throw new IllegalArgumentException("partitionKey cannot be null");
+		}
+
+		if (partitionKey.length() > ClientConstants.MAX_PARTITION_KEY_LENGTH)
+		{
+			throw new IllegalArgumentException(
+					String.format(Locale.US, "PartitionKey exceeds the maximum allowed length of partitionKey: %s", ClientConstants.MAX_PARTITION_KEY_LENGTH));
+		}
+
+		if (this.partitionResolver != null)
+		{
+			final String partitionId = this.partitionResolver.resolve(partitionKey);
+			return this.add(eventData, "partition:" + partitionId, null, partitionId);
+		}
+
+		return this.add(eventData, "key:" + partitionKey, partitionKey, null);
+	}
+
+	/**
+	 * Gets whether partitionKeys are resolved to partitions by this sender. False if it wasn't asked for in {@link BufferedSenderOptions#setRoutePartitionKeysOnClient(boolean)},
+	 * or if the partitions of the EventHub could not be determined when the sender was created.
+	 * @return true if partitionKey sends are routed on the client
+	 */
+	public boolean getRoutesPartitionKeysOnClient()
+	{
+		return this.partitionResolver != null;
+	}
+
+	/**
+	 * Adds the {@link EventData} to the batch of the partition, like {@link PartitionSender#send(EventData)}.
+	 * A {@link PartitionSender} is created for each partition on first use, and closed when this sender is closed.
+	 * @param eventData   the {@link EventData} to be sent.
+	 * @param partitionId the partition to send the event to.
+	 * @return a CompletableFuture that completes when the batch carrying the event is acknowledged.
+	 */
+	public CompletableFuture<Void> sendToPartition(final EventData eventData, final String partitionId)
+	{
+		if (StringUtil.isNullOrWhiteSpace(partitionId))
+		{
+			throw new IllegalArgumentException("partitionId cannot be null or empty");
+		}
+
+		return this.add(eventData, "partition:" + partitionId, null, partitionId);
+	}
+
+	/**
+	 * Sends all batches without waiting for them to fill up or for their linger time.
+	 * @return a CompletableFuture that completes when every event added before the call is acknowledged - or has failed.
+	 */
+	public CompletableFuture<Void> flush()
+	{
+		for (Accumulator accumulator : this.accumulators.values())
+		{
+			accumulator.sendBatchAndRetireIfIdle();
+		}
+
+		final List<CompletableFuture<Void>> pending = new ArrayList<CompletableFuture<Void>>(this.pendingBatches);
+		return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[pending.size()])).handle(new BiFunction<Void, Throwable, Void>()
+		{
+			@Override
+			public Void apply(Void voidArg, Throwable error)
+			{
+				// failures are reported on the futures of the events
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Gets the memory held by batches being filled and batches waiting for acknowledgement - each counts with the maximum message size.
+	 * @return the buffered bytes
+	 */
+	public long getBufferedBytes()
+	{
+		synchronized (this.bufferSync)
+		{
+			return this.bufferedBytes;
+		}
+	}
+
+	@Override
+	protected CompletableFuture<Void> onClose()
+	{
+		return this.flush().thenCompose(new Function<Void, CompletableFuture<Void>>()
+		{
+			@Override
+			public CompletableFuture<Void> apply(Void voidArg)
+			{
+				final List<CompletableFuture<Void>> closes = new ArrayList<CompletableFuture<Void>>();
+				for (Accumulator accumulator : BufferedSender.this.accumulators.values())
+				{
+					closes.add(accumulator.closeSender());
+				}
+
+				return CompletableFuture.allOf(closes.toArray(new CompletableFuture<?>[closes.size()]));
+			}
+		});
+	}
+
+	private CompletableFuture<Void> add(final EventData eventData, final String accumulatorKey, final String partitionKey, final String partitionId)
+	{
+		if (eventData == null)
+		{
+			throw new IllegalArgumentException("EventData cannot be null.");
+		}
+
+		this.throwIfClosed(null);
+
+		// wait outside of the accumulator, so that its linger timer can still send the batch and free up the buffer
+		final ServiceBusException bufferFull = this.awaitBufferSpace();
+		if (bufferFull != null)
+		{
+			final CompletableFuture<Void> failed = new CompletableFuture<Void>();
+			failed.completeExceptionally(bufferFull);
+			return failed;
+		}
+
+		while (true)
+		{
+			Accumulator accumulator = this.accumulators.get(accumulatorKey);
+			if (accumulator == null)
+			{
+				final Accumulator created = new Accumulator(accumulatorKey, partitionKey, partitionId);
+				accumulator = this.accumulators.putIfAbsent(accumulatorKey, created);
+				if (accumulator == null)
+				{
+					accumulator = created;
+					accumulator.openSender();
+				}
+			}
+
+			final CompletableFuture<Void> added = accumulator.add(eventData);
+			if (added != null)
+			{
+				return added;
+			}
+
+			// the accumulator was retired after it was looked up - the next lookup finds or creates its successor
+		}
+	}
+
+	// number of partitionIds, partitionKeys and round-robin sends which have an accumulator - for tests
+	int getAccumulatorCount()
+	{
+		return this.accumulators.size();
+	}
+
+	// returns the exception to fail the send with, or null if there is space in the buffer
+	private ServiceBusException awaitBufferSpace()
+	{
+		synchronized (this.bufferSync)
+		{
+			if (this.bufferedBytes < this.maxBufferedBytes)
+			{
+				return null;
+			}
+
+			if (this.blockWhenBufferFull)
+			{
+				final long deadline = System.nanoTime() + this.maxBlockTime.toNanos();
+				try
+				{
+					while (this.bufferedBytes >= this.maxBufferedBytes)
+					{
+						final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+						if (remainingMillis <= 0)
+						{
+							break;
+						}
+
+						this.bufferSync.wait(remainingMillis);
+					}
+				}
+				catch (InterruptedException interrupted)
+				{
+					// Re-assert the thread's interrupted status
+					Thread.currentThread().interrupt();
+				}
+
+				if (this.bufferedBytes < this.maxBufferedBytes)
+				{
+					return null;
+				}
+			}
+
+			return new ServiceBusException(true, String.format(Locale.US,
+					"BufferedSender buffer is full: %s bytes are waiting to be sent, maxBufferedBytes is %s.", this.bufferedBytes, this.maxBufferedBytes));
+		}
+	}
+
+	private void reserveBufferSpace(final long bytes)
+	{
+		synchronized (this.bufferSync)
+		{
+			this.bufferedBytes += bytes;
+		}
+	}
+
+	private void releaseBufferSpace(final long bytes)
+	{
+		synchronized (this.bufferSync)
+		{
+			this.bufferedBytes -= bytes;
+			this.bufferSync.notifyAll();
+		}
+	}
+
+	private static Throwable unwrap(final Throwable error)
+	{
+		return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+	}
+
+	// collects the events of one partitionId, partitionKey or of round-robin sends
+	private final class Accumulator
+	{
+		private final String key;
+		private final String partitionKey;
+		private final String partitionId;
+
+		// all below are guarded by this
+		private final LinkedList<PendingBatch> waitingForSender;
+		private CompletableFuture<IBatchSender> senderCreate;
+		private IBatchSender sender;
+		private Throwable senderFailure;
+		private EventDataBatch batch;
+		private CompletableFuture<Void> batchSent;
+		private ScheduledFuture<?> lingerTimer;
+		private boolean retired;
+
+		Accumulator(final String key, final String partitionKey, final String partitionId)
+		{
+			this.key = key;
+			this.partitionKey = partitionKey;
+			this.partitionId = partitionId;
+			this.waitingForSender = new LinkedList<PendingBatch>();
+		}
+
+		void openSender()
+		{
+			if (this.partitionId == null)
+			{
+				return;
+			}
+
+			final CompletableFuture<IBatchSender> create;
+			synchronized (this)
+			{
+				try
+				{
+					create = BufferedSender.this.target.createPartitionSender(this.partitionId);
+				}
+				catch (Throwable error)
+				{
+					this.onSenderCreated(null, error);
+					return;
+				}
+
+				this.senderCreate = create;
+			}
+
+			create.whenComplete(new BiConsumer<IBatchSender, Throwable>()
+			{
+				@Override
+				public void accept(IBatchSender result, Throwable error)
+				{
+					Accumulator.this.onSenderCreated(result, error);
+				}
+			});
+		}
+
+		private void onSenderCreated(final IBatchSender result, final Throwable error)
+		{
+			synchronized (this)
+			{
+				if (error == null)
+				{
+					this.sender = result;
+				}
+				else
+				{
+					this.senderFailure = unwrap(error);
+
+					// let the next event for this partition try again with a new sender - flush() only finds the
+					// batches of accumulators in the map, so the batch being filled here is failed along with the waiting ones
+					BufferedSender.this.accumulators.remove(this.key, this);
+
+					if (TRACE_LOGGER.isLoggable(Level.WARNING))
+					{
+						TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "BufferedSender failed to create sender for partition (%s): %s", this.partitionId, this.senderFailure.toString()));
+					}
+				}
+
+				while (!this.waitingForSender.isEmpty())
+				{
+					final PendingBatch waiting = this.waitingForSender.poll();
+					this.dispatch(waiting.batch, waiting.sent);
+				}
+
+				if (this.senderFailure != null)
+				{
+					this.sendBatch();
+				}
+			}
+		}
+
+		// returns null if the accumulator was retired, and the event has to be added to the one which replaced it
+		synchronized CompletableFuture<Void> add(final EventData eventData)
+		{
+			if (this.retired)
+			{
+				return null;
+			}
+
+			if (this.senderFailure != null)
+			{
+				// the event raced with the failure of the sender, which took this accumulator out of the map
+				final CompletableFuture<Void> failed = new CompletableFuture<Void>();
+				failed.completeExceptionally(this.senderFailure);
+				return failed;
+			}
+
+			if (this.batch == null)
+			{
+				this.startBatch();
+			}
+
+			if (!this.batch.tryAdd(eventData))
+			{
+				if (this.batch.getCount() == 0)
+				{
+					return this.eventTooLarge();
+				}
+
+				this.sendBatch();
+				this.startBatch();
+
+				if (!this.batch.tryAdd(eventData))
+				{
+					return this.eventTooLarge();
+				}
+			}
+
+			if (this.batch.getCount() == 1)
+			{
+				final EventDataBatch lingering = this.batch;
+				this.lingerTimer = LingerTimer.INSTANCE.schedule(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						Accumulator.this.onLingerTimeElapsed(lingering);
+					}
+				}, BufferedSender.this.lingerTime.toNanos(), TimeUnit.NANOSECONDS);
+			}
+
+			return this.batchSent.thenApply(PER_EVENT_FUTURE);
+		}
+
+		// detaches the batch being filled and sends it - or queues it while the partition sender is being created
+		synchronized void sendBatch()
+		{
+			if (this.batch == null || this.batch.getCount() == 0)
+			{
+				return;
+			}
+
+			if (this.lingerTimer != null)
+			{
+				this.lingerTimer.cancel(false);
+				this.lingerTimer = null;
+			}
+
+			final EventDataBatch sending = this.batch;
+			final CompletableFuture<Void> sent = this.batchSent;
+			this.batch = null;
+			this.batchSent = null;
+
+			BufferedSender.this.pendingBatches.add(sent);
+
+			if (this.partitionId != null && this.sender == null && this.senderFailure == null)
+			{
+				this.waitingForSender.offer(new PendingBatch(sending, sent));
+			}
+			else
+			{
+				this.dispatch(sending, sent);
+			}
+		}
+
+		// sends the batch being filled, and takes the accumulator of a partitionKey out of the map once it holds nothing -
+		// there is one per partitionKey ever seen, and most keys are not seen again
+		synchronized void sendBatchAndRetireIfIdle()
+		{
+			this.sendBatch();
+			this.retireIfIdle();
+		}
+
+		synchronized CompletableFuture<Void> closeSender()
+		{
+			if (this.senderCreate == null)
+			{
+				return CompletableFuture.completedFuture(null);
+			}
+
+			return this.senderCreate.thenCompose(new Function<IBatchSender, CompletableFuture<Void>>()
+			{
+				@Override
+				public CompletableFuture<Void> apply(IBatchSender createdSender)
+				{
+					return createdSender.close();
+				}
+			}).handle(new BiFunction<Void, Throwable, Void>()
+			{
+				@Override
+				public Void apply(Void voidArg, Throwable error)
+				{
+					// a sender which failed to open has nothing to close
+					return null;
+				}
+			});
+		}
+
+		// the buffer of the batch is taken from the pool at its first event, and is as large as a message can be
+		private void startBatch()
+		{
+			BufferedSender.this.reserveBufferSpace(BufferedSender.this.maxMessageSize);
+			this.batch = new EventDataBatch(BufferedSender.this.maxMessageSize, this.partitionKey);
+			this.batch.setPayloadCodec(BufferedSender.this.payloadCodec);
+			this.batchSent = new CompletableFuture<Void>();
+		}
+
+		// call while synchronized
+		private void discardBatch()
+		{
+			this.batch.discard();
+			this.batch = null;
+			this.batchSent = null;
+			BufferedSender.this.releaseBufferSpace(BufferedSender.this.maxMessageSize);
+		}
+
+		// call while synchronized
+		private void retireIfIdle()
+		{
+			if (this.partitionKey != null && this.batch == null && !this.retired)
+			{
+				this.retired = true;
+				BufferedSender.this.accumulators.remove(this.key, this);
+			}
+		}
+
+		private synchronized void onLingerTimeElapsed(final EventDataBatch lingering)
+		{
+			// the batch may already have been sent because it filled up, or was flushed
+			if (this.batch == lingering)
+			{
+				this.lingerTimer = null;
+				this.sendBatchAndRetireIfIdle();
+			}
+		}
+
+		// call while synchronized - batches of one accumulator are handed to the link in order
+		private void dispatch(final EventDataBatch sending, final CompletableFuture<Void> sent)
+		{
+			CompletableFuture<Void> sendTask;
+			if (this.senderFailure != null)
+			{
+				sending.discard();
+				sendTask = new CompletableFuture<Void>();
+				sendTask.completeExceptionally(this.senderFailure);
+			}
+			else
+			{
+				try
+				{
+					sendTask = this.partitionId == null ? BufferedSender.this.target.send(sending) : this.sender.send(sending);
+				}
+				catch (Throwable error)
+				{
+					// a batch which was refused before it was handed over still holds its buffer
+					sending.discard();
+					sendTask = new CompletableFuture<Void>();
+					sendTask.completeExceptionally(error);
+				}
+			}
+
+			sendTask.whenComplete(new BiConsumer<Void, Throwable>()
+			{
+				@Override
+				public void accept(Void voidArg, Throwable error)
+				{
+					BufferedSender.this.releaseBufferSpace(BufferedSender.this.maxMessageSize);
+					BufferedSender.this.pendingBatches.remove(sent);
+
+					if (error == null)
+					{
+						sent.complete(null);
+					}
+					else
+					{
+						sent.completeExceptionally(unwrap(error));
+					}
+				}
+			});
+		}
+
+		// call while synchronized, with the event refused by an empty batch
+		private CompletableFuture<Void> eventTooLarge()
+		{
+			this.discardBatch();
+			this.retireIfIdle();
+
+			final CompletableFuture<Void> failed = new CompletableFuture<Void>();
+			failed.completeExceptionally(new IllegalArgumentException(String.format(Locale.US,
+					"EventData does not fit in a batch of maximum size %s bytes.", BufferedSender.this.maxMessageSize)));
+			return failed;
+		}
+	}
+
+	private static final class PendingBatch
+	{
+		final EventDataBatch batch;
+		final CompletableFuture<Void> sent;
+
+		PendingBatch(final EventDataBatch batch, final CompletableFuture<Void> sent)
+		{
+			this.batch = batch;
+			this.sent = sent;
+		}
+	}
+
+	// contract against which the buffered sender sends its batches
+	static interface ISendTarget
+	{
+		// sends a batch without a partitionKey, or with the partitionKey it was created with
+		public CompletableFuture<Void> send(EventDataBatch batch);
+
+		public CompletableFuture<IBatchSender> createPartitionSender(String partitionId);
+	}
+
+	static interface IBatchSender
+	{
+		public CompletableFuture<Void> send(EventDataBatch batch);
+
+		public CompletableFuture<Void> close();
+	}
+
+	private static final class ClientSendTarget implements ISendTarget
+	{
+		private final EventHubClient client;
+
+		ClientSendTarget(final EventHubClient client)
+		{
+			this.client = client;
+		}
+
+		@Override
+		public CompletableFuture<Void> send(final EventDataBatch batch)
+		{
+			return this.client.send(batch);
+		}
+
+		@Override
+		public CompletableFuture<IBatchSender> createPartitionSender(final String partitionId)
+		{
+			try
+			{
+				return this.client.createPartitionSender(partitionId).thenApply(new Function<PartitionSender, IBatchSender>()
+				{
+					@Override
+					public IBatchSender apply(final PartitionSender partitionSender)
+					{
+						return new IBatchSender()
+						{
+							@Override
+							public CompletableFuture<Void> send(EventDataBatch batch)
+							{
+								return partitionSender.send(batch);
+							}
+
+							@Override
+							public CompletableFuture<Void> close()
+							{
+								return partitionSender.close();
+							}
+						};
+					}
+				});
+			}
+			catch (ServiceBusException exception)
+			{
+				final CompletableFuture<IBatchSender> failed = new CompletableFuture<IBatchSender>();
+				failed.completeExceptionally(exception);
+				return failed;
+			}
+		}
+	}
+
+	// the timer only decides when a batch is due, the send itself is handed to the link without blocking
+	private static final class LingerTimer
+	{
+		static final ScheduledExecutorService INSTANCE = createTimer();
+
+		private static ScheduledExecutorService createTimer()
+		{
+			final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					final Thread thread = new Thread(runnable, "buffered-sender-linger");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			timer.setRemoveOnCancelPolicy(true);
+			return timer;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.time.Duration;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+
+/**
+ * Represents the batching and backpressure behaviors of a {@link BufferedSender} created using {@link EventHubClient#createBufferedSender(BufferedSenderOptions)}.
+ */
+public final class BufferedSenderOptions {
+
+    private Duration lingerTime = ClientConstants.DEFAULT_BUFFERED_SENDER_LINGER_TIME;
+    private long maxBufferedBytes = ClientConstants.DEFAULT_BUFFERED_SENDER_MAX_BUFFERED_BYTES;
+    private boolean blockWhenBufferFull = true;
+    private Duration maxBlockTime = ClientConstants.DEFAULT_BUFFERED_SENDER_MAX_BLOCK_TIME;
+    private boolean routePartitionKeysOnClient;
+    private PayloadCodec payloadCodec;
+
+    /**
+     * Gets how long a batch waits for more events after its first event was added, before it is sent even if it isn't full.
+     * @return the linger time
+     */
+    public Duration getLingerTime() {
+
+        return this.lingerTime;
+    }
+
+    /**
+     * Sets how long a batch waits for more events after its first event was added, before it is sent even if it isn't full.
+     * A longer linger time gives fuller batches - and so fewer, larger sends - at the cost of latency.
+     * @param value the linger time, must be positive
+     */
+    public void setLingerTime(final Duration value) {
+
+        if (value == null || value.isNegative() || value.isZero()) {
+            throw new IllegalArgumentException("lingerTime must be positive");
+        }
+
+        this.lingerTime = value;
+    }
+
+    /**
+     * Gets the maximum number of bytes the sender buffers - in batches being filled and batches waiting for acknowledgement.
+     * @return the buffer size in bytes
+     */
+    public long getMaxBufferedBytes() {
+
+        return this.maxBufferedBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes the sender buffers - in batches being filled and batches waiting for acknowledgement.
+     * Each batch counts with the maximum message size, the size of the buffer it is encoded into, however few events it holds.
+     * When the buffer is full, {@link BufferedSender#send(EventData)} blocks or fails, as set by {@link #setBlockWhenBufferFull(boolean)}.
+     * @param value the buffer size in bytes, must be positive
+     */
+    public void setMaxBufferedBytes(final long value) {
+
+        if (value <= 0) {
+            throw new IllegalArgumentException("maxBufferedBytes must be positive");
+        }
+
+        this.maxBufferedBytes = value;
+    }
+
+    /**
+     * Gets whether a send blocks the calling thread while the buffer is full - as opposed to failing immediately.
+     * @return true if sends block when the buffer is full
+     */
+    public boolean getBlockWhenBufferFull() {
+
+        return this.blockWhenBufferFull;
+    }
+
+    /**
+     * Sets whether a send blocks the calling thread, for up to {@link #getMaxBlockTime()}, while the buffer is full.
+     * If false, or if the buffer is still full after that time, the future returned by the send fails with a transient {@link com.microsoft.azure.servicebus.ServiceBusException}.
+     * @param value true to block when the buffer is full, false to fail
+     */
+    public void setBlockWhenBufferFull(final boolean value) {
+
+        this.blockWhenBufferFull = value;
+    }
+
+    /**
+     * Gets how long a send blocks waiting for buffer space before it fails.
+     * @return the maximum blocking time
+     */
+    public Duration getMaxBlockTime() {
+
+        return this.maxBlockTime;
+    }
+
+    /**
+     * Sets how long a send blocks waiting for buffer space before it fails. Only used if {@link #getBlockWhenBufferFull()} is true.
+     * @param value the maximum blocking time, must not be negative
+     */
+    public void setMaxBlockTime(final Duration value) {
+
+        if (value == null || value.isNegative()) {
+            throw new IllegalArgumentException("maxBlockTime must not be negative");
+        }
+
+        this.maxBlockTime = value;
+    }
+
+    /**
+     * Gets whether events sent with a partitionKey are assigned to a partition by the sender, instead of by the service.
+     * @return true if partitionKeys are resolved on the client
+     */
+    public boolean getRoutePartitionKeysOnClient() {
+
+        return this.routePartitionKeysOnClient;
+    }
+
+    /**
+     * Sets whether events sent with a partitionKey are assigned to a partition by the sender - using the same hash as the service - and sent
+     * in per-partition batches over the sender's {@link PartitionSender}'s, instead of being sent to the service to be forwarded to their partition.
+     * Events with the same partitionKey still land on the same partition, as long as the partition count of the EventHub doesn't change.
+     * <p>
+     * The partitions are read from {@link EventHubClient#getRuntimeInformation()} when the sender is created. If that fails, partitionKey sends fall back
+     * to the service - see {@link BufferedSender#getRoutesPartitionKeysOnClient()}. Events routed on the client do not carry their partitionKey to the receiver.
+     * @param value true to resolve partitionKeys on the client
+     */
+    public void setRoutePartitionKeysOnClient(final boolean value) {
+
+        this.routePartitionKeysOnClient = value;
+    }
+
+    /**
+     * Gets the codec the bodies of events are compressed with, as they are added to batches.
+     * @return the codec, or null if events are sent as they are
+     */
+    public PayloadCodec getPayloadCodec() {
+
+        return this.payloadCodec;
+    }
+
+    /**
+     * Sets the codec the bodies of events are compressed with, as they are added to batches - see {@link EventDataBatch#setPayloadCodec(PayloadCodec)}.
+     * @param value the codec - for ex: {@link PayloadCodecs#gzip()} - or null to send events as they are
+     */
+    public void setPayloadCodec(final PayloadCodec value) {
+
+        this.payloadCodec = value;
+    }
+}
@@ -7,14 +7,20 @@ package com.microsoft.azure.eventhubs;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.Binary;
@@ -61,7 +67,9 @@ public class EventData implements Serializable
 	}
 
 	/**
-	 * Internal Constructor - intended to be used only by the {@link PartitionReceiver} to Create #EventData out of #Message
+	 * Internal Constructor - intended to be used only by the {@link PartitionReceiver} to Create #EventData out of #Message.
+	 * Only the well-known system properties are read here - the rest of the annotations and properties are copied into
+	 * {@link SystemProperties} the first time it is used as a Map.
 	 */
 	@SuppressWarnings("unchecked")
 	EventData(Message amqpMessage)
@@ -71,32 +79,7 @@ public class EventData implements Serializable
 			throw new IllegalArgumentException("amqpMessage cannot be null");
 		}
 
-		final Map<Symbol, Object> messageAnnotations = amqpMessage.getMessageAnnotations().getValue();
-		final HashMap<String, Object> receiveProperties = new HashMap<>();
-		
-		for (Map.Entry<Symbol, Object> annotation: messageAnnotations.entrySet())
-		{
-			receiveProperties.put(annotation.getKey().toString(), annotation.getValue() != null ? annotation.getValue() : null);
-		}
-		
-		if (amqpMessage.getProperties() != null)
-		{
-			if (amqpMessage.getMessageId() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_MESSAGE_ID, amqpMessage.getMessageId());
-			if (amqpMessage.getUserId() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_USER_ID, amqpMessage.getUserId());
-			if (amqpMessage.getAddress() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_TO, amqpMessage.getAddress());
-			if (amqpMessage.getSubject() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_SUBJECT, amqpMessage.getSubject());
-			if (amqpMessage.getReplyTo() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_REPLY_TO, amqpMessage.getReplyTo());
-			if (amqpMessage.getCorrelationId() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_CORRELATION_ID, amqpMessage.getCorrelationId());
-			if (amqpMessage.getContentType() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_CONTENT_TYPE, amqpMessage.getContentType());
-			if (amqpMessage.getContentEncoding() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_CONTENT_ENCODING, amqpMessage.getContentEncoding());
-			if (amqpMessage.getProperties().getAbsoluteExpiryTime() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_ABSOLUTE_EXPRITY_TIME, amqpMessage.getExpiryTime());
-			if (amqpMessage.getProperties().getCreationTime() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_CREATION_TIME, amqpMessage.getCreationTime());
-			if (amqpMessage.getGroupId() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_GROUP_ID, amqpMessage.getGroupId());
-			if (amqpMessage.getProperties().getGroupSequence() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_GROUP_SEQUENCE, amqpMessage.getGroupSequence());
-			if (amqpMessage.getReplyToGroupId() != null) receiveProperties.put(AmqpConstants.AMQP_PROPERTY_REPLY_TO_GROUP_ID, amqpMessage.getReplyToGroupId());
-		}
-		
-		this.systemProperties = new SystemProperties(receiveProperties);	
+		this.systemProperties = new SystemProperties(amqpMessage);
 		this.properties = amqpMessage.getApplicationProperties() == null ? null 
 				: ((Map<String, Object>)(amqpMessage.getApplicationProperties().getValue()));
                 
@@ -113,8 +96,6 @@ public class EventData implements Serializable
                         this.amqpBody = ((AmqpSequence) bodySection).getValue();
                     }
                 }
-                
-                amqpMessage.clear();
 	}
 
 	/**
@@ -314,6 +295,25 @@ public class EventData implements Serializable
 		return this.systemProperties;
 	}
 	
+	// null, instead of an empty map, if there are none - so that reading them on the receive path doesn't allocate
+	Map<String, Object> getPropertiesIfAny()
+	{
+		return this.properties;
+	}
+
+	// the body - with its offset and length in the underlying array - or null if the body isn't a Data section
+	Binary getBodyBinary()
+	{
+		return this.bodyData;
+	}
+
+	// used on the receive path, once the body is decoded with the codec it was sent with
+	void setDecodedBody(final byte[] decoded)
+	{
+		this.bodyData = new Binary(decoded);
+		this.amqpBody = this.bodyData;
+	}
+
 	// This is intended to be used while sending EventData - so EventData.SystemProperties will not be copied over to the AmqpMessage
 	Message toAmqpMessage()
 	{
@@ -416,17 +416,52 @@ public class EventData implements Serializable
                 }
 	}
 
+	/**
+	 * SystemProperties of a received {@link EventData}.
+	 * <p>On the receive path, offset, sequence number and enqueued time are kept as fields - so reading them using the getters
+	 * costs no map lookups. All the message annotations and amqp properties are copied into the map only when it is first accessed as a {@link Map}.
+	 */
 	public static class SystemProperties extends HashMap<String, Object>
 	{
 		private static final long serialVersionUID = -2827050124966993723L;
+		private static final long ENQUEUED_TIME_NOT_SET = Long.MIN_VALUE;
+		
+		// source of the map entries, until they are copied into the map - volatile, as the event can be read on more than one thread
+		private transient volatile Message amqpMessage;
+		private transient volatile boolean hasFields;
+		private transient String offset;
+		private transient long sequenceNumber;
+		private transient long enqueuedTimeMillis;
 		
 		public SystemProperties(final HashMap<String, Object> map)
 		{
 			super(Collections.unmodifiableMap(map));
 		}
 		
+		SystemProperties(final Message amqpMessage)
+		{
+			super();
+			
+			final MessageAnnotations messageAnnotations = amqpMessage.getMessageAnnotations();
+			final Map<Symbol, Object> annotations = messageAnnotations == null ? null : messageAnnotations.getValue();
+			
+			this.amqpMessage = amqpMessage;
+			this.hasFields = annotations != null && annotations.get(AmqpConstants.SEQUENCE_NUMBER) instanceof Long;
+			if (this.hasFields)
+			{
+				final Object offsetValue = annotations.get(AmqpConstants.OFFSET);
+				final Object enqueuedTimeValue = annotations.get(AmqpConstants.ENQUEUED_TIME_UTC);
+				this.offset = offsetValue == null ? null : offsetValue.toString();
+				this.sequenceNumber = (Long) annotations.get(AmqpConstants.SEQUENCE_NUMBER);
+				this.enqueuedTimeMillis = enqueuedTimeValue instanceof Date ? ((Date) enqueuedTimeValue).getTime() : ENQUEUED_TIME_NOT_SET;
+			}
+		}
+		
 		public String getOffset()
 		{
+			if (this.hasFields)
+				return this.offset;
+			
 			return this.getSystemProperty(AmqpConstants.OFFSET_ANNOTATION_NAME);
 		}
 		
@@ -437,12 +472,18 @@ public class EventData implements Serializable
 		
 		public Instant getEnqueuedTime()
 		{
+			if (this.hasFields)
+				return this.enqueuedTimeMillis == ENQUEUED_TIME_NOT_SET ? null : Instant.ofEpochMilli(this.enqueuedTimeMillis);
+			
 			final Date enqueuedTimeValue = this.getSystemProperty(AmqpConstants.ENQUEUED_TIME_UTC_ANNOTATION_NAME);
 			return enqueuedTimeValue != null ? enqueuedTimeValue.toInstant() : null;
 		}
 		
 		public long getSequenceNumber()
 		{
+			if (this.hasFields)
+				return this.sequenceNumber;
+			
 			return this.getSystemProperty(AmqpConstants.SEQUENCE_NUMBER_ANNOTATION_NAME);
 		}
 		
@@ -454,6 +495,16 @@ public class EventData implements Serializable
 		@SuppressWarnings("unchecked")
 		private <T> T getSystemProperty(final String key)
 		{
+			// annotations of a message which is not yet copied into the map are read in place
+			final Message message = this.amqpMessage;
+			if (message != null)
+			{
+				final MessageAnnotations messageAnnotations = message.getMessageAnnotations();
+				return messageAnnotations == null || messageAnnotations.getValue() == null
+						? null
+						: (T) messageAnnotations.getValue().get(Symbol.getSymbol(key));
+			}
+			
 			if (this.containsKey(key))
 			{
 				return (T) (this.get(key));
@@ -461,5 +512,85 @@ public class EventData implements Serializable
 			
 			return null;
 		}
+		
+		private void materialize()
+		{
+			if (this.amqpMessage == null)
+				return;
+			
+			synchronized (this)
+			{
+				this.materializeLocked();
+			}
+		}
+		
+		private void materializeLocked()
+		{
+			final Message message = this.amqpMessage;
+			if (message == null)
+				return;
+			
+			final MessageAnnotations messageAnnotations = message.getMessageAnnotations();
+			if (messageAnnotations != null && messageAnnotations.getValue() != null)
+			{
+				for (Map.Entry<Symbol, Object> annotation: messageAnnotations.getValue().entrySet())
+				{
+					super.put(annotation.getKey().toString(), annotation.getValue());
+				}
+			}
+			
+			if (message.getProperties() != null)
+			{
+				if (message.getMessageId() != null) super.put(AmqpConstants.AMQP_PROPERTY_MESSAGE_ID, message.getMessageId());
+				if (message.getUserId() != null) super.put(AmqpConstants.AMQP_PROPERTY_USER_ID, message.getUserId());
+				if (message.getAddress() != null) super.put(AmqpConstants.AMQP_PROPERTY_TO, message.getAddress());
+				if (message.getSubject() != null) super.put(AmqpConstants.AMQP_PROPERTY_SUBJECT, message.getSubject());
+				if (message.getReplyTo() != null) super.put(AmqpConstants.AMQP_PROPERTY_REPLY_TO, message.getReplyTo());
+				if (message.getCorrelationId() != null) super.put(AmqpConstants.AMQP_PROPERTY_CORRELATION_ID, message.getCorrelationId());
+				if (message.getContentType() != null) super.put(AmqpConstants.AMQP_PROPERTY_CONTENT_TYPE, message.getContentType());
+				if (message.getContentEncoding() != null) super.put(AmqpConstants.AMQP_PROPERTY_CONTENT_ENCODING, message.getContentEncoding());
+				if (message.getProperties().getAbsoluteExpiryTime() != null) super.put(AmqpConstants.AMQP_PROPERTY_ABSOLUTE_EXPRITY_TIME, message.getExpiryTime());
+				if (message.getProperties().getCreationTime() != null) super.put(AmqpConstants.AMQP_PROPERTY_CREATION_TIME, message.getCreationTime());
+				if (message.getGroupId() != null) super.put(AmqpConstants.AMQP_PROPERTY_GROUP_ID, message.getGroupId());
+				if (message.getProperties().getGroupSequence() != null) super.put(AmqpConstants.AMQP_PROPERTY_GROUP_SEQUENCE, message.getGroupSequence());
+				if (message.getReplyToGroupId() != null) super.put(AmqpConstants.AMQP_PROPERTY_REPLY_TO_GROUP_ID, message.getReplyToGroupId());
+			}
+			
+			// from here on the map is the only source - it can be modified by the application.
+			// amqpMessage is cleared last: a thread which reads it as null sees all of the entries
+			this.hasFields = false;
+			this.amqpMessage = null;
+		}
+		
+		private Object writeReplace() throws ObjectStreamException
+		{
+			this.materialize();
+			return this;
+		}
+		
+		@Override public int size() { this.materialize(); return super.size(); }
+		@Override public boolean isEmpty() { this.materialize(); return super.isEmpty(); }
+		@Override public Object get(Object key) { this.materialize(); return super.get(key); }
+		@Override public Object getOrDefault(Object key, Object defaultValue) { this.materialize(); return super.getOrDefault(key, defaultValue); }
+		@Override public boolean containsKey(Object key) { this.materialize(); return super.containsKey(key); }
+		@Override public boolean containsValue(Object value) { this.materialize(); return super.containsValue(value); }
+		@Override public Object put(String key, Object value) { this.materialize(); return super.put(key, value); }
+		@Override public void putAll(Map<? extends String, ? extends Object> map) { this.materialize(); super.putAll(map); }
+		@Override public Object putIfAbsent(String key, Object value) { this.materialize(); return super.putIfAbsent(key, value); }
+		@Override public Object remove(Object key) { this.materialize(); return super.remove(key); }
+		@Override public boolean remove(Object key, Object value) { this.materialize(); return super.remove(key, value); }
+		@Override public Object replace(String key, Object value) { this.materialize(); return super.replace(key, value); }
+		@Override public boolean replace(String key, Object oldValue, Object newValue) { this.materialize(); return super.replace(key, oldValue, newValue); }
+		@Override public void clear() { this.materialize(); super.clear(); }
+		@Override public Set<String> keySet() { this.materialize(); return super.keySet(); }
+		@Override public Collection<Object> values() { this.materialize(); return super.values(); }
+		@Override public Set<Map.Entry<String, Object>> entrySet() { this.materialize(); return super.entrySet(); }
+		@Override public void forEach(BiConsumer<? super String, ? super Object> action) { this.materialize(); super.forEach(action); }
+		@Override public void replaceAll(BiFunction<? super String, ? super Object, ? extends Object> function) { this.materialize(); super.replaceAll(function); }
+		@Override public Object computeIfAbsent(String key, Function<? super String, ? extends Object> mappingFunction) { this.materialize(); return super.computeIfAbsent(key, mappingFunction); }
+		@Override public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) { this.materialize(); return super.computeIfPresent(key, remappingFunction); }
+		@Override public Object compute(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) { this.materialize(); return super.compute(key, remappingFunction); }
+		@Override public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) { this.materialize(); return super.merge(key, value, remappingFunction); }
+		@Override public Object clone() { this.materialize(); return super.clone(); }
 	}
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.nio.BufferOverflowException;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.message.Message;
+
+import com.microsoft.azure.servicebus.EncodeBufferPool;
+
+/**
+ * A batch of {@link EventData}'s which is encoded as events are added, so that its exact size on the wire is known before it is sent.
+ * <p>
+ * Create an instance using {@link EventHubClient#createBatch()}, {@link EventHubClient#createBatch(String)} or {@link PartitionSender#createBatch()},
+ * fill it using {@link #tryAdd(EventData)} until it returns false and send it using the {@link EventHubClient} or {@link PartitionSender} it was created from.
+ * A batch which is not sent after all should be {@link #discard()}ed, so that its buffer can be reused.
+ * <p>
+ * Sample Code:
+ * <pre>
+ * EventDataBatch batch = partitionSender.createBatch();
+ * while (batch.tryAdd(nextEvent)) { ... }
+ * partitionSender.send(batch);
+ * </pre>
+ * This class is not thread-safe. A batch can be sent only once.
+ */
+public final class EventDataBatch
+{
+	// amqp Data section: described-type constructor (0x00), descriptor as smallulong (0x53 0x75)
+	private static final byte[] DATA_SECTION_DESCRIPTOR = new byte[] { 0x00, 0x53, 0x75 };
+	private static final byte VBIN8_CONSTRUCTOR = (byte) 0xa0;
+	private static final byte VBIN32_CONSTRUCTOR = (byte) 0xb0;
+	private static final int SHORT_DATA_SECTION_HEADER_BYTES = 5;
+	private static final int LONG_DATA_SECTION_HEADER_BYTES = 8;
+
+	private final int maxMessageSize;
+	private final String partitionKey;
+
+	private PayloadCodec payloadCodec;
+	private byte[] encodedBatch;
+	private int encodedSize;
+	private int count;
+	private boolean isSent;
+
+	EventDataBatch(final int maxMessageSize, final String partitionKey)
+	{
+		this.maxMessageSize = maxMessageSize;
+		this.partitionKey = partitionKey;
+	}
+
+	/**
+	 * Gets the maximum size, in bytes, this batch can grow to - as allowed by the link it was created from.
+	 * @return the maximum size of the batch in bytes
+	 */
+	public final int getMaxSize()
+	{
+		return this.maxMessageSize;
+	}
+
+	/**
+	 * Gets the exact size, in bytes, of the encoded batch.
+	 * @return the current size of the batch in bytes
+	 */
+	public final int getSize()
+	{
+		return this.encodedSize;
+	}
+
+	/**
+	 * Gets the number of {@link EventData}'s in the batch.
+	 * @return the number of events added to the batch
+	 */
+	public final int getCount()
+	{
+		return this.count;
+	}
+
+	/**
+	 * Gets the partitionKey all events in this batch are sent with.
+	 * @return the partitionKey, or null if the batch was created without one
+	 */
+	public final String getPartitionKey()
+	{
+		return this.partitionKey;
+	}
+
+	/**
+	 * Gets the codec the bodies of events are compressed with, as they are added.
+	 * @return the codec, or null if bodies are added as they are
+	 */
+	public final PayloadCodec getPayloadCodec()
+	{
+		return this.payloadCodec;
+	}
+
+	/**
+	 * Sets the codec the bodies of events added from now on are compressed with - for ex: {@link PayloadCodecs#gzip()}.
+	 * An event is added compressed only if that makes it smaller - and a {@link PartitionReceiver} decompresses it before it is returned.
+	 * Compressing lets more events fit in a batch, at the cost of CPU on the sender and the receiver.
+	 * @param codec the codec, or null to add bodies as they are
+	 */
+	public final void setPayloadCodec(final PayloadCodec codec)
+	{
+		this.payloadCodec = codec;
+	}
+
+	/**
+	 * Encodes the {@link EventData} into the batch if it fits.
+	 * @param eventData the {@link EventData} to add
+	 * @return true if the event was added, false if it would take the batch over {@link #getMaxSize()}
+	 * @throws IllegalStateException if the batch was already sent
+	 */
+	public final boolean tryAdd(final EventData eventData)
+	{
+		if (eventData == null)
+		{
+			throw new IllegalArgumentException("eventData cannot be null");
+		}
+
+		if (this.isSent)
+		{
+			throw new IllegalStateException("EventDataBatch cannot be modified after it is sent.");
+		}
+
+		final Message amqpMessage = this.partitionKey == null ? eventData.toAmqpMessage() : eventData.toAmqpMessage(this.partitionKey);
+		if (this.payloadCodec != null)
+		{
+			EventDataUtil.encodePayload(amqpMessage, this.payloadCodec);
+		}
+
+		if (this.encodedBatch == null)
+		{
+			this.encodedBatch = EncodeBufferPool.getDefault().acquire(this.maxMessageSize);
+		}
+
+		int offset = this.encodedSize;
+		try
+		{
+			if (this.count == 0)
+			{
+				// proton-j doesn't support multiple dataSections to be part of AmqpMessage - so, the batch envelope
+				// carries the annotations of the first message and every event follows it as a Data section
+				final Message batchMessage = Proton.message();
+				batchMessage.setMessageAnnotations(amqpMessage.getMessageAnnotations());
+				offset = batchMessage.encode(this.encodedBatch, 0, this.maxMessageSize);
+			}
+
+			offset += this.encodeAsDataSection(amqpMessage, offset);
+		}
+		catch (BufferOverflowException exception)
+		{
+			if (this.count == 0)
+			{
+				// nothing is left in the buffer that is worth holding on to
+				this.releaseEncodedBatch();
+			}
+
+			return false;
+		}
+
+		this.encodedSize = offset;
+		this.count++;
+		return true;
+	}
+
+	/**
+	 * Empties a batch which is not going to be sent, and returns the buffer it was encoded into to the pool it was taken from.
+	 * A batch which is sent hands its buffer over to the sender, which returns it once the send is done - it need not be discarded.
+	 * The batch can be filled again using {@link #tryAdd(EventData)}.
+	 */
+	public final void discard()
+	{
+		if (this.isSent)
+		{
+			return;
+		}
+
+		this.releaseEncodedBatch();
+		this.encodedSize = 0;
+		this.count = 0;
+	}
+
+	// encodes the message straight into the batch buffer, leaving room for the longest Data section header,
+	// and then writes the header - shifting the message down if the short form of the header is enough
+	private int encodeAsDataSection(final Message amqpMessage, final int offset)
+	{
+		final int messageOffset = offset + LONG_DATA_SECTION_HEADER_BYTES;
+		if (messageOffset > this.maxMessageSize)
+		{
+			throw new BufferOverflowException();
+		}
+
+		final int messageSize = amqpMessage.encode(this.encodedBatch, messageOffset, this.maxMessageSize - messageOffset);
+
+		System.arraycopy(DATA_SECTION_DESCRIPTOR, 0, this.encodedBatch, offset, DATA_SECTION_DESCRIPTOR.length);
+		if (messageSize <= 0xff)
+		{
+			this.encodedBatch[offset + 3] = VBIN8_CONSTRUCTOR;
+			this.encodedBatch[offset + 4] = (byte) messageSize;
+			System.arraycopy(this.encodedBatch, messageOffset, this.encodedBatch, offset + SHORT_DATA_SECTION_HEADER_BYTES, messageSize);
+			return SHORT_DATA_SECTION_HEADER_BYTES + messageSize;
+		}
+
+		this.encodedBatch[offset + 3] = VBIN32_CONSTRUCTOR;
+		this.encodedBatch[offset + 4] = (byte) (messageSize >>> 24);
+		this.encodedBatch[offset + 5] = (byte) (messageSize >>> 16);
+		this.encodedBatch[offset + 6] = (byte) (messageSize >>> 8);
+		this.encodedBatch[offset + 7] = (byte) messageSize;
+		return LONG_DATA_SECTION_HEADER_BYTES + messageSize;
+	}
+
+	// hands the encoded batch over to the sender - which returns the buffer to the pool once the send is settled
+	byte[] getEncodedBatchForSend()
+	{
+		if (this.isSent)
+		{
+			throw new IllegalStateException("EventDataBatch can be sent only once.");
+		}
+
+		if (this.count == 0)
+		{
+			throw new IllegalArgumentException("Empty batch of EventData cannot be sent.");
+		}
+
+		this.isSent = true;
+		return this.encodedBatch;
+	}
+
+	private void releaseEncodedBatch()
+	{
+		EncodeBufferPool.getDefault().release(this.encodedBatch);
+		this.encodedBatch = null;
+	}
+}
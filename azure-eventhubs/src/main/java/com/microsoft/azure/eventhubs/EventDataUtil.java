@@ -4,16 +4,26 @@
  */
 package com.microsoft.azure.eventhubs;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
 import org.apache.qpid.proton.message.Message;
 
 import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+import com.microsoft.azure.servicebus.ClientConstants;
 import com.microsoft.azure.servicebus.PassByRef;
 
 /*
@@ -21,6 +31,8 @@ import com.microsoft.azure.servicebus.PassByRef;
  */
 final class EventDataUtil {
     
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
 	@SuppressWarnings("serial")
 	static final Set<String> RESERVED_SYSTEM_PROPERTIES = Collections.unmodifiableSet(new HashSet<String>()
 			{{
@@ -35,6 +47,12 @@ final class EventDataUtil {
 
 	static LinkedList<EventData> toEventDataCollection(final Collection<Message> messages, final PassByRef<Message> lastMessageRef) {
             
+		return EventDataUtil.toEventDataCollection(messages, lastMessageRef, 0);
+	}
+
+	// maxDecodedPayloadBytes of 0 leaves encoded payloads as received
+	static LinkedList<EventData> toEventDataCollection(final Collection<Message> messages, final PassByRef<Message> lastMessageRef, final int maxDecodedPayloadBytes) {
+            
 		if (messages == null) {
 			return null;
 		}
@@ -42,7 +60,12 @@ final class EventDataUtil {
 		LinkedList<EventData> events = new LinkedList<>();
                 for (Message message : messages) {
                     
-			events.add(new EventData(message));
+			final EventData eventData = new EventData(message);
+			if (maxDecodedPayloadBytes > 0) {
+				EventDataUtil.decodePayload(eventData, maxDecodedPayloadBytes);
+			}
+
+			events.add(eventData);
                         
                         if (lastMessageRef != null)
                             lastMessageRef.set(message);
@@ -65,6 +88,73 @@ final class EventDataUtil {
 		return messages;
 	}
 
+	// replaces the body of the message with its encoding - if that is smaller - and names the codec in the application properties
+	static void encodePayload(final Message amqpMessage, final PayloadCodec codec) {
+
+		if (!(amqpMessage.getBody() instanceof Data)) {
+			return;
+		}
+
+		final Map<?, ?> properties = amqpMessage.getApplicationProperties() == null ? null : amqpMessage.getApplicationProperties().getValue();
+		if (properties != null && properties.containsKey(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME)) {
+			// already encoded - for ex: a received event which is forwarded as is
+			return;
+		}
+
+		final Binary body = ((Data) amqpMessage.getBody()).getValue();
+		if (body == null || body.getLength() == 0) {
+			return;
+		}
+
+		final byte[] encoded = codec.encode(body.getArray(), body.getArrayOffset(), body.getLength());
+		if (encoded.length >= body.getLength()) {
+			return;
+		}
+
+		// the properties map is the one of the EventData - which is not to be modified
+		final Map<String, Object> encodedProperties = new HashMap<String, Object>();
+		if (properties != null) {
+			for (Map.Entry<?, ?> property : properties.entrySet()) {
+				encodedProperties.put((String) property.getKey(), property.getValue());
+			}
+		}
+
+		encodedProperties.put(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME, codec.getName());
+		amqpMessage.setApplicationProperties(new ApplicationProperties(encodedProperties));
+		amqpMessage.setBody(new Data(new Binary(encoded)));
+	}
+
+	// an event whose codec isn't registered, which fails to decode - or decodes to more than maxDecodedPayloadBytes - is handed to the application as received
+	static void decodePayload(final EventData eventData, final int maxDecodedPayloadBytes) {
+
+		final Binary body = eventData.getBodyBinary();
+		final Map<String, Object> properties = eventData.getPropertiesIfAny();
+		final Object codecName = body == null || properties == null ? null : properties.get(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME);
+		if (!(codecName instanceof String)) {
+			return;
+		}
+
+		final PayloadCodec codec = PayloadCodecs.get((String) codecName);
+		if (codec == null) {
+			if (TRACE_LOGGER.isLoggable(Level.WARNING)) {
+				TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "Received event encoded with unregistered codec (%s) - it is returned encoded.", codecName));
+			}
+
+			return;
+		}
+
+		try {
+			final byte[] decoded = codec.decode(body.getArray(), body.getArrayOffset(), body.getLength(), maxDecodedPayloadBytes);
+			eventData.setDecodedBody(decoded);
+			properties.remove(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME);
+		}
+		catch (IOException exception) {
+			if (TRACE_LOGGER.isLoggable(Level.WARNING)) {
+				TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "Decoding received event with codec (%s) failed - it is returned encoded: %s", codecName, exception.toString()));
+			}
+		}
+	}
+
 	static Iterable<Message> toAmqpMessages(final Iterable<EventData> eventDatas) {
             
 		return EventDataUtil.toAmqpMessages(eventDatas, null);
@@ -7,14 +7,20 @@ package com.microsoft.azure.eventhubs;
 import java.io.IOException;
 import java.nio.channels.UnresolvedAddressException;
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.microsoft.azure.servicebus.ClientConstants;
 import com.microsoft.azure.servicebus.ClientEntity;
+import com.microsoft.azure.servicebus.CompletionExecutor;
 import com.microsoft.azure.servicebus.ConnectionStringBuilder;
 import com.microsoft.azure.servicebus.IllegalEntityException;
 import com.microsoft.azure.servicebus.IteratorUtil;
@@ -22,9 +28,13 @@ import com.microsoft.azure.servicebus.MessageSender;
 import com.microsoft.azure.servicebus.MessagingFactory;
 import com.microsoft.azure.servicebus.RetryPolicy;
 import com.microsoft.azure.servicebus.PayloadSizeExceededException;
+import com.microsoft.azure.servicebus.ReactorGroup;
 import com.microsoft.azure.servicebus.ReceiverDisconnectedException;
 import com.microsoft.azure.servicebus.ServiceBusException;
 import com.microsoft.azure.servicebus.StringUtil;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+import com.microsoft.azure.servicebus.amqp.IOperationResult;
+import com.microsoft.azure.servicebus.metrics.ClientMetrics;
 
 /**
  * Anchor class - all EventHub client operations STARTS here.
@@ -36,11 +46,14 @@ public class EventHubClient extends ClientEntity
 
 	private final String eventHubName;
 	private final Object senderCreateSync;
+	private final Object runtimeInformationSync;
         
 	private MessagingFactory underlyingFactory;
 	private MessageSender sender;
 	private boolean isSenderCreateStarted;
         private CompletableFuture<Void> createSender;
+        private CompletableFuture<EventHubRuntimeInformation> runtimeInformation;
+        private Instant runtimeInformationExpiry;
         
 	private EventHubClient(final ConnectionStringBuilder connectionString) throws IOException, IllegalEntityException
 	{
@@ -48,6 +61,8 @@ public class EventHubClient extends ClientEntity
 
 		this.eventHubName = connectionString.getEntityPath();
 		this.senderCreateSync = new Object();
+		this.runtimeInformationSync = new Object();
+		this.runtimeInformationExpiry = Instant.MIN;
         }
 
 	/**
@@ -73,10 +88,59 @@ public class EventHubClient extends ClientEntity
 	 */
 	public static EventHubClient createFromConnectionStringSync(final String connectionString, final RetryPolicy retryPolicy)
 			throws ServiceBusException, IOException
+	{
+		return createFromConnectionStringSync(connectionString, retryPolicy, null);
+	}
+
+	/**
+	 * Synchronous version of {@link #createFromConnectionString(String, RetryPolicy, ReactorGroup)}. 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param retryPolicy A custom {@link RetryPolicy} to be used when communicating with EventHub.
+	 * @param reactorGroup The {@link ReactorGroup} to run the connection on - shared with other clients. If null, the client gets a Reactor thread of its own.
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static EventHubClient createFromConnectionStringSync(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup)
+			throws ServiceBusException, IOException
+	{
+		return createFromConnectionStringSync(connectionString, retryPolicy, reactorGroup, null);
+	}
+
+	/**
+	 * Synchronous version of {@link #createFromConnectionString(String, RetryPolicy, ReactorGroup, ClientMetrics)}. 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param retryPolicy A custom {@link RetryPolicy} to be used when communicating with EventHub.
+	 * @param reactorGroup The {@link ReactorGroup} to run the connection on - shared with other clients. If null, the client gets a Reactor thread of its own.
+	 * @param metrics The {@link ClientMetrics} the senders and receivers of the client record their metrics in. If null, none are recorded.
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static EventHubClient createFromConnectionStringSync(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup, final ClientMetrics metrics)
+			throws ServiceBusException, IOException
+	{
+		return createFromConnectionStringSync(connectionString, retryPolicy, reactorGroup, metrics, null);
+	}
+
+	/**
+	 * Synchronous version of {@link #createFromConnectionString(String, RetryPolicy, ReactorGroup, ClientMetrics, Executor)}. 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param retryPolicy A custom {@link RetryPolicy} to be used when communicating with EventHub.
+	 * @param reactorGroup The {@link ReactorGroup} to run the connection on - shared with other clients. If null, the client gets a Reactor thread of its own.
+	 * @param metrics The {@link ClientMetrics} the senders and receivers of the client record their metrics in. If null, none are recorded.
+	 * @param completionExecutor {@link CompletionExecutor#IO_THREAD}, or the Executor to complete futures on. If null, the default.
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static EventHubClient createFromConnectionStringSync(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup, final ClientMetrics metrics,
+			final Executor completionExecutor)
+			throws ServiceBusException, IOException
 	{
 		try
 		{
-			return createFromConnectionString(connectionString, retryPolicy).get();
+			return createFromConnectionString(connectionString, retryPolicy, reactorGroup, metrics, completionExecutor).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -137,11 +201,79 @@ public class EventHubClient extends ClientEntity
 	 */
 	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString, final RetryPolicy retryPolicy)
 			throws ServiceBusException, IOException
+	{
+		return createFromConnectionString(connectionString, retryPolicy, null);
+	}
+
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} whose connection runs on one of the Reactors of a {@link ReactorGroup}.
+	 * Clients sharing a group share its fixed set of Reactor threads - each new connection is assigned to the Reactor with the fewest connections.
+	 * 
+	 * <p>The group is not closed when the client is closed.
+	 * 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param retryPolicy A custom {@link RetryPolicy} to be used when communicating with EventHub.
+	 * @param reactorGroup The {@link ReactorGroup} to run the connection on. If null, the client gets a Reactor thread of its own.
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup)
+			throws ServiceBusException, IOException
+	{
+		return createFromConnectionString(connectionString, retryPolicy, reactorGroup, null);
+	}
+
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} which records the metrics of its senders and receivers - send latency,
+	 * deliveries in flight, link credit, retries, ServerBusy errors, prefetch depth and receive-to-handler latency - in a {@link ClientMetrics}.
+	 * Use an {@link com.microsoft.azure.servicebus.metrics.InMemoryClientMetrics} to read them from the application.
+	 * 
+	 * <p>The metrics of a {@link ReactorGroup} are recorded in the {@link ClientMetrics} it was created with; a client with a Reactor thread
+	 * of its own records them in this one.
+	 * 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param retryPolicy A custom {@link RetryPolicy} to be used when communicating with EventHub.
+	 * @param reactorGroup The {@link ReactorGroup} to run the connection on. If null, the client gets a Reactor thread of its own.
+	 * @param metrics The {@link ClientMetrics} to record in. If null, none are recorded - and none of the clock reads are made.
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup, final ClientMetrics metrics)
+			throws ServiceBusException, IOException
+	{
+		return createFromConnectionString(connectionString, retryPolicy, reactorGroup, metrics, null);
+	}
+
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} which completes the futures it - and its senders and receivers - return
+	 * on the given Executor.
+	 * 
+	 * <p>Sends and receives complete on the Reactor thread, which runs all I/O of the connection. Pass {@link CompletionExecutor#IO_THREAD}
+	 * to run continuations there, without any thread handoff - they must be cheap and never block. Pass an Executor to run them on it,
+	 * with one handoff per operation - the Reactor thread then never runs application code. See {@link CompletionExecutor} for the
+	 * handoffs each operation takes, and {@link #getCompletionHandoffCount()} for the count.
+	 * 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param retryPolicy A custom {@link RetryPolicy} to be used when communicating with EventHub.
+	 * @param reactorGroup The {@link ReactorGroup} to run the connection on. If null, the client gets a Reactor thread of its own.
+	 * @param metrics The {@link ClientMetrics} to record in. If null, none are recorded.
+	 * @param completionExecutor {@link CompletionExecutor#IO_THREAD}, or the Executor to complete futures on. If null, sends and receives
+	 * complete on the Reactor thread and the client's own continuations run on the common ForkJoinPool.
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup, final ClientMetrics metrics,
+			final Executor completionExecutor)
+			throws ServiceBusException, IOException
 	{
 		final ConnectionStringBuilder connStr = new ConnectionStringBuilder(connectionString);
 		final EventHubClient eventHubClient = new EventHubClient(connStr);
+		final CompletionExecutor clientCompletionExecutor = CompletionExecutor.create(completionExecutor);
 		
-		return MessagingFactory.createFromConnectionString(connectionString.toString(), retryPolicy)
+		return MessagingFactory.createFromConnectionString(connectionString.toString(), retryPolicy, reactorGroup, metrics, clientCompletionExecutor)
 				.thenApplyAsync(new Function<MessagingFactory, EventHubClient>()
 				{
 					@Override
@@ -150,7 +282,7 @@ public class EventHubClient extends ClientEntity
 						eventHubClient.underlyingFactory = factory;
 						return eventHubClient;
 					}
-				});
+				}, clientCompletionExecutor);
 	}
 
 	/**
@@ -225,7 +357,7 @@ public class EventHubClient extends ClientEntity
 			throw new IllegalArgumentException("EventData cannot be empty.");
 		}
 
-		return this.createInternalSender().thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		return this.sendOnInternalSender(new Function<Void, CompletableFuture<Void>>()
 		{
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
@@ -326,7 +458,7 @@ public class EventHubClient extends ClientEntity
 			throw new IllegalArgumentException("Empty batch of EventData cannot be sent.");
 		}
 
-		return this.createInternalSender().thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		return this.sendOnInternalSender(new Function<Void, CompletableFuture<Void>>()
 		{
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
@@ -414,7 +546,7 @@ public class EventHubClient extends ClientEntity
 			throw new IllegalArgumentException("partitionKey cannot be null");
 		}
 
-		return this.createInternalSender().thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		return this.sendOnInternalSender(new Function<Void, CompletableFuture<Void>>()
 		{
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
@@ -501,7 +633,7 @@ public class EventHubClient extends ClientEntity
 					String.format(Locale.US, "PartitionKey exceeds the maximum allowed length of partitionKey: {0}", ClientConstants.MAX_PARTITION_KEY_LENGTH));
 		}
 
-		return this.createInternalSender().thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		return this.sendOnInternalSender(new Function<Void, CompletableFuture<Void>>()
 		{
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
@@ -511,6 +643,190 @@ public class EventHubClient extends ClientEntity
 		});
 	}
 
+	/**
+	 * Creates an empty {@link EventDataBatch} sized to the maximum message size allowed by the underlying send link.
+	 * The batch is sent using {@link #send(EventDataBatch)} and the events land on any partition, like {@link #send(Iterable)}.
+	 * @return a CompletableFuture that completes with an empty batch once the send link is open.
+	 * @see EventDataBatch#tryAdd(EventData)
+	 */
+	public final CompletableFuture<EventDataBatch> createBatch()
+	{
+		return this.createBatchCore(null);
+	}
+
+	/**
+	 * Creates an empty {@link EventDataBatch} whose events are all sent with the given partitionKey, like {@link #send(Iterable, String)}.
+	 * @param partitionKey the partitionKey will be hash'ed to determine the partitionId to send the batch to.
+	 * @return a CompletableFuture that completes with an empty batch once the send link is open.
+	 * @see EventDataBatch#tryAdd(EventData)
+	 */
+	public final CompletableFuture<EventDataBatch> createBatch(final String partitionKey)
+	{
+		if (partitionKey == null)
+		{
+			throw new IllegalArgumentException("partitionKey cannot be null");
+		}
+
+		if (partitionKey.length() > ClientConstants.MAX_PARTITION_KEY_LENGTH)
+		{
+			throw new IllegalArgumentException(
+					String.format(Locale.US, "PartitionKey exceeds the maximum allowed length of partitionKey: %s", ClientConstants.MAX_PARTITION_KEY_LENGTH));
+		}
+
+		return this.createBatchCore(partitionKey);
+	}
+
+	private CompletableFuture<EventDataBatch> createBatchCore(final String partitionKey)
+	{
+		return this.createInternalSender().thenApplyAsync(new Function<Void, EventDataBatch>()
+		{
+			@Override
+			public EventDataBatch apply(Void voidArg)
+			{
+				return new EventDataBatch(EventHubClient.this.sender.getMaxMessageSize(), partitionKey);
+			}
+		}, this.underlyingFactory.getCompletionExecutor());
+	}
+
+	/**
+	 * Synchronous version of {@link #send(EventDataBatch)}.
+	 * @param eventDataBatch the batch created using {@link #createBatch()} or {@link #createBatch(String)}
+	 * @throws ServiceBusException             if Service Bus service encountered problems during the operation.
+	 */
+	public final void sendSync(final EventDataBatch eventDataBatch)
+			throws ServiceBusException
+	{
+		try
+		{
+			this.send(eventDataBatch).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+	}
+
+	/**
+	 * Sends an {@link EventDataBatch} - which is already encoded - to EventHub as a single message.
+	 * @param eventDataBatch the batch created using {@link #createBatch()} or {@link #createBatch(String)}
+	 * @return a CompletableFuture that can be completed when the send operations is done..
+	 */
+	public final CompletableFuture<Void> send(final EventDataBatch eventDataBatch)
+	{
+		if (eventDataBatch == null)
+		{
+			throw new IllegalArgumentException("EventDataBatch cannot be null.");
+		}
+
+		final int encodedSize = eventDataBatch.getSize();
+		final byte[] encodedBatch = eventDataBatch.getEncodedBatchForSend();
+		final AtomicBoolean handedOver = new AtomicBoolean();
+		final CompletableFuture<Void> sending = this.sendOnInternalSender(new Function<Void, CompletableFuture<Void>>()
+		{
+			@Override
+			public CompletableFuture<Void> apply(Void voidArg)
+			{
+				handedOver.set(true);
+				return EventHubClient.this.sender.sendEncoded(encodedBatch, encodedSize, AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT);
+			}
+		});
+
+		sending.whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void voidArg, Throwable error)
+			{
+				// the internal sender could not be created - the buffer never reached the sender which would return it
+				if (!handedOver.get())
+				{
+					EventHubClient.this.underlyingFactory.getEncodeBufferPool().release(encodedBatch);
+				}
+			}
+		});
+
+		return sending;
+	}
+
+	/**
+	 * Synchronous version of {@link #createBufferedSender(BufferedSenderOptions)}.
+	 * @param options the batching and backpressure behaviors of the sender, or null for the defaults
+	 * @return BufferedSender which collects single events into batches
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 */
+	public final BufferedSender createBufferedSenderSync(final BufferedSenderOptions options)
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.createBufferedSender(options).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Create a {@link BufferedSender}, which collects events sent one at a time into {@link EventDataBatch}'s - per partitionId, per partitionKey
+	 * and for round-robin sends - and sends each batch when it is full or its linger time has passed.
+	 * @param options the batching and backpressure behaviors of the sender, or null for the defaults
+	 * @return a CompletableFuture that completes with the BufferedSender once the send link is open - and the partitions are known, if partitionKeys are routed on the client.
+	 * @see BufferedSenderOptions
+	 */
+	public final CompletableFuture<BufferedSender> createBufferedSender(final BufferedSenderOptions options)
+	{
+		return this.createBatchCore(null).thenCompose(new Function<EventDataBatch, CompletableFuture<BufferedSender>>()
+		{
+			@Override
+			public CompletableFuture<BufferedSender> apply(EventDataBatch sizingBatch)
+			{
+				return BufferedSender.create(EventHubClient.this, sizingBatch.getMaxSize(), options);
+			}
+		});
+	}
+
 	/**
 	 * Synchronous version of {@link #createPartitionSender(String)}. 
 	 * @param partitionId  partitionId of EventHub to send the {@link EventData}'s to
@@ -519,10 +835,23 @@ public class EventHubClient extends ClientEntity
 	 */
 	public final PartitionSender createPartitionSenderSync(final String partitionId)
 			throws ServiceBusException, IllegalArgumentException
+	{
+		return this.createPartitionSenderSync(partitionId, null);
+	}
+
+	/**
+	 * Synchronous version of {@link #createPartitionSender(String, SenderOptions)}. 
+	 * @param partitionId   partitionId of EventHub to send the {@link EventData}'s to
+	 * @param senderOptions the set of options to enable on the sender - for ex: at-most-once sends
+	 * @return PartitionSender which can be used to send events to a specific partition.
+	 * @throws ServiceBusException if Service Bus service encountered problems during connection creation. 
+	 */
+	public final PartitionSender createPartitionSenderSync(final String partitionId, final SenderOptions senderOptions)
+			throws ServiceBusException, IllegalArgumentException
 	{
 		try
 		{
-			return this.createPartitionSender(partitionId).get();
+			return this.createPartitionSender(partitionId, senderOptions).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -570,7 +899,24 @@ public class EventHubClient extends ClientEntity
 	public final CompletableFuture<PartitionSender> createPartitionSender(final String partitionId)
 			throws ServiceBusException
 	{
-		return PartitionSender.Create(this.underlyingFactory, this.eventHubName, partitionId);
+		return this.createPartitionSender(partitionId, null);
+	}
+
+	/**
+	 * Create a {@link PartitionSender} which can publish {@link EventData}'s directly to a specific EventHub partition - with the given {@link SenderOptions}.
+	 * <p>
+	 * With {@link SenderOptions#setAtMostOnce(boolean)}, the sender's sends complete once the events are handed to the connection, and are not acknowledged by the service.
+	 *
+	 * @param partitionId   partitionId of EventHub to send the {@link EventData}'s to
+	 * @param senderOptions the set of options to enable on the sender
+	 * @return              a CompletableFuture that would result in a PartitionSender when it is completed.
+	 * @throws ServiceBusException if Service Bus service encountered problems during connection creation. 
+	 * @see PartitionSender 
+	 */
+	public final CompletableFuture<PartitionSender> createPartitionSender(final String partitionId, final SenderOptions senderOptions)
+			throws ServiceBusException
+	{
+		return PartitionSender.Create(this.underlyingFactory, this.eventHubName, partitionId, senderOptions);
 	}
 
 	/**
@@ -1369,6 +1715,166 @@ public class EventHubClient extends ClientEntity
             return PartitionReceiver.create(this.underlyingFactory,  this.eventHubName, consumerGroupName, partitionId, null, false, dateTime, epoch, true, receiverOptions);
 	}
 
+	/**
+	 * Synchronous version of {@link #getRuntimeInformation()}.
+	 * @return the EventHub's path, partition count and partition ids.
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 */
+	public final EventHubRuntimeInformation getRuntimeInformationSync()
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.getRuntimeInformation().get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Retrieves the path, partition count and partition ids of the EventHub from its $management node,
+	 * over the AMQP connection this client already has.
+	 * <p>
+	 * As this information rarely changes, a successful result is cached for {@link ClientConstants#RUNTIME_INFORMATION_CACHE_DURATION},
+	 * and concurrent calls share a single request.
+	 * @return a CompletableFuture which completes with the {@link EventHubRuntimeInformation}.
+	 */
+	public final CompletableFuture<EventHubRuntimeInformation> getRuntimeInformation()
+	{
+		synchronized (this.runtimeInformationSync)
+		{
+			if (this.runtimeInformation == null
+					|| this.runtimeInformation.isCompletedExceptionally()
+					|| (this.runtimeInformation.isDone() && Instant.now().isAfter(this.runtimeInformationExpiry)))
+			{
+				final Map<String, Object> request = new HashMap<String, Object>();
+				request.put(ClientConstants.MANAGEMENT_ENTITY_TYPE_KEY, ClientConstants.MANAGEMENT_EVENTHUB_ENTITY_TYPE);
+				request.put(ClientConstants.MANAGEMENT_ENTITY_NAME_KEY, this.eventHubName);
+				request.put(ClientConstants.MANAGEMENT_OPERATION_KEY, ClientConstants.READ_OPERATION_VALUE);
+
+				final CompletableFuture<EventHubRuntimeInformation> retrieval = this.managementRequest(request)
+						.thenApplyAsync(new Function<Map<String, Object>, EventHubRuntimeInformation>()
+						{
+							@Override
+							public EventHubRuntimeInformation apply(Map<String, Object> response)
+							{
+								final EventHubRuntimeInformation result = EventHubRuntimeInformation.fromManagementResponse(response);
+								synchronized (EventHubClient.this.runtimeInformationSync)
+								{
+									EventHubClient.this.runtimeInformationExpiry = Instant.now().plus(ClientConstants.RUNTIME_INFORMATION_CACHE_DURATION);
+								}
+
+								return result;
+							}
+						}, this.underlyingFactory.getCompletionExecutor());
+
+				this.runtimeInformation = retrieval;
+			}
+
+			return this.runtimeInformation;
+		}
+	}
+
+	/**
+	 * Synchronous version of {@link #getPartitionRuntimeInformation(String)}.
+	 * @param partitionId the partition to retrieve the information of
+	 * @return the begin and last enqueued positions of the partition.
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 */
+	public final PartitionRuntimeInformation getPartitionRuntimeInformationSync(final String partitionId)
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.getPartitionRuntimeInformation(partitionId).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Retrieves the begin and last enqueued positions of an EventHub partition from the $management node,
+	 * over the AMQP connection this client already has. Unlike {@link #getRuntimeInformation()} this is not cached,
+	 * as the last enqueued position moves with every event sent to the partition.
+	 * @param partitionId the partition to retrieve the information of
+	 * @return a CompletableFuture which completes with the {@link PartitionRuntimeInformation}.
+	 */
+	public final CompletableFuture<PartitionRuntimeInformation> getPartitionRuntimeInformation(final String partitionId)
+	{
+		final Map<String, Object> request = new HashMap<String, Object>();
+		request.put(ClientConstants.MANAGEMENT_ENTITY_TYPE_KEY, ClientConstants.MANAGEMENT_PARTITION_ENTITY_TYPE);
+		request.put(ClientConstants.MANAGEMENT_ENTITY_NAME_KEY, this.eventHubName);
+		request.put(ClientConstants.MANAGEMENT_PARTITION_NAME_KEY, partitionId);
+		request.put(ClientConstants.MANAGEMENT_OPERATION_KEY, ClientConstants.READ_OPERATION_VALUE);
+
+		return this.managementRequest(request)
+				.thenApplyAsync(new Function<Map<String, Object>, PartitionRuntimeInformation>()
+				{
+					@Override
+					public PartitionRuntimeInformation apply(Map<String, Object> response)
+					{
+						return PartitionRuntimeInformation.fromManagementResponse(EventHubClient.this.eventHubName, partitionId, response);
+					}
+				}, this.underlyingFactory.getCompletionExecutor());
+	}
+
+	/**
+	 * @return the number of times this client - and its senders and receivers - handed a completion or continuation off to another thread.
+	 * See {@link CompletionExecutor} for the handoffs each operation takes.
+	 */
+	public final long getCompletionHandoffCount()
+	{
+		return this.underlyingFactory.getCompletionExecutor().getHandoffCount();
+	}
+
 	@Override
 	public CompletableFuture<Void> onClose()
 	{
@@ -1393,6 +1899,30 @@ public class EventHubClient extends ClientEntity
 
 		return CompletableFuture.completedFuture(null);
 	}
+
+	private CompletableFuture<Map<String, Object>> managementRequest(final Map<String, Object> request)
+	{
+		final CompletableFuture<Map<String, Object>> response = new CompletableFuture<Map<String, Object>>();
+		this.underlyingFactory.getManagementChannel().request(
+				this.underlyingFactory.getReactorScheduler(),
+				request,
+				new IOperationResult<Map<String, Object>, Exception>()
+				{
+					@Override
+					public void onComplete(Map<String, Object> result)
+					{
+						response.complete(result);
+					}
+
+					@Override
+					public void onError(Exception error)
+					{
+						response.completeExceptionally(error);
+					}
+				});
+
+		return response;
+	}
         
 	private CompletableFuture<Void> createInternalSender()
 	{
@@ -1403,7 +1933,7 @@ public class EventHubClient extends ClientEntity
 				if (!this.isSenderCreateStarted)
 				{
 					this.createSender = MessageSender.create(this.underlyingFactory, StringUtil.getRandomString(), this.eventHubName)
-							.thenAcceptAsync(new Consumer<MessageSender>()
+							.thenAccept(new Consumer<MessageSender>()
 							{
 								public void accept(MessageSender a) { EventHubClient.this.sender = a;}
 							});
@@ -1415,4 +1945,29 @@ public class EventHubClient extends ClientEntity
 
 		return this.createSender;
 	}
+
+	// hands the send to the link on the calling thread once the internal sender exists - so that sends go out in the order
+	// of the calls, and without a handoff - else on the completion executor, once it is created
+	private CompletableFuture<Void> sendOnInternalSender(final Function<Void, CompletableFuture<Void>> send)
+	{
+		final CompletionExecutor completionExecutor = this.underlyingFactory.getCompletionExecutor();
+		final CompletableFuture<Void> senderCreated = this.createInternalSender();
+		if (!senderCreated.isDone() || senderCreated.isCompletedExceptionally())
+		{
+			return completionExecutor.completeOn(senderCreated.thenComposeAsync(send, completionExecutor));
+		}
+
+		CompletableFuture<Void> sending;
+		try
+		{
+			sending = send.apply(null);
+		}
+		catch (RuntimeException exception)
+		{
+			sending = new CompletableFuture<Void>();
+			sending.completeExceptionally(exception);
+		}
+
+		return completionExecutor.completeOn(sending);
+	}
 }
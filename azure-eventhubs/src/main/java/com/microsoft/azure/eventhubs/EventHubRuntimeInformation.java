@@ -4,7 +4,14 @@
  */
 package com.microsoft.azure.eventhubs;
 
-final class EventHubRuntimeInformation
+import java.util.Map;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+
+/**
+ * Path, partition count and partition ids of an EventHub, as returned by {@link EventHubClient#getRuntimeInformation()}.
+ */
+public final class EventHubRuntimeInformation
 {
     final String path;
     final int partitionCount;
@@ -17,6 +24,14 @@ final class EventHubRuntimeInformation
         this.partitionIds = partitionIds;
     }
     
+    static EventHubRuntimeInformation fromManagementResponse(final Map<String, Object> response)
+    {
+        return new EventHubRuntimeInformation(
+                (String) response.get(ClientConstants.MANAGEMENT_ENTITY_NAME_KEY),
+                ((Number) response.get(ClientConstants.MANAGEMENT_RESULT_PARTITION_COUNT)).intValue(),
+                (String[]) response.get(ClientConstants.MANAGEMENT_RESULT_PARTITION_IDS));
+    }
+    
     public String getPath()
     {
         return this.path;
@@ -29,6 +44,6 @@ final class EventHubRuntimeInformation
     
     public String[] getPartitionIds()
     {
-        return this.partitionIds;
+        return this.partitionIds.clone();
     }
 }
@@ -13,6 +13,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -134,7 +135,7 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
 			{
 				return receiver;
 			}
-		});
+		}, factory.getCompletionExecutor());
 	}
 
 	private CompletableFuture<Void> createInternalReceiver() throws ServiceBusException
@@ -142,8 +143,12 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
             return MessageReceiver.create(this.underlyingFactory,
                 StringUtil.getRandomString(),
                 String.format("%s/ConsumerGroups/%s/Partitions/%s", this.eventHubName, this.consumerGroupName, this.partitionId),
-                PartitionReceiver.DEFAULT_PREFETCH_COUNT, this)
-                    .thenAcceptAsync(new Consumer<MessageReceiver>()
+                PartitionReceiver.DEFAULT_PREFETCH_COUNT,
+                this.receiverOptions != null ? this.receiverOptions.getPrefetchBytes() : 0,
+                this.receiverOptions != null ? this.receiverOptions.getPrefetchBudget() : null,
+                this,
+                this.receiverOptions != null && this.receiverOptions.getAtMostOnce())
+                    .thenAccept(new Consumer<MessageReceiver>()
                     {
                             public void accept(MessageReceiver r) { PartitionReceiver.this.internalReceiver = r;}
                     });
@@ -191,6 +196,38 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
 		this.internalReceiver.setReceiveTimeout(value);
 	}
 
+	/**
+	 * Get the minimum number of events a receive waits for.
+	 * @return the minimum batch size - 1 unless set by {@link #setReceiveBatchOptions(int, Duration)}
+	 */
+	public final int getMinReceiveBatchSize()
+	{
+		return this.internalReceiver.getMinReceiveBatchSize();
+	}
+
+	/**
+	 * Get the longest a receive waits for {@link #getMinReceiveBatchSize()} events.
+	 * @return the maximum wait time - {@link Duration#ZERO} unless set by {@link #setReceiveBatchOptions(int, Duration)}
+	 */
+	public final Duration getMaxReceiveBatchWaitTime()
+	{
+		return this.internalReceiver.getMaxReceiveBatchWaitTime();
+	}
+
+	/**
+	 * Set how long a receive waits to fill a batch. By default, a receive completes as soon as any event is available - 
+	 * which yields batches of 1 or 2 events when events trickle in.
+	 * <p>With these options, {@link #receive(int)} - and the receive handler set by {@link #setReceiveHandler(PartitionReceiveHandler)} -
+	 * completes once {@code minBatchSize} events are available, or once {@code maxBatchWaitTime} has passed with at least one event available.
+	 * The wait is capped by the {@link #getReceiveTimeout()}, after which the receive completes with no events as before.
+	 * @param minBatchSize the number of events to wait for. value must be between 1 and the prefetch count. Default is 1.
+	 * @param maxBatchWaitTime the longest to wait for minBatchSize events. Default is {@link Duration#ZERO}.
+	 */
+	public final void setReceiveBatchOptions(final int minBatchSize, final Duration maxBatchWaitTime)
+	{
+		this.internalReceiver.setReceiveBatchOptions(minBatchSize, maxBatchWaitTime);
+	}
+
 	/**
 	 * Set the number of events that can be pre-fetched and cached at the {@link PartitionReceiver}.
 	 * <p>By default the value is 300
@@ -208,6 +245,34 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
 		this.internalReceiver.setPrefetchCount(prefetchCount);
 	}
 
+	/**
+	 * Get the limit on the size of the events pre-fetched and cached at the {@link PartitionReceiver}.
+	 * @return the upper limit in bytes, or 0 if only {@link #getPrefetchCount()} limits pre-fetching
+	 * @see #setPrefetchBytes
+	 */
+	public final long getPrefetchBytes()
+	{
+		return this.internalReceiver.getPrefetchBytes();
+	}
+
+	/**
+	 * Set a limit on the size of the events that can be pre-fetched and cached at the {@link PartitionReceiver} - in addition to the {@link #setPrefetchCount(int)}.
+	 * <p>Credit for more events is only granted to the service while the cached events are below this size, which bounds the memory a receiver uses
+	 * when the events are large - while small events are still pre-fetched up to the prefetch count. The limit may be overshot by the events in flight.
+	 * @param prefetchBytes the number of bytes to pre-fetch. 0 removes the limit. Default is 0.
+	 * @throws ServiceBusException if setting prefetchBytes encounters error
+	 * @see ReceiverOptions#setPrefetchBytes(long)
+	 */
+	public final void setPrefetchBytes(final long prefetchBytes) throws ServiceBusException
+	{
+		if (prefetchBytes < 0)
+		{
+			throw new IllegalArgumentException("PrefetchBytes cannot be negative");
+		}
+
+		this.internalReceiver.setPrefetchBytes(prefetchBytes);
+	}
+
 	/**
 	 * Get the epoch value that this receiver is currently using for partition ownership.
 	 * <p>
@@ -304,6 +369,12 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
 	 * @return A completableFuture that will yield a batch of {@link EventData}'s from the partition on which this receiver is created. Returns 'null' if no {@link EventData} is present.
 	 */
 	public CompletableFuture<Iterable<EventData>> receive(final int maxEventCount)
+	{
+		return this.underlyingFactory.getCompletionExecutor().completeOn(this.receiveCore(maxEventCount));
+	}
+
+	// completes on the Reactor thread
+	private CompletableFuture<Iterable<EventData>> receiveCore(final int maxEventCount)
 	{
 		return this.internalReceiver.receive(maxEventCount).thenApply(new Function<Collection<Message>, Iterable<EventData>>()
 		{
@@ -314,7 +385,9 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
                                 if (PartitionReceiver.this.receiverOptions != null && PartitionReceiver.this.receiverOptions.getReceiverRuntimeMetricEnabled())
                                    lastMessageRef = new PassByRef<>();
                                 
-				Iterable<EventData> events = EventDataUtil.toEventDataCollection(amqpMessages, lastMessageRef);
+				Iterable<EventData> events = EventDataUtil.toEventDataCollection(amqpMessages, lastMessageRef,
+						PartitionReceiver.this.receiverOptions != null && PartitionReceiver.this.receiverOptions.getPayloadDecodingEnabled()
+								? PartitionReceiver.this.receiverOptions.getMaxDecodedPayloadBytes() : 0);
                                 
                                 if (lastMessageRef != null && lastMessageRef.get() != null) {
                                     
@@ -356,6 +429,24 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
 	 * @return A completableFuture which sets receiveHandler
 	 */
 	public CompletableFuture<Void> setReceiveHandler(final PartitionReceiveHandler receiveHandler, final boolean invokeWhenNoEvents)
+	{
+		return this.setReceiveHandler(receiveHandler, invokeWhenNoEvents, null);
+	}
+
+	/**
+	 * Register a receive handler that will be called when an event is available. A 
+	 * {@link PartitionReceiveHandler} is a handler that allows user to specify a callback
+	 * for event processing and error handling in a receive pump model. 
+	 * <p>
+	 * The handler is invoked on the given executor as events arrive, one invocation at a time for this receiver - no thread is
+	 * dedicated to the receiver while it waits for events. The receiver only asks the service for more events as the handler
+	 * consumes them, so the rate at which the handler keeps up determines the rate at which events are delivered.
+	 * @param receiveHandler An implementation of {@link PartitionReceiveHandler}
+	 * @param invokeWhenNoEvents flag to indicate whether the {@link PartitionReceiveHandler#onReceive(Iterable)} should be invoked when the receive call times out
+	 * @param executor executor on which the receiveHandler is invoked, or <code>null</code> for a bounded pool shared by all receivers (see {@link ReceivePump#getDefaultExecutor()})
+	 * @return A completableFuture which sets receiveHandler
+	 */
+	public CompletableFuture<Void> setReceiveHandler(final PartitionReceiveHandler receiveHandler, final boolean invokeWhenNoEvents, final Executor executor)
 	{
 		synchronized (this.receiveHandlerLock)
 		{
@@ -374,12 +465,13 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
 					"Unexpected value for parameter 'receiveHandler'. PartitionReceiver was already registered with a PartitionReceiveHandler instance. Only 1 instance can be registered.");
 
 				this.receivePump = new ReceivePump(
-					new ReceivePump.IPartitionReceiver()
+					new ReceivePump.IAsyncPartitionReceiver()
 					{
 						@Override
-						public Iterable<EventData> receive(int maxBatchSize) throws ServiceBusException
+						public CompletableFuture<Iterable<EventData>> receive(int maxBatchSize)
 						{
-							return PartitionReceiver.this.receiveSync(maxBatchSize);
+							// the pump hands the events off to its executor itself
+							return PartitionReceiver.this.receiveCore(maxBatchSize);
 						}
 						
 						@Override
@@ -389,18 +481,10 @@ public final class PartitionReceiver extends ClientEntity implements IReceiverSe
 						}
 					},
 					receiveHandler,
-					invokeWhenNoEvents);
+					invokeWhenNoEvents,
+					executor);
 
-				final Thread onReceivePumpThread = new Thread(new Runnable()
-					{
-						@Override
-						public void run()
-						{
-							receivePump.run();
-						}
-					});
-				
-				onReceivePumpThread.start();
+				this.receivePump.start();
 			}
 
 			return CompletableFuture.completedFuture(null);
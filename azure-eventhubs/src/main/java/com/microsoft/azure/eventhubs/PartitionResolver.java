@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps a partitionKey to a partitionId on the client - the same way the EventHubs service does for events sent with a partitionKey:
+ * the UTF-8 bytes of the key are hashed with Bob Jenkins' lookup3 hash (hashlittle2, both seeds 0),
+ * the two 32-bit results are xor'ed and truncated to 16 bits, and the partition is that value modulo the partition count.
+ * <p>
+ * The mapping only holds as long as the partition count doesn't change.
+ */
+final class PartitionResolver
+{
+	private final String[] partitionIds;
+
+	PartitionResolver(final String[] partitionIds)
+	{
+		if (partitionIds == null || partitionIds.length == 0)
+		{
+			throw new IllegalArgumentException("partitionIds cannot be null or empty");
+		}
+
+		this.partitionIds = partitionIds.clone();
+	}
+
+	int getPartitionCount()
+	{
+		return this.partitionIds.length;
+	}
+
+	String resolve(final String partitionKey)
+	{
+		return this.partitionIds[resolvePartitionIndex(partitionKey, this.partitionIds.length)];
+	}
+
+	static int resolvePartitionIndex(final String partitionKey, final int partitionCount)
+	{
+		return Math.abs(hashPartitionKey(partitionKey) % partitionCount);
+	}
+
+	static short hashPartitionKey(final String partitionKey)
+	{
+		final int[] hash = computeHash(partitionKey.getBytes(StandardCharsets.UTF_8), 0, 0);
+		return (short) (hash[0] ^ hash[1]);
+	}
+
+	// lookup3 hashlittle2 - returns { primary hash (c), secondary hash (b) }
+	static int[] computeHash(final byte[] data, final int seed1, final int seed2)
+	{
+		int a, b, c;
+		a = b = c = 0xdeadbeef + data.length + seed1;
+		c += seed2;
+
+		int index = 0;
+		int size = data.length;
+		while (size > 12)
+		{
+			a += readIntLittleEndian(data, index);
+			b += readIntLittleEndian(data, index + 4);
+			c += readIntLittleEndian(data, index + 8);
+
+			a -= c; a ^= Integer.rotateLeft(c, 4); c += b;
+			b -= a; b ^= Integer.rotateLeft(a, 6); a += c;
+			c -= b; c ^= Integer.rotateLeft(b, 8); b += a;
+			a -= c; a ^= Integer.rotateLeft(c, 16); c += b;
+			b -= a; b ^= Integer.rotateLeft(a, 19); a += c;
+			c -= b; c ^= Integer.rotateLeft(b, 4); b += a;
+
+			index += 12;
+			size -= 12;
+		}
+
+		// the tail - cases fall through, as in the reference implementation
+		switch (size)
+		{
+			case 12: c += (data[index + 11] & 0xff) << 24;
+			case 11: c += (data[index + 10] & 0xff) << 16;
+			case 10: c += (data[index + 9] & 0xff) << 8;
+			case 9: c += data[index + 8] & 0xff;
+			case 8: b += (data[index + 7] & 0xff) << 24;
+			case 7: b += (data[index + 6] & 0xff) << 16;
+			case 6: b += (data[index + 5] & 0xff) << 8;
+			case 5: b += data[index + 4] & 0xff;
+			case 4: a += (data[index + 3] & 0xff) << 24;
+			case 3: a += (data[index + 2] & 0xff) << 16;
+			case 2: a += (data[index + 1] & 0xff) << 8;
+			case 1: a += data[index] & 0xff;
+				break;
+			case 0:
+				return new int[] { c, b };
+		}
+
+		c ^= b; c -= Integer.rotateLeft(b, 14);
+		a ^= c; a -= Integer.rotateLeft(c, 11);
+		b ^= a; b -= Integer.rotateLeft(a, 25);
+		c ^= b; c -= Integer.rotateLeft(b, 16);
+		a ^= c; a -= Integer.rotateLeft(c, 4);
+		b ^= a; b -= Integer.rotateLeft(a, 14);
+		c ^= b; c -= Integer.rotateLeft(b, 24);
+
+		return new int[] { c, b };
+	}
+
+	private static int readIntLittleEndian(final byte[] data, final int index)
+	{
+		return (data[index] & 0xff)
+				| (data[index + 1] & 0xff) << 8
+				| (data[index + 2] & 0xff) << 16
+				| (data[index + 3] & 0xff) << 24;
+	}
+}
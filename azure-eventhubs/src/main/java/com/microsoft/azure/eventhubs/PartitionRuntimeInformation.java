@@ -5,6 +5,10 @@
 package com.microsoft.azure.eventhubs;
 
 import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+import com.microsoft.azure.servicebus.ClientConstants;
 
 public final class PartitionRuntimeInformation
 {
@@ -31,6 +35,17 @@ public final class PartitionRuntimeInformation
         this.lastEnqueuedTimeUtc = lastEnqueuedTimeUtc;
     }
     
+    static PartitionRuntimeInformation fromManagementResponse(final String eventHubPath, final String partitionId, final Map<String, Object> response)
+    {
+        return new PartitionRuntimeInformation(
+                eventHubPath,
+                partitionId,
+                ((Number) response.get(ClientConstants.MANAGEMENT_RESULT_BEGIN_SEQUENCE_NUMBER)).longValue(),
+                ((Number) response.get(ClientConstants.MANAGEMENT_RESULT_LAST_ENQUEUED_SEQUENCE_NUMBER)).longValue(),
+                (String) response.get(ClientConstants.MANAGEMENT_RESULT_LAST_ENQUEUED_OFFSET),
+                ((Date) response.get(ClientConstants.MANAGEMENT_RESULT_LAST_ENQUEUED_TIME_UTC)).toInstant());
+    }
+    
     public String getEventHubPath()
     {
         return this.eventHubPath;
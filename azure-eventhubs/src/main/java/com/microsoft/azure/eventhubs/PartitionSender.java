@@ -8,6 +8,7 @@ import java.util.concurrent.*;
 import java.util.function.*;
 
 import com.microsoft.azure.servicebus.*;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
 
 /**
  * This sender class is a logical representation of sending events to a specific EventHub partition. Do not use this class 
@@ -20,16 +21,18 @@ public final class PartitionSender extends ClientEntity
 	private final String partitionId;
 	private final String eventHubName;
 	private final MessagingFactory factory;
+	private final SenderOptions senderOptions;
 
 	private MessageSender internalSender;
 
-	private PartitionSender(MessagingFactory factory, String eventHubName, String partitionId)
+	private PartitionSender(MessagingFactory factory, String eventHubName, String partitionId, SenderOptions senderOptions)
 	{
 		super(null, null);
 
 		this.partitionId = partitionId;
 		this.eventHubName = eventHubName;
 		this.factory = factory;
+		this.senderOptions = senderOptions;
 	}
 
 	/**
@@ -37,7 +40,12 @@ public final class PartitionSender extends ClientEntity
 	 */
 	static CompletableFuture<PartitionSender> Create(MessagingFactory factory, String eventHubName, String partitionId) throws ServiceBusException
 	{
-		final PartitionSender sender = new PartitionSender(factory, eventHubName, partitionId);
+		return PartitionSender.Create(factory, eventHubName, partitionId, null);
+	}
+
+	static CompletableFuture<PartitionSender> Create(MessagingFactory factory, String eventHubName, String partitionId, SenderOptions senderOptions) throws ServiceBusException
+	{
+		final PartitionSender sender = new PartitionSender(factory, eventHubName, partitionId, senderOptions);
 		return sender.createInternalSender()
 				.thenApplyAsync(new Function<Void, PartitionSender>()
 				{
@@ -45,14 +53,15 @@ public final class PartitionSender extends ClientEntity
 					{
 						return sender;
 					}
-				});
+				}, factory.getCompletionExecutor());
 	}
 
 	private CompletableFuture<Void> createInternalSender() throws ServiceBusException
 	{
 		return MessageSender.create(this.factory, StringUtil.getRandomString(), 
-				String.format("%s/Partitions/%s", this.eventHubName, this.partitionId))
-				.thenAcceptAsync(new Consumer<MessageSender>()
+				String.format("%s/Partitions/%s", this.eventHubName, this.partitionId),
+				this.senderOptions != null && this.senderOptions.getAtMostOnce())
+				.thenAccept(new Consumer<MessageSender>()
 				{
 					public void accept(MessageSender a) { PartitionSender.this.internalSender = a;}
 				});
@@ -119,7 +128,7 @@ public final class PartitionSender extends ClientEntity
 	 */
 	public final CompletableFuture<Void> send(EventData data)
 	{
-		return this.internalSender.send(data.toAmqpMessage());
+		return this.factory.getCompletionExecutor().completeOn(this.internalSender.send(data.toAmqpMessage()));
 	}
 
 	/**
@@ -208,7 +217,76 @@ public final class PartitionSender extends ClientEntity
 			throw new IllegalArgumentException("EventData batch cannot be empty.");
 		}
 
-		return this.internalSender.send(EventDataUtil.toAmqpMessages(eventDatas));
+		return this.factory.getCompletionExecutor().completeOn(this.internalSender.send(EventDataUtil.toAmqpMessages(eventDatas)));
+	}
+
+	/**
+	 * Creates an empty {@link EventDataBatch} sized to the maximum message size allowed by this sender's link.
+	 * @return an empty batch to be filled using {@link EventDataBatch#tryAdd(EventData)} and sent using {@link #send(EventDataBatch)}
+	 */
+	public final EventDataBatch createBatch()
+	{
+		return new EventDataBatch(this.internalSender.getMaxMessageSize(), null);
+	}
+
+	/**
+	 * Synchronous version of {@link #send(EventDataBatch)}.
+	 * @param eventDataBatch the batch created using {@link #createBatch()}
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 */
+	public final void sendSync(final EventDataBatch eventDataBatch)
+			throws ServiceBusException
+	{
+		try
+		{
+			this.send(eventDataBatch).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+	}
+
+	/**
+	 * Sends an {@link EventDataBatch} - which is already encoded - to this partition as a single message.
+	 * @param eventDataBatch the batch created using {@link #createBatch()}
+	 * @return a CompletableFuture that can be completed when the send operations is done..
+	 */
+	public final CompletableFuture<Void> send(final EventDataBatch eventDataBatch)
+	{
+		if (eventDataBatch == null)
+		{
+			throw new IllegalArgumentException("EventDataBatch cannot be null.");
+		}
+
+		if (eventDataBatch.getPartitionKey() != null)
+		{
+			throw new IllegalArgumentException("EventDataBatch created with a partitionKey cannot be sent using a PartitionSender.");
+		}
+
+		final int encodedSize = eventDataBatch.getSize();
+		return this.factory.getCompletionExecutor().completeOn(
+				this.internalSender.sendEncoded(eventDataBatch.getEncodedBatchForSend(), encodedSize, AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT));
 	}
 
 	@Override
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.io.IOException;
+
+/**
+ * Compresses the bodies of {@link EventData}'s on send, and decompresses them on receive.
+ * <p>
+ * A sender sets a codec using {@link EventDataBatch#setPayloadCodec(PayloadCodec)} or {@link BufferedSenderOptions#setPayloadCodec(PayloadCodec)}.
+ * Each event whose body gets smaller is sent with the encoded body and with the codec's name in its application properties.
+ * A {@link PartitionReceiver} created with {@link ReceiverOptions#setPayloadDecodingEnabled(boolean)} decodes such events with the codec registered
+ * under that name in {@link PayloadCodecs} - before they are returned to the application.
+ * <p>
+ * Implementations must be thread-safe. See {@link PayloadCodecs} for the built-in codecs.
+ */
+public interface PayloadCodec
+{
+	/**
+	 * Gets the name the codec is registered under - which is how the receiver finds the codec to decode an event with.
+	 * @return the name of the codec
+	 */
+	public String getName();
+
+	/**
+	 * Encodes the body of an event.
+	 * @param data   the array holding the body
+	 * @param offset the offset of the body in the array
+	 * @param length the length of the body
+	 * @return the encoded body
+	 */
+	public byte[] encode(byte[] data, int offset, int length);
+
+	/**
+	 * Decodes a body encoded by {@link #encode(byte[], int, int)}.
+	 * <p>
+	 * The decoded body of a received event is as large as its sender made it: implementations must stop - without allocating
+	 * further - as soon as the decoded body would exceed maxLength.
+	 * @param data      the array holding the encoded body
+	 * @param offset    the offset of the encoded body in the array
+	 * @param length    the length of the encoded body
+	 * @param maxLength the largest decoded body to return
+	 * @return the decoded body
+	 * @throws IOException if the data is not a valid encoding, or decodes to more than maxLength bytes
+	 */
+	public byte[] decode(byte[] data, int offset, int length, int maxLength) throws IOException;
+}
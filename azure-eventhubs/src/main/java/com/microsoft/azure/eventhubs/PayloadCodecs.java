@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * The built-in {@link PayloadCodec}'s - and the registry the receive path looks codecs up in, by name.
+ * <p>
+ * gzip (RFC 1952) and deflate (zlib format, RFC 1950) are registered out of the box. A custom codec must be registered,
+ * using {@link #register(PayloadCodec)}, by every application receiving events encoded with it.
+ * <p>
+ * The compression level only affects the encoding: lower levels are faster, higher levels give smaller events. Any level decodes with the registered codec.
+ * The built-in codecs fail to decode - having allocated no more than the limit - a body which decodes to more than the maximum length asked for.
+ */
+public final class PayloadCodecs
+{
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+
+	private static final ConcurrentHashMap<String, PayloadCodec> REGISTERED = new ConcurrentHashMap<String, PayloadCodec>();
+
+	static
+	{
+		REGISTERED.put(GZIP, gzip());
+		REGISTERED.put(DEFLATE, deflate());
+	}
+
+	private PayloadCodecs()
+	{
+	}
+
+	/**
+	 * @return the gzip codec, with the default compression level
+	 */
+	public static PayloadCodec gzip()
+	{
+		return gzip(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param level the compression level - 1 (fastest) to 9 (smallest), or {@link Deflater#DEFAULT_COMPRESSION}
+	 * @return the gzip codec, with the given compression level
+	 */
+	public static PayloadCodec gzip(final int level)
+	{
+		return new GzipCodec(validateLevel(level));
+	}
+
+	/**
+	 * @return the deflate codec, with the default compression level
+	 */
+	public static PayloadCodec deflate()
+	{
+		return deflate(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param level the compression level - 1 (fastest) to 9 (smallest), or {@link Deflater#DEFAULT_COMPRESSION}
+	 * @return the deflate codec, with the given compression level
+	 */
+	public static PayloadCodec deflate(final int level)
+	{
+		return new DeflateCodec(validateLevel(level));
+	}
+
+	/**
+	 * Registers the codec for decoding received events - replacing any codec registered under the same name.
+	 * @param codec the codec
+	 */
+	public static void register(final PayloadCodec codec)
+	{
+		if (codec == null || codec.getName() == null || codec.getName().isEmpty())
+		{
+			throw new IllegalArgumentException("codec and its name cannot be null or empty");
+		}
+
+		REGISTERED.put(codec.getName(), codec);
+	}
+
+	/**
+	 * @param name the name of the codec
+	 * @return the codec registered under the name, or null if there is none
+	 */
+	public static PayloadCodec get(final String name)
+	{
+		return name == null ? null : REGISTERED.get(name);
+	}
+
+	private static int validateLevel(final int level)
+	{
+		if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION))
+		{
+			throw new IllegalArgumentException("level must be between 1 and 9, or Deflater.DEFAULT_COMPRESSION");
+		}
+
+		return level;
+	}
+
+	private static byte[] readFully(final InputStream input, final int length, final int maxLength) throws IOException
+	{
+		final ByteArrayOutputStream output = new ByteArrayOutputStream(decodedSizeHint(length, maxLength));
+		final byte[] buffer = new byte[8 * 1024];
+		int read;
+		while ((read = input.read(buffer)) != -1)
+		{
+			checkDecodedLength(output.size() + read, maxLength);
+			output.write(buffer, 0, read);
+		}
+
+		return output.toByteArray();
+	}
+
+	private static int decodedSizeHint(final int length, final int maxLength)
+	{
+		return (int) Math.min((long) length * 4, maxLength);
+	}
+
+	private static void checkDecodedLength(final int decodedLength, final int maxLength) throws IOException
+	{
+		// an int overflow - decodedLength going negative - exceeds any maxLength too
+		if (decodedLength > maxLength || decodedLength < 0)
+		{
+			throw new IOException(String.format(Locale.US, "payload decodes to more than the maximum of %s bytes", maxLength));
+		}
+	}
+
+	private static final class GzipCodec implements PayloadCodec
+	{
+		private final int level;
+
+		GzipCodec(final int level)
+		{
+			this.level = level;
+		}
+
+		@Override
+		public String getName()
+		{
+			return GZIP;
+		}
+
+		@Override
+		public byte[] encode(final byte[] data, final int offset, final int length)
+		{
+			final ByteArrayOutputStream encoded = new ByteArrayOutputStream(Math.max(64, length / 4));
+			try
+			{
+				final OutputStream gzip = new GZIPOutputStream(encoded)
+				{
+					{
+						this.def.setLevel(GzipCodec.this.level);
+					}
+				};
+
+				gzip.write(data, offset, length);
+				gzip.close();
+			}
+			catch (IOException unexpected)
+			{
+				// ByteArrayOutputStream doesn't throw
+				throw new IllegalStateException(unexpected);
+			}
+
+			return encoded.toByteArray();
+		}
+
+		@Override
+		public byte[] decode(final byte[] data, final int offset, final int length, final int maxLength) throws IOException
+		{
+			try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data, offset, length)))
+			{
+				return readFully(gzip, length, maxLength);
+			}
+		}
+	}
+
+	private static final class DeflateCodec implements PayloadCodec
+	{
+		private final int level;
+
+		DeflateCodec(final int level)
+		{
+			this.level = level;
+		}
+
+		@Override
+		public String getName()
+		{
+			return DEFLATE;
+		}
+
+		@Override
+		public byte[] encode(final byte[] data, final int offset, final int length)
+		{
+			final Deflater deflater = new Deflater(this.level);
+			try
+			{
+				deflater.setInput(data, offset, length);
+				deflater.finish();
+
+				final ByteArrayOutputStream encoded = new ByteArrayOutputStream(Math.max(64, length / 4));
+				final byte[] buffer = new byte[8 * 1024];
+				while (!deflater.finished())
+				{
+					encoded.write(buffer, 0, deflater.deflate(buffer));
+				}
+
+				return encoded.toByteArray();
+			}
+			finally
+			{
+				deflater.end();
+			}
+		}
+
+		@Override
+		public byte[] decode(final byte[] data, final int offset, final int length, final int maxLength) throws IOException
+		{
+			final Inflater inflater = new Inflater();
+			try
+			{
+				inflater.setInput(data, offset, length);
+
+				final ByteArrayOutputStream decoded = new ByteArrayOutputStream(decodedSizeHint(length, maxLength));
+				final byte[] buffer = new byte[8 * 1024];
+				while (!inflater.finished())
+				{
+					final int inflated = inflater.inflate(buffer);
+					if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					{
+						throw new IOException("deflate payload is truncated");
+					}
+
+					checkDecodedLength(decoded.size() + inflated, maxLength);
+					decoded.write(buffer, 0, inflated);
+				}
+
+				return decoded.toByteArray();
+			}
+			catch (DataFormatException exception)
+			{
+				throw new IOException("deflate payload is corrupt", exception);
+			}
+			finally
+			{
+				inflater.end();
+			}
+		}
+	}
+}
@@ -5,37 +5,92 @@
 package com.microsoft.azure.eventhubs;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.microsoft.azure.servicebus.ClientConstants;
 import com.microsoft.azure.servicebus.ServiceBusException;
 
+/**
+ * Delivers events from a receiver to a {@link PartitionReceiveHandler}.
+ * <p>
+ * A pump created with an {@link IAsyncPartitionReceiver} is event driven: it keeps one receive outstanding, and when
+ * events arrive the handler is invoked on the given executor. The next receive is only issued after the handler
+ * returns, so invocations for one receiver never overlap, and no thread is held while waiting for events.
+ * Since link credit is returned to the service as the receiver hands out prefetched events, a slow handler
+ * also slows down the flow of events from the service.
+ * <p>
+ * A pump created with an {@link IPartitionReceiver} runs the blocking receive loop on the thread which calls {@link #run()}.
+ */
 public class ReceivePump
 {
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
-	
+
 	private final IPartitionReceiver receiver;
+	private final IAsyncPartitionReceiver asyncReceiver;
+	private final Executor executor;
 	private final PartitionReceiveHandler onReceiveHandler;
 	private final boolean invokeOnTimeout;
 	private final CompletableFuture<Void> stopPump;
 
 	private AtomicBoolean stopPumpRaised;
-	
+
 	public ReceivePump(
 			final IPartitionReceiver receiver,
 			final PartitionReceiveHandler receiveHandler,
 			final boolean invokeOnReceiveWithNoEvents)
 	{
 		this.receiver = receiver;
+		this.asyncReceiver = null;
+		this.executor = null;
+		this.onReceiveHandler = receiveHandler;
+		this.invokeOnTimeout = invokeOnReceiveWithNoEvents;
+		this.stopPump = new CompletableFuture<Void>();
+
+		this.stopPumpRaised = new AtomicBoolean(false);
+	}
+
+	/**
+	 * @param receiver						receiver to pump events from
+	 * @param receiveHandler				handler to deliver the events to
+	 * @param invokeOnReceiveWithNoEvents	whether to invoke the handler with null when a receive times out
+	 * @param executor						executor to invoke the handler on - or null to use a pool shared by all pumps
+	 */
+	public ReceivePump(
+			final IAsyncPartitionReceiver receiver,
+			final PartitionReceiveHandler receiveHandler,
+			final boolean invokeOnReceiveWithNoEvents,
+			final Executor executor)
+	{
+		this.receiver = null;
+		this.asyncReceiver = receiver;
+		this.executor = executor != null ? executor : ReceivePump.getDefaultExecutor();
 		this.onReceiveHandler = receiveHandler;
 		this.invokeOnTimeout = invokeOnReceiveWithNoEvents;
 		this.stopPump = new CompletableFuture<Void>();
-		
+
 		this.stopPumpRaised = new AtomicBoolean(false);
-	}	
-	
+	}
+
+	/**
+	 * Pool on which the handlers of event driven pumps are invoked when no executor is given. Its threads are
+	 * bounded to {@link ClientConstants#DEFAULT_RECEIVE_HANDLER_THREAD_COUNT}, handlers beyond that wait in a queue.
+	 * @return the shared executor
+	 */
+	public static Executor getDefaultExecutor()
+	{
+		return DefaultExecutorHolder.EXECUTOR;
+	}
+
 	public void run()
 	{
 		boolean isPumpHealthy = true;
@@ -51,50 +106,149 @@ public class ReceivePump
 			{
 				isPumpHealthy = false;
 				this.onReceiveHandler.onError(clientException);
-				
+
 				if (TRACE_LOGGER.isLoggable(Level.WARNING))
 				{
 					TRACE_LOGGER.log(Level.WARNING, String.format("Receive pump for partition (%s) exiting after receive exception %s", this.receiver.getPartitionId(), clientException.toString()));
 				}
 			}
 
-			try
+			if (isPumpHealthy || receivedEvents != null)
 			{
-				if (receivedEvents != null || (receivedEvents == null && this.invokeOnTimeout && isPumpHealthy))
-				{
-					this.onReceiveHandler.onReceive(receivedEvents);	
-				}
+				isPumpHealthy = this.invokeHandler(receivedEvents, isPumpHealthy, this.receiver.getPartitionId()) && isPumpHealthy;
 			}
-			catch (Throwable userCodeError)
-			{
-				isPumpHealthy = false;
-				this.onReceiveHandler.onError(userCodeError);
+		}
+
+		this.stopPump.complete(null);
+	}
+
+	/**
+	 * Starts an event driven pump. Returns immediately - the handler is invoked on the executor as events arrive.
+	 */
+	public void start()
+	{
+		if (this.asyncReceiver == null)
+		{
+			throw new IllegalStateException("start() needs a pump created with an IAsyncPartitionReceiver, use run() instead.");
+		}
+
+		this.receiveAndProcess();
+	}
+
+	private void receiveAndProcess()
+	{
+		if (this.stopPumpRaised.get())
+		{
+			this.stopPump.complete(null);
+			return;
+		}
+
+		final CompletableFuture<Iterable<EventData>> receiving;
+		try
+		{
+			receiving = this.asyncReceiver.receive(this.onReceiveHandler.getMaxEventCount());
+		}
+		catch (Throwable clientException)
+		{
+			this.onReceiveFailed(clientException);
+			return;
+		}
 
-				if (userCodeError instanceof InterruptedException)
+		receiving.whenComplete(new BiConsumer<Iterable<EventData>, Throwable>()
+		{
+			@Override
+			public void accept(final Iterable<EventData> receivedEvents, final Throwable error)
+			{
+				// completes on the reactor thread - which must not run user code
+				try
 				{
-					if(TRACE_LOGGER.isLoggable(Level.FINE))
+					ReceivePump.this.executor.execute(new Runnable()
 					{
-						TRACE_LOGGER.log(Level.FINE, String.format("Interrupting receive pump for partition (%s)", this.receiver.getPartitionId()));
-					}
-					
-					Thread.currentThread().interrupt();
+						@Override
+						public void run()
+						{
+							ReceivePump.this.onReceiveCompleted(receivedEvents, error);
+						}
+					});
 				}
-				else if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+				catch (Throwable rejected)
 				{
-					TRACE_LOGGER.log(Level.SEVERE, String.format("Receive pump for partition (%s) exiting after user exception %s", this.receiver.getPartitionId(), userCodeError.toString()));
+					ReceivePump.this.onReceiveFailed(rejected);
 				}
 			}
+		});
+	}
+
+	private void onReceiveCompleted(final Iterable<EventData> receivedEvents, final Throwable error)
+	{
+		if (error != null)
+		{
+			this.onReceiveFailed(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+			return;
+		}
+
+		if (this.invokeHandler(receivedEvents, true, this.asyncReceiver.getPartitionId()))
+		{
+			this.receiveAndProcess();
+		}
+		else
+		{
+			this.stopPump.complete(null);
+		}
+	}
+
+	private void onReceiveFailed(final Throwable clientException)
+	{
+		this.onReceiveHandler.onError(clientException);
+
+		if (TRACE_LOGGER.isLoggable(Level.WARNING))
+		{
+			TRACE_LOGGER.log(Level.WARNING, String.format("Receive pump for partition (%s) exiting after receive exception %s", this.asyncReceiver.getPartitionId(), clientException.toString()));
 		}
-		
+
 		this.stopPump.complete(null);
 	}
-	
+
+	// returns false if the handler failed and the pump should stop
+	private boolean invokeHandler(final Iterable<EventData> receivedEvents, final boolean isPumpHealthy, final String partitionId)
+	{
+		try
+		{
+			if (receivedEvents != null || (receivedEvents == null && this.invokeOnTimeout && isPumpHealthy))
+			{
+				this.onReceiveHandler.onReceive(receivedEvents);
+			}
+		}
+		catch (Throwable userCodeError)
+		{
+			this.onReceiveHandler.onError(userCodeError);
+
+			if (userCodeError instanceof InterruptedException)
+			{
+				if(TRACE_LOGGER.isLoggable(Level.FINE))
+				{
+					TRACE_LOGGER.log(Level.FINE, String.format("Interrupting receive pump for partition (%s)", partitionId));
+				}
+
+				Thread.currentThread().interrupt();
+			}
+			else if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+			{
+				TRACE_LOGGER.log(Level.SEVERE, String.format("Receive pump for partition (%s) exiting after user exception %s", partitionId, userCodeError.toString()));
+			}
+
+			return false;
+		}
+
+		return true;
+	}
+
 	public CompletableFuture<Void> stop()
 	{
 		this.stopPumpRaised.set(true);
 		return this.stopPump;
 	}
-	
+
 	public boolean isRunning()
 	{
 		return !this.stopPump.isDone();
@@ -107,4 +261,39 @@ public class ReceivePump
 
 		public Iterable<EventData> receive(final int maxBatchSize) throws ServiceBusException;
 	}
+
+	// partition receiver contract against which an event driven pump works
+	public static interface IAsyncPartitionReceiver
+	{
+		public String getPartitionId();
+
+		public CompletableFuture<Iterable<EventData>> receive(final int maxBatchSize);
+	}
+
+	private static final class DefaultExecutorHolder
+	{
+		static final Executor EXECUTOR = createExecutor();
+
+		private static Executor createExecutor()
+		{
+			final AtomicInteger threadCount = new AtomicInteger();
+			final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+					ClientConstants.DEFAULT_RECEIVE_HANDLER_THREAD_COUNT,
+					ClientConstants.DEFAULT_RECEIVE_HANDLER_THREAD_COUNT,
+					60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory()
+					{
+						@Override
+						public Thread newThread(Runnable runnable)
+						{
+							final Thread thread = new Thread(runnable, "receive-handler-" + threadCount.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			return executor;
+		}
+	}
 }
@@ -4,12 +4,20 @@
  */
 package com.microsoft.azure.eventhubs;
 
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.PrefetchBudget;
+
 /**
  * Represents various optional behaviors which can be turned on or off during the creation of a {@link PartitionReceiver}.
  */
 public final class ReceiverOptions {
     
     private boolean receiverRuntimeMetricEnabled;
+    private boolean payloadDecodingEnabled;
+    private int maxDecodedPayloadBytes = ClientConstants.DEFAULT_MAX_DECODED_PAYLOAD_BYTES;
+    private boolean atMostOnce;
+    private long prefetchBytes;
+    private PrefetchBudget prefetchBudget;
     
     /**
      * Knob to enable/disable runtime metric of the receiver. If this is set to true and is passed to {@link EventHubClient#createReceiver},
@@ -34,4 +42,116 @@ public final class ReceiverOptions {
         
         this.receiverRuntimeMetricEnabled = value;
     }
+
+    /**
+     * Gets whether events sent compressed with a {@link PayloadCodec} are decompressed before they are returned. Disabled by default.
+     * @return true if received events are decompressed
+     */
+    public boolean getPayloadDecodingEnabled() {
+
+        return this.payloadDecodingEnabled;
+    }
+
+    /**
+     * Knob to enable/disable decompressing events sent with a {@link PayloadCodec} - for ex: using {@link EventDataBatch#setPayloadCodec(PayloadCodec)}.
+     * When enabled, the body of such an event is decoded with the codec named in its application properties, as registered in {@link PayloadCodecs}, and that property is removed.
+     * When disabled, the default, the events are returned as they were sent.
+     * <p>
+     * Enable this only for Event Hubs whose senders are trusted: a small event can decompress to a very large body - which is why
+     * events decoding to more than {@link #getMaxDecodedPayloadBytes()} are returned as they were sent.
+     * @param value the {@link boolean} to indicate, whether, received events should be decompressed
+     */
+    public void setPayloadDecodingEnabled(boolean value) {
+
+        this.payloadDecodingEnabled = value;
+    }
+
+    /**
+     * Gets the largest body a received event is decompressed to.
+     * @return the limit in bytes
+     */
+    public int getMaxDecodedPayloadBytes() {
+
+        return this.maxDecodedPayloadBytes;
+    }
+
+    /**
+     * Limits the size of the decompressed body of a received event, when {@link #setPayloadDecodingEnabled(boolean)} is set.
+     * Decoding stops as soon as the body exceeds the limit, and the event is returned as it was sent.
+     * @param value the limit in bytes - by default, 4 times the largest event the service accepts
+     */
+    public void setMaxDecodedPayloadBytes(int value) {
+
+        if (value <= 0) {
+            throw new IllegalArgumentException("maxDecodedPayloadBytes should be positive");
+        }
+
+        this.maxDecodedPayloadBytes = value;
+    }
+
+    /**
+     * Gets whether the service sends events pre-settled - at-most-once.
+     * @return true if the receiver is at-most-once
+     */
+    public boolean getAtMostOnce() {
+
+        return this.atMostOnce;
+    }
+
+    /**
+     * Knob to receive events pre-settled - at-most-once. If this is set to true and is passed to {@link EventHubClient#createReceiver},
+     * the service considers each event delivered as soon as it is sent, and the receiver sends no disposition for it.
+     * <p>
+     * EventHubs receivers read a stream and track their position using offsets - so this saves the per-event settlement traffic,
+     * and events prefetched but not yet returned when the link drops are not delivered again on that link.
+     * @param value the {@link boolean} to indicate, whether, events should be received at-most-once
+     */
+    public void setAtMostOnce(boolean value) {
+
+        this.atMostOnce = value;
+    }
+
+    /**
+     * Gets the limit on the size of the events the receiver pre-fetches.
+     * @return the upper limit in bytes, or 0 if there is none
+     */
+    public long getPrefetchBytes() {
+
+        return this.prefetchBytes;
+    }
+
+    /**
+     * Limits the size of the events pre-fetched by the receiver, in addition to its {@link PartitionReceiver#getPrefetchCount()}.
+     * If this is set and is passed to {@link EventHubClient#createReceiver}, the receiver grants the service credit for more events only
+     * while the events it has buffered are below this size - so that a receiver catching up on large events doesn't buffer prefetchCount of them.
+     * @param value the limit in bytes - 0, the default, for no limit
+     * @see PartitionReceiver#setPrefetchBytes(long)
+     */
+    public void setPrefetchBytes(long value) {
+
+        if (value < 0) {
+            throw new IllegalArgumentException("prefetchBytes cannot be negative");
+        }
+
+        this.prefetchBytes = value;
+    }
+
+    /**
+     * Gets the budget the receiver shares with other receivers for its prefetched events.
+     * @return the budget, or null if the receiver doesn't use one
+     */
+    public PrefetchBudget getPrefetchBudget() {
+
+        return this.prefetchBudget;
+    }
+
+    /**
+     * Makes the receiver share a {@link PrefetchBudget} with the other receivers using it - bounding the size of the events prefetched by all of them.
+     * The receiver's share of the budget changes with its consumption rate. If {@link #setPrefetchBytes(long)} is also set, the lower of the two applies.
+     * @param value the budget - null, the default, for none
+     */
+    public void setPrefetchBudget(PrefetchBudget value) {
+
+        this.prefetchBudget = value;
+    }
 }
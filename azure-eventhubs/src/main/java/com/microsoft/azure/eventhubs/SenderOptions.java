@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+/**
+ * Represents various optional behaviors which can be turned on or off during the creation of a {@link PartitionSender}.
+ */
+public final class SenderOptions {
+
+    private boolean atMostOnce;
+
+    /**
+     * Gets whether events are sent pre-settled - at-most-once - instead of waiting for the service to acknowledge each of them.
+     * @return true if the sender is at-most-once
+     */
+    public boolean getAtMostOnce() {
+
+        return this.atMostOnce;
+    }
+
+    /**
+     * Knob to send events pre-settled - at-most-once. If this is set to true and is passed to {@link EventHubClient#createPartitionSender(String, SenderOptions)},
+     * the future returned by a send completes as soon as the event is handed to the connection, without waiting for the service to acknowledge it -
+     * and failed sends are neither retried nor reported. Events can be lost, for ex: if the connection drops, the service throttles or the partition is unavailable.
+     * <p>
+     * Meant for high-volume data where occasional loss is acceptable - for ex: debug logs or metrics - in exchange for a round trip and a tracked delivery less per send.
+     * @param value the {@link boolean} to indicate, whether, events should be sent at-most-once
+     */
+    public void setAtMostOnce(final boolean value) {
+
+        this.atMostOnce = value;
+    }
+}
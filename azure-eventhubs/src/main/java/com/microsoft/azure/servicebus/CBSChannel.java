@@ -4,6 +4,8 @@
  */
 package com.microsoft.azure.servicebus;
 
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.function.Consumer;
@@ -27,14 +29,17 @@ public class CBSChannel {
     final FaultTolerantObject<RequestResponseChannel> innerChannel;
     final ISessionProvider sessionProvider;
     final IAmqpConnection connectionEventDispatcher;
+    final Duration operationTimeout;
     
     public CBSChannel(
             final ISessionProvider sessionProvider, 
             final IAmqpConnection connection, 
-            final String linkName) {
+            final String linkName,
+            final Duration operationTimeout) {
 
         this.sessionProvider = sessionProvider;
         this.connectionEventDispatcher = connection;
+        this.operationTimeout = operationTimeout;
 
         this.innerChannel = new FaultTolerantObject<>(
                                 new OpenRequestResponseChannel(),
@@ -45,8 +50,10 @@ public class CBSChannel {
             final ReactorDispatcher dispatcher,
             final String token,
             final String tokenAudience,
-            final IOperationResult<Void, Exception> sendTokenCallback) {
+            final IOperationResult<Void, Exception> callback) {
         
+        final IOperationResult<Void, Exception> sendTokenCallback = new TimedOperationResult<Void>(
+                callback, this.operationTimeout, String.format(Locale.US, "sendToken for audience(%s)", tokenAudience));
         final Message request= Proton.message();
         final Map<String, Object> properties = new HashMap<>();
         properties.put(ClientConstants.PUT_TOKEN_OPERATION, ClientConstants.PUT_TOKEN_OPERATION_VALUE);
@@ -31,7 +31,22 @@ public final class ClientConstants
 	public static final int MAX_FRAME_SIZE_BYTES = 64 * 1024;
 	public static final int MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES = 512;
 
+	public static final int DEFAULT_ENCODE_BUFFER_POOL_SIZE = 64;
+	public static final long DEFAULT_ENCODE_BUFFER_POOL_MAX_RETAINED_BYTES = 16 * 1024 * 1024;
+
+	public static final int DEFAULT_RECEIVE_HANDLER_THREAD_COUNT = Math.max(4, Runtime.getRuntime().availableProcessors());
+	public static final Duration RUNTIME_INFORMATION_CACHE_DURATION = Duration.ofMinutes(1);
+
+	public static final Duration DEFAULT_BUFFERED_SENDER_LINGER_TIME = Duration.ofMillis(20);
+	public static final long DEFAULT_BUFFERED_SENDER_MAX_BUFFERED_BYTES = 32 * 1024 * 1024;
+	public static final Duration DEFAULT_BUFFERED_SENDER_MAX_BLOCK_TIME = Duration.ofSeconds(60);
+
+	public static final String PAYLOAD_CODEC_PROPERTY_NAME = "x-opt-payload-codec";
+	public static final int DEFAULT_MAX_DECODED_PAYLOAD_BYTES = 4 * MAX_MESSAGE_LENGTH_BYTES;
+
 	public final static Duration TIMER_TOLERANCE = Duration.ofSeconds(1);
+	public final static Duration DEFAULT_TIMER_WHEEL_TICK = Duration.ofMillis(100);
+	public final static int DEFAULT_TIMER_WHEEL_SIZE = 512;
 
 	public final static Duration DEFAULT_RERTRY_MIN_BACKOFF = Duration.ofSeconds(0);
 	public final static Duration DEFAULT_RERTRY_MAX_BACKOFF = Duration.ofSeconds(30);
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Where a client runs its own continuations - and completes the futures it returns - and a count of the thread handoffs this takes.
+ * <p>
+ * Sends and receives are completed on the Reactor thread, which runs all I/O of the connection. A continuation running there
+ * delays every link on the Reactor; handing off to another thread costs a queue and a context switch per operation. Handoffs per operation:
+ * <ul>
+ * <li>{@link #IO_THREAD}: none. Futures complete on the Reactor thread - for cheap continuations, which must never block.</li>
+ * <li>an Executor: one per send, receive and create. Futures complete on the Executor - the Reactor thread never runs user code.
+ * The first send of an EventHubClient - which creates its internal sender - takes two.</li>
+ * <li>the default: sends and receives complete on the Reactor thread, without a handoff; creating clients, senders and receivers,
+ * runtime information and the first send of an EventHubClient hand off to the common {@link ForkJoinPool}.</li>
+ * </ul>
+ * A receive handler is always invoked on its own executor, with one handoff per batch.
+ * If the Executor rejects a completion, the future is completed on the Reactor thread.
+ */
+public final class CompletionExecutor implements Executor
+{
+	/**
+	 * Completes futures on the Reactor thread which did the I/O.
+	 */
+	public static final Executor IO_THREAD = new Executor()
+	{
+		@Override
+		public void execute(final Runnable runnable)
+		{
+			runnable.run();
+		}
+	};
+
+	private final Executor executor;
+	private final boolean isDefault;
+	private final AtomicLong handoffCount;
+
+	private CompletionExecutor(final Executor executor, final boolean isDefault)
+	{
+		this.executor = executor;
+		this.isDefault = isDefault;
+		this.handoffCount = new AtomicLong();
+	}
+
+	/**
+	 * @param executor {@link #IO_THREAD}, an Executor - or null for the default
+	 * @return the completion executor of a client
+	 */
+	public static CompletionExecutor create(final Executor executor)
+	{
+		return executor != null ? new CompletionExecutor(executor, false) : new CompletionExecutor(ForkJoinPool.commonPool(), true);
+	}
+
+	@Override
+	public void execute(final Runnable runnable)
+	{
+		if (this.executor == IO_THREAD)
+		{
+			runnable.run();
+			return;
+		}
+
+		this.handoffCount.incrementAndGet();
+		this.executor.execute(runnable);
+	}
+
+	/**
+	 * @return the number of continuations handed off to another thread so far
+	 */
+	public long getHandoffCount()
+	{
+		return this.handoffCount.get();
+	}
+
+	/**
+	 * @param ioFuture a future completed on the Reactor thread
+	 * @return a future completed like ioFuture - on the Executor, if one was given
+	 */
+	public <T> CompletableFuture<T> completeOn(final CompletableFuture<T> ioFuture)
+	{
+		if (this.isDefault || this.executor == IO_THREAD)
+		{
+			return ioFuture;
+		}
+
+		final CompletableFuture<T> completion = new CompletableFuture<T>();
+		ioFuture.whenComplete(new BiConsumer<T, Throwable>()
+		{
+			@Override
+			public void accept(final T result, final Throwable error)
+			{
+				final Runnable complete = new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						if (error != null)
+						{
+							completion.completeExceptionally(error);
+						}
+						else
+						{
+							completion.complete(result);
+						}
+					}
+				};
+
+				try
+				{
+					CompletionExecutor.this.execute(complete);
+				}
+				catch (RejectedExecutionException rejected)
+				{
+					// the operation is done - do not turn its outcome into a failure
+					complete.run();
+				}
+			}
+		});
+
+		return completion;
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of byte arrays used to hold encoded amqp messages on the send path.
+ * <p>
+ * Buffers are handed out in power-of-two size classes between {@link #MIN_BUFFER_SIZE_BYTES} and
+ * {@link ClientConstants#MAX_MESSAGE_LENGTH_BYTES}. A buffer is retained on release only while both the
+ * number of pooled buffers and the total pooled bytes stay within the configured limits - otherwise it is left to the GC.
+ */
+public final class EncodeBufferPool
+{
+	public static final int MIN_BUFFER_SIZE_BYTES = 4 * 1024;
+
+	private static final int MIN_SIZE_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE_BYTES);
+	private static final EncodeBufferPool DEFAULT = new EncodeBufferPool(
+			ClientConstants.DEFAULT_ENCODE_BUFFER_POOL_SIZE,
+			ClientConstants.DEFAULT_ENCODE_BUFFER_POOL_MAX_RETAINED_BYTES);
+
+	private final ConcurrentLinkedQueue<byte[]>[] sizeClasses;
+	private final AtomicInteger pooledBufferCount;
+	private final AtomicLong retainedBytes;
+
+	private final AtomicLong allocationCount;
+	private final AtomicLong reuseCount;
+	private final AtomicLong discardCount;
+
+	private volatile int maxPooledBuffers;
+	private volatile long maxRetainedBytes;
+
+	@SuppressWarnings("unchecked")
+	public EncodeBufferPool(final int maxPooledBuffers, final long maxRetainedBytes)
+	{
+		if (maxPooledBuffers < 0)
+			throw new IllegalArgumentException("maxPooledBuffers cannot be negative.");
+
+		if (maxRetainedBytes < 0)
+			throw new IllegalArgumentException("maxRetainedBytes cannot be negative.");
+
+		final int sizeClassCount = Integer.numberOfTrailingZeros(ClientConstants.MAX_MESSAGE_LENGTH_BYTES) - MIN_SIZE_CLASS_SHIFT + 1;
+		this.sizeClasses = new ConcurrentLinkedQueue[sizeClassCount];
+		for (int index = 0; index < sizeClassCount; index++)
+		{
+			this.sizeClasses[index] = new ConcurrentLinkedQueue<>();
+		}
+
+		this.pooledBufferCount = new AtomicInteger();
+		this.retainedBytes = new AtomicLong();
+		this.allocationCount = new AtomicLong();
+		this.reuseCount = new AtomicLong();
+		this.discardCount = new AtomicLong();
+
+		this.maxPooledBuffers = maxPooledBuffers;
+		this.maxRetainedBytes = maxRetainedBytes;
+	}
+
+	/**
+	 * Gets the pool shared by all senders in this process.
+	 * @return the process-wide encode buffer pool
+	 */
+	public static EncodeBufferPool getDefault()
+	{
+		return EncodeBufferPool.DEFAULT;
+	}
+
+	/**
+	 * Gets a buffer which can hold at least {@code minimumSize} bytes - pooled if one is available, newly allocated otherwise.
+	 * @param minimumSize required capacity, must not be more than {@link ClientConstants#MAX_MESSAGE_LENGTH_BYTES}
+	 * @return a buffer of length greater than or equal to {@code minimumSize}
+	 */
+	public byte[] acquire(final int minimumSize)
+	{
+		if (minimumSize < 0 || minimumSize > ClientConstants.MAX_MESSAGE_LENGTH_BYTES)
+			throw new IllegalArgumentException(String.format("buffer size should be between 0 and %s bytes.", ClientConstants.MAX_MESSAGE_LENGTH_BYTES));
+
+		final int sizeClass = sizeClassOf(minimumSize);
+		final byte[] pooled = this.sizeClasses[sizeClass].poll();
+		if (pooled != null)
+		{
+			this.pooledBufferCount.decrementAndGet();
+			this.retainedBytes.addAndGet(-pooled.length);
+			this.reuseCount.incrementAndGet();
+			return pooled;
+		}
+
+		this.allocationCount.incrementAndGet();
+		return new byte[MIN_BUFFER_SIZE_BYTES << sizeClass];
+	}
+
+	/**
+	 * Returns a buffer obtained from {@link #acquire(int)} to the pool. The caller must not touch the buffer afterwards.
+	 * @param buffer the buffer to return, ignored if null
+	 */
+	public void release(final byte[] buffer)
+	{
+		if (buffer == null)
+			return;
+
+		final int length = buffer.length;
+		if (length < MIN_BUFFER_SIZE_BYTES || length > ClientConstants.MAX_MESSAGE_LENGTH_BYTES || Integer.bitCount(length) != 1)
+		{
+			this.discardCount.incrementAndGet();
+			return;
+		}
+
+		if (this.pooledBufferCount.incrementAndGet() > this.maxPooledBuffers)
+		{
+			this.pooledBufferCount.decrementAndGet();
+			this.discardCount.incrementAndGet();
+			return;
+		}
+
+		if (this.retainedBytes.addAndGet(length) > this.maxRetainedBytes)
+		{
+			this.retainedBytes.addAndGet(-length);
+			this.pooledBufferCount.decrementAndGet();
+			this.discardCount.incrementAndGet();
+			return;
+		}
+
+		this.sizeClasses[sizeClassOf(length)].offer(buffer);
+	}
+
+	public int getMaxPooledBuffers()
+	{
+		return this.maxPooledBuffers;
+	}
+
+	/**
+	 * Sets the maximum number of idle buffers kept by the pool. Buffers above the new limit are dropped as they are released.
+	 * @param maxPooledBuffers the new limit
+	 */
+	public void setMaxPooledBuffers(final int maxPooledBuffers)
+	{
+		if (maxPooledBuffers < 0)
+			throw new IllegalArgumentException("maxPooledBuffers cannot be negative.");
+
+		this.maxPooledBuffers = maxPooledBuffers;
+		this.trim();
+	}
+
+	public long getMaxRetainedBytes()
+	{
+		return this.maxRetainedBytes;
+	}
+
+	/**
+	 * Sets the maximum number of bytes held by idle buffers in the pool.
+	 * @param maxRetainedBytes the new limit
+	 */
+	public void setMaxRetainedBytes(final long maxRetainedBytes)
+	{
+		if (maxRetainedBytes < 0)
+			throw new IllegalArgumentException("maxRetainedBytes cannot be negative.");
+
+		this.maxRetainedBytes = maxRetainedBytes;
+		this.trim();
+	}
+
+	/**
+	 * @return number of buffers the pool had to allocate because no pooled buffer of the requested size class was available
+	 */
+	public long getAllocationCount()
+	{
+		return this.allocationCount.get();
+	}
+
+	/**
+	 * @return number of {@link #acquire(int)} calls served from the pool
+	 */
+	public long getReuseCount()
+	{
+		return this.reuseCount.get();
+	}
+
+	/**
+	 * @return number of released buffers dropped because the pool was full
+	 */
+	public long getDiscardCount()
+	{
+		return this.discardCount.get();
+	}
+
+	public int getPooledBufferCount()
+	{
+		return this.pooledBufferCount.get();
+	}
+
+	public long getRetainedBytes()
+	{
+		return this.retainedBytes.get();
+	}
+
+	private void trim()
+	{
+		for (int index = this.sizeClasses.length - 1; index >= 0; index--)
+		{
+			while (this.pooledBufferCount.get() > this.maxPooledBuffers || this.retainedBytes.get() > this.maxRetainedBytes)
+			{
+				final byte[] dropped = this.sizeClasses[index].poll();
+				if (dropped == null)
+					break;
+
+				this.pooledBufferCount.decrementAndGet();
+				this.retainedBytes.addAndGet(-dropped.length);
+			}
+		}
+	}
+
+	private static int sizeClassOf(final int size)
+	{
+		if (size <= MIN_BUFFER_SIZE_BYTES)
+			return 0;
+
+		return (Integer.SIZE - Integer.numberOfLeadingZeros(size - 1)) - MIN_SIZE_CLASS_SHIFT;
+	}
+}
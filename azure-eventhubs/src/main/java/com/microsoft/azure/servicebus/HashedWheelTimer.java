@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link TimeoutScheduler} which keeps timeouts in a hashed wheel of buckets, each covering one tick.
+ * <p>
+ * Scheduling and cancelling are O(1) and never take a lock: new and cancelled timeouts are queued and
+ * moved in and out of the wheel by a single worker thread, once per tick. Timeouts fire with tick resolution -
+ * never early, and at most about one tick late - which suits operation timeouts that are mostly cancelled before they expire.
+ * Expired tasks are handed to the task {@link Executor}, so that a slow task does not hold up the wheel.
+ */
+public final class HashedWheelTimer implements TimeoutScheduler
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private static final int WORKER_INIT = 0;
+	private static final int WORKER_STARTED = 1;
+	private static final int WORKER_SHUTDOWN = 2;
+
+	// bounds the work done by the worker per tick - so that a burst of schedule calls cannot starve expiry
+	private static final int MAX_TIMEOUTS_TRANSFERRED_PER_TICK = 100000;
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Executor taskExecutor;
+	private final Thread workerThread;
+	private final AtomicInteger workerState;
+	private final ConcurrentLinkedQueue<WheelTimeout> newTimeouts;
+	private final ConcurrentLinkedQueue<WheelTimeout> cancelledTimeouts;
+	private final AtomicLong pendingTimeouts;
+
+	private volatile long startTime;
+	private long tick;
+
+	/**
+	 * @param tickDuration resolution of the timer, should not be less than 1 millisecond
+	 * @param ticksPerWheel number of buckets in the wheel - rounded up to a power of two
+	 * @param taskExecutor executor on which expired tasks are run
+	 */
+	public HashedWheelTimer(final Duration tickDuration, final int ticksPerWheel, final Executor taskExecutor)
+	{
+		if (tickDuration == null || tickDuration.toMillis() < 1)
+			throw new IllegalArgumentException("tickDuration should be at least 1 millisecond.");
+
+		if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30))
+			throw new IllegalArgumentException(String.format(Locale.US, "ticksPerWheel should be between 1 and %s.", 1 << 30));
+
+		if (taskExecutor == null)
+			throw new IllegalArgumentException("taskExecutor cannot be null.");
+
+		final int wheelSize = ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1;
+		this.wheel = new Bucket[wheelSize];
+		for (int index = 0; index < wheelSize; index++)
+		{
+			this.wheel[index] = new Bucket();
+		}
+
+		this.mask = wheelSize - 1;
+		this.tickNanos = tickDuration.toNanos();
+		this.taskExecutor = taskExecutor;
+		this.workerState = new AtomicInteger(WORKER_INIT);
+		this.newTimeouts = new ConcurrentLinkedQueue<>();
+		this.cancelledTimeouts = new ConcurrentLinkedQueue<>();
+		this.pendingTimeouts = new AtomicLong();
+
+		this.workerThread = new Thread(new Worker(), "HashedWheelTimer".concat(StringUtil.getRandomString()));
+		this.workerThread.setDaemon(true);
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(final Runnable task, final Duration delay)
+	{
+		if (task == null)
+			throw new IllegalArgumentException("task cannot be null.");
+
+		this.start();
+
+		final long delayNanos = delay == null || delay.isNegative() ? 0 : delay.toNanos();
+		final long deadline = System.nanoTime() - this.startTime + delayNanos;
+		final WheelTimeout timeout = new WheelTimeout(task, deadline < 0 ? Long.MAX_VALUE : deadline);
+
+		this.pendingTimeouts.incrementAndGet();
+		this.newTimeouts.offer(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Stops the worker thread. Timeouts which have not expired yet are dropped without running.
+	 * A stopped timer cannot be restarted: {@link #schedule(Runnable, Duration)} then throws an {@link IllegalStateException}.
+	 */
+	public void stop()
+	{
+		if (this.workerState.getAndSet(WORKER_SHUTDOWN) == WORKER_STARTED)
+		{
+			this.workerThread.interrupt();
+		}
+	}
+
+	/**
+	 * @return number of timeouts which are scheduled, and have neither expired nor been cancelled
+	 */
+	public long getPendingTimeouts()
+	{
+		return this.pendingTimeouts.get();
+	}
+
+	private void start()
+	{
+		switch (this.workerState.get())
+		{
+			case WORKER_INIT:
+				if (this.workerState.compareAndSet(WORKER_INIT, WORKER_STARTED))
+				{
+					this.startTime = System.nanoTime();
+					this.workerThread.start();
+				}
+				break;
+
+			case WORKER_STARTED:
+				break;
+
+			default:
+				throw new IllegalStateException("HashedWheelTimer is stopped.");
+		}
+
+		// schedule can race with the thread that started the worker
+		while (this.startTime == 0)
+		{
+			Thread.yield();
+		}
+	}
+
+	private final class Worker implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			while (HashedWheelTimer.this.workerState.get() == WORKER_STARTED)
+			{
+				final long deadline = this.waitForNextTick();
+				if (deadline < 0)
+					break;
+
+				this.removeCancelledTimeouts();
+				this.transferTimeoutsToBuckets();
+				HashedWheelTimer.this.wheel[(int) (HashedWheelTimer.this.tick & HashedWheelTimer.this.mask)].expireTimeouts(deadline);
+				HashedWheelTimer.this.tick++;
+			}
+
+			if (TRACE_LOGGER.isLoggable(Level.FINE))
+			{
+				TRACE_LOGGER.log(Level.FINE, String.format(Locale.US, "HashedWheelTimer stopped with pendingTimeouts[%s]", HashedWheelTimer.this.pendingTimeouts.get()));
+			}
+		}
+
+		// returns the time, relative to startTime, the current tick ends at - or -1 if the timer was stopped while waiting
+		private long waitForNextTick()
+		{
+			final long deadline = HashedWheelTimer.this.tickNanos * (HashedWheelTimer.this.tick + 1);
+			while (true)
+			{
+				final long currentTime = System.nanoTime() - HashedWheelTimer.this.startTime;
+				final long sleepTimeMillis = (deadline - currentTime + 999999) / 1000000;
+				if (sleepTimeMillis <= 0)
+					return currentTime;
+
+				try
+				{
+					Thread.sleep(sleepTimeMillis);
+				}
+				catch (InterruptedException interrupted)
+				{
+					if (HashedWheelTimer.this.workerState.get() == WORKER_SHUTDOWN)
+						return -1;
+				}
+			}
+		}
+
+		private void transferTimeoutsToBuckets()
+		{
+			for (int index = 0; index < MAX_TIMEOUTS_TRANSFERRED_PER_TICK; index++)
+			{
+				final WheelTimeout timeout = HashedWheelTimer.this.newTimeouts.poll();
+				if (timeout == null)
+					break;
+
+				if (timeout.isCancelled())
+					continue;
+
+				final long expiryTick = timeout.deadline / HashedWheelTimer.this.tickNanos;
+				timeout.remainingRounds = (expiryTick - HashedWheelTimer.this.tick) / HashedWheelTimer.this.wheel.length;
+
+				// a timeout which should have already expired goes into the current bucket
+				final long ticks = Math.max(expiryTick, HashedWheelTimer.this.tick);
+				HashedWheelTimer.this.wheel[(int) (ticks & HashedWheelTimer.this.mask)].add(timeout);
+			}
+		}
+
+		private void removeCancelledTimeouts()
+		{
+			WheelTimeout timeout;
+			while ((timeout = HashedWheelTimer.this.cancelledTimeouts.poll()) != null)
+			{
+				// a timeout cancelled before it was transferred isn't in any bucket yet
+				if (timeout.bucket != null)
+				{
+					timeout.bucket.remove(timeout);
+				}
+			}
+		}
+	}
+
+	// doubly-linked list of timeouts - accessed only by the worker thread
+	private final class Bucket
+	{
+		private WheelTimeout head;
+		private WheelTimeout tail;
+
+		void add(final WheelTimeout timeout)
+		{
+			timeout.bucket = this;
+			if (this.head == null)
+			{
+				this.head = this.tail = timeout;
+			}
+			else
+			{
+				this.tail.next = timeout;
+				timeout.prev = this.tail;
+				this.tail = timeout;
+			}
+		}
+
+		void remove(final WheelTimeout timeout)
+		{
+			final WheelTimeout next = timeout.next;
+			if (timeout.prev != null)
+				timeout.prev.next = next;
+
+			if (timeout.next != null)
+				timeout.next.prev = timeout.prev;
+
+			if (timeout == this.head)
+				this.head = next;
+
+			if (timeout == this.tail)
+				this.tail = timeout.prev;
+
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+
+		void expireTimeouts(final long deadline)
+		{
+			WheelTimeout timeout = this.head;
+			while (timeout != null)
+			{
+				final WheelTimeout next = timeout.next;
+				if (timeout.isCancelled())
+				{
+					this.remove(timeout);
+				}
+				else if (timeout.remainingRounds <= 0)
+				{
+					this.remove(timeout);
+					if (timeout.deadline <= deadline)
+					{
+						timeout.expire();
+					}
+					else
+					{
+						// can't happen: timeouts are placed in the bucket of the tick they expire in
+						HashedWheelTimer.this.wheel[(int) ((HashedWheelTimer.this.tick + 1) & HashedWheelTimer.this.mask)].add(timeout);
+					}
+				}
+				else
+				{
+					timeout.remainingRounds--;
+				}
+
+				timeout = next;
+			}
+		}
+	}
+
+	private final class WheelTimeout implements ScheduledFuture<Void>, Runnable
+	{
+		private static final int STATE_SCHEDULED = 0;
+		private static final int STATE_CANCELLED = 1;
+		private static final int STATE_EXPIRED = 2;
+		private static final int STATE_COMPLETED = 3;
+
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state;
+
+		// owned by the worker thread
+		private long remainingRounds;
+		private Bucket bucket;
+		private WheelTimeout prev;
+		private WheelTimeout next;
+
+		private Throwable failure;
+
+		WheelTimeout(final Runnable task, final long deadline)
+		{
+			this.task = task;
+			this.deadline = deadline;
+			this.state = new AtomicInteger(STATE_SCHEDULED);
+		}
+
+		void expire()
+		{
+			if (!this.state.compareAndSet(STATE_SCHEDULED, STATE_EXPIRED))
+				return;
+
+			HashedWheelTimer.this.pendingTimeouts.decrementAndGet();
+			try
+			{
+				HashedWheelTimer.this.taskExecutor.execute(this);
+			}
+			catch (RejectedExecutionException rejected)
+			{
+				if (TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING, "HashedWheelTimer - task executor rejected an expired timeout", rejected);
+				}
+
+				this.complete(rejected);
+			}
+		}
+
+		@Override
+		public void run()
+		{
+			Throwable taskFailure = null;
+			try
+			{
+				this.task.run();
+			}
+			catch (Throwable throwable)
+			{
+				taskFailure = throwable;
+				if (TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING, "HashedWheelTimer - timeout task failed", throwable);
+				}
+			}
+
+			this.complete(taskFailure);
+		}
+
+		private synchronized void complete(final Throwable taskFailure)
+		{
+			this.failure = taskFailure;
+			this.state.set(STATE_COMPLETED);
+			this.notifyAll();
+		}
+
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning)
+		{
+			if (!this.state.compareAndSet(STATE_SCHEDULED, STATE_CANCELLED))
+				return false;
+
+			HashedWheelTimer.this.pendingTimeouts.decrementAndGet();
+			HashedWheelTimer.this.cancelledTimeouts.offer(this);
+			synchronized (this)
+			{
+				this.notifyAll();
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled()
+		{
+			return this.state.get() == STATE_CANCELLED;
+		}
+
+		@Override
+		public boolean isDone()
+		{
+			final int currentState = this.state.get();
+			return currentState == STATE_CANCELLED || currentState == STATE_COMPLETED;
+		}
+
+		@Override
+		public Void get() throws InterruptedException, ExecutionException
+		{
+			synchronized (this)
+			{
+				while (!this.isDone())
+				{
+					this.wait();
+				}
+			}
+
+			return this.report();
+		}
+
+		@Override
+		public Void get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, java.util.concurrent.TimeoutException
+		{
+			final long waitUntil = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (this)
+			{
+				while (!this.isDone())
+				{
+					final long remainingNanos = waitUntil - System.nanoTime();
+					if (remainingNanos <= 0)
+						throw new java.util.concurrent.TimeoutException();
+
+					TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+				}
+			}
+
+			return this.report();
+		}
+
+		private Void report() throws ExecutionException
+		{
+			if (this.isCancelled())
+				throw new CancellationException();
+
+			if (this.failure != null)
+				throw new ExecutionException(this.failure);
+
+			return null;
+		}
+
+		@Override
+		public long getDelay(final TimeUnit unit)
+		{
+			return unit.convert(this.deadline - (System.nanoTime() - HashedWheelTimer.this.startTime), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(final Delayed other)
+		{
+			if (other == this)
+				return 0;
+
+			return Long.compare(this.getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+}
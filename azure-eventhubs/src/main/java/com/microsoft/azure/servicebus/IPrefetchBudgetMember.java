@@ -0,0 +1,13 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+interface IPrefetchBudgetMember
+{
+	// total bytes handed out of the prefetch buffer so far
+	long getConsumedBytes();
+
+	void onPrefetchBudgetChanged(long budgetBytes);
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Receives the measurements of a {@link ReactorWatchdog}.
+ */
+public interface IReactorWatchdogListener
+{
+	/**
+	 * A probe ran on a Reactor thread. Called on that thread - return quickly.
+	 * @param reactorName the name of the Reactor thread
+	 * @param lagNanos time from queuing the probe to running it - what any work queued for the Reactor would have waited
+	 */
+	public void onLag(String reactorName, long lagNanos);
+
+	/**
+	 * A probe has waited longer than the stall threshold: the Reactor thread is busy - or blocked - in a handler.
+	 * Called once per stall, on the watchdog thread.
+	 * @param reactorName the name of the Reactor thread
+	 * @param stalledNanos time the probe has waited so far
+	 * @param stackTrace what the Reactor thread is running - most recent call first
+	 */
+	public void onStall(String reactorName, long stalledNanos, StackTraceElement[] stackTrace);
+}
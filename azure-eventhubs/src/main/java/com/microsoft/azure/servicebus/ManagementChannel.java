@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.message.Message;
+
+import com.microsoft.azure.servicebus.amqp.AmqpException;
+import com.microsoft.azure.servicebus.amqp.AmqpResponseCode;
+import com.microsoft.azure.servicebus.amqp.IAmqpConnection;
+import com.microsoft.azure.servicebus.amqp.IOperation;
+import com.microsoft.azure.servicebus.amqp.IOperationResult;
+import com.microsoft.azure.servicebus.amqp.ReactorDispatcher;
+import com.microsoft.azure.servicebus.amqp.RequestResponseChannel;
+
+/**
+ * Request-response link to the $management node of the namespace, on the connection of the {@link MessagingFactory}.
+ * Requests are pipelined - any number of them can be in flight, responses are matched by correlation-id.
+ */
+public class ManagementChannel {
+
+    final FaultTolerantObject<RequestResponseChannel> innerChannel;
+    final ISessionProvider sessionProvider;
+    final IAmqpConnection connectionEventDispatcher;
+    final SharedAccessSignatureTokenProvider tokenProvider;
+    final String hostName;
+    final Duration operationTimeout;
+
+    public ManagementChannel(
+            final ISessionProvider sessionProvider,
+            final IAmqpConnection connection,
+            final SharedAccessSignatureTokenProvider tokenProvider,
+            final String hostName,
+            final Duration operationTimeout) {
+
+        this.sessionProvider = sessionProvider;
+        this.connectionEventDispatcher = connection;
+        this.tokenProvider = tokenProvider;
+        this.hostName = hostName;
+        this.operationTimeout = operationTimeout;
+
+        this.innerChannel = new FaultTolerantObject<>(
+                                new OpenRequestResponseChannel(),
+                                new CloseRequestResponseChannel());
+    }
+
+    /**
+     * Sends a request to the $management node. The security_token for the entity named in the request
+     * is added to the request properties.
+     *
+     * @param dispatcher    reactor dispatcher of the connection
+     * @param request       application properties of the request - operation, type, name and any operation specific keys
+     * @param callback      completed with the body of the response, or the error the status-code maps to
+     */
+    public void request(
+            final ReactorDispatcher dispatcher,
+            final Map<String, Object> request,
+            final IOperationResult<Map<String, Object>, Exception> callback) {
+
+        final String entityName = (String) request.get(ClientConstants.MANAGEMENT_ENTITY_NAME_KEY);
+        final IOperationResult<Map<String, Object>, Exception> requestCallback = new TimedOperationResult<Map<String, Object>>(
+                callback, this.operationTimeout, String.format(Locale.US, "%s request for entity(%s)", request.get(ClientConstants.MANAGEMENT_OPERATION_KEY), entityName));
+
+        final Map<String, Object> properties = new HashMap<>(request);
+        try {
+            properties.put(ClientConstants.MANAGEMENT_SECURITY_TOKEN_KEY, this.tokenProvider.getToken(
+                    String.format(Locale.US, ClientConstants.TOKEN_AUDIENCE_FORMAT, this.hostName, entityName),
+                    ClientConstants.TOKEN_REFRESH_INTERVAL));
+        }
+        catch (IOException|InvalidKeyException|NoSuchAlgorithmException tokenException) {
+            requestCallback.onError(tokenException);
+            return;
+        }
+
+        final Message requestMessage = Proton.message();
+        requestMessage.setApplicationProperties(new ApplicationProperties(properties));
+
+        this.innerChannel.runOnOpenedObject(dispatcher,
+                new IOperationResult<RequestResponseChannel, Exception>() {
+                    @Override
+                    public void onComplete(final RequestResponseChannel result) {
+                        result.request(dispatcher, requestMessage,
+                            new IOperationResult<Message, Exception>() {
+                                @Override
+                                @SuppressWarnings("unchecked")
+                                public void onComplete(final Message response) {
+
+                                    final Map<String, Object> responseProperties = response.getApplicationProperties().getValue();
+                                    final int statusCode = (int) responseProperties.get(ClientConstants.MANAGEMENT_STATUS_CODE_KEY);
+                                    final String statusDescription = (String) responseProperties.get(ClientConstants.MANAGEMENT_STATUS_DESCRIPTION_KEY);
+
+                                    if (statusCode == AmqpResponseCode.ACCEPTED.getValue() || statusCode == AmqpResponseCode.OK.getValue()) {
+                                        if (response.getBody() instanceof AmqpValue && ((AmqpValue) response.getBody()).getValue() instanceof Map) {
+                                            requestCallback.onComplete((Map<String, Object>) ((AmqpValue) response.getBody()).getValue());
+                                        }
+                                        else {
+                                            this.onError(new ServiceBusException(false, "$management response did not have a map body."));
+                                        }
+                                    }
+                                    else {
+                                        this.onError(ExceptionUtil.amqpResponseCodeToException(statusCode, statusDescription));
+                                    }
+                                }
+
+                                @Override
+                                public void onError(final Exception error) {
+                                    requestCallback.onError(error);
+                                }
+                            });
+                    }
+
+                    @Override
+                    public void onError(Exception error) {
+                        requestCallback.onError(error);
+                    }
+                });
+    }
+
+    public void close(
+            final ReactorDispatcher reactorDispatcher,
+            final IOperationResult<Void, Exception> closeCallback) {
+
+        this.innerChannel.close(reactorDispatcher, closeCallback);
+    }
+
+    private class OpenRequestResponseChannel implements IOperation<RequestResponseChannel> {
+        @Override
+        public void run(IOperationResult<RequestResponseChannel, Exception> operationCallback) {
+
+            final RequestResponseChannel requestResponseChannel = new RequestResponseChannel(
+                "mgmt",
+                ClientConstants.MANAGEMENT_ADDRESS,
+                ManagementChannel.this.sessionProvider.getSession(
+                    "mgmt-session",
+                    null,
+                    new Consumer<ErrorCondition>() {
+                        @Override
+                        public void accept(ErrorCondition error) {
+                            operationCallback.onError(new AmqpException(error));
+                        }
+                    }));
+
+            requestResponseChannel.open(
+                new IOperationResult<Void, Exception>() {
+                    @Override
+                    public void onComplete(Void result) {
+                        connectionEventDispatcher.registerForConnectionError(requestResponseChannel.getSendLink());
+                        connectionEventDispatcher.registerForConnectionError(requestResponseChannel.getReceiveLink());
+
+                        operationCallback.onComplete(requestResponseChannel);
+                    }
+                    @Override
+                    public void onError(Exception error) {
+                        operationCallback.onError(error);
+                    }
+                },
+                new IOperationResult<Void, Exception>() {
+                @Override
+                public void onComplete(Void result) {
+                    connectionEventDispatcher.deregisterForConnectionError(requestResponseChannel.getSendLink());
+                    connectionEventDispatcher.deregisterForConnectionError(requestResponseChannel.getReceiveLink());
+                }
+                @Override
+                public void onError(Exception error) {
+                    connectionEventDispatcher.deregisterForConnectionError(requestResponseChannel.getSendLink());
+                    connectionEventDispatcher.deregisterForConnectionError(requestResponseChannel.getReceiveLink());
+                }
+            });
+        }
+    }
+
+    private class CloseRequestResponseChannel implements IOperation<Void> {
+
+        @Override
+        public void run(IOperationResult<Void, Exception> closeOperationCallback) {
+
+            final RequestResponseChannel channelToBeClosed = innerChannel.unsafeGetIfOpened();
+            if (channelToBeClosed == null) {
+
+                closeOperationCallback.onComplete(null);
+            }
+            else {
+
+                channelToBeClosed.close(new IOperationResult<Void, Exception>() {
+                    @Override
+                    public void onComplete(Void result) {
+                        closeOperationCallback.onComplete(result);
+                    }
+
+                    @Override
+                    public void onError(Exception error) {
+                        closeOperationCallback.onError(error);
+                    }
+                });
+            }
+        }
+    }
+}
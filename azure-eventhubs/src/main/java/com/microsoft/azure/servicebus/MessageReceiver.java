@@ -10,6 +10,7 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,12 +40,13 @@ import com.microsoft.azure.servicebus.amqp.DispatchHandler;
 import com.microsoft.azure.servicebus.amqp.IAmqpReceiver;
 import com.microsoft.azure.servicebus.amqp.IOperationResult;
 import com.microsoft.azure.servicebus.amqp.ReceiveLinkHandler;
+import com.microsoft.azure.servicebus.metrics.ReceiverMetrics;
 
 /**
  * Common Receiver that abstracts all amqp related details
  * translates event-driven reactor model into async receive Api
  */
-public final class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErrorContextProvider
+public final class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErrorContextProvider, IPrefetchBudgetMember
 {
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
 	private static final int MIN_TIMEOUT_DURATION_MILLIS = 20;
@@ -52,19 +54,30 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 	private final ConcurrentLinkedQueue<ReceiveWorkItem> pendingReceives;
 	private final MessagingFactory underlyingFactory;
 	private final String receivePath;
+	private final boolean isPreSettled;
 	private final Runnable onOperationTimedout;
 	private final Duration operationTimeout;
 	private final CompletableFuture<Void> linkClose;
 	private final Object prefetchCountSync;
 	private final IReceiverSettingsProvider settingsProvider;
+	private final PrefetchBudget prefetchBudget;
+	private final ReceiverMetrics metrics;
         private final String tokenAudience;
         private final ActiveClientTokenManager activeClientTokenManager;
                     
 	private int prefetchCount;
-        private ConcurrentLinkedQueue<Message> prefetchedMessages;
+	private volatile long prefetchBytes;
+        private ConcurrentLinkedQueue<PrefetchedMessage> prefetchedMessages;
+	private volatile long prefetchedBytes;
+	private volatile int prefetchedMessageCount;
+	private volatile long consumedBytes;
+	private volatile long budgetBytes;
+	private long averageMessageSize;
 	private Receiver receiveLink;
 	private WorkItem<MessageReceiver> linkOpen;
 	private Duration receiveTimeout;
+	private int minReceiveBatchSize;
+	private Duration maxReceiveBatchWaitTime;
         private Message lastReceivedMessage;
 	private Exception lastKnownLinkError;
 	private int nextCreditToFlow;
@@ -74,18 +87,28 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 			final String name, 
 			final String recvPath,
 			final int prefetchCount,
-			final IReceiverSettingsProvider settingsProvider)
+			final long prefetchBytes,
+			final PrefetchBudget prefetchBudget,
+			final IReceiverSettingsProvider settingsProvider,
+			final boolean isPreSettled)
 	{
 		super(name, factory);
 
 		this.underlyingFactory = factory;
+		this.isPreSettled = isPreSettled;
 		this.operationTimeout = factory.getOperationTimeout();
 		this.receivePath = recvPath;
 		this.prefetchCount = prefetchCount;
+		this.prefetchBytes = prefetchBytes;
+		this.prefetchBudget = prefetchBudget;
+		this.metrics = factory.createReceiverMetrics(this.receivePath);
 		this.prefetchedMessages = new ConcurrentLinkedQueue<>();
+		this.averageMessageSize = ClientConstants.MAX_MESSAGE_LENGTH_BYTES;
 		this.linkClose = new CompletableFuture<>();
 		this.lastKnownLinkError = null;
 		this.receiveTimeout = factory.getOperationTimeout();
+		this.minReceiveBatchSize = 1;
+		this.maxReceiveBatchWaitTime = Duration.ZERO;
 		this.prefetchCountSync = new Object();
                 this.settingsProvider = settingsProvider;
                 this.linkOpen = new WorkItem<>(new CompletableFuture<>(), factory.getOperationTimeout());
@@ -185,15 +208,76 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 			final String recvPath,
 			final int prefetchCount,
 			final IReceiverSettingsProvider settingsProvider)
+	{
+		return MessageReceiver.create(factory, name, recvPath, prefetchCount, settingsProvider, false);
+	}
+
+	// @param isPreSettled the service sends the messages settled - at-most-once - and no dispositions are sent back for them
+	public static CompletableFuture<MessageReceiver> create(
+			final MessagingFactory factory, 
+			final String name, 
+			final String recvPath,
+			final int prefetchCount,
+			final IReceiverSettingsProvider settingsProvider,
+			final boolean isPreSettled)
+	{
+		return MessageReceiver.create(factory, name, recvPath, prefetchCount, 0, null, settingsProvider, isPreSettled);
+	}
+
+	// @param prefetchBytes upper limit on the size of the prefetched messages - 0 for no limit other than prefetchCount
+	// @param prefetchBudget budget shared with other receivers, which further limits the size of the prefetched messages - can be null
+	public static CompletableFuture<MessageReceiver> create(
+			final MessagingFactory factory, 
+			final String name, 
+			final String recvPath,
+			final int prefetchCount,
+			final long prefetchBytes,
+			final PrefetchBudget prefetchBudget,
+			final IReceiverSettingsProvider settingsProvider,
+			final boolean isPreSettled)
 	{
 		MessageReceiver msgReceiver = new MessageReceiver(
                         factory,
                         name,
                         recvPath,
                         prefetchCount,
-                        settingsProvider);
+                        prefetchBytes,
+                        prefetchBudget,
+                        settingsProvider,
+                        isPreSettled);
+
+		if (prefetchBudget != null)
+		{
+			msgReceiver.joinPrefetchBudget();
+		}
+
 		return msgReceiver.createLink();
 	}
+
+	// the share is assigned before the link opens - so that the first flow already respects it
+	private void joinPrefetchBudget()
+	{
+		this.prefetchBudget.register(this);
+		this.linkOpen.getWork().whenComplete(new BiConsumer<MessageReceiver, Throwable>()
+		{
+			@Override
+			public void accept(MessageReceiver result, Throwable error)
+			{
+				if (error != null)
+				{
+					MessageReceiver.this.prefetchBudget.unregister(MessageReceiver.this);
+				}
+			}
+		});
+		this.linkClose.whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void result, Throwable error)
+			{
+				MessageReceiver.this.prefetchBudget.unregister(MessageReceiver.this);
+			}
+		});
+	}
         
         public String getReceivePath()
 	{
@@ -225,7 +309,8 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 	private List<Message> receiveCore(final int messageCount)
 	{
 		List<Message> returnMessages = null;
-		Message currentMessage = this.pollPrefetchQueue();
+		final long receivedAtNanos = this.metrics != null ? System.nanoTime() : 0;
+		Message currentMessage = this.pollPrefetchQueue(receivedAtNanos);
 	
 		while (currentMessage != null) 
 		{
@@ -240,7 +325,12 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 				break;
 			}
 
-			currentMessage = this.pollPrefetchQueue();
+			currentMessage = this.pollPrefetchQueue(receivedAtNanos);
+		}
+
+		if (this.metrics != null)
+		{
+			this.metrics.recordPrefetchDepth(this.prefetchedMessageCount);
 		}
 		
 		return returnMessages;
@@ -280,6 +370,69 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 		}
 	}
 
+	public long getPrefetchBytes()
+	{
+		return this.prefetchBytes;
+	}
+
+	public long getPrefetchedBytes()
+	{
+		return this.prefetchedBytes;
+	}
+
+	@Override
+	public long getConsumedBytes()
+	{
+		return this.consumedBytes;
+	}
+
+	@Override
+	public void onPrefetchBudgetChanged(final long value)
+	{
+		this.budgetBytes = value;
+
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					if (receiveLink != null)
+					{
+						sendFlow(0);
+					}
+				}
+			});
+		}
+		catch (IOException ignore)
+		{
+			// the new share is used on the next flow
+		}
+	}
+
+	public void setPrefetchBytes(final long value) throws ServiceBusException
+	{
+		this.prefetchBytes = value;
+
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					// flows the credits withheld under the previous limit - if the new one allows
+					sendFlow(0);
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			throw new ServiceBusException(false, "Setting prefetch bytes failed, see cause for more details", ioException);
+		}
+	}
+
 	public Duration getReceiveTimeout()
 	{
 		return this.receiveTimeout;
@@ -290,6 +443,33 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 		this.receiveTimeout = value;
 	}
 
+	public int getMinReceiveBatchSize()
+	{
+		return this.minReceiveBatchSize;
+	}
+
+	public Duration getMaxReceiveBatchWaitTime()
+	{
+		return this.maxReceiveBatchWaitTime;
+	}
+
+	// a receive completes once minBatchSize messages are prefetched - or, after maxBatchWaitTime, with whatever is prefetched
+	public void setReceiveBatchOptions(final int minBatchSize, final Duration maxBatchWaitTime)
+	{
+		if (minBatchSize <= 0 || minBatchSize > this.prefetchCount)
+		{
+			throw new IllegalArgumentException(String.format(Locale.US, "parameter 'minBatchSize' should be a positive number and should be less than prefetchCount(%s)", this.prefetchCount));
+		}
+
+		if (maxBatchWaitTime == null || maxBatchWaitTime.isNegative())
+		{
+			throw new IllegalArgumentException("parameter 'maxBatchWaitTime' cannot be null or negative");
+		}
+
+		this.minReceiveBatchSize = minBatchSize;
+		this.maxReceiveBatchWaitTime = maxBatchWaitTime;
+	}
+
 	public CompletableFuture<Collection<Message>> receive(final int maxMessageCount)
 	{
 		this.throwIfClosed(this.lastKnownLinkError);
@@ -305,6 +485,12 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 		}
 
 		CompletableFuture<Collection<Message>> onReceive = new CompletableFuture<Collection<Message>>();
+
+		// waiting for a batch is capped by the receive timeout - which completes the receive with no messages
+		final int minMessageCount = Math.min(this.minReceiveBatchSize, maxMessageCount);
+		final Duration batchWaitTime = minMessageCount > 1 && this.maxReceiveBatchWaitTime.compareTo(this.receiveTimeout) < 0
+				? this.maxReceiveBatchWaitTime
+				: this.receiveTimeout;
 		
 		try
 		{
@@ -313,17 +499,29 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 				@Override
 				public void onEvent()
 				{
-					final List<Message> messages = receiveCore(maxMessageCount);
-					if (messages != null)
-						onReceive.complete(messages);
+					final ReceiveWorkItem receiveWorkItem = new ReceiveWorkItem(onReceive, receiveTimeout, maxMessageCount, minMessageCount, batchWaitTime);
+					if (pendingReceives.isEmpty() && receiveWorkItem.isBatchReady(prefetchedMessageCount))
+					{
+						onReceive.complete(receiveCore(maxMessageCount));
+					}
 					else
-						pendingReceives.offer(new ReceiveWorkItem(onReceive, receiveTimeout, maxMessageCount));
+					{
+						pendingReceives.offer(receiveWorkItem);
+						if (minMessageCount > 1)
+						{
+							scheduleBatchWaitTimer(batchWaitTime);
+						}
+					}
 
 					// calls to reactor should precede enqueue of the workItem into PendingReceives.
 					// This will allow error handling to enact on the enqueued workItem.
 					if (receiveLink.getLocalState() == EndpointState.CLOSED || receiveLink.getRemoteState() == EndpointState.CLOSED)
 					{
                                                 createReceiveLink();
+						if (metrics != null)
+						{
+							metrics.recordRetry();
+						}
 					}
 				}
 			});
@@ -354,7 +552,7 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 			this.underlyingFactory.getRetryPolicy().resetRetryCount(this.underlyingFactory.getClientId());
 
 			this.nextCreditToFlow = 0;
-			this.sendFlow(this.prefetchCount - this.prefetchedMessages.size());
+			this.sendFlow(this.prefetchCount - this.prefetchedMessageCount);
 
 			if(TRACE_LOGGER.isLoggable(Level.FINE))
 			{
@@ -389,11 +587,32 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
                 
 		delivery.settle();
 
-		this.prefetchedMessages.add(message);
+		this.averageMessageSize += (read - this.averageMessageSize) / 8;
+		this.prefetchedBytes += read;
+		this.prefetchedMessages.add(new PrefetchedMessage(message, read, this.metrics != null ? System.nanoTime() : 0));
+		this.prefetchedMessageCount++;
+		if (this.metrics != null)
+		{
+			this.metrics.recordPrefetchDepth(this.prefetchedMessageCount);
+		}
+
 		this.underlyingFactory.getRetryPolicy().resetRetryCount(this.getClientId());
 		
-		final ReceiveWorkItem currentReceive = this.pendingReceives.poll();
-		if (currentReceive != null && !currentReceive.getWork().isDone())
+		this.completePendingReceive();
+	}
+
+	// completes the oldest pending receive - if there are enough prefetched messages for it, or it waited long enough for them
+	private void completePendingReceive()
+	{
+		ReceiveWorkItem currentReceive = this.pendingReceives.peek();
+		while (currentReceive != null && currentReceive.getWork().isDone())
+		{
+			this.pendingReceives.poll();
+			currentReceive = this.pendingReceives.peek();
+		}
+
+		if (currentReceive != null && this.prefetchedMessageCount > 0 && currentReceive.isBatchReady(this.prefetchedMessageCount)
+				&& this.pendingReceives.remove(currentReceive))
 		{
 			List<Message> messages = this.receiveCore(currentReceive.maxMessageCount);
 
@@ -402,6 +621,32 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 		}
 	}
 
+	private void scheduleBatchWaitTimer(final Duration batchWaitTime)
+	{
+		Timer.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					MessageReceiver.this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+					{
+						@Override
+						public void onEvent()
+						{
+							MessageReceiver.this.completePendingReceive();
+						}
+					});
+				}
+				catch (IOException ignore)
+				{
+					// the receive completes with the next message, or times out
+				}
+			}
+		}, batchWaitTime, TimerType.OneTimeRun);
+	}
+
 	public void onError(final ErrorCondition error)
 	{		
 		final Exception completionException = ExceptionUtil.toException(error);
@@ -412,6 +657,8 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 	public void onError(final Exception exception)
 	{
                 this.prefetchedMessages.clear();
+		this.prefetchedBytes = 0;
+		this.prefetchedMessageCount = 0;
 
 		if (this.getIsClosingOrClosed())
 		{
@@ -462,6 +709,10 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 							{
 								createReceiveLink();
 								underlyingFactory.getRetryPolicy().incrementRetryCount(getClientId());
+								if (metrics != null)
+								{
+									metrics.recordRetry();
+								}
 							}
 						}
 					});
@@ -517,9 +768,18 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
                     
                     receiver.setTarget(target);
 
-                    // use explicit settlement via dispositions (not pre-settled)
-                    receiver.setSenderSettleMode(SenderSettleMode.UNSETTLED);
-                    receiver.setReceiverSettleMode(ReceiverSettleMode.SECOND);
+                    if (MessageReceiver.this.isPreSettled)
+                    {
+                        // the service settles on send - no dispositions
+                        receiver.setSenderSettleMode(SenderSettleMode.SETTLED);
+                        receiver.setReceiverSettleMode(ReceiverSettleMode.FIRST);
+                    }
+                    else
+                    {
+                        // use explicit settlement via dispositions (not pre-settled)
+                        receiver.setSenderSettleMode(SenderSettleMode.UNSETTLED);
+                        receiver.setReceiverSettleMode(ReceiverSettleMode.SECOND);
+                    }
                     
                     final Map<Symbol, Object> linkProperties = MessageReceiver.this.settingsProvider.getProperties();
                     if (linkProperties != null)
@@ -579,28 +839,63 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
         }
 
 	// CONTRACT: message should be delivered to the caller of MessageReceiver.receive() only via Poll on prefetchqueue
-	private Message pollPrefetchQueue()
+	// receivedAtNanos: when the caller gets the message - only read if metrics are recorded
+	private Message pollPrefetchQueue(final long receivedAtNanos)
 	{
-		final Message message = this.prefetchedMessages.poll();
-		if (message != null)
+		final PrefetchedMessage prefetched = this.prefetchedMessages.poll();
+		if (prefetched == null)
+		{
+			return null;
+		}
+
+		this.prefetchedBytes -= prefetched.size;
+		this.prefetchedMessageCount--;
+		this.consumedBytes += prefetched.size;
+		if (this.metrics != null)
+		{
+			this.metrics.recordReceiveToHandlerLatency(receivedAtNanos - prefetched.arrivedAtNanos);
+		}
+
+		if (this.prefetchBudget != null)
 		{
-			// message lastReceivedOffset should be up-to-date upon each poll - as recreateLink will depend on this 
-			this.lastReceivedMessage = message;
-			this.sendFlow(1);
+			this.prefetchBudget.onConsumed();
 		}
 
-		return message;
+		// message lastReceivedOffset should be up-to-date upon each poll - as recreateLink will depend on this 
+		this.lastReceivedMessage = prefetched.message;
+		this.sendFlow(1);
+
+		return prefetched.message;
 	}
 
 	private void sendFlow(final int credits)
 	{
 		// slow down sending the flow - to make the protocol less-chat'y
 		this.nextCreditToFlow += credits;
-		if (this.nextCreditToFlow >= this.prefetchCount || this.nextCreditToFlow >= 100)
+
+		int creditToFlow = this.nextCreditToFlow;
+		int flowThreshold = Math.min(this.prefetchCount, 100);
+		final long byteLimit = this.getPrefetchByteLimit();
+		if (byteLimit > 0)
 		{
-			final int tempFlow = this.nextCreditToFlow;
+			// grant only as many credits as - at the average message size - fit in the bytes left under the limit;
+			// the rest are withheld and flowed as the prefetched messages are drained
+			final long byteWindow = Math.max(1, byteLimit / Math.max(1, this.averageMessageSize));
+			final long bytesLeft = byteLimit - this.prefetchedBytes;
+			final long creditsLeft = bytesLeft <= 0 ? 0 : Math.max(1, bytesLeft / Math.max(1, this.averageMessageSize)) - this.receiveLink.getCredit();
+			creditToFlow = (int) Math.max(0, Math.min(creditToFlow, creditsLeft));
+			flowThreshold = (int) Math.max(1, Math.min(flowThreshold, byteWindow / 2));
+		}
+
+		if (creditToFlow > 0 && creditToFlow >= flowThreshold)
+		{
+			final int tempFlow = creditToFlow;
 			this.receiveLink.flow(tempFlow);
-			this.nextCreditToFlow = 0;
+			this.nextCreditToFlow -= tempFlow;
+			if (this.metrics != null)
+			{
+				this.metrics.recordCredit(this.receiveLink.getCredit());
+			}
 			
 			if(TRACE_LOGGER.isLoggable(Level.FINE))
 			{
@@ -610,6 +905,19 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 		}
 	}
 
+	// the lower of this receiver's own limit and its share of the budget - 0 if neither is set
+	private long getPrefetchByteLimit()
+	{
+		final long ownLimit = this.prefetchBytes;
+		final long budgetLimit = this.prefetchBudget != null ? this.budgetBytes : 0;
+		if (ownLimit > 0 && budgetLimit > 0)
+		{
+			return Math.min(ownLimit, budgetLimit);
+		}
+
+		return ownLimit > 0 ? ownLimit : budgetLimit;
+	}
+
 	private void scheduleLinkOpenTimeout(final TimeoutTracker timeout)
 	{
 		// timer to signal a timeout if exceeds the operationTimeout on MessagingFactory
@@ -690,19 +998,45 @@ public final class MessageReceiver extends ClientEntity implements IAmqpReceiver
 				referenceId,
 				isLinkOpened ? this.prefetchCount : null, 
                                 isLinkOpened && this.receiveLink != null ? this.receiveLink.getCredit(): null, 
-				isLinkOpened && this.prefetchedMessages != null ? this.prefetchedMessages.size(): null);
+				isLinkOpened ? this.prefetchedMessageCount : null);
 
 		return errorContext;
 	}	
 
+	private static final class PrefetchedMessage
+	{
+		private final Message message;
+		private final int size;
+		private final long arrivedAtNanos;
+
+		PrefetchedMessage(final Message message, final int size, final long arrivedAtNanos)
+		{
+			this.message = message;
+			this.size = size;
+			this.arrivedAtNanos = arrivedAtNanos;
+		}
+	}
+
 	private static class ReceiveWorkItem extends WorkItem<Collection<Message>>
 	{
 		private final int maxMessageCount;
+		private final int minMessageCount;
+		private final TimeoutTracker batchWaitTracker;
 
-		public ReceiveWorkItem(CompletableFuture<Collection<Message>> completableFuture, Duration timeout, final int maxMessageCount)
+		public ReceiveWorkItem(CompletableFuture<Collection<Message>> completableFuture, Duration timeout, final int maxMessageCount,
+				final int minMessageCount, final Duration batchWaitTime)
 		{
 			super(completableFuture, timeout);
 			this.maxMessageCount = maxMessageCount;
+			this.minMessageCount = minMessageCount;
+			this.batchWaitTracker = TimeoutTracker.create(batchWaitTime);
+		}
+
+		// once the batch wait time is over, any message completes the receive
+		boolean isBatchReady(final int prefetchedMessageCount)
+		{
+			return prefetchedMessageCount > 0 &&
+					(prefetchedMessageCount >= this.minMessageCount || this.batchWaitTracker.remaining().toMillis() <= MessageReceiver.MIN_TIMEOUT_DURATION_MILLIS);
 		}
 	}
 
@@ -11,18 +11,16 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.util.Comparator;
 import java.util.function.Consumer;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
-import java.util.PriorityQueue;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +28,7 @@ import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
 import org.apache.qpid.proton.amqp.messaging.Rejected;
 import org.apache.qpid.proton.amqp.messaging.Released;
 import org.apache.qpid.proton.amqp.messaging.Source;
@@ -51,6 +50,7 @@ import com.microsoft.azure.servicebus.amqp.DispatchHandler;
 import com.microsoft.azure.servicebus.amqp.IAmqpSender;
 import com.microsoft.azure.servicebus.amqp.IOperationResult;
 import com.microsoft.azure.servicebus.amqp.SendLinkHandler;
+import com.microsoft.azure.servicebus.metrics.SenderMetrics;
 
 /**
  * Abstracts all amqp related details
@@ -60,16 +60,20 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 {
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
 	private static final String SEND_TIMED_OUT = "Send operation timed out";
+	// described-type constructor (3 bytes) + vbin32 constructor and length (5 bytes) of an amqp Data section
+	private static final int MAX_DATA_SECTION_OVERHEAD_BYTES = 8;
 
 	private final MessagingFactory underlyingFactory;
 	private final String sendPath;
+	private final boolean isPreSettled;
         private final Duration operationTimeout;
 	private final RetryPolicy retryPolicy;
 	private final CompletableFuture<Void> linkClose;
-	private final Object pendingSendLock;
-	private final ConcurrentHashMap<String, ReplayableWorkItem<Void>> pendingSendsData;
-	private final PriorityQueue<WeightedDeliveryTag> pendingSends;
+	private final AtomicLong nextDeliveryTag;
+	private final PendingSends<ReplayableWorkItem<Void>> pendingSends;
 	private final DispatchHandler sendWork;
+	private final EncodeBufferPool encodeBufferPool;
+	private final SenderMetrics metrics;
         private final ActiveClientTokenManager activeClientTokenManager;
         private final String tokenAudience;
         
@@ -86,7 +90,17 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			final String sendLinkName,
 			final String senderPath)
 	{
-		final MessageSender msgSender = new MessageSender(factory, sendLinkName, senderPath);
+		return MessageSender.create(factory, sendLinkName, senderPath, false);
+	}
+
+	// @param isPreSettled sends are settled as they are handed to the link - at-most-once - and complete without waiting for the service's disposition
+        public static CompletableFuture<MessageSender> create(
+			final MessagingFactory factory,
+			final String sendLinkName,
+			final String senderPath,
+			final boolean isPreSettled)
+	{
+		final MessageSender msgSender = new MessageSender(factory, sendLinkName, senderPath, isPreSettled);
 		msgSender.openLinkTracker = TimeoutTracker.create(factory.getOperationTimeout());
 		msgSender.initializeLinkOpen(msgSender.openLinkTracker);
 		
@@ -109,11 +123,12 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		return msgSender.linkFirstOpen;
 	}
 
-	private MessageSender(final MessagingFactory factory, final String sendLinkName, final String senderPath)
+	private MessageSender(final MessagingFactory factory, final String sendLinkName, final String senderPath, final boolean isPreSettled)
 	{
 		super(sendLinkName, factory);
 
 		this.sendPath = senderPath;
+		this.isPreSettled = isPreSettled;
 		this.underlyingFactory = factory;
 		this.operationTimeout = factory.getOperationTimeout();
 		
@@ -122,10 +137,11 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		
 		this.retryPolicy = factory.getRetryPolicy();
 
-		this.pendingSendLock = new Object();
-		this.pendingSendsData = new ConcurrentHashMap<>();
-		this.pendingSends = new PriorityQueue<>(1000, new DeliveryTagComparator());
+		this.nextDeliveryTag = new AtomicLong();
+		this.pendingSends = new PendingSends<>();
 		this.linkCredit = 0;
+		this.encodeBufferPool = factory.getEncodeBufferPool();
+		this.metrics = factory.createSenderMetrics(senderPath);
 
 		this.linkClose = new CompletableFuture<>();
 		
@@ -177,22 +193,31 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		return this.sendPath;
 	}
 
-	private CompletableFuture<Void> send(byte[] bytes, int arrayOffset, int messageFormat)
+	private CompletableFuture<Void> send(byte[] bytes, int arrayOffset, int messageFormat, MessageAnnotations messageAnnotations)
 	{
-		return this.send(bytes, arrayOffset, messageFormat, null, null);
+		return this.send(bytes, arrayOffset, messageFormat, messageAnnotations, null, null);
 	}
 
 	private CompletableFuture<Void> sendCore(
 			final byte[] bytes,
 			final int arrayOffset,
 			final int messageFormat,
+			final MessageAnnotations messageAnnotations,
 			final CompletableFuture<Void> onSend,
 			final TimeoutTracker tracker,
-			final String deliveryTag,
 			final Exception lastKnownError,
 			final ScheduledFuture<?> timeoutTask)
 	{
-		this.throwIfClosed(this.lastKnownLinkError);
+		try
+		{
+			this.throwIfClosed(this.lastKnownLinkError);
+		}
+		catch (IllegalStateException closed)
+		{
+			// the buffer was handed over to the sender - which has to return it even when it refuses the send
+			this.encodeBufferPool.release(bytes);
+			throw closed;
+		}
 
 		if (tracker != null && onSend != null && (tracker.remaining().isNegative() || tracker.remaining().isZero()))
 		{
@@ -200,7 +225,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			{
 				TRACE_LOGGER.log(Level.FINE,
 						String.format(Locale.US, 
-						"path[%s], linkName[%s], deliveryTag[%s] - timed out at sendCore", this.sendPath, this.sendLink.getName(), deliveryTag));
+						"path[%s], linkName[%s] - timed out at sendCore", this.sendPath, this.sendLink.getName()));
 			}
 
 			if (timeoutTask != null)
@@ -208,29 +233,32 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				timeoutTask.cancel(false);
 			}
 			
+			this.encodeBufferPool.release(bytes);
 			this.throwSenderTimeout(onSend, null);
 			return onSend;
 		}
 
 		final boolean isRetrySend = (onSend != null);
-		final String tag = (deliveryTag == null) ? UUID.randomUUID().toString().replace("-", StringUtil.EMPTY) : deliveryTag;
+		final Long tag = this.nextDeliveryTag.incrementAndGet();
 		
 		final CompletableFuture<Void> onSendFuture = (onSend == null) ? new CompletableFuture<>() : onSend;
+		if (!isRetrySend && this.metrics != null)
+		{
+			this.recordSendLatency(onSendFuture);
+		}
 		
 		final ReplayableWorkItem<Void> sendWaiterData = (tracker == null) ?
 				new ReplayableWorkItem<>(bytes, arrayOffset, messageFormat, onSendFuture, this.operationTimeout) : 
 				new ReplayableWorkItem<>(bytes, arrayOffset, messageFormat, onSendFuture, tracker);
+		sendWaiterData.setBufferPool(this.encodeBufferPool);
+		sendWaiterData.setMessageAnnotations(messageAnnotations);
 
 		if (lastKnownError != null)
 		{
 			sendWaiterData.setLastKnownException(lastKnownError);
 		}
 
-		synchronized (this.pendingSendLock)
-		{
-			this.pendingSendsData.put(tag, sendWaiterData);
-			this.pendingSends.offer(new WeightedDeliveryTag(tag, isRetrySend ? 1 : 0));
-		}
+		this.pendingSends.add(tag, sendWaiterData, isRetrySend);
 		
 		try
 		{
@@ -245,14 +273,29 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		return onSendFuture;
 	}
 
+	// a send is timed once - from the first attempt to its completion, across retries
+	private void recordSendLatency(final CompletableFuture<Void> onSend)
+	{
+		final long sendStartNanos = System.nanoTime();
+		onSend.whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void result, Throwable error)
+			{
+				MessageSender.this.metrics.recordSend(System.nanoTime() - sendStartNanos, error == null);
+			}
+		});
+	}
+
 	private CompletableFuture<Void> send(
 			final byte[] bytes,
 			final int arrayOffset,
 			final int messageFormat,
+			final MessageAnnotations messageAnnotations,
 			final CompletableFuture<Void> onSend,
 			final TimeoutTracker tracker)
 	{
-		return this.sendCore(bytes, arrayOffset, messageFormat, onSend, tracker, null, null, null);
+		return this.sendCore(bytes, arrayOffset, messageFormat, messageAnnotations, onSend, tracker, null, null);
 	}
         
 	public CompletableFuture<Void> send(final Iterable<Message> messages)
@@ -273,7 +316,35 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		Message batchMessage = Proton.message();
 		batchMessage.setMessageAnnotations(firstMessage.getMessageAnnotations());
 
-		byte[] bytes = new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES];
+		// both the batch buffer and the scratch buffer for the inner messages come from the pool;
+		// scratch goes back right after encoding, the batch buffer once the send is settled
+		byte[] bytes = this.encodeBufferPool.acquire(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		byte[] messageBytes = this.encodeBufferPool.acquire(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		int byteArrayOffset;
+
+		try
+		{
+			byteArrayOffset = MessageSender.encodeBatch(batchMessage, messages, bytes, messageBytes);
+		}
+		catch(BufferOverflowException exception)
+		{
+			this.encodeBufferPool.release(bytes);
+			final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
+			sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024), exception));
+			return sendTask;
+		}
+		finally
+		{
+			this.encodeBufferPool.release(messageBytes);
+		}
+
+		return this.send(bytes, byteArrayOffset, AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT, batchMessage.getMessageAnnotations());
+	}
+
+	// encodes the batch message followed by each message wrapped in a data section - returns the encoded size
+	// @param messageBytes scratch buffer for encoding the inner messages
+	static int encodeBatch(final Message batchMessage, final Iterable<Message> messages, final byte[] bytes, final byte[] messageBytes)
+	{
 		int encodedSize = batchMessage.encode(bytes, 0, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
 		int byteArrayOffset = encodedSize;
 
@@ -284,25 +355,14 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			int payloadSize = AmqpUtil.getDataSerializedSize(amqpMessage);
 			int allocationSize = Math.min(payloadSize + ClientConstants.MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
 
-			byte[] messageBytes = new byte[allocationSize];
 			int messageSizeBytes = amqpMessage.encode(messageBytes, 0, allocationSize);
 			messageWrappedByData.setBody(new Data(new Binary(messageBytes, 0, messageSizeBytes)));
 
-			try
-			{
-				encodedSize = messageWrappedByData.encode(bytes, byteArrayOffset, ClientConstants.MAX_MESSAGE_LENGTH_BYTES - byteArrayOffset - 1);
-			}
-			catch(BufferOverflowException exception)
-			{
-				final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
-				sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024), exception));
-				return sendTask;
-			}
-
+			encodedSize = messageWrappedByData.encode(bytes, byteArrayOffset, ClientConstants.MAX_MESSAGE_LENGTH_BYTES - byteArrayOffset - 1);
 			byteArrayOffset = byteArrayOffset + encodedSize;
 		}
 
-		return this.send(bytes, byteArrayOffset, AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT);
+		return byteArrayOffset;
 	}
 
 	public CompletableFuture<Void> send(Message msg)
@@ -310,7 +370,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		int payloadSize = AmqpUtil.getDataSerializedSize(msg);
 		int allocationSize = Math.min(payloadSize + ClientConstants.MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
 
-		byte[] bytes = new byte[allocationSize];
+		byte[] bytes = this.encodeBufferPool.acquire(allocationSize);
 		int encodedSize = 0;
 		try
 		{
@@ -318,12 +378,32 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		}
 		catch(BufferOverflowException exception)
 		{
+			this.encodeBufferPool.release(bytes);
 			final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
 			sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024), exception));
 			return sendTask;
 		}
 
-		return this.send(bytes, encodedSize, DeliveryImpl.DEFAULT_MESSAGE_FORMAT);
+		return this.send(bytes, encodedSize, DeliveryImpl.DEFAULT_MESSAGE_FORMAT, msg.getMessageAnnotations());
+	}
+
+	/**
+	 * Sends a message which is already encoded - for ex: a batch built by EventDataBatch.
+	 * The sender takes ownership of {@code encodedMessage}, which must have been acquired from the {@link EncodeBufferPool} of this sender's factory.
+	 */
+	public CompletableFuture<Void> sendEncoded(final byte[] encodedMessage, final int encodedSize, final int messageFormat)
+	{
+		return this.send(encodedMessage, encodedSize, messageFormat, null);
+	}
+
+	/**
+	 * Gets the largest message, in bytes, that can be sent on this link.
+	 */
+	public int getMaxMessageSize()
+	{
+		// proton-j doesn't surface the max-message-size from the remote attach frame;
+		// EventHubs service advertises the same limit the client enforces on every send
+		return ClientConstants.MAX_MESSAGE_LENGTH_BYTES;
 	}
 
 	@Override
@@ -344,27 +424,11 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			}
 			else
 			{
-				synchronized (this.pendingSendLock)
+				for (Map.Entry<Long, ReplayableWorkItem<Void>> unacknowledgedSend : this.pendingSends.entrySet())
 				{
-					if (!this.pendingSendsData.isEmpty())
+					if (unacknowledgedSend.getValue().isWaitingForAck())
 					{
-                                                List<String> unacknowledgedSends = new LinkedList<>();
-						unacknowledgedSends.addAll(this.pendingSendsData.keySet());
-		
-						if (unacknowledgedSends.size() > 0)
-						{
-							Iterator<String> reverseReader = unacknowledgedSends.iterator();
-							while (reverseReader.hasNext())
-							{
-								String unacknowledgedSend = reverseReader.next();
-								if (this.pendingSendsData.get(unacknowledgedSend).isWaitingForAck())
-								{
-									this.pendingSends.offer(new WeightedDeliveryTag(unacknowledgedSend, 1));
-								}
-							}
-						}
-	
-						unacknowledgedSends.clear();
+						this.pendingSends.replay(unacknowledgedSend.getKey());
 					}
 				}
 			}
@@ -390,23 +454,24 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 	public void onError(final Exception completionException)
 	{
 		this.linkCredit = 0;
+		if (this.metrics != null && completionException instanceof ServerBusyException)
+		{
+			this.metrics.recordServerBusy();
+		}
 
 		if (this.getIsClosingOrClosed())
 		{
-			synchronized (this.pendingSendLock)
+			for (Map.Entry<Long, ReplayableWorkItem<Void>> pendingSend: this.pendingSends.entrySet())
 			{
-				for (Map.Entry<String, ReplayableWorkItem<Void>> pendingSend: this.pendingSendsData.entrySet())
-				{
-					ExceptionUtil.completeExceptionally(pendingSend.getValue().getWork(),
-							completionException == null
-								? new OperationCancelledException("Send cancelled as the Sender instance is Closed before the sendOperation completed.")
-								: completionException,
-							this);					
-				}
-	
-				this.pendingSendsData.clear();
-				this.pendingSends.clear();
+				pendingSend.getValue().releaseMessage();
+				ExceptionUtil.completeExceptionally(pendingSend.getValue().getWork(),
+						completionException == null
+							? new OperationCancelledException("Send cancelled as the Sender instance is Closed before the sendOperation completed.")
+							: completionException,
+						this);					
 			}
+
+			this.pendingSends.clear();
 			
 			this.linkClose.complete(null);
 			return;
@@ -421,7 +486,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
     
                         this.onOpenComplete(finalCompletionException);
                         
-			final Map.Entry<String, ReplayableWorkItem<Void>> pendingSendEntry = IteratorUtil.getFirst(this.pendingSendsData.entrySet());
+			final Map.Entry<Long, ReplayableWorkItem<Void>> pendingSendEntry = IteratorUtil.getFirst(this.pendingSends.entrySet());
 			if (pendingSendEntry != null && pendingSendEntry.getValue() != null)
 			{
 				final TimeoutTracker tracker = pendingSendEntry.getValue().getTimeoutTracker();
@@ -454,16 +519,12 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 					
                                         if (nextRetryInterval == null || !scheduledRecreate)
 					{
-						synchronized (this.pendingSendLock)
+						for (Map.Entry<Long, ReplayableWorkItem<Void>> pendingSend: this.pendingSends.entrySet())
 						{
-							for (Map.Entry<String, ReplayableWorkItem<Void>> pendingSend: this.pendingSendsData.entrySet())
-							{
-								this.cleanupFailedSend(pendingSend.getValue(), finalCompletionException);					
-							}
-				
-							this.pendingSendsData.clear();
-							this.pendingSends.clear();
+							this.cleanupFailedSend(pendingSend.getValue(), finalCompletionException);					
 						}
+			
+						this.pendingSends.clear();
 					}
 				}
 			}
@@ -474,13 +535,13 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 	public void onSendComplete(final Delivery delivery)
 	{
 		final DeliveryState outcome = delivery.getRemoteState();
-		final String deliveryTag = new String(delivery.getTag());
+		final long deliveryTag = MessageSender.fromDeliveryTagBytes(delivery.getTag());
 
 		if (TRACE_LOGGER.isLoggable(Level.FINEST))
 			TRACE_LOGGER.log(Level.FINEST,
 				String.format(Locale.US, "path[%s], linkName[%s], deliveryTag[%s]", MessageSender.this.sendPath, this.sendLink.getName(), deliveryTag));
 
-		final ReplayableWorkItem<Void> pendingSendWorkItem = this.pendingSendsData.remove(deliveryTag);
+		final ReplayableWorkItem<Void> pendingSendWorkItem = this.pendingSends.remove(deliveryTag);
 
 		if (pendingSendWorkItem != null)
 		{
@@ -490,6 +551,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				this.retryPolicy.resetRetryCount(this.getClientId());
 
 				pendingSendWorkItem.getTimeoutTask().cancel(false);
+				pendingSendWorkItem.releaseMessage();
 				pendingSendWorkItem.getWork().complete(null);
 			}
 			else if (outcome instanceof Rejected)
@@ -498,6 +560,10 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				ErrorCondition error = rejected.getError();
                                 
 				Exception exception = ExceptionUtil.toException(error);
+				if (this.metrics != null && exception instanceof ServerBusyException)
+				{
+					this.metrics.recordServerBusy();
+				}
 
 				if (ExceptionUtil.isGeneralSendError(error.getCondition()))
 				{
@@ -514,6 +580,11 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				else
 				{
 					pendingSendWorkItem.setLastKnownException(exception);
+					if (this.metrics != null)
+					{
+						this.metrics.recordRetry();
+					}
+
 					try
 					{
 						this.underlyingFactory.scheduleOnReactorThread((int) retryInterval.toMillis(),
@@ -522,7 +593,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 									@Override
 									public void onEvent()
 									{
-										MessageSender.this.reSend(deliveryTag, pendingSendWorkItem, false);
+										MessageSender.this.reSend(pendingSendWorkItem);
 									}
 								});
 					}
@@ -550,20 +621,45 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				TRACE_LOGGER.log(Level.WARNING, 
 						String.format(Locale.US, "path[%s], linkName[%s], delivery[%s] - mismatch", this.sendPath, this.sendLink.getName(), deliveryTag));
 		}
+
+		if (this.metrics != null)
+		{
+			this.metrics.recordInFlight(this.sendLink.getUnsettled());
+		}
 	}
 
-	private void reSend(final String deliveryTag, final ReplayableWorkItem<Void> pendingSend, boolean reuseDeliveryTag)
+	private void reSend(final ReplayableWorkItem<Void> pendingSend)
 	{
 		if (pendingSend != null)
 		{
-			this.sendCore(pendingSend.getMessage(), 
-					pendingSend.getEncodedMessageSize(), 
-					pendingSend.getMessageFormat(),
-					pendingSend.getWork(),
-					pendingSend.getTimeoutTracker(),
-					reuseDeliveryTag ? deliveryTag : null,
-					pendingSend.getLastKnownException(),
-					pendingSend.getTimeoutTask());
+			// the retry gets a work item of its own - the timeout of the rejected attempt must not fail it,
+			// nor release the buffer the retry is sent from
+			if (pendingSend.getTimeoutTask() != null)
+				pendingSend.getTimeoutTask().cancel(false);
+
+			final byte[] encodedMessage = pendingSend.takeMessage();
+			if (encodedMessage == null)
+			{
+				// the attempt timed out while waiting for the retry interval - and its future is already failed
+				return;
+			}
+
+			try
+			{
+				this.sendCore(encodedMessage, 
+						pendingSend.getEncodedMessageSize(), 
+						pendingSend.getMessageFormat(),
+						pendingSend.getMessageAnnotations(),
+						pendingSend.getWork(),
+						pendingSend.getTimeoutTracker(),
+						pendingSend.getLastKnownException(),
+						null);
+			}
+			catch (IllegalStateException closed)
+			{
+				// sendCore already returned the buffer
+				ExceptionUtil.completeExceptionally(pendingSend.getWork(), closed, this);
+			}
 		}
 	}
 	
@@ -572,6 +668,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		if (failedSend.getTimeoutTask() != null)
 			failedSend.getTimeoutTask().cancel(false);
 		
+		failedSend.releaseMessage();
 		ExceptionUtil.completeExceptionally(failedSend.getWork(), exception, this);
 	}
 
@@ -595,7 +692,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
                         final Source source = new Source();
                         sender.setSource(source);
 
-                        sender.setSenderSettleMode(SenderSettleMode.UNSETTLED);
+                        sender.setSenderSettleMode(MessageSender.this.isPreSettled ? SenderSettleMode.SETTLED : SenderSettleMode.UNSETTLED);
 
                         final SendLinkHandler handler = new SendLinkHandler(MessageSender.this);
                         BaseHandler.setHandler(sender, handler);
@@ -706,9 +803,9 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 
 		if (TRACE_LOGGER.isLoggable(Level.FINE))
 		{
-			int numberOfSendsWaitingforCredit = this.pendingSends.size();
+			int numberOfSendsWaitingforCredit = this.pendingSends.getWaitingForCreditCount();
 			TRACE_LOGGER.log(Level.FINE, String.format(Locale.US, "path[%s], linkName[%s], remoteLinkCredit[%s], pendingSendsWaitingForCredit[%s], pendingSendsWaitingDelivery[%s]",
-					this.sendPath, this.sendLink.getName(), creditIssued, numberOfSendsWaitingforCredit, this.pendingSendsData.size() - numberOfSendsWaitingforCredit));
+					this.sendPath, this.sendLink.getName(), creditIssued, numberOfSendsWaitingforCredit, this.pendingSends.size() - numberOfSendsWaitingforCredit));
 		}
 
 		this.linkCredit = this.linkCredit + creditIssued;
@@ -719,6 +816,10 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 	{
 		this.createSendLink();
 		this.retryPolicy.incrementRetryCount(this.getClientId());
+		if (this.metrics != null)
+		{
+			this.metrics.recordRetry();
+		}
 	}
 	
 	// actual send on the SenderLink should happen only in this method & should run on Reactor Thread
@@ -735,15 +836,30 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		while (sendLinkCurrent.getLocalState() == EndpointState.ACTIVE && sendLinkCurrent.getRemoteState() == EndpointState.ACTIVE
 				&& this.linkCredit > 0)
 		{
-			final WeightedDeliveryTag deliveryTag;
-			final ReplayableWorkItem<Void> sendData;
-			synchronized (this.pendingSendLock)
+			// retries (and unacknowledged sends replayed after a link recreate) go out before new sends
+			Long nextDeliveryTag = this.pendingSends.pollRetry();
+			final boolean isRetrySend = (nextDeliveryTag != null);
+			if (!isRetrySend)
 			{
-				deliveryTag = this.pendingSends.poll();
-				sendData = deliveryTag != null 
-						? this.pendingSendsData.get(deliveryTag.getDeliveryTag())
-						: null;
+				nextDeliveryTag = this.pendingSends.pollNew();
 			}
+
+			ReplayableWorkItem<Void> nextSendData = nextDeliveryTag != null 
+					? this.pendingSends.get(nextDeliveryTag)
+					: null;
+			
+			if (nextSendData != null && !isRetrySend && isCoalescable(nextSendData, nextSendData.getMessageAnnotations()))
+			{
+				final Long coalescedDeliveryTag = this.coalescePendingSends(nextDeliveryTag, nextSendData);
+				if (coalescedDeliveryTag != null)
+				{
+					nextDeliveryTag = coalescedDeliveryTag;
+					nextSendData = this.pendingSends.get(coalescedDeliveryTag);
+				}
+			}
+			
+			final Long deliveryTag = nextDeliveryTag;
+			final ReplayableWorkItem<Void> sendData = nextSendData;
 			
 			if (sendData != null)
 			{
@@ -751,7 +867,8 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				{
 					// CoreSend could enque Sends into PendingSends Queue and can fail the SendCompletableFuture
 					// (when It fails to schedule the ProcessSendWork on reactor Thread)
-					this.pendingSendsData.remove(sendData);
+					this.pendingSends.remove(deliveryTag);
+					sendData.releaseMessage();
 					continue;
 				}
 				
@@ -762,10 +879,21 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				
 				try
 				{
-					delivery = sendLinkCurrent.delivery(deliveryTag.getDeliveryTag().getBytes());
+					delivery = sendLinkCurrent.delivery(MessageSender.toDeliveryTagBytes(deliveryTag));
 					delivery.setMessageFormat(sendData.getMessageFormat());
 					
-					sentMsgSize = sendLinkCurrent.send(sendData.getMessage(), 0, sendData.getEncodedMessageSize());
+					// proton copies the bytes into the delivery; hold the work item so that
+					// a concurrent timeout cannot hand the buffer back to the pool mid-copy
+					synchronized (sendData)
+					{
+						final byte[] encodedMessage = sendData.getMessage();
+						if (encodedMessage == null)
+						{
+							throw new IllegalStateException("Encoded message was already released.");
+						}
+
+						sentMsgSize = sendLinkCurrent.send(encodedMessage, 0, sendData.getEncodedMessageSize());
+					}
 					assert sentMsgSize == sendData.getEncodedMessageSize() : "Contract of the ProtonJ library for Sender.Send API changed";
 	
 					linkAdvance = sendLinkCurrent.advance();
@@ -775,7 +903,17 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 					sendException = exception;
 				}
 				
-				if (linkAdvance)
+				if (linkAdvance && this.isPreSettled)
+				{
+					// nothing comes back for a settled delivery - the send is done once it is on the link
+					this.linkCredit--;
+					delivery.settle();
+
+					this.pendingSends.remove(deliveryTag);
+					sendData.releaseMessage();
+					sendData.getWork().complete(null);
+				}
+				else if (linkAdvance)
 				{
 					this.linkCredit--;
 					
@@ -786,7 +924,8 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 						{
 							if (!sendData.getWork().isDone())
 							{
-								MessageSender.this.pendingSendsData.remove(deliveryTag);
+								MessageSender.this.pendingSends.remove(deliveryTag);
+								sendData.releaseMessage();
 								MessageSender.this.throwSenderTimeout(sendData.getWork(), sendData.getLastKnownException());
 							}
 						}
@@ -809,6 +948,8 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 						delivery.free();
 					}
 					
+					this.pendingSends.remove(deliveryTag);
+					sendData.releaseMessage();
                                         sendData.getWork().completeExceptionally(
 						sendException != null
 							? new OperationCancelledException("Send operation failed. Please see cause for more details", sendException)
@@ -831,6 +972,162 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				break;
 			}
 		}
+
+		if (this.metrics != null)
+		{
+			this.metrics.recordInFlight(sendLinkCurrent.getUnsettled());
+			this.metrics.recordCredit(this.linkCredit);
+		}
+	}
+
+	// group-commit: while the head of the queue is a fresh single-message send, fold the other fresh sends queued
+	// behind it (with the same message annotations) into one batch delivery and fan its outcome out to every caller.
+	// returns the tag of the batch send which replaced them, or null if there was nothing to coalesce with.
+	// runs on the reactor thread
+	private Long coalescePendingSends(final Long headTag, final ReplayableWorkItem<Void> headSend)
+	{
+		final MessageAnnotations messageAnnotations = headSend.getMessageAnnotations();
+		final Long firstCandidate = this.pendingSends.peekNew();
+		if (firstCandidate == null || !isCoalescable(this.pendingSends.get(firstCandidate), messageAnnotations))
+		{
+			return null;
+		}
+
+		final Message batchMessage = Proton.message();
+		batchMessage.setMessageAnnotations(messageAnnotations);
+
+		final byte[] bytes = this.encodeBufferPool.acquire(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		final int maxBatchSize = ClientConstants.MAX_MESSAGE_LENGTH_BYTES - 1;
+		int byteArrayOffset;
+		try
+		{
+			byteArrayOffset = batchMessage.encode(bytes, 0, maxBatchSize);
+			byteArrayOffset += encodeAsDataSection(headSend, bytes, byteArrayOffset, maxBatchSize - byteArrayOffset);
+		}
+		catch (BufferOverflowException exception)
+		{
+			this.encodeBufferPool.release(bytes);
+			return null;
+		}
+
+		final List<Long> coalescedTags = new LinkedList<>();
+		final List<ReplayableWorkItem<Void>> coalescedSends = new LinkedList<>();
+		coalescedTags.add(headTag);
+		coalescedSends.add(headSend);
+
+		// only the reactor thread polls pendingSends - so, a peeked tag is still at the head when it is polled
+		Long candidate;
+		while ((candidate = this.pendingSends.peekNew()) != null)
+		{
+			final ReplayableWorkItem<Void> candidateSend = this.pendingSends.get(candidate);
+			if (!isCoalescable(candidateSend, messageAnnotations)
+					|| byteArrayOffset + candidateSend.getEncodedMessageSize() + MAX_DATA_SECTION_OVERHEAD_BYTES > maxBatchSize)
+			{
+				break;
+			}
+
+			byteArrayOffset += encodeAsDataSection(candidateSend, bytes, byteArrayOffset, maxBatchSize - byteArrayOffset);
+			this.pendingSends.pollNew();
+			coalescedTags.add(candidate);
+			coalescedSends.add(candidateSend);
+		}
+
+		if (coalescedSends.size() == 1)
+		{
+			this.encodeBufferPool.release(bytes);
+			return null;
+		}
+
+		final CompletableFuture<Void> batchSendFuture = new CompletableFuture<>();
+		batchSendFuture.whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void result, Throwable error)
+			{
+				for (ReplayableWorkItem<Void> coalescedSend : coalescedSends)
+				{
+					if (error == null)
+						coalescedSend.getWork().complete(null);
+					else
+						coalescedSend.getWork().completeExceptionally(error);
+				}
+			}
+		});
+
+		final ReplayableWorkItem<Void> batchSend = new ReplayableWorkItem<>(bytes, byteArrayOffset, AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT,
+				batchSendFuture, headSend.getTimeoutTracker());
+		batchSend.setBufferPool(this.encodeBufferPool);
+		batchSend.setMessageAnnotations(messageAnnotations);
+
+		for (Long coalescedTag : coalescedTags)
+		{
+			this.pendingSends.remove(coalescedTag);
+		}
+
+		for (ReplayableWorkItem<Void> coalescedSend : coalescedSends)
+		{
+			coalescedSend.releaseMessage();
+		}
+
+		final Long batchTag = this.nextDeliveryTag.incrementAndGet();
+		this.pendingSends.put(batchTag, batchSend);
+
+		if (TRACE_LOGGER.isLoggable(Level.FINEST))
+		{
+			TRACE_LOGGER.log(Level.FINEST,
+					String.format(Locale.US, "path[%s], linkName[%s], deliveryTag[%s] - coalesced %s sends into one batch of %s bytes",
+					this.sendPath, this.sendLink.getName(), batchTag, coalescedSends.size(), byteArrayOffset));
+		}
+
+		return batchTag;
+	}
+
+	private static boolean isCoalescable(final ReplayableWorkItem<Void> send, final MessageAnnotations messageAnnotations)
+	{
+		return send != null
+				&& send.getMessage() != null
+				&& send.getMessageFormat() == DeliveryImpl.DEFAULT_MESSAGE_FORMAT
+				&& !send.isWaitingForAck()
+				&& send.getLastKnownException() == null
+				&& (send.getWork() == null || !send.getWork().isDone())
+				&& Objects.equals(
+						send.getMessageAnnotations() == null ? null : send.getMessageAnnotations().getValue(),
+						messageAnnotations == null ? null : messageAnnotations.getValue());
+	}
+
+	private static int encodeAsDataSection(final ReplayableWorkItem<Void> send, final byte[] bytes, final int offset, final int length)
+	{
+		final Message messageWrappedByData = Proton.message();
+		messageWrappedByData.setBody(new Data(new Binary(send.getMessage(), 0, send.getEncodedMessageSize())));
+		return messageWrappedByData.encode(bytes, offset, length);
+	}
+
+	// delivery tags are the big-endian bytes of a per-sender sequence number
+	private static byte[] toDeliveryTagBytes(final long deliveryTag)
+	{
+		final byte[] tagBytes = new byte[Long.BYTES];
+		for (int index = Long.BYTES - 1; index >= 0; index--)
+		{
+			tagBytes[index] = (byte) (deliveryTag >>> ((Long.BYTES - 1 - index) * Byte.SIZE));
+		}
+
+		return tagBytes;
+	}
+
+	private static long fromDeliveryTagBytes(final byte[] tagBytes)
+	{
+		if (tagBytes == null || tagBytes.length != Long.BYTES)
+		{
+			return 0;
+		}
+
+		long deliveryTag = 0;
+		for (int index = 0; index < Long.BYTES; index++)
+		{
+			deliveryTag = (deliveryTag << Byte.SIZE) | (tagBytes[index] & 0xff);
+		}
+
+		return deliveryTag;
 	}
 
 	private void throwSenderTimeout(CompletableFuture<Void> pendingSendWork, Exception lastKnownException)
@@ -912,35 +1209,4 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
             
             return this.linkClose;
 	}
-	
-	private static class WeightedDeliveryTag
-	{
-		private final String deliveryTag;
-		private final int priority;
-		
-		WeightedDeliveryTag(final String deliveryTag, final int priority)
-		{
-			this.deliveryTag = deliveryTag;
-			this.priority = priority;
-		}
-		
-		public String getDeliveryTag()
-		{
-			return this.deliveryTag;
-		}
-		
-		public int getPriority()
-		{
-			return this.priority;
-		}
-	}
-	
-	private static class DeliveryTagComparator implements Comparator<WeightedDeliveryTag>
-	{
-		@Override
-		public int compare(WeightedDeliveryTag deliveryTag0, WeightedDeliveryTag deliveryTag1)
-		{
-			return deliveryTag1.getPriority() - deliveryTag0.getPriority();
-		}	
-	}
 }
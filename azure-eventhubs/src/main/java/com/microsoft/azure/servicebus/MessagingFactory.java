@@ -5,23 +5,18 @@
 package com.microsoft.azure.servicebus;
 
 import java.io.IOException;
-import java.nio.channels.UnresolvedAddressException;
 import java.time.Duration;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
 import org.apache.qpid.proton.engine.BaseHandler;
 import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.EndpointState;
-import org.apache.qpid.proton.engine.Event;
 import org.apache.qpid.proton.engine.Handler;
-import org.apache.qpid.proton.engine.HandlerException;
 import org.apache.qpid.proton.engine.Link;
 import org.apache.qpid.proton.engine.Session;
 import org.apache.qpid.proton.reactor.Reactor;
@@ -31,10 +26,12 @@ import com.microsoft.azure.servicebus.amqp.ConnectionHandler;
 import com.microsoft.azure.servicebus.amqp.DispatchHandler;
 import com.microsoft.azure.servicebus.amqp.IAmqpConnection;
 import com.microsoft.azure.servicebus.amqp.IOperationResult;
-import com.microsoft.azure.servicebus.amqp.ProtonUtil;
-import com.microsoft.azure.servicebus.amqp.ReactorHandler;
 import com.microsoft.azure.servicebus.amqp.ReactorDispatcher;
 import com.microsoft.azure.servicebus.amqp.SessionHandler;
+import com.microsoft.azure.servicebus.metrics.ClientMetrics;
+import com.microsoft.azure.servicebus.metrics.NoOpClientMetrics;
+import com.microsoft.azure.servicebus.metrics.ReceiverMetrics;
+import com.microsoft.azure.servicebus.metrics.SenderMetrics;
 
 /**
  * Abstracts all amqp related details and exposes AmqpConnection object
@@ -46,17 +43,21 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
 	private final String hostName;
+	private final int port;
 	private final CompletableFuture<Void> closeTask;
 	private final ConnectionHandler connectionHandler;
 	private final LinkedList<Link> registeredLinks;
-	private final Object reactorLock;
+	private final ReactorGroup reactorGroup;
+	private final ClientMetrics metrics;
+	private final CompletionExecutor completionExecutor;
         private final Object cbsChannelCreateLock;
+        private final Object managementChannelCreateLock;
         private final SharedAccessSignatureTokenProvider tokenProvider;
 	
-	private Reactor reactor;
-	private ReactorDispatcher reactorScheduler;
+	private volatile ReactorLoop reactorLoop;
 	private Connection connection;
         private CBSChannel cbsChannel;
+        private ManagementChannel managementChannel;
 
 	private Duration operationTimeout;
 	private RetryPolicy retryPolicy;
@@ -64,22 +65,30 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	private CompletableFuture<Connection> openConnection;
 	
 	/**
-	 * @param reactor parameter reactor is purely for testing purposes and the SDK code should always set it to null
+	 * @param reactorGroup the Reactors to run the connection on - if null, the connection runs on a Reactor of its own
+	 * @param metrics where the links of this factory - and its own Reactor, if any - record their metrics; null to record none
+	 * @param completionExecutor where the clients of this factory complete their futures - null for the default
 	 */
-	MessagingFactory(final ConnectionStringBuilder builder, final RetryPolicy retryPolicy)
+	MessagingFactory(final ConnectionStringBuilder builder, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup, final ClientMetrics metrics,
+			final CompletionExecutor completionExecutor)
 	{
             super("MessagingFactory".concat(StringUtil.getRandomString()), null);
 
             Timer.register(this.getClientId());
             this.hostName = builder.getEndpoint().getHost();
+            // an Endpoint with a port - for ex: sb://localhost:5682 - is only used to reach test brokers
+            this.port = builder.getEndpoint().getPort() != -1 ? builder.getEndpoint().getPort() : ClientConstants.AMQPS_PORT;
 
             this.operationTimeout = builder.getOperationTimeout();
             this.retryPolicy = retryPolicy; 
             this.registeredLinks = new LinkedList<>();
-            this.reactorLock = new Object();
+            this.metrics = metrics != null ? metrics : NoOpClientMetrics.INSTANCE;
+            this.completionExecutor = completionExecutor != null ? completionExecutor : CompletionExecutor.create(null);
+            this.reactorGroup = reactorGroup != null ? reactorGroup : ReactorGroup.createDedicated(this.metrics);
             this.connectionHandler = new ConnectionHandler(this);
             this.openConnection = new CompletableFuture<>();
             this.cbsChannelCreateLock = new Object();
+            this.managementChannelCreateLock = new Object();
             this.tokenProvider = builder.getSharedAccessSignature() == null
                     ? new SharedAccessSignatureTokenProvider(builder.getSasKeyName(), builder.getSasKey())
                     : new SharedAccessSignatureTokenProvider(builder.getSharedAccessSignature());
@@ -102,18 +111,18 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	
 	private Reactor getReactor()
 	{
-		synchronized (this.reactorLock)
-		{
-			return this.reactor;
-		}
+		return this.reactorLoop.getReactor();
 	}
 	
 	public ReactorDispatcher getReactorScheduler()
 	{
-		synchronized (this.reactorLock)
-		{
-			return this.reactorScheduler;
-		}
+		return this.reactorLoop.getDispatcher();
+	}
+
+	// the Reactor is shared with other factories - an event belongs to this factory only if it is on its current connection
+	boolean isCurrentConnection(final Connection eventConnection)
+	{
+		return eventConnection != null && eventConnection == this.connection;
 	}
         
         public SharedAccessSignatureTokenProvider getTokenProvider()
@@ -124,31 +133,21 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	private void createConnection(ConnectionStringBuilder builder) throws IOException
 	{
 		this.open = new CompletableFuture<>();
-		this.startReactor(new ReactorHandler()
+		this.reactorLoop = this.reactorGroup.attach(this);
+		this.scheduleOnReactorThread(new DispatchHandler()
 		{
 			@Override
-			public void onReactorInit(Event e)
+			public void onEvent()
 			{
-				super.onReactorInit(e);
-
-				final Reactor r = e.getReactor();
-				connection = r.connectionToHost(hostName, ClientConstants.AMQPS_PORT, connectionHandler);
+				connection = getReactor().connectionToHost(hostName, port, connectionHandler);
 			}
 		});
 	}
 
-	private void startReactor(final ReactorHandler reactorHandler) throws IOException
+	// idempotent - the returned future completes when the Reactor no longer needs to run for this factory
+	private CompletableFuture<Void> detachFromReactor()
 	{
-		final Reactor newReactor = ProtonUtil.reactor(reactorHandler);
-		synchronized (this.reactorLock)
-		{
-			this.reactor = newReactor;
-			this.reactorScheduler = new ReactorDispatcher(newReactor);
-                        reactorHandler.unsafeSetReactorDispatcher(this.reactorScheduler);
-		}
-		
-		final Thread reactorThread = new Thread(new RunReactor(newReactor));
-		reactorThread.start();
+		return this.reactorGroup.detach(this.reactorLoop, this);
 	}
         
         public CBSChannel getCBSChannel()
@@ -157,23 +156,36 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
             {
                 if (this.cbsChannel == null)
                 {
-                    this.cbsChannel = new CBSChannel(this, this, "cbs-link");
+                    this.cbsChannel = new CBSChannel(this, this, "cbs-link", this.operationTimeout);
                 }
             }
             
             return this.cbsChannel;
         }
 
+        public ManagementChannel getManagementChannel()
+        {
+            synchronized (this.managementChannelCreateLock)
+            {
+                if (this.managementChannel == null)
+                {
+                    this.managementChannel = new ManagementChannel(this, this, this.tokenProvider, this.hostName, this.operationTimeout);
+                }
+            }
+
+            return this.managementChannel;
+        }
+
 	@Override
 	public Session getSession(final String path, final Consumer<Session> onRemoteSessionOpen, final Consumer<ErrorCondition> onRemoteSessionOpenError)
 	{
 		if (this.connection == null || this.connection.getLocalState() == EndpointState.CLOSED || this.connection.getRemoteState() == EndpointState.CLOSED)
 		{
-			this.connection = this.getReactor().connectionToHost(this.hostName, ClientConstants.AMQPS_PORT, this.connectionHandler);
+			this.connection = this.getReactor().connectionToHost(this.hostName, this.port, this.connectionHandler);
 		}
                 
                 final Session session = this.connection.session();
-                BaseHandler.setHandler(session, new SessionHandler(path, onRemoteSessionOpen, onRemoteSessionOpenError));
+                BaseHandler.setHandler(session, new SessionHandler(path, onRemoteSessionOpen, onRemoteSessionOpenError, Timer.getTimeoutScheduler()));
                 session.open();
                 
 		return session;
@@ -188,6 +200,32 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	{
 		return this.retryPolicy;
 	}
+
+	public EncodeBufferPool getEncodeBufferPool()
+	{
+		return EncodeBufferPool.getDefault();
+	}
+
+	public ClientMetrics getMetrics()
+	{
+		return this.metrics;
+	}
+
+	public CompletionExecutor getCompletionExecutor()
+	{
+		return this.completionExecutor;
+	}
+
+	// null when metrics are disabled - so that links skip the clock reads as well as the recording
+	SenderMetrics createSenderMetrics(final String entityPath)
+	{
+		return NoOpClientMetrics.isEnabled(this.metrics) ? this.metrics.createSenderMetrics(entityPath) : null;
+	}
+
+	ReceiverMetrics createReceiverMetrics(final String entityPath)
+	{
+		return NoOpClientMetrics.isEnabled(this.metrics) ? this.metrics.createReceiverMetrics(entityPath) : null;
+	}
 	
 	public static CompletableFuture<MessagingFactory> createFromConnectionString(final String connectionString) throws IOException
 	{
@@ -195,9 +233,25 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	}
 
 	public static CompletableFuture<MessagingFactory> createFromConnectionString(final String connectionString, final RetryPolicy retryPolicy) throws IOException
+	{
+		return createFromConnectionString(connectionString, retryPolicy, null);
+	}
+
+	public static CompletableFuture<MessagingFactory> createFromConnectionString(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup) throws IOException
+	{
+		return createFromConnectionString(connectionString, retryPolicy, reactorGroup, null);
+	}
+
+	public static CompletableFuture<MessagingFactory> createFromConnectionString(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup, final ClientMetrics metrics) throws IOException
+	{
+		return createFromConnectionString(connectionString, retryPolicy, reactorGroup, metrics, null);
+	}
+
+	public static CompletableFuture<MessagingFactory> createFromConnectionString(final String connectionString, final RetryPolicy retryPolicy, final ReactorGroup reactorGroup, final ClientMetrics metrics,
+			final CompletionExecutor completionExecutor) throws IOException
 	{
 		final ConnectionStringBuilder builder = new ConnectionStringBuilder(connectionString);
-		final MessagingFactory messagingFactory = new MessagingFactory(builder, (retryPolicy != null) ? retryPolicy : RetryPolicy.getDefault());
+		final MessagingFactory messagingFactory = new MessagingFactory(builder, (retryPolicy != null) ? retryPolicy : RetryPolicy.getDefault(), reactorGroup, metrics, completionExecutor);
 
 		messagingFactory.createConnection(builder);
 		return messagingFactory.open;
@@ -215,6 +269,7 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 		{
 			this.open.completeExceptionally(exception);
 			this.openConnection.completeExceptionally(exception);
+			this.detachFromReactor();
 		}
 	}
 
@@ -259,37 +314,39 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 
 		if (this.getIsClosingOrClosed() && !this.closeTask.isDone())
 		{
-                    this.getReactor().stop();
+                    this.completeClose();
 		}
 	}
 
-	private void onReactorError(Exception cause)
+	private void completeClose()
+	{
+		this.detachFromReactor().thenRun(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				closeTask.complete(null);
+			}
+		});
+	}
+
+	// called by the ReactorLoop - when a handler of this factory's connection failed, or when the Reactor itself was replaced
+	void onReactorError(Exception cause)
 	{	
 		if (!this.open.isDone())
 		{
 			this.onOpenComplete(cause);
 		}
-		else
+		else if (this.getIsClosingOrClosed())
 		{
-			final Connection currentConnection = this.connection;
-			
-			try
+			if (!this.closeTask.isDone())
 			{
-				if (this.getIsClosingOrClosed())
-				{
-					return;
-				}
-				else
-				{
-					this.startReactor(new ReactorHandler());
-				}
-			}
-			catch (IOException e)
-			{
-				TRACE_LOGGER.log(Level.SEVERE, ExceptionUtil.toStackTraceString(e, "Re-starting reactor failed with error"));
-				
-				this.onReactorError(cause);
+				this.completeClose();
 			}
+		}
+		else
+		{
+			final Connection currentConnection = this.connection;
 
 			if (currentConnection.getLocalState() != EndpointState.CLOSED && currentConnection.getRemoteState() != EndpointState.CLOSED)
 			{
@@ -316,7 +373,12 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	@Override
 	protected CompletableFuture<Void> onClose()
 	{
-            if (!this.getIsClosed())
+            if (this.open != null && this.open.isCompletedExceptionally())
+            {
+                // never connected - and already detached from the Reactor
+                this.completeClose();
+            }
+            else if (!this.getIsClosed())
             {
                 try
                 {
@@ -337,6 +399,50 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
             public void onEvent()
             {
                 final ReactorDispatcher dispatcher = getReactorScheduler();
+                synchronized (managementChannelCreateLock) {
+
+                    if (managementChannel != null) {
+
+                        managementChannel.close(
+                                dispatcher,
+                                new IOperationResult<Void, Exception>() {
+                                    @Override
+                                    public void onComplete(Void result) {
+                                        closeCbsChannelAndConnection(dispatcher);
+                                    }
+                                    @Override
+                                    public void onError(Exception error) {
+                                        closeCbsChannelAndConnection(dispatcher);
+                                    }
+                                });
+                    }
+
+                    else {
+
+                        closeCbsChannelAndConnection(dispatcher);
+                    }
+                }
+                
+                if (connection != null && connection.getRemoteState() != EndpointState.CLOSED)
+                {
+                    Timer.schedule(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            if (!closeTask.isDone())
+                            {
+                                closeTask.completeExceptionally(new TimeoutException("Closing MessagingFactory timed out."));
+                                detachFromReactor();
+                            }
+                        }
+                    },
+                    operationTimeout, TimerType.OneTimeRun);
+                }
+            }
+
+            private void closeCbsChannelAndConnection(final ReactorDispatcher dispatcher)
+            {
                 synchronized (cbsChannelCreateLock) {
                     
                     if (cbsChannel != null) {
@@ -372,94 +478,9 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
                             connection.close();
                     }
                 }
-                
-                if (connection != null && connection.getRemoteState() != EndpointState.CLOSED)
-                {
-                    Timer.schedule(new Runnable()
-                    {
-                        @Override
-                        public void run()
-                        {
-                            if (!closeTask.isDone())
-                            {
-                                closeTask.completeExceptionally(new TimeoutException("Closing MessagingFactory timed out."));
-                            }
-                        }
-                    },
-                    operationTimeout, TimerType.OneTimeRun);
-                }
             }
         }
 
-	private class RunReactor implements Runnable
-	{
-		final private Reactor rctr;
-
-		public RunReactor(final Reactor reactor)
-		{
-			this.rctr = reactor;
-		}
-
-		public void run()
-		{
-			if(TRACE_LOGGER.isLoggable(Level.FINE))
-			{
-				TRACE_LOGGER.log(Level.FINE, "starting reactor instance.");
-			}
-			
-			try
-			{
-				this.rctr.setTimeout(3141);
-				this.rctr.start();
-				while(!Thread.interrupted() && this.rctr.process()) {}
-				this.rctr.stop();
-			}
-			catch (HandlerException handlerException)
-			{
-				Throwable cause = handlerException.getCause();
-				if (cause == null)
-				{
-					cause = handlerException;
-				}
-
-				if(TRACE_LOGGER.isLoggable(Level.WARNING))
-				{
-					TRACE_LOGGER.log(Level.WARNING,
-							ExceptionUtil.toStackTraceString(handlerException, "UnHandled exception while processing events in reactor:"));
-				}
-
-				String message = !StringUtil.isNullOrEmpty(cause.getMessage()) ? 
-						cause.getMessage():
-						!StringUtil.isNullOrEmpty(handlerException.getMessage()) ? 
-							handlerException.getMessage() :
-							"Reactor encountered unrecoverable error";
-				
-				ServiceBusException sbException = new ServiceBusException(
-						true,
-						String.format(Locale.US, "%s, %s", message, ExceptionUtil.getTrackingIDAndTimeToLog()),
-						cause);
-				
-				if (cause instanceof UnresolvedAddressException)
-				{
-					sbException = new CommunicationException(
-							String.format(Locale.US, "%s. This is usually caused by incorrect hostname or network configuration. Please check to see if namespace information is correct. %s", message, ExceptionUtil.getTrackingIDAndTimeToLog()),
-							cause);
-				}
-				
-				MessagingFactory.this.onReactorError(sbException);
-			}
-			finally
-			{
-                            this.rctr.free();
-                        
-                            if (getIsClosingOrClosed() && !closeTask.isDone())
-                            {
-                                closeTask.complete(null);
-                            }
-			}
-		}
-	}
-
 	@Override
 	public void registerForConnectionError(Link link)
 	{
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The sends of a {@link MessageSender} which are waiting for link credit or for their outcome: the work items indexed by delivery tag,
+ * and the tags of those waiting for credit, in two FIFO queues - one for new sends and one for retries, which go out first.
+ * <p>
+ * Any thread adds sends; only the reactor thread polls the queues, so a peeked tag is still at the head when it is polled.
+ */
+final class PendingSends<T>
+{
+	private final ConcurrentHashMap<Long, T> sends;
+	private final ConcurrentLinkedQueue<Long> newSends;
+	private final ConcurrentLinkedQueue<Long> retrySends;
+
+	PendingSends()
+	{
+		this.sends = new ConcurrentHashMap<>();
+		this.newSends = new ConcurrentLinkedQueue<>();
+		this.retrySends = new ConcurrentLinkedQueue<>();
+	}
+
+	// queues the send for credit
+	void add(final Long tag, final T send, final boolean isRetry)
+	{
+		// the work item has to be indexed before its tag is visible to the reactor thread draining the queues
+		this.sends.put(tag, send);
+		if (isRetry)
+			this.retrySends.offer(tag);
+		else
+			this.newSends.offer(tag);
+	}
+
+	// indexes a send which is handed to the link right away - without waiting in a queue
+	void put(final Long tag, final T send)
+	{
+		this.sends.put(tag, send);
+	}
+
+	// queues a send which is already indexed - for ex: one left unacknowledged by a link which was recreated - to go out again
+	void replay(final Long tag)
+	{
+		this.retrySends.offer(tag);
+	}
+
+	Long pollRetry()
+	{
+		return this.retrySends.poll();
+	}
+
+	Long pollNew()
+	{
+		return this.newSends.poll();
+	}
+
+	Long peekNew()
+	{
+		return this.newSends.peek();
+	}
+
+	T get(final Long tag)
+	{
+		return this.sends.get(tag);
+	}
+
+	T remove(final Long tag)
+	{
+		return this.sends.remove(tag);
+	}
+
+	Set<Map.Entry<Long, T>> entrySet()
+	{
+		return this.sends.entrySet();
+	}
+
+	// all sends - waiting for credit, or for their outcome
+	int size()
+	{
+		return this.sends.size();
+	}
+
+	// walks the queues - for tracing only
+	int getWaitingForCreditCount()
+	{
+		return this.newSends.size() + this.retrySends.size();
+	}
+
+	void clear()
+	{
+		this.sends.clear();
+		this.newSends.clear();
+		this.retrySends.clear();
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A limit on the total size of the events prefetched by a set of receivers - for ex: all receivers of an EventProcessorHost -
+ * no matter how many of them there are.
+ * <p>
+ * The budget is divided between the registered receivers by demand: every receiver keeps a minimum share - enough for one event
+ * of the maximum size, or an equal share if the budget is smaller - and the rest is divided in proportion to the rate at which each
+ * receiver's events are consumed. A receiver only grants the service credit for more events while its prefetched events are below
+ * its share - so the share of an idle receiver goes to the busy ones as it is consumed.
+ * <p>
+ * Shares are re-computed as receivers come and go, and at most once per second as events are consumed.
+ * Credit already granted to the service is not revoked: the budget can be overshot by the events in flight.
+ */
+public final class PrefetchBudget
+{
+	private static final long REBALANCE_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+
+	private final long maxBytes;
+	private final Map<IPrefetchBudgetMember, Share> shares;
+
+	private long lastRebalanceNanos;
+	private volatile long nextRebalanceNanos;
+
+	private PrefetchBudget(final long maxBytes)
+	{
+		this.maxBytes = maxBytes;
+		this.shares = new LinkedHashMap<IPrefetchBudgetMember, Share>();
+		this.lastRebalanceNanos = System.nanoTime();
+		this.nextRebalanceNanos = this.lastRebalanceNanos + REBALANCE_INTERVAL_NANOS;
+	}
+
+	/**
+	 * Creates a budget to be shared by receivers.
+	 * @param maxBytes the upper limit on the size of the events prefetched by all receivers using the budget
+	 * @return the budget
+	 */
+	public static PrefetchBudget create(final long maxBytes)
+	{
+		if (maxBytes <= 0)
+		{
+			throw new IllegalArgumentException("maxBytes must be greater than 0");
+		}
+
+		return new PrefetchBudget(maxBytes);
+	}
+
+	/**
+	 * @return the upper limit on the size of the events prefetched by all receivers using the budget
+	 */
+	public long getMaxBytes()
+	{
+		return this.maxBytes;
+	}
+
+	/**
+	 * @return the number of receivers currently using the budget
+	 */
+	public synchronized int getReceiverCount()
+	{
+		return this.shares.size();
+	}
+
+	synchronized void register(final IPrefetchBudgetMember member)
+	{
+		if (!this.shares.containsKey(member))
+		{
+			this.shares.put(member, new Share(member.getConsumedBytes()));
+			this.rebalance(System.nanoTime());
+		}
+	}
+
+	synchronized void unregister(final IPrefetchBudgetMember member)
+	{
+		if (this.shares.remove(member) != null)
+		{
+			this.rebalance(System.nanoTime());
+		}
+	}
+
+	// called by the members as their events are consumed - cheap, unless a rebalance is due
+	void onConsumed()
+	{
+		final long now = System.nanoTime();
+		if (now - this.nextRebalanceNanos >= 0)
+		{
+			synchronized (this)
+			{
+				if (now - this.nextRebalanceNanos >= 0)
+				{
+					this.rebalance(now);
+				}
+			}
+		}
+	}
+
+	// call with the lock held
+	void rebalance(final long now)
+	{
+		final long elapsedNanos = Math.max(1, now - this.lastRebalanceNanos);
+		this.lastRebalanceNanos = now;
+		this.nextRebalanceNanos = now + REBALANCE_INTERVAL_NANOS;
+
+		final int memberCount = this.shares.size();
+		if (memberCount == 0)
+		{
+			return;
+		}
+
+		double totalRate = 0;
+		for (Map.Entry<IPrefetchBudgetMember, Share> entry : this.shares.entrySet())
+		{
+			final Share share = entry.getValue();
+			final long consumedBytes = entry.getKey().getConsumedBytes();
+			final double rate = (consumedBytes - share.lastConsumedBytes) * 1e9 / elapsedNanos;
+			share.lastConsumedBytes = consumedBytes;
+			share.consumptionRate = share.consumptionRate == 0 ? rate : (share.consumptionRate + rate) / 2;
+			totalRate += share.consumptionRate;
+		}
+
+		final long minimumShare = Math.max(1, Math.min(this.maxBytes / memberCount, ClientConstants.MAX_MESSAGE_LENGTH_BYTES));
+		final long distributable = Math.max(0, this.maxBytes - minimumShare * memberCount);
+		for (Map.Entry<IPrefetchBudgetMember, Share> entry : this.shares.entrySet())
+		{
+			final Share share = entry.getValue();
+			final long bytes = minimumShare + (totalRate > 0
+					? (long) (distributable * (share.consumptionRate / totalRate))
+					: distributable / memberCount);
+			if (bytes != share.bytes)
+			{
+				share.bytes = bytes;
+				entry.getKey().onPrefetchBudgetChanged(bytes);
+			}
+		}
+	}
+
+	private static final class Share
+	{
+		private long lastConsumedBytes;
+		private double consumptionRate;
+		private long bytes;
+
+		Share(final long consumedBytes)
+		{
+			this.lastConsumedBytes = consumedBytes;
+		}
+	}
+}
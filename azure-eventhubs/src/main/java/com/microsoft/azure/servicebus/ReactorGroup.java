@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.microsoft.azure.servicebus.metrics.ClientMetrics;
+import com.microsoft.azure.servicebus.metrics.NoOpClientMetrics;
+
+/**
+ * A fixed set of Reactors - each with its own thread - on which the connections of any number of {@link MessagingFactory}'s are multiplexed.
+ * <p>
+ * Without a group, every MessagingFactory runs its connection on a Reactor thread of its own. Sharing a group bounds the number of
+ * Reactor threads - for ex: to one per core - no matter how many clients are created. A new connection goes to the Reactor with the fewest connections.
+ * <p>
+ * Reactors are started on first use. A group outlives the clients using it: {@link #close()} it once all of them are closed.
+ */
+public final class ReactorGroup
+{
+	private static final AtomicInteger GROUP_COUNT = new AtomicInteger();
+
+	private final ReactorLoop[] loops;
+	private final boolean stopWhenIdle;
+	private boolean isClosed;
+
+	private ReactorGroup(final int reactorCount, final boolean stopWhenIdle, final ClientMetrics metrics, final ReactorWatchdog watchdog)
+	{
+		final int groupIndex = GROUP_COUNT.incrementAndGet();
+		this.loops = new ReactorLoop[reactorCount];
+		for (int i = 0; i < reactorCount; i++)
+		{
+			final String loopName = String.format(Locale.US, "reactor-group-%s-%s", groupIndex, i);
+			this.loops[i] = new ReactorLoop(loopName, NoOpClientMetrics.isEnabled(metrics) ? metrics.createReactorMetrics(loopName) : null, watchdog);
+		}
+
+		this.stopWhenIdle = stopWhenIdle;
+	}
+
+	/**
+	 * Creates a group of Reactors to be shared by clients.
+	 * @param reactorCount the number of Reactor threads - for ex: {@code Runtime.getRuntime().availableProcessors()}
+	 * @return the group
+	 */
+	public static ReactorGroup create(final int reactorCount)
+	{
+		return create(reactorCount, null);
+	}
+
+	/**
+	 * Creates a group of Reactors to be shared by clients - which reports the work on each Reactor to {@link ClientMetrics}.
+	 * The clients' own metrics only cover their links: Reactors of a group belong to the group.
+	 * @param reactorCount the number of Reactor threads - for ex: {@code Runtime.getRuntime().availableProcessors()}
+	 * @param metrics where the Reactors report the depth of their work queues and the time spent in each handler - null to report nothing
+	 * @return the group
+	 */
+	public static ReactorGroup create(final int reactorCount, final ClientMetrics metrics)
+	{
+		return create(reactorCount, metrics, null);
+	}
+
+	/**
+	 * Creates a group of Reactors to be shared by clients - whose threads are watched by a {@link ReactorWatchdog}, for lag and stalls.
+	 * To watch the Reactor of a single client, create a group of one Reactor for it.
+	 * @param reactorCount the number of Reactor threads - for ex: {@code Runtime.getRuntime().availableProcessors()}
+	 * @param metrics where the Reactors report the depth of their work queues and the time spent in each handler - null to report nothing
+	 * @param watchdog the watchdog of the Reactors - can be shared by groups; null to not watch them
+	 * @return the group
+	 */
+	public static ReactorGroup create(final int reactorCount, final ClientMetrics metrics, final ReactorWatchdog watchdog)
+	{
+		if (reactorCount <= 0)
+		{
+			throw new IllegalArgumentException("reactorCount must be greater than 0");
+		}
+
+		return new ReactorGroup(reactorCount, false, metrics, watchdog);
+	}
+
+	// a single Reactor for a single MessagingFactory - stopped when the factory is closed
+	static ReactorGroup createDedicated(final ClientMetrics metrics)
+	{
+		return new ReactorGroup(1, true, metrics, null);
+	}
+
+	/**
+	 * @return the number of Reactors in the group
+	 */
+	public int getReactorCount()
+	{
+		return this.loops.length;
+	}
+
+	/**
+	 * @return the number of connections on each Reactor of the group
+	 */
+	public synchronized int[] getConnectionCounts()
+	{
+		final int[] counts = new int[this.loops.length];
+		for (int i = 0; i < this.loops.length; i++)
+		{
+			counts[i] = this.loops[i].getLoad();
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Stops all Reactors of the group. Connections still open on them are dropped.
+	 * @return a CompletableFuture which completes when all Reactor threads have exited
+	 */
+	public CompletableFuture<Void> close()
+	{
+		synchronized (this)
+		{
+			this.isClosed = true;
+		}
+
+		final CompletableFuture<?>[] stops = new CompletableFuture<?>[this.loops.length];
+		for (int i = 0; i < this.loops.length; i++)
+		{
+			stops[i] = this.loops[i].stop();
+		}
+
+		return CompletableFuture.allOf(stops);
+	}
+
+	synchronized ReactorLoop attach(final MessagingFactory factory) throws IOException
+	{
+		if (this.isClosed)
+		{
+			throw new IllegalStateException("ReactorGroup is closed.");
+		}
+
+		ReactorLoop leastLoaded = null;
+		for (ReactorLoop loop : this.loops)
+		{
+			if (!loop.isStopped() && (leastLoaded == null || loop.getLoad() < leastLoaded.getLoad()))
+			{
+				leastLoaded = loop;
+			}
+		}
+
+		if (leastLoaded == null)
+		{
+			throw new IOException("All Reactors of the ReactorGroup failed to restart.");
+		}
+
+		leastLoaded.attach(factory);
+		return leastLoaded;
+	}
+
+	synchronized CompletableFuture<Void> detach(final ReactorLoop loop, final MessagingFactory factory)
+	{
+		if (loop.detach(factory) && this.stopWhenIdle)
+		{
+			this.isClosed = true;
+			return loop.stop();
+		}
+
+		return CompletableFuture.completedFuture(null);
+	}
+}
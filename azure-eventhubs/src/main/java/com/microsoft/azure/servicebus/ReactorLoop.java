@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.HandlerException;
+import org.apache.qpid.proton.reactor.Reactor;
+
+import com.microsoft.azure.servicebus.amqp.DispatchHandler;
+import com.microsoft.azure.servicebus.amqp.ProtonUtil;
+import com.microsoft.azure.servicebus.amqp.ReactorDispatcher;
+import com.microsoft.azure.servicebus.amqp.ReactorHandler;
+import com.microsoft.azure.servicebus.metrics.ReactorMetrics;
+
+/**
+ * One Reactor and the thread running it, shared by the connections of all {@link MessagingFactory}'s attached to it.
+ * <p>
+ * A handler failure is charged to the connection whose event failed: that event is skipped, only the owning factory is
+ * notified - and it drops and re-creates its connection - while the other connections on the Reactor carry on.
+ * If the Reactor itself fails, it is replaced by a new one and every attached factory is notified.
+ */
+final class ReactorLoop implements Runnable
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private final String name;
+	private final CopyOnWriteArraySet<MessagingFactory> members;
+	private final CompletableFuture<Void> stopped;
+	private final ReactorMetrics metrics;
+	private final ReactorWatchdog watchdog;
+
+	private volatile Reactor reactor;
+	private volatile ReactorDispatcher dispatcher;
+	private volatile Thread thread;
+	private volatile boolean isStarted;
+	private volatile boolean stopRequested;
+
+	// @param metrics null to record nothing
+	// @param watchdog null to not watch the Reactor
+	ReactorLoop(final String name, final ReactorMetrics metrics, final ReactorWatchdog watchdog)
+	{
+		this.name = name;
+		this.metrics = metrics;
+		this.watchdog = watchdog;
+		this.members = new CopyOnWriteArraySet<MessagingFactory>();
+		this.stopped = new CompletableFuture<Void>();
+	}
+
+	String getName()
+	{
+		return this.name;
+	}
+
+	Thread getThread()
+	{
+		return this.thread;
+	}
+
+	Reactor getReactor()
+	{
+		return this.reactor;
+	}
+
+	ReactorDispatcher getDispatcher()
+	{
+		return this.dispatcher;
+	}
+
+	int getLoad()
+	{
+		return this.members.size();
+	}
+
+	boolean isStopped()
+	{
+		return this.stopRequested;
+	}
+
+	// call with the group's lock held
+	void attach(final MessagingFactory factory) throws IOException
+	{
+		if (!this.isStarted)
+		{
+			this.startReactor();
+			this.isStarted = true;
+			if (this.watchdog != null)
+			{
+				this.watchdog.watch(this);
+			}
+		}
+
+		this.members.add(factory);
+	}
+
+	// returns true if this was the last attached factory
+	boolean detach(final MessagingFactory factory)
+	{
+		return this.members.remove(factory) && this.members.isEmpty();
+	}
+
+	CompletableFuture<Void> stop()
+	{
+		this.stopRequested = true;
+		if (this.watchdog != null)
+		{
+			this.watchdog.unwatch(this);
+		}
+
+		final ReactorDispatcher currentDispatcher = this.dispatcher;
+		if (!this.isStarted || currentDispatcher == null)
+		{
+			this.stopped.complete(null);
+		}
+		else
+		{
+			try
+			{
+				// wake the Reactor up, so that the loop sees the stop request without waiting for the poll timeout
+				currentDispatcher.invoke(new DispatchHandler()
+				{
+					@Override
+					public void onEvent()
+					{
+					}
+				});
+			}
+			catch (IOException ignore)
+			{
+				// the loop sees the request after the poll timeout
+			}
+		}
+
+		return this.stopped;
+	}
+
+	private void startReactor() throws IOException
+	{
+		final ReactorHandler reactorHandler = new ReactorHandler();
+		final Reactor newReactor = ProtonUtil.reactor(reactorHandler, this.metrics);
+		final ReactorDispatcher newDispatcher = new ReactorDispatcher(newReactor, this.metrics);
+		reactorHandler.unsafeSetReactorDispatcher(newDispatcher);
+		this.reactor = newReactor;
+		this.dispatcher = newDispatcher;
+
+		final Thread reactorThread = new Thread(this, this.name);
+		this.thread = reactorThread;
+		reactorThread.start();
+	}
+
+	@Override
+	public void run()
+	{
+		final Reactor currentReactor = this.reactor;
+		if (TRACE_LOGGER.isLoggable(Level.FINE))
+		{
+			TRACE_LOGGER.log(Level.FINE, String.format(Locale.US, "starting reactor instance on %s.", this.name));
+		}
+
+		Throwable reactorFailure = null;
+		try
+		{
+			currentReactor.setTimeout(3141);
+			currentReactor.start();
+			while (!Thread.interrupted() && !this.stopRequested)
+			{
+				try
+				{
+					if (!currentReactor.process())
+					{
+						break;
+					}
+				}
+				catch (HandlerException handlerException)
+				{
+					this.onHandlerError(currentReactor, handlerException);
+				}
+			}
+
+			currentReactor.stop();
+		}
+		catch (Throwable failure)
+		{
+			reactorFailure = failure;
+			if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+			{
+				TRACE_LOGGER.log(Level.SEVERE, ExceptionUtil.toStackTraceString(failure, "Reactor on " + this.name + " failed:"));
+			}
+		}
+		finally
+		{
+			currentReactor.free();
+		}
+
+		if (this.stopRequested)
+		{
+			this.stopped.complete(null);
+			return;
+		}
+
+		this.restartReactor(reactorFailure);
+	}
+
+	// skips the event whose handler failed - and hands the error to the factory owning its connection
+	private void onHandlerError(final Reactor currentReactor, final HandlerException handlerException)
+	{
+		final Exception error = toServiceBusException(handlerException);
+		final Event failedEvent = currentReactor.collector().peek();
+		final Connection failedConnection = failedEvent != null ? failedEvent.getConnection() : null;
+		if (failedEvent != null)
+		{
+			currentReactor.collector().pop();
+		}
+
+		MessagingFactory owner = null;
+		if (failedConnection != null)
+		{
+			for (MessagingFactory member : this.members)
+			{
+				if (member.isCurrentConnection(failedConnection))
+				{
+					owner = member;
+					break;
+				}
+			}
+		}
+
+		if (owner != null)
+		{
+			owner.onReactorError(error);
+		}
+		else if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+		{
+			TRACE_LOGGER.log(Level.SEVERE, ExceptionUtil.toStackTraceString(handlerException,
+					"UnHandled exception, not related to a connection, while processing events on " + this.name + " - skipped the event:"));
+		}
+	}
+
+	// the Reactor failed outside of a handler - its connections are gone, so start a new one and let every factory reconnect
+	private void restartReactor(final Throwable reactorFailure)
+	{
+		final Exception error = new ServiceBusException(true,
+				String.format(Locale.US, "Reactor encountered unrecoverable error, %s", ExceptionUtil.getTrackingIDAndTimeToLog()),
+				reactorFailure);
+		try
+		{
+			this.startReactor();
+		}
+		catch (IOException restartFailure)
+		{
+			TRACE_LOGGER.log(Level.SEVERE, ExceptionUtil.toStackTraceString(restartFailure, "Re-starting reactor failed with error"));
+			this.stopRequested = true;
+			if (this.watchdog != null)
+			{
+				this.watchdog.unwatch(this);
+			}
+
+			this.stopped.complete(null);
+		}
+
+		for (MessagingFactory member : this.members)
+		{
+			member.onReactorError(error);
+		}
+	}
+
+	static Exception toServiceBusException(final HandlerException handlerException)
+	{
+		Throwable cause = handlerException.getCause();
+		if (cause == null)
+		{
+			cause = handlerException;
+		}
+
+		if (TRACE_LOGGER.isLoggable(Level.WARNING))
+		{
+			TRACE_LOGGER.log(Level.WARNING,
+					ExceptionUtil.toStackTraceString(handlerException, "UnHandled exception while processing events in reactor:"));
+		}
+
+		final String message = !StringUtil.isNullOrEmpty(cause.getMessage()) ?
+				cause.getMessage():
+				!StringUtil.isNullOrEmpty(handlerException.getMessage()) ?
+					handlerException.getMessage() :
+					"Reactor encountered unrecoverable error";
+
+		if (cause instanceof UnresolvedAddressException)
+		{
+			return new CommunicationException(
+					String.format(Locale.US, "%s. This is usually caused by incorrect hostname or network configuration. Please check to see if namespace information is correct. %s", message, ExceptionUtil.getTrackingIDAndTimeToLog()),
+					cause);
+		}
+
+		return new ServiceBusException(
+				true,
+				String.format(Locale.US, "%s, %s", message, ExceptionUtil.getTrackingIDAndTimeToLog()),
+				cause);
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.azure.servicebus.amqp.DispatchHandler;
+import com.microsoft.azure.servicebus.amqp.ReactorDispatcher;
+
+/**
+ * Watches the Reactor threads of a {@link ReactorGroup} for lag and stalls.
+ * <p>
+ * All I/O of a connection runs on its Reactor thread: a handler which blocks it - for ex: an application callback run inline
+ * when a send or receive completes - delays every link of every connection on that Reactor. Every probe interval, the watchdog
+ * queues a probe on each Reactor, through its {@link ReactorDispatcher}, and reports how long the probe waited to run.
+ * If a probe waits longer than the stall threshold, the watchdog reports what the Reactor thread is running - once per stall.
+ * <p>
+ * A stall is reported at most a probe interval after it crosses the threshold - keep the interval well below the threshold.
+ * The watchdog runs on a daemon thread of its own, while it watches any Reactor. Without a listener, stalls are logged.
+ */
+public final class ReactorWatchdog
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private final Duration probeInterval;
+	private final Duration stallThreshold;
+	private final IReactorWatchdogListener listener;
+	private final CopyOnWriteArrayList<Probe> probes;
+	private final AtomicLong probeCount;
+	private final AtomicLong stallCount;
+	private final AtomicLong maxLagNanos;
+
+	private ScheduledThreadPoolExecutor executor;
+
+	/**
+	 * @param probeInterval how often to probe each Reactor
+	 * @param stallThreshold how long a probe waits before the Reactor is reported as stalled
+	 * @param listener receives every lag measured and every stall - null to log the stalls
+	 */
+	public ReactorWatchdog(final Duration probeInterval, final Duration stallThreshold, final IReactorWatchdogListener listener)
+	{
+		if (probeInterval == null || probeInterval.toMillis() < 1)
+			throw new IllegalArgumentException("probeInterval should be at least 1 millisecond.");
+
+		if (stallThreshold == null || stallThreshold.toMillis() < 1)
+			throw new IllegalArgumentException("stallThreshold should be at least 1 millisecond.");
+
+		this.probeInterval = probeInterval;
+		this.stallThreshold = stallThreshold;
+		this.listener = listener;
+		this.probes = new CopyOnWriteArrayList<Probe>();
+		this.probeCount = new AtomicLong();
+		this.stallCount = new AtomicLong();
+		this.maxLagNanos = new AtomicLong();
+	}
+
+	public Duration getProbeInterval()
+	{
+		return this.probeInterval;
+	}
+
+	public Duration getStallThreshold()
+	{
+		return this.stallThreshold;
+	}
+
+	/**
+	 * @return number of probes which ran - on all Reactors watched
+	 */
+	public long getProbeCount()
+	{
+		return this.probeCount.get();
+	}
+
+	/**
+	 * @return number of stalls reported - on all Reactors watched
+	 */
+	public long getStallCount()
+	{
+		return this.stallCount.get();
+	}
+
+	/**
+	 * @return the highest lag measured - on all Reactors watched
+	 */
+	public long getMaxLagNanos()
+	{
+		return this.maxLagNanos.get();
+	}
+
+	synchronized void watch(final ReactorLoop loop)
+	{
+		this.probes.add(new Probe(loop));
+		if (this.executor == null)
+		{
+			this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					final Thread thread = new Thread(runnable, "reactor-watchdog");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+			final long intervalNanos = this.probeInterval.toNanos();
+			this.executor.scheduleAtFixedRate(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					ReactorWatchdog.this.probeAll();
+				}
+			}, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	synchronized void unwatch(final ReactorLoop loop)
+	{
+		for (Probe probe : this.probes)
+		{
+			if (probe.loop == loop)
+			{
+				this.probes.remove(probe);
+			}
+		}
+
+		if (this.probes.isEmpty() && this.executor != null)
+		{
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+	}
+
+	// runs on the watchdog thread - an exception would cancel the schedule
+	private void probeAll()
+	{
+		final long now = System.nanoTime();
+		for (Probe probe : this.probes)
+		{
+			try
+			{
+				probe.tick(now);
+			}
+			catch (RuntimeException exception)
+			{
+				if (TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING, ExceptionUtil.toStackTraceString(exception, "Reactor watchdog failed to probe " + probe.loop.getName()));
+				}
+			}
+		}
+	}
+
+	private void onStall(final ReactorLoop loop, final long stalledNanos)
+	{
+		this.stallCount.incrementAndGet();
+
+		final Thread reactorThread = loop.getThread();
+		final StackTraceElement[] stackTrace = reactorThread != null ? reactorThread.getStackTrace() : new StackTraceElement[0];
+		if (this.listener != null)
+		{
+			this.listener.onStall(loop.getName(), stalledNanos, stackTrace);
+		}
+		else if (TRACE_LOGGER.isLoggable(Level.WARNING))
+		{
+			final StringBuilder builder = new StringBuilder();
+			builder.append(String.format(Locale.US, "%s stalled for %sms, running:", loop.getName(), TimeUnit.NANOSECONDS.toMillis(stalledNanos)));
+			for (StackTraceElement frame : stackTrace)
+			{
+				builder.append(System.lineSeparator());
+				builder.append("\tat ");
+				builder.append(frame);
+			}
+
+			TRACE_LOGGER.log(Level.WARNING, builder.toString());
+		}
+	}
+
+	private final class Probe extends DispatchHandler
+	{
+		private final ReactorLoop loop;
+
+		// the dispatcher the outstanding probe was queued on - null if none is: a Reactor re-created after a failure drops it
+		private volatile ReactorDispatcher sentTo;
+		private volatile long sentAtNanos;
+
+		// accessed only on the watchdog thread
+		private boolean isStallReported;
+
+		Probe(final ReactorLoop loop)
+		{
+			this.loop = loop;
+		}
+
+		void tick(final long now)
+		{
+			final ReactorDispatcher dispatcher = this.loop.getDispatcher();
+			final ReactorDispatcher outstandingOn = this.sentTo;
+			if (outstandingOn != null && outstandingOn == dispatcher)
+			{
+				final long stalledNanos = now - this.sentAtNanos;
+				if (!this.isStallReported && stalledNanos >= ReactorWatchdog.this.stallThreshold.toNanos())
+				{
+					this.isStallReported = true;
+					ReactorWatchdog.this.onStall(this.loop, stalledNanos);
+				}
+
+				return;
+			}
+
+			if (dispatcher == null)
+			{
+				return;
+			}
+
+			this.isStallReported = false;
+			this.sentAtNanos = now;
+			this.sentTo = dispatcher;
+			try
+			{
+				dispatcher.invoke(this);
+			}
+			catch (IOException ignore)
+			{
+				// the Reactor is stopping
+				this.sentTo = null;
+			}
+		}
+
+		@Override
+		public void onEvent()
+		{
+			final long lagNanos = System.nanoTime() - this.sentAtNanos;
+			this.sentTo = null;
+
+			ReactorWatchdog.this.probeCount.incrementAndGet();
+			long max;
+			while (lagNanos > (max = ReactorWatchdog.this.maxLagNanos.get()) && !ReactorWatchdog.this.maxLagNanos.compareAndSet(max, lagNanos))
+			{
+			}
+
+			if (ReactorWatchdog.this.listener != null)
+			{
+				ReactorWatchdog.this.listener.onLag(this.loop.getName(), lagNanos);
+			}
+		}
+	}
+}
@@ -8,9 +8,13 @@ import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+
 public class ReplayableWorkItem<T> extends WorkItem<T>
 {
 	private byte[] amqpMessage;
+	private EncodeBufferPool bufferPool;
+	private MessageAnnotations messageAnnotations;
 	private int messageFormat;
 	private int encodedMessageSize;
 	private boolean waitingForAck;
@@ -37,11 +41,46 @@ public class ReplayableWorkItem<T> extends WorkItem<T>
 		this.encodedMessageSize = encodedMessageSize;
 	}
 
-	public byte[] getMessage()
+	public synchronized byte[] getMessage()
 	{
 		return this.amqpMessage;
 	}
 
+	/**
+	 * Marks the encoded message as owned by the given pool, so that {@link #releaseMessage()} hands it back on settlement.
+	 */
+	public synchronized void setBufferPool(final EncodeBufferPool bufferPool)
+	{
+		this.bufferPool = bufferPool;
+	}
+
+	/**
+	 * Hands the encoded message - and the duty to return it to its pool - over to the caller, for ex: to the work item of a retry.
+	 * @return the encoded message, or null if it was already released
+	 */
+	public synchronized byte[] takeMessage()
+	{
+		final byte[] message = this.amqpMessage;
+		this.amqpMessage = null;
+		this.bufferPool = null;
+		return message;
+	}
+
+	/**
+	 * Returns the encoded message buffer to its pool once the send is settled and will not be replayed.
+	 * Safe to call more than once - only the first call releases the buffer.
+	 */
+	public synchronized void releaseMessage()
+	{
+		if (this.bufferPool != null && this.amqpMessage != null)
+		{
+			this.bufferPool.release(this.amqpMessage);
+		}
+
+		this.amqpMessage = null;
+		this.bufferPool = null;
+	}
+
 	public int getEncodedMessageSize()
 	{
 		return this.encodedMessageSize;
@@ -52,6 +91,19 @@ public class ReplayableWorkItem<T> extends WorkItem<T>
 		return this.messageFormat;
 	}
 
+	/**
+	 * @return annotations of the encoded message - used to decide whether it can share a batch delivery with other sends
+	 */
+	public MessageAnnotations getMessageAnnotations()
+	{
+		return this.messageAnnotations;
+	}
+
+	public void setMessageAnnotations(final MessageAnnotations messageAnnotations)
+	{
+		this.messageAnnotations = messageAnnotations;
+	}
+
 	public Exception getLastKnownException()
 	{
 		return this.lastKnownException;
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.microsoft.azure.servicebus.amqp.IOperationResult;
+
+// completes the callback only once - either with the response or when the operationTimeout expires,
+// as the RequestResponseChannel doesn't time out its inflight requests
+final class TimedOperationResult<T> implements IOperationResult<T, Exception>, Runnable {
+
+    private final IOperationResult<T, Exception> callback;
+    private final String operationDescription;
+    private final AtomicBoolean isCompleted;
+    private final ScheduledFuture<?> timeoutTask;
+
+    TimedOperationResult(final IOperationResult<T, Exception> callback, final Duration operationTimeout, final String operationDescription) {
+
+        this.callback = callback;
+        this.operationDescription = operationDescription;
+        this.isCompleted = new AtomicBoolean();
+        this.timeoutTask = operationTimeout == null
+                ? null
+                : Timer.schedule(this, operationTimeout, TimerType.OneTimeRun);
+    }
+
+    @Override
+    public void onComplete(final T result) {
+
+        if (this.isCompleted.compareAndSet(false, true)) {
+
+            this.cancelTimeout();
+            this.callback.onComplete(result);
+        }
+    }
+
+    @Override
+    public void onError(final Exception error) {
+
+        if (this.isCompleted.compareAndSet(false, true)) {
+
+            this.cancelTimeout();
+            this.callback.onError(error);
+        }
+    }
+
+    @Override
+    public void run() {
+
+        if (this.isCompleted.compareAndSet(false, true)) {
+
+            this.callback.onError(new TimeoutException(String.format(Locale.US,
+                    "%s timed out at %s.", this.operationDescription, ZonedDateTime.now())));
+        }
+    }
+
+    private void cancelTimeout() {
+
+        if (this.timeoutTask != null) {
+            this.timeoutTask.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Schedules one-shot timeouts for client operations - like link open/close, send acknowledgements and session open.
+ * Most of these timeouts are cancelled long before they fire, so implementations should make both scheduling and cancelling cheap.
+ */
+public interface TimeoutScheduler
+{
+	/**
+	 * Runs the task once, after the given delay - unless the returned handle is cancelled first.
+	 * @param task the task to run when the timeout expires
+	 * @param delay the time after which the task runs
+	 * @return handle which can be used to cancel the timeout
+	 */
+	ScheduledFuture<?> schedule(Runnable task, Duration delay);
+}
@@ -14,16 +14,28 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * An abstraction for a Scheduler functionality - which can later be replaced by a light-weight Thread
+ * An abstraction for a Scheduler functionality.
+ * One-shot timeouts go to a {@link HashedWheelTimer} - configured via {@link TimerSettings} - and repeating tasks,
+ * or all tasks if the timer wheel is turned off, go to a ScheduledThreadPoolExecutor.
  */
 final class Timer
 {
 	private static ScheduledThreadPoolExecutor executor = null;
+	private static volatile HashedWheelTimer timerWheel = null;
 
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
 	private static final HashSet<String> references = new HashSet<String>();
 	private static final Object syncReferences = new Object();
 
+	private static final TimeoutScheduler ONE_TIME_SCHEDULER = new TimeoutScheduler()
+	{
+		@Override
+		public ScheduledFuture<?> schedule(final Runnable task, final Duration delay)
+		{
+			return Timer.schedule(task, delay, TimerType.OneTimeRun);
+		}
+	};
+
 	private Timer() 
 	{
 	}
@@ -36,6 +48,12 @@ final class Timer
 		switch (timerType)
 		{
 		case OneTimeRun:
+			final HashedWheelTimer wheel = timerWheel;
+			if (wheel != null)
+			{
+				return wheel.schedule(runnable, runFrequency);
+			}
+
 			return executor.schedule(runnable, runFrequency.toMillis(), TimeUnit.MILLISECONDS);
 
 		case RepeatRun:
@@ -46,6 +64,14 @@ final class Timer
 		}
 	}
 
+	/**
+	 * @return scheduler for one-shot timeouts, to be handed to code outside this package
+	 */
+	static TimeoutScheduler getTimeoutScheduler()
+	{
+		return ONE_TIME_SCHEDULER;
+	}
+
 	static void register(final String clientId)
 	{
 		synchronized (syncReferences)
@@ -60,6 +86,18 @@ final class Timer
 				}
 
 				executor = new ScheduledThreadPoolExecutor(corePoolSize);
+
+				final Duration tickDuration = TimerSettings.getTimerWheelTickDuration();
+				if (tickDuration != null)
+				{
+					if (TRACE_LOGGER.isLoggable(Level.FINE))
+					{
+						TRACE_LOGGER.log(Level.FINE, 
+								String.format(Locale.US, "Starting HashedWheelTimer with tickDuration: %s, ticksPerWheel: %s", tickDuration, TimerSettings.getTimerWheelSize()));
+					}
+
+					timerWheel = new HashedWheelTimer(tickDuration, TimerSettings.getTimerWheelSize(), executor);
+				}
 			}
 
 			references.add(clientId);
@@ -77,6 +115,12 @@ final class Timer
 					TRACE_LOGGER.log(Level.FINE, "Shuting down ScheduledThreadPoolExecutor.");
 				}
 
+				if (timerWheel != null)
+				{
+					timerWheel.stop();
+					timerWheel = null;
+				}
+
 				executor.shutdownNow();
 			}
 		}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+
+/**
+ * Process-wide settings for the timer which drives operation timeouts of all clients.
+ * <p>
+ * By default one-shot timeouts are kept in a {@link HashedWheelTimer} with a tick of {@link ClientConstants#DEFAULT_TIMER_WHEEL_TICK}.
+ * Setting the tick duration to null falls back to a {@link java.util.concurrent.ScheduledThreadPoolExecutor} for all timeouts.
+ * Changes take effect the next time the timer is started - i.e., when the first client is created after all previous clients were closed.
+ */
+public final class TimerSettings
+{
+	private static volatile Duration timerWheelTickDuration = ClientConstants.DEFAULT_TIMER_WHEEL_TICK;
+	private static volatile int timerWheelSize = ClientConstants.DEFAULT_TIMER_WHEEL_SIZE;
+
+	private TimerSettings()
+	{
+	}
+
+	public static Duration getTimerWheelTickDuration()
+	{
+		return TimerSettings.timerWheelTickDuration;
+	}
+
+	/**
+	 * Sets the resolution of operation timeouts. Coarser ticks make the timer cheaper, at the cost of timeouts firing up to a tick late.
+	 * @param tickDuration tick of the timer wheel, at least 1 millisecond - or null to use the ScheduledThreadPoolExecutor instead
+	 */
+	public static void setTimerWheelTickDuration(final Duration tickDuration)
+	{
+		if (tickDuration != null && tickDuration.toMillis() < 1)
+			throw new IllegalArgumentException("tickDuration should be at least 1 millisecond.");
+
+		TimerSettings.timerWheelTickDuration = tickDuration;
+	}
+
+	public static int getTimerWheelSize()
+	{
+		return TimerSettings.timerWheelSize;
+	}
+
+	/**
+	 * @param ticksPerWheel number of buckets in the timer wheel - rounded up to a power of two
+	 */
+	public static void setTimerWheelSize(final int ticksPerWheel)
+	{
+		if (ticksPerWheel <= 0)
+			throw new IllegalArgumentException("ticksPerWheel should be greater than 0.");
+
+		TimerSettings.timerWheelSize = ticksPerWheel;
+	}
+}
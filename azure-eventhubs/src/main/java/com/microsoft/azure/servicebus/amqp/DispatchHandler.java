@@ -1,10 +1,19 @@
 package com.microsoft.azure.servicebus.amqp;
 
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
 import org.apache.qpid.proton.engine.BaseHandler;
 import org.apache.qpid.proton.engine.Event;
 
 public abstract class DispatchHandler extends BaseHandler
 {
+	static final AtomicLongFieldUpdater<DispatchHandler> LAST_QUEUED_SEQUENCE_UPDATER = AtomicLongFieldUpdater.newUpdater(DispatchHandler.class, "lastQueuedSequence");
+
+	// ReactorDispatcher sequence numbers of the latest invoke and the latest run of this handler - a handler queued
+	// again before it ran needs to run only once, as that run sees the state of all the invokes before it
+	volatile long lastQueuedSequence;
+	long lastRunSequence;
+
 	@Override public void onTimerTask(Event e)
 	{
 		this.onEvent();
@@ -8,6 +8,8 @@ import java.io.IOException;
 import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.reactor.Reactor;
 
+import com.microsoft.azure.servicebus.metrics.ReactorMetrics;
+
 public final class ProtonUtil {
     
 	private ProtonUtil() {
@@ -15,8 +17,18 @@ public final class ProtonUtil {
 
 	public static Reactor reactor(ReactorHandler reactorHandler) throws IOException {
 
+            return reactor(reactorHandler, null);
+	}
+
+	/**
+	 * @param metrics records the time the handler of each event runs for - null to record nothing
+	 */
+	public static Reactor reactor(ReactorHandler reactorHandler, ReactorMetrics metrics) throws IOException {
+
             final Reactor reactor = Proton.reactor(reactorHandler);
-            reactor.setGlobalHandler(new CustomIOHandler());
+            reactor.setGlobalHandler(metrics != null
+                    ? new TimingGlobalHandler(reactor, new CustomIOHandler(), metrics)
+                    : new CustomIOHandler());
             return reactor;
 	}
 }
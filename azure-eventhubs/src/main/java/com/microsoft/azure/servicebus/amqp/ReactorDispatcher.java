@@ -9,7 +9,10 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.Pipe;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.qpid.proton.engine.BaseHandler;
 import org.apache.qpid.proton.engine.Event;
@@ -18,6 +21,8 @@ import org.apache.qpid.proton.reactor.Reactor;
 import org.apache.qpid.proton.reactor.Selectable;
 import org.apache.qpid.proton.reactor.Selectable.Callback;
 
+import com.microsoft.azure.servicebus.metrics.ReactorMetrics;
+
 /**
  * {@link Reactor} is not thread-safe - all calls to {@link Proton} API's should be - on the Reactor Thread.
  * {@link Reactor} works out-of-box for all event driven API - ex: onReceive - which could raise upon onSocketRead.
@@ -26,20 +31,58 @@ import org.apache.qpid.proton.reactor.Selectable.Callback;
  * It uses a {@link Pipe} as the IO on which Reactor Listens to.
  * Cardinality: multiple {@link ReactorDispatcher}'s could be attached to 1 {@link Reactor}.
  * Each {@link ReactorDispatcher} should be initialized Synchronously - as it calls API in {@link Reactor} which is not thread-safe. 
+ * The {@link Pipe} is signalled only when the dispatcher goes from idle to having pending work - all work queued
+ * until the Reactor wakes up is run, in the order it was queued, on that one wakeup.
  */
 public final class ReactorDispatcher
 {
+	// shared by all dispatchers - as a handler can be queued on more than one dispatcher
+	private static final AtomicLong WORK_SEQUENCE = new AtomicLong();
+	private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
 	private final Reactor reactor;
 	private final Pipe ioSignal;
 	private final ConcurrentLinkedQueue<BaseHandler> workQueue;
 	private final ScheduleHandler workScheduler;
+	private final AtomicBoolean wakeupPending;
+	private final AtomicInteger queueDepth;
+	private final AtomicLong wakeupCount;
+	private final AtomicLong dispatchCount;
+	private final ReactorMetrics metrics;
+
+	// written by whichever thread wins wakeupPending - and by the Reactor thread re-signalling after a failed handler
+	private final ByteBuffer ioSignalWriteBuffer;
+
+	// accessed only on the Reactor thread
+	private final ByteBuffer ioSignalReadBuffer;
+	private long rateWindowStart;
+	private long rateWindowWakeups;
+
+	private volatile double wakeupsPerSecond;
+	private volatile long wakeupsPerSecondComputedAt;
 
 	public ReactorDispatcher(final Reactor reactor) throws IOException
+	{
+		this(reactor, null);
+	}
+
+	/**
+	 * @param metrics records the queue depth on each wakeup and the time each handler runs for - null to record nothing
+	 */
+	public ReactorDispatcher(final Reactor reactor, final ReactorMetrics metrics) throws IOException
 	{
 		this.reactor = reactor;
+		this.metrics = metrics;
 		this.ioSignal = Pipe.open();
 		this.workQueue = new ConcurrentLinkedQueue<>();
 		this.workScheduler = new ScheduleHandler();
+		this.wakeupPending = new AtomicBoolean();
+		this.queueDepth = new AtomicInteger();
+		this.wakeupCount = new AtomicLong();
+		this.dispatchCount = new AtomicLong();
+		this.ioSignalWriteBuffer = ByteBuffer.allocate(1);
+		this.ioSignalReadBuffer = ByteBuffer.allocate(1024);
+		this.rateWindowStart = System.nanoTime();
 		
 		initializeSelectable();
 	}
@@ -58,25 +101,168 @@ public final class ReactorDispatcher
 
 	public void invoke(final DispatchHandler timerCallback) throws IOException
 	{
-		this.workQueue.offer(timerCallback);
-		this.signalWorkQueue();
+		this.enqueue(timerCallback);
 	}
 	
 	public void invoke(final int delay, final DispatchHandler timerCallback) throws IOException
 	{
-		this.workQueue.offer(new DelayHandler(this.reactor, delay, timerCallback));
-		this.signalWorkQueue();
+		this.enqueue(new DelayHandler(this.reactor, delay, timerCallback));
+	}
+
+	/**
+	 * @return number of handlers queued, which are yet to be run on the Reactor thread
+	 */
+	public int getQueueDepth()
+	{
+		return this.queueDepth.get();
+	}
+
+	/**
+	 * @return number of times the Reactor was woken up by this dispatcher, since it was created
+	 */
+	public long getWakeupCount()
+	{
+		return this.wakeupCount.get();
+	}
+
+	/**
+	 * @return number of handlers run on the Reactor thread by this dispatcher, since it was created
+	 */
+	public long getDispatchCount()
+	{
+		return this.dispatchCount.get();
+	}
+
+	/**
+	 * @return wakeups of the Reactor by this dispatcher per second - measured over the last completed one second window
+	 */
+	public double getWakeupsPerSecond()
+	{
+		// the rate is computed on wakeups - a dispatcher which went idle for the whole of the last window had none
+		return System.nanoTime() - this.wakeupsPerSecondComputedAt > 2 * RATE_WINDOW_NANOS ? 0 : this.wakeupsPerSecond;
+	}
+
+	private void enqueue(final BaseHandler work) throws IOException
+	{
+		if (work instanceof DispatchHandler)
+		{
+			final DispatchHandler dispatchHandler = (DispatchHandler) work;
+			final long sequence = WORK_SEQUENCE.incrementAndGet();
+			long lastQueuedSequence;
+			do
+			{
+				lastQueuedSequence = dispatchHandler.lastQueuedSequence;
+			}
+			while (lastQueuedSequence < sequence && !DispatchHandler.LAST_QUEUED_SEQUENCE_UPDATER.compareAndSet(dispatchHandler, lastQueuedSequence, sequence));
+		}
+
+		// queue before counting and signalling - so that the wakeup which resets wakeupPending finds the work in the queue
+		this.workQueue.offer(work);
+		this.queueDepth.incrementAndGet();
+
+		// only the caller which finds the dispatcher idle signals the Reactor - the rest ride on the same wakeup
+		if (this.wakeupPending.compareAndSet(false, true))
+		{
+			this.signalWorkQueue();
+		}
 	}
 	
 	private void signalWorkQueue() throws IOException
 	{
 		try
 		{
-			this.ioSignal.sink().write(ByteBuffer.allocate(1));
+			synchronized (this.ioSignalWriteBuffer)
+			{
+				this.ioSignalWriteBuffer.clear();
+				this.ioSignal.sink().write(this.ioSignalWriteBuffer);
+			}
 		}
 		catch(ClosedChannelException ignorePipeClosedDuringReactorShutdown)
 		{
-                }
+		}
+		catch(IOException ioException)
+		{
+			// no wakeup is on its way - let the next invoke signal again, instead of queuing work which never runs
+			this.wakeupPending.set(false);
+			throw ioException;
+		}
+	}
+
+	// runs all queued work in order - wakeupPending is reset first, so work queued while draining either is run now or signals the Pipe again
+	private void drainWorkQueue()
+	{
+		this.wakeupPending.set(false);
+		if (this.metrics != null)
+		{
+			this.metrics.recordQueueDepth(this.queueDepth.get());
+		}
+
+		BaseHandler work;
+		while ((work = this.workQueue.poll()) != null)
+		{
+			this.queueDepth.decrementAndGet();
+			if (work instanceof DispatchHandler)
+			{
+				// a handler queued multiple times - ex: the sender's send work - needs to run only once for all invokes before its last run
+				final DispatchHandler dispatchHandler = (DispatchHandler) work;
+				if (dispatchHandler.lastQueuedSequence < dispatchHandler.lastRunSequence)
+					continue;
+
+				dispatchHandler.lastRunSequence = WORK_SEQUENCE.incrementAndGet();
+			}
+
+			this.dispatchCount.incrementAndGet();
+			try
+			{
+				if (this.metrics == null)
+				{
+					work.onTimerTask(null);
+				}
+				else
+				{
+					final long startNanos = System.nanoTime();
+					work.onTimerTask(null);
+					this.metrics.recordHandlerTime(work.getClass(), System.nanoTime() - startNanos);
+				}
+			}
+			catch (RuntimeException failure)
+			{
+				// the Reactor skips the failed wakeup - work behind the failed handler needs a wakeup of its own
+				this.resignalIfWorkPending();
+				throw failure;
+			}
+		}
+	}
+
+	private void resignalIfWorkPending()
+	{
+		if (!this.workQueue.isEmpty() && this.wakeupPending.compareAndSet(false, true))
+		{
+			try
+			{
+				this.signalWorkQueue();
+			}
+			catch (IOException ignore)
+			{
+				// the pipe is broken - the Reactor is going down and drains the queue when the selectable is freed
+			}
+		}
+	}
+
+	private void recordWakeup()
+	{
+		this.wakeupCount.incrementAndGet();
+		this.rateWindowWakeups++;
+
+		final long now = System.nanoTime();
+		final long elapsed = now - this.rateWindowStart;
+		if (elapsed >= RATE_WINDOW_NANOS)
+		{
+			this.wakeupsPerSecond = this.rateWindowWakeups * (double) RATE_WINDOW_NANOS / elapsed;
+			this.wakeupsPerSecondComputedAt = now;
+			this.rateWindowStart = now;
+			this.rateWindowWakeups = 0;
+		}
 	}
 	
 	private final class DelayHandler extends BaseHandler
@@ -106,7 +292,8 @@ public final class ReactorDispatcher
 		{
 			try
 			{
-				ioSignal.source().read(ByteBuffer.allocate(1024));
+				ioSignalReadBuffer.clear();
+				ioSignal.source().read(ioSignalReadBuffer);
 			}
 			catch(ClosedChannelException ignorePipeClosedDuringReactorShutdown)
 			{
@@ -116,19 +303,8 @@ public final class ReactorDispatcher
 				throw new RuntimeException(ioException);
 			}
 			
-			final HashSet<BaseHandler> completedWork = new HashSet<BaseHandler>();
-			
-			BaseHandler topWork = workQueue.poll(); 
-			while (topWork != null)
-			{
-				if (!completedWork.contains(topWork))
-				{
-					topWork.onTimerTask(null);
-					completedWork.add(topWork);
-				}
-				
-				topWork = workQueue.poll();
-			}
+			recordWakeup();
+			drainWorkQueue();
 		}
 	}
 	
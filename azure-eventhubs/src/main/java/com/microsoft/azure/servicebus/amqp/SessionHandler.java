@@ -5,8 +5,10 @@
 package com.microsoft.azure.servicebus.amqp;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.function.Consumer;
@@ -23,6 +25,7 @@ import org.apache.qpid.proton.engine.Transport;
 import org.apache.qpid.proton.reactor.Reactor;
 
 import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.TimeoutScheduler;
 
 public class SessionHandler extends BaseHandler
 {
@@ -31,15 +34,18 @@ public class SessionHandler extends BaseHandler
 	private final String entityName;
         private final Consumer<Session> onRemoteSessionOpen;
         private final Consumer<ErrorCondition> onRemoteSessionOpenError;
+        private final TimeoutScheduler timeoutScheduler;
         
+        private ScheduledFuture<?> sessionOpenTimeout;
         private boolean sessionCreated = false;
         private boolean sessionOpenErrorDispatched = false;
         
-	public SessionHandler(final String entityName, final Consumer<Session> onRemoteSessionOpen, final Consumer<ErrorCondition> onRemoteSessionOpenError)
+	public SessionHandler(final String entityName, final Consumer<Session> onRemoteSessionOpen, final Consumer<ErrorCondition> onRemoteSessionOpenError, final TimeoutScheduler timeoutScheduler)
 	{
 		this.entityName = entityName;
                 this.onRemoteSessionOpenError = onRemoteSessionOpenError;
                 this.onRemoteSessionOpen = onRemoteSessionOpen;
+                this.timeoutScheduler = timeoutScheduler;
 	}
         
         @Override
@@ -61,20 +67,29 @@ public class SessionHandler extends BaseHandler
                 final ReactorDispatcher reactorDispatcher = reactorHandler.getReactorDispatcher();
                 final Session session = e.getSession();
 
-                try {
-                    
-                    reactorDispatcher.invoke(ClientConstants.SESSION_OPEN_TIMEOUT_IN_MS, new SessionTimeoutHandler(session));
-                } catch (IOException ignore) {
-                    
-                    if(TRACE_LOGGER.isLoggable(Level.SEVERE)) {
-                            TRACE_LOGGER.log(Level.SEVERE, String.format(Locale.US, "entityName[%s], reactorDispatcherError[%s]", this.entityName, ignore.getMessage()));
-                    }
-                    
-                    session.close();
-                    onRemoteSessionOpenError.accept(new ErrorCondition(
-                            Symbol.getSymbol("amqp:reactorDispatcher:faulted"),
-                            String.format("underlying IO of reactorDispatcher faulted with error: %s", ignore.getMessage())));
-                }
+                // the timeout is tracked on the shared timer - and only hops on to the reactor thread if it fires,
+                // which keeps the reactor's own timer heap free of timeouts which are almost always cancelled
+                this.sessionOpenTimeout = this.timeoutScheduler.schedule(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    
+                                    reactorDispatcher.invoke(new SessionTimeoutHandler(session));
+                                } catch (IOException ignore) {
+                                    
+                                    if(TRACE_LOGGER.isLoggable(Level.SEVERE)) {
+                                            TRACE_LOGGER.log(Level.SEVERE, String.format(Locale.US, "entityName[%s], reactorDispatcherError[%s]", entityName, ignore.getMessage()));
+                                    }
+                                    
+                                    session.close();
+                                    onRemoteSessionOpenError.accept(new ErrorCondition(
+                                            Symbol.getSymbol("amqp:reactorDispatcher:faulted"),
+                                            String.format("underlying IO of reactorDispatcher faulted with error: %s", ignore.getMessage())));
+                                }
+                            }
+                        },
+                        Duration.ofMillis(ClientConstants.SESSION_OPEN_TIMEOUT_IN_MS));
             }
         }
 
@@ -94,6 +109,7 @@ public class SessionHandler extends BaseHandler
 		}
                 
                 sessionCreated = true;
+                this.cancelSessionOpenTimeout();
                 if (this.onRemoteSessionOpen != null)
                         this.onRemoteSessionOpen.accept(session);
 	}
@@ -125,6 +141,7 @@ public class SessionHandler extends BaseHandler
 		}
                 
                 this.sessionOpenErrorDispatched = true;
+                this.cancelSessionOpenTimeout();
                 if (!sessionCreated && this.onRemoteSessionOpenError != null)
                         this.onRemoteSessionOpenError.accept(session.getRemoteCondition());
 	}
@@ -138,6 +155,12 @@ public class SessionHandler extends BaseHandler
 		}
 	}
         
+        private void cancelSessionOpenTimeout()
+        {
+                if (this.sessionOpenTimeout != null)
+                        this.sessionOpenTimeout.cancel(false);
+        }
+        
         private class SessionTimeoutHandler extends DispatchHandler {
             
             private final Session session;
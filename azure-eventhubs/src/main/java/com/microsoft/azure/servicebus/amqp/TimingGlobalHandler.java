@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.amqp;
+
+import org.apache.qpid.proton.engine.BaseHandler;
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.Handler;
+import org.apache.qpid.proton.reactor.Reactor;
+
+import com.microsoft.azure.servicebus.metrics.ReactorMetrics;
+
+/**
+ * Times the handler of every event the {@link Reactor} dispatches - connection, session and link handlers, and scheduled tasks.
+ * <p>
+ * The Reactor runs the global handler right after the handler of each event, so the time from the end of the previous event's
+ * global handler to the start of this one is the time this event's handler held the thread. The global handler itself is not
+ * timed: it is where the Reactor waits on its sockets - and runs the work of {@link ReactorDispatcher}, which times it.
+ */
+final class TimingGlobalHandler extends BaseHandler
+{
+	private final Reactor reactor;
+	private final Handler globalHandler;
+	private final ReactorMetrics metrics;
+
+	// accessed only on the Reactor thread
+	private long lastEventEndNanos;
+
+	TimingGlobalHandler(final Reactor reactor, final Handler globalHandler, final ReactorMetrics metrics)
+	{
+		this.reactor = reactor;
+		this.globalHandler = globalHandler;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void handle(final Event event)
+	{
+		if (this.lastEventEndNanos != 0)
+		{
+			this.metrics.recordHandlerTime(this.handlerOf(event).getClass(), System.nanoTime() - this.lastEventEndNanos);
+		}
+
+		event.dispatch(this.globalHandler);
+		this.lastEventEndNanos = System.nanoTime();
+	}
+
+	// the handler the Reactor dispatched the event to - the same lookup the Reactor makes
+	private Handler handlerOf(final Event event)
+	{
+		Handler handler = null;
+		if (event.getLink() != null)
+		{
+			handler = BaseHandler.getHandler(event.getLink());
+		}
+		else if (event.getSession() != null)
+		{
+			handler = BaseHandler.getHandler(event.getSession());
+		}
+		else if (event.getConnection() != null)
+		{
+			handler = BaseHandler.getHandler(event.getConnection());
+		}
+		else if (event.getTask() != null)
+		{
+			handler = BaseHandler.getHandler(event.getTask());
+		}
+		else if (event.getSelectable() != null)
+		{
+			handler = BaseHandler.getHandler(event.getSelectable());
+		}
+
+		return handler != null ? handler : this.reactor.getHandler();
+	}
+}
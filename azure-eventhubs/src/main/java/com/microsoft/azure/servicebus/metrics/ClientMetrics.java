@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.metrics;
+
+/**
+ * Where a client reports what its links and Reactors are doing - so that a drop in throughput can be traced to a cause:
+ * links out of credit, sends retried or throttled with {@link com.microsoft.azure.servicebus.ServerBusyException}, events waiting
+ * in the prefetch queue, or a Reactor thread too busy to keep up.
+ * <p>
+ * Every sender and receiver link, and every Reactor, asks for a recorder of its own when it is created, and reports to it for its lifetime.
+ * Recorders are called on the Reactor thread - except {@link SenderMetrics#recordSend(long, boolean)}, which is called on the thread
+ * completing the send - so they must be cheap and must not block. Implementations must be thread-safe.
+ * <p>
+ * {@link NoOpClientMetrics} - the default - records nothing, and links and Reactors do not even read the clock for it.
+ * {@link InMemoryClientMetrics} keeps counters and {@link LatencyHistogram}'s which can be read at any time.
+ */
+public interface ClientMetrics
+{
+	/**
+	 * @param entityPath the path the link sends to - for ex: {@code myhub/Partitions/0}
+	 * @return the recorder for one sender link
+	 */
+	SenderMetrics createSenderMetrics(String entityPath);
+
+	/**
+	 * @param entityPath the path the link receives from - for ex: {@code myhub/ConsumerGroups/$default/Partitions/0}
+	 * @return the recorder for one receiver link
+	 */
+	ReceiverMetrics createReceiverMetrics(String entityPath);
+
+	/**
+	 * @param reactorName the name of the Reactor's thread
+	 * @return the recorder for one Reactor - shared by the connections of all clients on it
+	 */
+	ReactorMetrics createReactorMetrics(String reactorName);
+}
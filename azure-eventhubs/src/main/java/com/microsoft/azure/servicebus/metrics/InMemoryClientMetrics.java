@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the metrics of a client in memory - to be read, at any time, by the application: for ex: logged periodically, or exported
+ * to a monitoring system.
+ * <p>
+ * Metrics are kept per entity path - links re-created after an error, or several links to the same path, add up in the same
+ * {@link Sender} or {@link Receiver} - and per Reactor. Counts and histograms are cumulative since the metrics were created.
+ * A client's metrics can be shared by other clients, which adds theirs in.
+ */
+public final class InMemoryClientMetrics implements ClientMetrics
+{
+	private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final ConcurrentMap<String, Sender> senders;
+	private final ConcurrentMap<String, Receiver> receivers;
+	private final ConcurrentMap<String, Reactor> reactors;
+
+	public InMemoryClientMetrics()
+	{
+		this.senders = new ConcurrentHashMap<String, Sender>();
+		this.receivers = new ConcurrentHashMap<String, Receiver>();
+		this.reactors = new ConcurrentHashMap<String, Reactor>();
+	}
+
+	@Override
+	public Sender createSenderMetrics(final String entityPath)
+	{
+		final Sender sender = new Sender();
+		final Sender existing = this.senders.putIfAbsent(entityPath, sender);
+		return existing != null ? existing : sender;
+	}
+
+	@Override
+	public Receiver createReceiverMetrics(final String entityPath)
+	{
+		final Receiver receiver = new Receiver();
+		final Receiver existing = this.receivers.putIfAbsent(entityPath, receiver);
+		return existing != null ? existing : receiver;
+	}
+
+	@Override
+	public Reactor createReactorMetrics(final String reactorName)
+	{
+		final Reactor reactor = new Reactor();
+		final Reactor existing = this.reactors.putIfAbsent(reactorName, reactor);
+		return existing != null ? existing : reactor;
+	}
+
+	/**
+	 * @return the metrics of the senders, by entity path
+	 */
+	public Map<String, Sender> getSenders()
+	{
+		return Collections.unmodifiableMap(this.senders);
+	}
+
+	/**
+	 * @return the metrics of the receivers, by entity path
+	 */
+	public Map<String, Receiver> getReceivers()
+	{
+		return Collections.unmodifiableMap(this.receivers);
+	}
+
+	/**
+	 * @return the metrics of the Reactors, by thread name
+	 */
+	public Map<String, Reactor> getReactors()
+	{
+		return Collections.unmodifiableMap(this.reactors);
+	}
+
+	private static void recordMax(final AtomicInteger max, final int value)
+	{
+		int current;
+		while (value > (current = max.get()) && !max.compareAndSet(current, value))
+		{
+		}
+	}
+
+	public static final class Sender implements SenderMetrics
+	{
+		private final LatencyHistogram sendLatency = new LatencyHistogram();
+		private final AtomicLong failedSendCount = new AtomicLong();
+		private final AtomicLong retryCount = new AtomicLong();
+		private final AtomicLong serverBusyCount = new AtomicLong();
+		private final EventRate serverBusyRate = new EventRate();
+		private final AtomicInteger maxInFlight = new AtomicInteger();
+		private volatile int inFlight;
+		private volatile int credit;
+
+		private Sender()
+		{
+		}
+
+		@Override
+		public void recordSend(final long latencyNanos, final boolean isSuccess)
+		{
+			this.sendLatency.record(latencyNanos);
+			if (!isSuccess)
+			{
+				this.failedSendCount.incrementAndGet();
+			}
+		}
+
+		@Override
+		public void recordRetry()
+		{
+			this.retryCount.incrementAndGet();
+		}
+
+		@Override
+		public void recordServerBusy()
+		{
+			this.serverBusyCount.incrementAndGet();
+			this.serverBusyRate.record();
+		}
+
+		@Override
+		public void recordInFlight(final int deliveries)
+		{
+			this.inFlight = deliveries;
+			recordMax(this.maxInFlight, deliveries);
+		}
+
+		@Override
+		public void recordCredit(final int credit)
+		{
+			this.credit = credit;
+		}
+
+		/**
+		 * @return latency of the completed sends - successful or not
+		 */
+		public LatencyHistogram getSendLatency()
+		{
+			return this.sendLatency;
+		}
+
+		public long getSendCount()
+		{
+			return this.sendLatency.getCount();
+		}
+
+		public long getFailedSendCount()
+		{
+			return this.failedSendCount.get();
+		}
+
+		public long getRetryCount()
+		{
+			return this.retryCount.get();
+		}
+
+		public long getServerBusyCount()
+		{
+			return this.serverBusyCount.get();
+		}
+
+		/**
+		 * @return ServerBusy errors per second - measured over the last completed window of a second or more
+		 */
+		public double getServerBusyPerSecond()
+		{
+			return this.serverBusyRate.getPerSecond();
+		}
+
+		/**
+		 * @return messages sent and yet to be accepted - when last recorded
+		 */
+		public int getInFlight()
+		{
+			return this.inFlight;
+		}
+
+		public int getMaxInFlight()
+		{
+			return this.maxInFlight.get();
+		}
+
+		/**
+		 * @return link credit - when last recorded. A sender which keeps running out of credit is throttled by the service
+		 */
+		public int getCredit()
+		{
+			return this.credit;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("sendLatency[%s], failedSends[%s], retries[%s], serverBusy[%s], inFlight[%s], maxInFlight[%s], credit[%s]",
+					this.sendLatency, this.getFailedSendCount(), this.getRetryCount(), this.getServerBusyCount(), this.inFlight, this.getMaxInFlight(), this.credit);
+		}
+	}
+
+	public static final class Receiver implements ReceiverMetrics
+	{
+		private final LatencyHistogram receiveToHandlerLatency = new LatencyHistogram();
+		private final AtomicLong retryCount = new AtomicLong();
+		private final AtomicInteger maxPrefetchDepth = new AtomicInteger();
+		private volatile int prefetchDepth;
+		private volatile int credit;
+
+		private Receiver()
+		{
+		}
+
+		@Override
+		public void recordPrefetchDepth(final int messages)
+		{
+			this.prefetchDepth = messages;
+			recordMax(this.maxPrefetchDepth, messages);
+		}
+
+		@Override
+		public void recordReceiveToHandlerLatency(final long latencyNanos)
+		{
+			this.receiveToHandlerLatency.record(latencyNanos);
+		}
+
+		@Override
+		public void recordRetry()
+		{
+			this.retryCount.incrementAndGet();
+		}
+
+		@Override
+		public void recordCredit(final int credit)
+		{
+			this.credit = credit;
+		}
+
+		/**
+		 * @return time each received message waited in the prefetch queue - high when the application does not keep up
+		 */
+		public LatencyHistogram getReceiveToHandlerLatency()
+		{
+			return this.receiveToHandlerLatency;
+		}
+
+		public long getReceivedCount()
+		{
+			return this.receiveToHandlerLatency.getCount();
+		}
+
+		public long getRetryCount()
+		{
+			return this.retryCount.get();
+		}
+
+		/**
+		 * @return prefetched messages - when last recorded
+		 */
+		public int getPrefetchDepth()
+		{
+			return this.prefetchDepth;
+		}
+
+		public int getMaxPrefetchDepth()
+		{
+			return this.maxPrefetchDepth.get();
+		}
+
+		/**
+		 * @return link credit - when last recorded. A receiver with credit and nothing prefetched is waiting on the service
+		 */
+		public int getCredit()
+		{
+			return this.credit;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("receiveToHandlerLatency[%s], retries[%s], prefetchDepth[%s], maxPrefetchDepth[%s], credit[%s]",
+					this.receiveToHandlerLatency, this.getRetryCount(), this.prefetchDepth, this.getMaxPrefetchDepth(), this.credit);
+		}
+	}
+
+	public static final class Reactor implements ReactorMetrics
+	{
+		private final ConcurrentMap<Class<?>, LatencyHistogram> handlerTimes = new ConcurrentHashMap<Class<?>, LatencyHistogram>();
+		private final AtomicInteger maxQueueDepth = new AtomicInteger();
+		private volatile int queueDepth;
+
+		private Reactor()
+		{
+		}
+
+		@Override
+		public void recordQueueDepth(final int handlers)
+		{
+			this.queueDepth = handlers;
+			recordMax(this.maxQueueDepth, handlers);
+		}
+
+		@Override
+		public void recordHandlerTime(final Class<?> handlerType, final long durationNanos)
+		{
+			LatencyHistogram handlerTime = this.handlerTimes.get(handlerType);
+			if (handlerTime == null)
+			{
+				final LatencyHistogram newHandlerTime = new LatencyHistogram();
+				handlerTime = this.handlerTimes.putIfAbsent(handlerType, newHandlerTime);
+				if (handlerTime == null)
+				{
+					handlerTime = newHandlerTime;
+				}
+			}
+
+			handlerTime.record(durationNanos);
+		}
+
+		/**
+		 * @return time the Reactor thread spent in each type of handler - a handler with a high maximum delays every link on the Reactor
+		 */
+		public Map<Class<?>, LatencyHistogram> getHandlerTimes()
+		{
+			return Collections.unmodifiableMap(this.handlerTimes);
+		}
+
+		/**
+		 * @return handlers queued for the Reactor thread - when it last woke up to run them
+		 */
+		public int getQueueDepth()
+		{
+			return this.queueDepth;
+		}
+
+		public int getMaxQueueDepth()
+		{
+			return this.maxQueueDepth.get();
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("queueDepth[%s], maxQueueDepth[%s], handlerTypes[%s]", this.queueDepth, this.getMaxQueueDepth(), this.handlerTimes.size());
+		}
+	}
+
+	// events per second, over the last completed window - a window closes on the first event or read after a second
+	private static final class EventRate
+	{
+		private long windowStart = System.nanoTime();
+		private long windowEvents;
+		private double perSecond;
+
+		synchronized void record()
+		{
+			this.roll(System.nanoTime());
+			this.windowEvents++;
+		}
+
+		synchronized double getPerSecond()
+		{
+			this.roll(System.nanoTime());
+			return this.perSecond;
+		}
+
+		private void roll(final long now)
+		{
+			final long elapsed = now - this.windowStart;
+			if (elapsed >= RATE_WINDOW_NANOS)
+			{
+				this.perSecond = this.windowEvents * (double) RATE_WINDOW_NANOS / elapsed;
+				this.windowStart = now;
+				this.windowEvents = 0;
+			}
+		}
+	}
+}
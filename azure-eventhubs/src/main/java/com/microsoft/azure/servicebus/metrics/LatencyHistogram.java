@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations, in nanoseconds, with a fixed footprint - safe to record into from any number of threads.
+ * <p>
+ * Values are counted in buckets whose width grows with the value: every power of 2 is split in {@value #SUB_BUCKET_COUNT} buckets,
+ * so a percentile is reported with an error of at most 1/{@value #SUB_BUCKET_COUNT} of its value. Readings are not a consistent
+ * snapshot: a value recorded while reading may be counted by some getters and not by others.
+ */
+public final class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	// values below 2 * SUB_BUCKET_COUNT have a bucket each - then SUB_BUCKET_COUNT buckets per power of 2, up to Long.MAX_VALUE
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong totalCount;
+	private final AtomicLong totalNanos;
+	private final AtomicLong maxNanos;
+
+	public LatencyHistogram()
+	{
+		this.counts = new AtomicLongArray(BUCKET_COUNT);
+		this.totalCount = new AtomicLong();
+		this.totalNanos = new AtomicLong();
+		this.maxNanos = new AtomicLong();
+	}
+
+	/**
+	 * @param durationNanos the duration to record - negative durations are recorded as 0
+	 */
+	public void record(final long durationNanos)
+	{
+		final long value = Math.max(0, durationNanos);
+		this.counts.incrementAndGet(bucketOf(value));
+		this.totalCount.incrementAndGet();
+		this.totalNanos.addAndGet(value);
+
+		long max;
+		while (value > (max = this.maxNanos.get()) && !this.maxNanos.compareAndSet(max, value))
+		{
+		}
+	}
+
+	/**
+	 * @return number of durations recorded
+	 */
+	public long getCount()
+	{
+		return this.totalCount.get();
+	}
+
+	public long getMaxNanos()
+	{
+		return this.maxNanos.get();
+	}
+
+	public long getMeanNanos()
+	{
+		final long count = this.totalCount.get();
+		return count == 0 ? 0 : this.totalNanos.get() / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100 - for ex: 99.9
+	 * @return the duration which this percentage of the recorded durations do not exceed - 0 if none were recorded
+	 */
+	public long getPercentileNanos(final double percentile)
+	{
+		if (percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("percentile should be between 0 and 100");
+		}
+
+		long total = 0;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+		{
+			total += this.counts.get(bucket);
+		}
+
+		if (total == 0)
+		{
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+		{
+			seen += this.counts.get(bucket);
+			if (seen >= rank)
+			{
+				return Math.min(upperBoundOf(bucket), this.maxNanos.get());
+			}
+		}
+
+		return this.maxNanos.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("count[%s], mean[%sus], p50[%sus], p99[%sus], max[%sus]",
+				this.getCount(),
+				TimeUnit.NANOSECONDS.toMicros(this.getMeanNanos()),
+				TimeUnit.NANOSECONDS.toMicros(this.getPercentileNanos(50)),
+				TimeUnit.NANOSECONDS.toMicros(this.getPercentileNanos(99)),
+				TimeUnit.NANOSECONDS.toMicros(this.getMaxNanos()));
+	}
+
+	static int bucketOf(final long value)
+	{
+		if (value < 2 * SUB_BUCKET_COUNT)
+		{
+			return (int) value;
+		}
+
+		// the highest bit set picks the power of 2 - the SUB_BUCKET_BITS bits below it pick the bucket within it
+		final int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int shift = highestBit - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+	}
+
+	static long upperBoundOf(final int bucket)
+	{
+		if (bucket < 2 * SUB_BUCKET_COUNT)
+		{
+			return bucket;
+		}
+
+		final int shift = bucket / SUB_BUCKET_COUNT - 1;
+		final long lowerBound = (long) (bucket % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
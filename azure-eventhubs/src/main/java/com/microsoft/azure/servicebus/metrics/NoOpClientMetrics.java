@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.metrics;
+
+/**
+ * Records nothing - the default. Links and Reactors of a client using it skip recording altogether - they do not read the clock for it.
+ */
+public final class NoOpClientMetrics implements ClientMetrics
+{
+	public static final NoOpClientMetrics INSTANCE = new NoOpClientMetrics();
+
+	private static final SenderMetrics SENDER = new SenderMetrics()
+	{
+		@Override
+		public void recordSend(long latencyNanos, boolean isSuccess)
+		{
+		}
+
+		@Override
+		public void recordRetry()
+		{
+		}
+
+		@Override
+		public void recordServerBusy()
+		{
+		}
+
+		@Override
+		public void recordInFlight(int deliveries)
+		{
+		}
+
+		@Override
+		public void recordCredit(int credit)
+		{
+		}
+	};
+
+	private static final ReceiverMetrics RECEIVER = new ReceiverMetrics()
+	{
+		@Override
+		public void recordPrefetchDepth(int messages)
+		{
+		}
+
+		@Override
+		public void recordReceiveToHandlerLatency(long latencyNanos)
+		{
+		}
+
+		@Override
+		public void recordRetry()
+		{
+		}
+
+		@Override
+		public void recordCredit(int credit)
+		{
+		}
+	};
+
+	private static final ReactorMetrics REACTOR = new ReactorMetrics()
+	{
+		@Override
+		public void recordQueueDepth(int handlers)
+		{
+		}
+
+		@Override
+		public void recordHandlerTime(Class<?> handlerType, long durationNanos)
+		{
+		}
+	};
+
+	private NoOpClientMetrics()
+	{
+	}
+
+	/**
+	 * @param metrics the metrics of a client - can be null
+	 * @return true if the metrics record anything
+	 */
+	public static boolean isEnabled(final ClientMetrics metrics)
+	{
+		return metrics != null && metrics != INSTANCE;
+	}
+
+	@Override
+	public SenderMetrics createSenderMetrics(final String entityPath)
+	{
+		return SENDER;
+	}
+
+	@Override
+	public ReceiverMetrics createReceiverMetrics(final String entityPath)
+	{
+		return RECEIVER;
+	}
+
+	@Override
+	public ReactorMetrics createReactorMetrics(final String reactorName)
+	{
+		return REACTOR;
+	}
+}
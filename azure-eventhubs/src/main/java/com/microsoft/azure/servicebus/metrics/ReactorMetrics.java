@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.metrics;
+
+/**
+ * Records what one Reactor thread does. See {@link ClientMetrics}.
+ */
+public interface ReactorMetrics
+{
+	/**
+	 * @param handlers work - sends, receives, flows, closes - queued for the Reactor thread, when it wakes up to run it
+	 */
+	void recordQueueDepth(int handlers);
+
+	/**
+	 * A handler ran on the Reactor thread: work queued for the Reactor, or the handler of a connection, session or link event.
+	 * @param handlerType the class of the handler - for ex: the send work of a sender, or the handler of a receive link
+	 * @param durationNanos time the handler held the Reactor thread
+	 */
+	void recordHandlerTime(Class<?> handlerType, long durationNanos);
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.metrics;
+
+/**
+ * Records what one receiver link does. See {@link ClientMetrics}.
+ */
+public interface ReceiverMetrics
+{
+	/**
+	 * @param messages messages received from the service, which are yet to be returned by a receive
+	 */
+	void recordPrefetchDepth(int messages);
+
+	/**
+	 * A prefetched message is returned by a receive - to the application, or to the handler of its receive pump.
+	 * @param latencyNanos time the message waited in the prefetch queue
+	 */
+	void recordReceiveToHandlerLatency(long latencyNanos);
+
+	/**
+	 * The link is re-created after an error.
+	 */
+	void recordRetry();
+
+	/**
+	 * @param credit messages the service can send before the link grants more credit
+	 */
+	void recordCredit(int credit);
+}
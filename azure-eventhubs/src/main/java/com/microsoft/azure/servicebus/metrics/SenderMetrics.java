@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.metrics;
+
+/**
+ * Records what one sender link does. See {@link ClientMetrics}.
+ */
+public interface SenderMetrics
+{
+	/**
+	 * A send completed.
+	 * @param latencyNanos from the call to send, to the service accepting the message - including the retries in between
+	 * @param isSuccess false if the send failed or timed out
+	 */
+	void recordSend(long latencyNanos, boolean isSuccess);
+
+	/**
+	 * A send - or the link, after an error - is retried.
+	 */
+	void recordRetry();
+
+	/**
+	 * The service rejected a send, or closed the link, with a {@link com.microsoft.azure.servicebus.ServerBusyException}.
+	 */
+	void recordServerBusy();
+
+	/**
+	 * @param deliveries messages sent on the link, which the service is yet to accept
+	 */
+	void recordInFlight(int deliveries);
+
+	/**
+	 * @param credit messages the link can send before the service grants more credit
+	 */
+	void recordCredit(int credit);
+}
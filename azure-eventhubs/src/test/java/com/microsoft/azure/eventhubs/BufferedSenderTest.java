@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+public class BufferedSenderTest
+{
+	@Test
+	public void eventsAreBatchedPerPartitionKeyAndSentAfterLingerTime() throws Exception
+	{
+		final RecordingTarget target = new RecordingTarget();
+		final BufferedSenderOptions options = new BufferedSenderOptions();
+		options.setLingerTime(Duration.ofMillis(50));
+		final BufferedSender sender = new BufferedSender(null, target, 256 * 1024, options);
+
+		final List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>();
+		for (int i = 0; i < 10; i++)
+		{
+			sends.add(sender.send(new EventData(new byte[10])));
+		}
+		for (int i = 0; i < 5; i++)
+		{
+			sends.add(sender.send(new EventData(new byte[10]), "key"));
+		}
+		Assert.assertTrue(sender.getBufferedBytes() > 0);
+
+		for (CompletableFuture<Void> send : sends)
+		{
+			send.get(5, TimeUnit.SECONDS);
+		}
+
+		Collections.sort(target.sent);
+		Assert.assertEquals("unexpected batches", "[key/5, null/10]", target.sent.toString());
+		Assert.assertEquals(0, sender.getBufferedBytes());
+	}
+
+	@Test
+	public void fullBatchIsSentWithoutWaitingForLingerTime() throws Exception
+	{
+		final RecordingTarget target = new RecordingTarget();
+		final BufferedSenderOptions options = new BufferedSenderOptions();
+		options.setLingerTime(Duration.ofHours(1));
+		final BufferedSender sender = new BufferedSender(null, target, 2048, options);
+
+		final CompletableFuture<Void> first = sender.send(new EventData(new byte[500]));
+		CompletableFuture<Void> last = null;
+		while (target.sent.isEmpty())
+		{
+			last = sender.send(new EventData(new byte[500]));
+		}
+
+		first.get(5, TimeUnit.SECONDS);
+		Assert.assertFalse("event of the next batch was sent", last.isDone());
+
+		sender.flush().get(5, TimeUnit.SECONDS);
+		Assert.assertTrue(last.isDone());
+		Assert.assertEquals(2, target.sent.size());
+	}
+
+	@Test
+	public void partitionBatchesWaitForSenderInOrder() throws Exception
+	{
+		final RecordingTarget target = new RecordingTarget();
+		target.partitionSenderCreated = new CompletableFuture<Void>();
+		final BufferedSender sender = new BufferedSender(null, target, 1024, null);
+
+		final List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>();
+		for (int i = 0; i < 20; i++)
+		{
+			sends.add(sender.sendToPartition(new EventData(new byte[100]), "3"));
+		}
+		sender.flush();
+		Assert.assertTrue("sent before the partition sender was open", target.sent.isEmpty());
+
+		target.partitionSenderCreated.complete(null);
+		for (CompletableFuture<Void> send : sends)
+		{
+			send.get(5, TimeUnit.SECONDS);
+		}
+
+		Assert.assertEquals(1, target.partitionSendersCreated.get());
+		int eventCount = 0;
+		for (String batch : target.sent)
+		{
+			Assert.assertTrue(batch.startsWith("3/"));
+			eventCount += Integer.parseInt(batch.substring(2));
+		}
+		Assert.assertEquals(20, eventCount);
+
+		sender.close().get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(1, target.partitionSendersClosed.get());
+	}
+
+	@Test
+	public void flushWaitsForBatchesOfPartitionWhoseSenderFailed() throws Exception
+	{
+		final RecordingTarget target = new RecordingTarget();
+		target.partitionSenderCreated = new CompletableFuture<Void>();
+		final BufferedSenderOptions options = new BufferedSenderOptions();
+		options.setLingerTime(Duration.ofHours(1));
+		final BufferedSender sender = new BufferedSender(null, target, 1024, options);
+
+		final List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>();
+		for (int i = 0; i < 5; i++)
+		{
+			sends.add(sender.sendToPartition(new EventData(new byte[100]), "3"));
+		}
+
+		target.partitionSenderCreated.completeExceptionally(new ServiceBusException(true, "sender failed"));
+		sender.flush().get(5, TimeUnit.SECONDS);
+		for (CompletableFuture<Void> send : sends)
+		{
+			Assert.assertTrue("flush returned before the event was done", send.isCompletedExceptionally());
+		}
+		Assert.assertEquals(0, sender.getBufferedBytes());
+
+		// the next event for the partition gets a new sender
+		target.partitionSenderCreated = CompletableFuture.completedFuture(null);
+		final CompletableFuture<Void> retried = sender.sendToPartition(new EventData(new byte[100]), "3");
+		sender.flush().get(5, TimeUnit.SECONDS);
+		retried.get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(2, target.partitionSendersCreated.get());
+	}
+
+	@Test
+	public void sendFailsWhenBufferIsFull() throws Exception
+	{
+		final RecordingTarget target = new RecordingTarget();
+		target.sendCompletion = new CompletableFuture<Void>();
+		final BufferedSenderOptions options = new BufferedSenderOptions();
+		options.setMaxBufferedBytes(1);
+		options.setBlockWhenBufferFull(false);
+		final BufferedSender sender = new BufferedSender(null, target, 256 * 1024, options);
+
+		final CompletableFuture<Void> buffered = sender.send(new EventData(new byte[10]));
+		try
+		{
+			sender.send(new EventData(new byte[10])).get(5, TimeUnit.SECONDS);
+			Assert.fail("send did not fail on a full buffer");
+		}
+		catch (ExecutionException exception)
+		{
+			Assert.assertTrue(exception.getCause() instanceof ServiceBusException);
+			Assert.assertTrue(((ServiceBusException) exception.getCause()).getIsTransient());
+		}
+
+		sender.flush();
+		target.sendCompletion.complete(null);
+		buffered.get(5, TimeUnit.SECONDS);
+		sender.send(new EventData(new byte[10]));
+	}
+
+	@Test
+	public void everyOpenBatchCountsWithItsWholeBuffer() throws Exception
+	{
+		final RecordingTarget target = new RecordingTarget();
+		final BufferedSenderOptions options = new BufferedSenderOptions();
+		options.setLingerTime(Duration.ofHours(1));
+		options.setMaxBufferedBytes(2 * 2048);
+		options.setBlockWhenBufferFull(false);
+		final BufferedSender sender = new BufferedSender(null, target, 2048, options);
+
+		sender.send(new EventData(new byte[10]), "first");
+		sender.send(new EventData(new byte[10]), "second");
+		Assert.assertEquals(2 * 2048, sender.getBufferedBytes());
+
+		try
+		{
+			sender.send(new EventData(new byte[10]), "third").get(5, TimeUnit.SECONDS);
+			Assert.fail("a third batch fit in a buffer of two");
+		}
+		catch (ExecutionException exception)
+		{
+			Assert.assertTrue(exception.getCause() instanceof ServiceBusException);
+		}
+
+		sender.flush().get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(0, sender.getBufferedBytes());
+	}
+
+	@Test
+	public void idlePartitionKeysAreForgotten() throws Exception
+	{
+		final RecordingTarget target = new RecordingTarget();
+		final BufferedSenderOptions options = new BufferedSenderOptions();
+		options.setLingerTime(Duration.ofMillis(10));
+		final BufferedSender sender = new BufferedSender(null, target, 2048, options);
+
+		final List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>();
+		for (int i = 0; i < 100; i++)
+		{
+			sends.add(sender.send(new EventData(new byte[10]), "key" + i));
+		}
+		sends.add(sender.send(new EventData(new byte[3000]), "tooLarge"));
+		for (int i = 0; i < 100; i++)
+		{
+			sends.get(i).get(5, TimeUnit.SECONDS);
+		}
+		Assert.assertTrue(sends.get(100).isCompletedExceptionally());
+
+		Assert.assertEquals(100, target.sent.size());
+
+		// the events complete with the send, the key is forgotten right after
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (sender.getAccumulatorCount() > 0 && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(0, sender.getAccumulatorCount());
+		Assert.assertEquals(0, sender.getBufferedBytes());
+
+		// a key seen again gets a new accumulator
+		sender.send(new EventData(new byte[10]), "key0").get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(101, target.sent.size());
+	}
+
+	private static final class RecordingTarget implements BufferedSender.ISendTarget
+	{
+		final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+		final AtomicInteger partitionSendersCreated = new AtomicInteger();
+		final AtomicInteger partitionSendersClosed = new AtomicInteger();
+		CompletableFuture<Void> sendCompletion = CompletableFuture.completedFuture(null);
+		CompletableFuture<Void> partitionSenderCreated = CompletableFuture.completedFuture(null);
+
+		@Override
+		public CompletableFuture<Void> send(final EventDataBatch batch)
+		{
+			this.sent.add(batch.getPartitionKey() + "/" + batch.getCount());
+			return this.sendCompletion;
+		}
+
+		@Override
+		public CompletableFuture<BufferedSender.IBatchSender> createPartitionSender(final String partitionId)
+		{
+			this.partitionSendersCreated.incrementAndGet();
+			return this.partitionSenderCreated.thenApply((v) -> new BufferedSender.IBatchSender()
+			{
+				@Override
+				public CompletableFuture<Void> send(EventDataBatch batch)
+				{
+					RecordingTarget.this.sent.add(partitionId + "/" + batch.getCount());
+					return RecordingTarget.this.sendCompletion;
+				}
+
+				@Override
+				public CompletableFuture<Void> close()
+				{
+					RecordingTarget.this.partitionSendersClosed.incrementAndGet();
+					return CompletableFuture.completedFuture(null);
+				}
+			});
+		}
+	}
+}
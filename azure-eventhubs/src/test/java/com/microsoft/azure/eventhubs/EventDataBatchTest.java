@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.util.Arrays;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.EncodeBufferPool;
+
+public class EventDataBatchTest
+{
+	@Test
+	public void batchEncodingMatchesProtonDataSections()
+	{
+		final EventDataBatch batch = new EventDataBatch(ClientConstants.MAX_MESSAGE_LENGTH_BYTES, "pk");
+		final EventData small = new EventData("small".getBytes());
+		final EventData large = new EventData(new byte[1000]);
+		large.getProperties().put("p", "v");
+
+		Assert.assertTrue(batch.tryAdd(small));
+		Assert.assertTrue(batch.tryAdd(large));
+		Assert.assertEquals(2, batch.getCount());
+
+		final byte[] expected = new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES];
+		final Message envelope = Proton.message();
+		final Message first = small.toAmqpMessage("pk");
+		envelope.setMessageAnnotations(first.getMessageAnnotations());
+		int expectedSize = envelope.encode(expected, 0, expected.length);
+		for (Message message : Arrays.asList(first, large.toAmqpMessage("pk")))
+		{
+			final byte[] messageBytes = new byte[4096];
+			final int messageSize = message.encode(messageBytes, 0, messageBytes.length);
+			final Message wrapper = Proton.message();
+			wrapper.setBody(new Data(new Binary(messageBytes, 0, messageSize)));
+			expectedSize += wrapper.encode(expected, expectedSize, expected.length - expectedSize);
+		}
+
+		Assert.assertEquals(expectedSize, batch.getSize());
+		final byte[] actual = batch.getEncodedBatchForSend();
+		Assert.assertArrayEquals(Arrays.copyOf(expected, expectedSize), Arrays.copyOf(actual, batch.getSize()));
+	}
+
+	@Test
+	public void tryAddStopsAtMaxSize()
+	{
+		final int maxSize = 8 * 1024;
+		final EventDataBatch batch = new EventDataBatch(maxSize, null);
+
+		int added = 0;
+		while (batch.tryAdd(new EventData(new byte[100])))
+		{
+			added++;
+		}
+
+		Assert.assertEquals(added, batch.getCount());
+		Assert.assertTrue(batch.getSize() <= maxSize);
+		Assert.assertTrue(maxSize - batch.getSize() < 200);
+		Assert.assertFalse(batch.tryAdd(new EventData(new byte[maxSize])));
+		Assert.assertEquals(added, batch.getCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void batchCannotBeModifiedAfterSend()
+	{
+		final EventDataBatch batch = new EventDataBatch(ClientConstants.MAX_MESSAGE_LENGTH_BYTES, null);
+		batch.tryAdd(new EventData(new byte[10]));
+		batch.getEncodedBatchForSend();
+		batch.tryAdd(new EventData(new byte[10]));
+	}
+
+	@Test
+	public void unsentBatchesReturnTheirBuffer()
+	{
+		final EncodeBufferPool pool = EncodeBufferPool.getDefault();
+		final int maxSize = 8 * 1024;
+
+		final EventDataBatch discarded = new EventDataBatch(maxSize, null);
+		Assert.assertTrue(discarded.tryAdd(new EventData(new byte[100])));
+		final int pooledBeforeDiscard = pool.getPooledBufferCount();
+		discarded.discard();
+		Assert.assertEquals(pooledBeforeDiscard + 1, pool.getPooledBufferCount());
+		Assert.assertEquals(0, discarded.getCount());
+		Assert.assertEquals(0, discarded.getSize());
+
+		// an event which does not fit in an empty batch leaves nothing in the buffer
+		final EventDataBatch oversized = new EventDataBatch(maxSize, null);
+		final long reusedBefore = pool.getReuseCount();
+		Assert.assertFalse(oversized.tryAdd(new EventData(new byte[maxSize])));
+		Assert.assertEquals(reusedBefore + 1, pool.getReuseCount());
+		Assert.assertEquals(pooledBeforeDiscard + 1, pool.getPooledBufferCount());
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionResolverTest
+{
+	@Test
+	public void hashMatchesLookup3ReferenceValues()
+	{
+		// from the self-test of Bob Jenkins' lookup3.c
+		Assert.assertArrayEquals(new int[] { 0xdeadbeef, 0xdeadbeef }, PartitionResolver.computeHash(new byte[0], 0, 0));
+		Assert.assertArrayEquals(new int[] { 0xbd5b7dde, 0xdeadbeef }, PartitionResolver.computeHash(new byte[0], 0, 0xdeadbeef));
+
+		final byte[] fourScore = "Four score and seven years ago".getBytes(StandardCharsets.UTF_8);
+		Assert.assertEquals(0x17770551, PartitionResolver.computeHash(fourScore, 0, 0)[0]);
+		Assert.assertEquals(0xcd628161, PartitionResolver.computeHash(fourScore, 1, 0)[0]);
+	}
+
+	@Test
+	public void sameKeyAlwaysResolvesToSamePartition()
+	{
+		final PartitionResolver resolver = new PartitionResolver(new String[] { "0", "1", "2", "3" });
+		for (int key = 0; key < 1000; key++)
+		{
+			final String partitionId = resolver.resolve("key" + key);
+			Assert.assertEquals(partitionId, resolver.resolve("key" + key));
+			Assert.assertTrue(Integer.parseInt(partitionId) >= 0 && Integer.parseInt(partitionId) < 4);
+		}
+	}
+
+	@Test
+	public void bufferedSenderRoutesKeysToPartitionSenders() throws Exception
+	{
+		final PartitionResolver resolver = new PartitionResolver(new String[] { "0", "1" });
+		final RoutingTarget target = new RoutingTarget();
+		final BufferedSender sender = new BufferedSender(null, target, 256 * 1024, null, resolver);
+		Assert.assertTrue(sender.getRoutesPartitionKeysOnClient());
+
+		sender.send(new EventData(new byte[10]), "a");
+		sender.send(new EventData(new byte[10]), "a");
+		sender.flush().get(5, TimeUnit.SECONDS);
+
+		Assert.assertEquals("[" + resolver.resolve("a") + "/2]", target.sent.toString());
+		Assert.assertFalse(new BufferedSender(null, target, 256 * 1024, null).getRoutesPartitionKeysOnClient());
+	}
+
+	private static final class RoutingTarget implements BufferedSender.ISendTarget
+	{
+		final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+
+		@Override
+		public CompletableFuture<Void> send(final EventDataBatch batch)
+		{
+			throw new AssertionError("partitionKey send went through the service");
+		}
+
+		@Override
+		public CompletableFuture<BufferedSender.IBatchSender> createPartitionSender(final String partitionId)
+		{
+			return CompletableFuture.completedFuture(new BufferedSender.IBatchSender()
+			{
+				@Override
+				public CompletableFuture<Void> send(EventDataBatch batch)
+				{
+					RoutingTarget.this.sent.add(partitionId + "/" + batch.getCount());
+					return CompletableFuture.completedFuture(null);
+				}
+
+				@Override
+				public CompletableFuture<Void> close()
+				{
+					return CompletableFuture.completedFuture(null);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Random;
+
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+
+public class PayloadCodecTest
+{
+	private static final byte[] TELEMETRY = telemetry();
+
+	@Test
+	public void builtInCodecsRoundTrip() throws Exception
+	{
+		for (PayloadCodec codec : new PayloadCodec[] { PayloadCodecs.gzip(1), PayloadCodecs.gzip(9), PayloadCodecs.deflate(1), PayloadCodecs.deflate(9) })
+		{
+			final byte[] encoded = codec.encode(TELEMETRY, 0, TELEMETRY.length);
+			Assert.assertTrue(codec.getName() + " did not compress", encoded.length < TELEMETRY.length / 4);
+
+			// decoding goes through the registered codec - whatever level the sender used
+			Assert.assertArrayEquals(TELEMETRY, PayloadCodecs.get(codec.getName()).decode(encoded, 0, encoded.length, TELEMETRY.length));
+		}
+	}
+
+	@Test
+	public void receivedEventIsDecodedTransparently()
+	{
+		final EventData sent = new EventData(TELEMETRY);
+		sent.getProperties().put("eventType", "telemetry");
+
+		final Message amqpMessage = sent.toAmqpMessage();
+		EventDataUtil.encodePayload(amqpMessage, PayloadCodecs.gzip());
+		Assert.assertEquals(PayloadCodecs.GZIP, amqpMessage.getApplicationProperties().getValue().get(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME));
+		Assert.assertFalse("the sent event was modified", sent.getProperties().containsKey(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME));
+
+		final EventData received = EventDataUtil.toEventDataCollection(Collections.singletonList(amqpMessage), null, ClientConstants.DEFAULT_MAX_DECODED_PAYLOAD_BYTES).getFirst();
+		Assert.assertArrayEquals(TELEMETRY, received.getBytes());
+		Assert.assertEquals("telemetry", received.getProperties().get("eventType"));
+		Assert.assertFalse(received.getProperties().containsKey(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME));
+
+		final EventData notDecoded = EventDataUtil.toEventDataCollection(Collections.singletonList(sent.toAmqpMessage()), null, 0).getFirst();
+		Assert.assertArrayEquals(TELEMETRY, notDecoded.getBytes());
+	}
+
+	@Test
+	public void bodyDecodingPastTheLimitIsReturnedEncoded() throws Exception
+	{
+		// 64MB of zeros compresses to a few tens of KB
+		final byte[] zeros = new byte[64 * 1024 * 1024];
+		for (PayloadCodec codec : new PayloadCodec[] { PayloadCodecs.gzip(9), PayloadCodecs.deflate(9) })
+		{
+			final byte[] bomb = codec.encode(zeros, 0, zeros.length);
+			try
+			{
+				codec.decode(bomb, 0, bomb.length, ClientConstants.DEFAULT_MAX_DECODED_PAYLOAD_BYTES);
+				Assert.fail(codec.getName() + " decoded past the limit");
+			}
+			catch (IOException expected)
+			{
+			}
+
+			final Message amqpMessage = new EventData(bomb).toAmqpMessage();
+			amqpMessage.setApplicationProperties(new ApplicationProperties(Collections.singletonMap(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME, (Object) codec.getName())));
+			final EventData received = EventDataUtil.toEventDataCollection(Collections.singletonList(amqpMessage), null, ClientConstants.DEFAULT_MAX_DECODED_PAYLOAD_BYTES).getFirst();
+			Assert.assertEquals(bomb.length, received.getBytes().length);
+			Assert.assertEquals(codec.getName(), received.getProperties().get(ClientConstants.PAYLOAD_CODEC_PROPERTY_NAME));
+		}
+
+		Assert.assertFalse("decoding should be opt-in", new ReceiverOptions().getPayloadDecodingEnabled());
+	}
+
+	@Test
+	public void incompressibleBodyIsSentAsIs()
+	{
+		final byte[] random = new byte[64];
+		new Random(1).nextBytes(random);
+
+		final Message amqpMessage = new EventData(random).toAmqpMessage();
+		EventDataUtil.encodePayload(amqpMessage, PayloadCodecs.deflate());
+		Assert.assertNull(amqpMessage.getApplicationProperties());
+	}
+
+	@Test
+	public void compressedBatchFitsMoreEvents()
+	{
+		final EventDataBatch plain = new EventDataBatch(ClientConstants.MAX_MESSAGE_LENGTH_BYTES, null);
+		final EventDataBatch compressed = new EventDataBatch(ClientConstants.MAX_MESSAGE_LENGTH_BYTES, null);
+		compressed.setPayloadCodec(PayloadCodecs.gzip());
+
+		while (plain.tryAdd(new EventData(TELEMETRY))) {}
+		while (compressed.tryAdd(new EventData(TELEMETRY))) {}
+
+		Assert.assertTrue(compressed.getCount() > 4 * plain.getCount());
+	}
+
+	private static byte[] telemetry()
+	{
+		final StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 100; i++)
+		{
+			json.append(String.format("{\"deviceId\":\"device-%s\",\"temperature\":%s,\"humidity\":%s,\"status\":\"ok\"},", i % 7, 20 + i % 5, 40 + i % 9));
+		}
+
+		return json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
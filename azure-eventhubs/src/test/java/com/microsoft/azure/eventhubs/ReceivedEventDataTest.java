@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+public class ReceivedEventDataTest
+{
+	private static Message receivedMessage()
+	{
+		final Map<Symbol, Object> annotations = new HashMap<>();
+		annotations.put(AmqpConstants.OFFSET, "1024");
+		annotations.put(AmqpConstants.SEQUENCE_NUMBER, 42L);
+		annotations.put(AmqpConstants.ENQUEUED_TIME_UTC, new Date(1500000000000L));
+		annotations.put(AmqpConstants.PARTITION_KEY, "pk");
+		annotations.put(Symbol.getSymbol("x-custom"), "custom");
+
+		final Message message = Proton.message();
+		message.setMessageAnnotations(new MessageAnnotations(annotations));
+		message.setMessageId("id");
+		message.setBody(new Data(new Binary("body".getBytes())));
+		return message;
+	}
+
+	@Test
+	public void wellKnownSystemPropertiesAreReadWithoutCopying()
+	{
+		final EventData eventData = new EventData(receivedMessage());
+		final EventData.SystemProperties systemProperties = eventData.getSystemProperties();
+
+		Assert.assertEquals("1024", systemProperties.getOffset());
+		Assert.assertEquals(42L, systemProperties.getSequenceNumber());
+		Assert.assertEquals(1500000000000L, systemProperties.getEnqueuedTime().toEpochMilli());
+		Assert.assertEquals("pk", systemProperties.getPartitionKey());
+		Assert.assertNull(systemProperties.getPublisher());
+		Assert.assertArrayEquals("body".getBytes(), eventData.getBytes());
+
+		Assert.assertEquals(6, systemProperties.size());
+		Assert.assertEquals("custom", systemProperties.get("x-custom"));
+		Assert.assertEquals("id", systemProperties.get(AmqpConstants.AMQP_PROPERTY_MESSAGE_ID));
+		Assert.assertEquals(42L, systemProperties.getSequenceNumber());
+	}
+
+	@Test
+	public void receivedEventDataSerializesAllSystemProperties() throws Exception
+	{
+		final EventData eventData = new EventData(receivedMessage());
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ObjectOutputStream output = new ObjectOutputStream(bytes);
+		output.writeObject(eventData);
+		output.close();
+
+		final ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		final EventData deserialized = (EventData) input.readObject();
+
+		Assert.assertEquals("1024", deserialized.getSystemProperties().getOffset());
+		Assert.assertEquals(42L, deserialized.getSystemProperties().getSequenceNumber());
+		Assert.assertEquals("custom", deserialized.getSystemProperties().get("x-custom"));
+		Assert.assertEquals(eventData.getSystemProperties(), deserialized.getSystemProperties());
+	}
+
+	@Test
+	public void systemPropertiesCanBeReadConcurrently() throws Exception
+	{
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			for (int i = 0; i < 200; i++)
+			{
+				final EventData.SystemProperties systemProperties = new EventData(receivedMessage()).getSystemProperties();
+				final CountDownLatch start = new CountDownLatch(1);
+				final List<Future<Integer>> sizes = new ArrayList<>();
+				for (int reader = 0; reader < 4; reader++)
+				{
+					sizes.add(executor.submit(new Callable<Integer>()
+					{
+						@Override
+						public Integer call() throws Exception
+						{
+							start.await();
+							Assert.assertEquals("custom", systemProperties.get("x-custom"));
+							return systemProperties.size();
+						}
+					}));
+				}
+
+				start.countDown();
+				for (Future<Integer> size : sizes)
+				{
+					Assert.assertEquals(6, (int) size.get());
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void receivedEventDataCanBeResent()
+	{
+		final Message resent = new EventData(receivedMessage()).toAmqpMessage();
+
+		Assert.assertEquals("id", resent.getMessageId());
+		Assert.assertEquals("custom", resent.getMessageAnnotations().getValue().get(Symbol.getSymbol("x-custom")));
+		Assert.assertFalse(resent.getMessageAnnotations().getValue().containsKey(AmqpConstants.SEQUENCE_NUMBER));
+	}
+}
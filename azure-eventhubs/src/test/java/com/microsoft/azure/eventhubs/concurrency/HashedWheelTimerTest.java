@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.HashedWheelTimer;
+
+public class HashedWheelTimerTest
+{
+	private ExecutorService executor;
+	private HashedWheelTimer timer;
+
+	@Before
+	public void initialize()
+	{
+		this.executor = Executors.newSingleThreadExecutor();
+		this.timer = new HashedWheelTimer(Duration.ofMillis(10), 8, this.executor);
+	}
+
+	@After
+	public void cleanup()
+	{
+		this.timer.stop();
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void timeoutFiresNotBeforeDeadline() throws Exception
+	{
+		final CountDownLatch fired = new CountDownLatch(1);
+		final long scheduledAt = System.nanoTime();
+		final long[] firedAt = new long[1];
+
+		// longer than one rotation of the wheel
+		final ScheduledFuture<?> timeout = this.timer.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				firedAt[0] = System.nanoTime();
+				fired.countDown();
+			}
+		}, Duration.ofMillis(200));
+
+		Assert.assertTrue(fired.await(5, TimeUnit.SECONDS));
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(firedAt[0] - scheduledAt) >= 200);
+
+		timeout.get(1, TimeUnit.SECONDS);
+		Assert.assertTrue(timeout.isDone());
+		Assert.assertFalse(timeout.cancel(false));
+		Assert.assertEquals(0, this.timer.getPendingTimeouts());
+	}
+
+	@Test
+	public void cancelledTimeoutsDoNotFire() throws Exception
+	{
+		final AtomicInteger firedCount = new AtomicInteger();
+		final Runnable task = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				firedCount.incrementAndGet();
+			}
+		};
+
+		for (int index = 0; index < 1000; index++)
+		{
+			final ScheduledFuture<?> timeout = this.timer.schedule(task, Duration.ofMillis(50));
+			Assert.assertTrue(timeout.cancel(false));
+			Assert.assertTrue(timeout.isCancelled());
+		}
+
+		final CountDownLatch fired = new CountDownLatch(1);
+		this.timer.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				fired.countDown();
+			}
+		}, Duration.ofMillis(100));
+
+		Assert.assertTrue(fired.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(0, firedCount.get());
+		Assert.assertEquals(0, this.timer.getPendingTimeouts());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void stoppedTimerCannotBeRestarted()
+	{
+		this.timer.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+			}
+		}, Duration.ofMillis(10));
+
+		this.timer.stop();
+		this.timer.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+			}
+		}, Duration.ofMillis(10));
+	}
+}
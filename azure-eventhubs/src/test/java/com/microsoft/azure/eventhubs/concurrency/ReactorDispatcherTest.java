@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.engine.HandlerException;
+import org.apache.qpid.proton.reactor.Reactor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.amqp.DispatchHandler;
+import com.microsoft.azure.servicebus.amqp.ReactorDispatcher;
+
+public class ReactorDispatcherTest
+{
+	private Reactor reactor;
+	private ReactorDispatcher dispatcher;
+	private Thread reactorThread;
+
+	@Before
+	public void initialize() throws Exception
+	{
+		this.reactor = Proton.reactor();
+		this.reactor.setTimeout(20);
+		this.dispatcher = new ReactorDispatcher(this.reactor);
+		this.reactor.start();
+		this.reactorThread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				while (!Thread.interrupted())
+				{
+					try
+					{
+						if (!reactor.process())
+							break;
+					}
+					catch (HandlerException handlerException)
+					{
+						// as the ReactorLoop does - skip the failed event and carry on
+						reactor.collector().pop();
+					}
+				}
+			}
+		});
+
+		this.reactorThread.start();
+	}
+
+	@After
+	public void cleanup() throws Exception
+	{
+		this.reactorThread.interrupt();
+		this.reactorThread.join(TimeUnit.SECONDS.toMillis(5));
+		this.reactor.free();
+	}
+
+	@Test
+	public void workRunsInOrderOnOneThread() throws Exception
+	{
+		final int workCount = 1000;
+		final List<Integer> runOrder = new ArrayList<>();
+		final CountDownLatch completed = new CountDownLatch(workCount);
+
+		for (int index = 0; index < workCount; index++)
+		{
+			final int workIndex = index;
+			this.dispatcher.invoke(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					Assert.assertSame(reactorThread, Thread.currentThread());
+					runOrder.add(workIndex);
+					completed.countDown();
+				}
+			});
+		}
+
+		Assert.assertTrue(completed.await(10, TimeUnit.SECONDS));
+		for (int index = 0; index < workCount; index++)
+		{
+			Assert.assertEquals(index, runOrder.get(index).intValue());
+		}
+
+		Assert.assertEquals(workCount, this.dispatcher.getDispatchCount());
+		Assert.assertTrue(this.dispatcher.getWakeupCount() <= workCount);
+		Assert.assertEquals(0, this.dispatcher.getQueueDepth());
+	}
+
+	@Test
+	public void handlerQueuedRepeatedlyIsNotStarved() throws Exception
+	{
+		final int invokesPerThread = 2000;
+		final AtomicInteger queuedWork = new AtomicInteger();
+		final AtomicInteger processedWork = new AtomicInteger();
+
+		// mimics the sender's send work: one handler invoked after every state change, each run processes all changes so far
+		final DispatchHandler sharedWork = new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				processedWork.set(queuedWork.get());
+			}
+		};
+
+		final List<Thread> producers = new ArrayList<>();
+		for (int thread = 0; thread < 4; thread++)
+		{
+			producers.add(new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for (int index = 0; index < invokesPerThread; index++)
+						{
+							queuedWork.incrementAndGet();
+							dispatcher.invoke(sharedWork);
+						}
+					}
+					catch (Exception exception)
+					{
+						throw new RuntimeException(exception);
+					}
+				}
+			}));
+		}
+
+		for (Thread producer : producers)
+			producer.start();
+
+		for (Thread producer : producers)
+			producer.join();
+
+		final long waitUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+		while (processedWork.get() != 4 * invokesPerThread && System.currentTimeMillis() < waitUntil)
+		{
+			Thread.sleep(10);
+		}
+
+		Assert.assertEquals(4 * invokesPerThread, processedWork.get());
+		Assert.assertTrue(this.dispatcher.getDispatchCount() <= 4 * invokesPerThread);
+	}
+
+	@Test
+	public void workQueuedBehindFailedHandlerStillRuns() throws Exception
+	{
+		final CountDownLatch blocking = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch completed = new CountDownLatch(1);
+
+		// hold the Reactor thread - so that the failing handler and the work behind it are drained on one wakeup
+		this.dispatcher.invoke(new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				blocking.countDown();
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException ignore)
+				{
+				}
+			}
+		});
+		Assert.assertTrue(blocking.await(10, TimeUnit.SECONDS));
+
+		this.dispatcher.invoke(new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				throw new IllegalStateException("handler failure");
+			}
+		});
+		this.dispatcher.invoke(new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				completed.countDown();
+			}
+		});
+		release.countDown();
+
+		Assert.assertTrue("work behind the failed handler did not run", completed.await(10, TimeUnit.SECONDS));
+	}
+}
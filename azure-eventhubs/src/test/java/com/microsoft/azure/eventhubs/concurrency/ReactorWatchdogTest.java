@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.eventhubs.lib.Mock.LoopbackBroker;
+import com.microsoft.azure.servicebus.IReactorWatchdogListener;
+import com.microsoft.azure.servicebus.ReactorGroup;
+import com.microsoft.azure.servicebus.ReactorWatchdog;
+import com.microsoft.azure.servicebus.amqp.SendLinkHandler;
+import com.microsoft.azure.servicebus.metrics.InMemoryClientMetrics;
+
+public class ReactorWatchdogTest
+{
+	private LoopbackBroker broker;
+	private InMemoryClientMetrics metrics;
+	private ReactorWatchdog watchdog;
+	private ReactorGroup reactorGroup;
+	private EventHubClient ehClient;
+	private ConcurrentLinkedQueue<StackTraceElement[]> stalls;
+
+	@Before
+	public void initialize() throws Exception
+	{
+		this.stalls = new ConcurrentLinkedQueue<StackTraceElement[]>();
+		this.watchdog = new ReactorWatchdog(Duration.ofMillis(10), Duration.ofMillis(100), new IReactorWatchdogListener()
+		{
+			@Override
+			public void onLag(String reactorName, long lagNanos)
+			{
+			}
+
+			@Override
+			public void onStall(String reactorName, long stalledNanos, StackTraceElement[] stackTrace)
+			{
+				stalls.add(stackTrace);
+			}
+		});
+
+		this.broker = LoopbackBroker.create("watchdog", 1);
+		this.metrics = new InMemoryClientMetrics();
+		this.reactorGroup = ReactorGroup.create(1, this.metrics, this.watchdog);
+		this.ehClient = EventHubClient.createFromConnectionStringSync(this.broker.getConnectionString().toString(), null, this.reactorGroup);
+	}
+
+	@Test()
+	public void testBlockedReactorIsReported() throws Exception
+	{
+		final PartitionSender sender = this.ehClient.createPartitionSenderSync("0");
+		try
+		{
+			// a callback chained to a send runs on the Reactor thread - unless the send completed before it was chained: try again
+			final AtomicBoolean blockedReactor = new AtomicBoolean();
+			for (int attempt = 0; attempt < 10 && !blockedReactor.get(); attempt++)
+			{
+				sender.send(new EventData("stall".getBytes())).thenRun(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						if (Thread.currentThread().getName().startsWith("reactor-group"))
+						{
+							blockedReactor.set(true);
+							try
+							{
+								Thread.sleep(500);
+							}
+							catch (InterruptedException ignore)
+							{
+							}
+						}
+					}
+				}).get();
+			}
+
+			Assert.assertTrue(blockedReactor.get());
+		}
+		finally
+		{
+			sender.closeSync();
+		}
+
+		Assert.assertTrue(this.watchdog.getProbeCount() > 0);
+		Assert.assertTrue(this.watchdog.getMaxLagNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+		// opening the connection - loading classes on first use - can stall the Reactor as well
+		Assert.assertTrue(this.watchdog.getStallCount() >= 1);
+		Assert.assertEquals(this.watchdog.getStallCount(), this.stalls.size());
+
+		boolean isSleepReported = false;
+		for (StackTraceElement[] stackTrace : this.stalls)
+		{
+			for (StackTraceElement frame : stackTrace)
+			{
+				isSleepReported |= frame.getClassName().equals(ReactorWatchdogTest.class.getName() + "$2");
+			}
+		}
+
+		Assert.assertTrue("the stack of the stalled Reactor should show the callback", isSleepReported);
+
+		// the handlers of link events are timed along with the work queued for the Reactor
+		final InMemoryClientMetrics.Reactor reactorMetrics = this.metrics.getReactors().values().iterator().next();
+		Assert.assertTrue(reactorMetrics.getHandlerTimes().containsKey(SendLinkHandler.class));
+		Assert.assertTrue(reactorMetrics.getHandlerTimes().get(SendLinkHandler.class).getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos(500));
+	}
+
+	@After
+	public void cleanup() throws Exception
+	{
+		if (this.ehClient != null)
+		{
+			this.ehClient.closeSync();
+		}
+
+		if (this.reactorGroup != null)
+		{
+			this.reactorGroup.close().get();
+		}
+
+		if (this.broker != null)
+		{
+			this.broker.close();
+		}
+	}
+}
@@ -0,0 +1,1007 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.lib.Mock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.DescribedType;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Rejected;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.amqp.messaging.Target;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.amqp.transport.SenderSettleMode;
+import org.apache.qpid.proton.codec.AMQPDefinedTypes;
+import org.apache.qpid.proton.codec.DecoderImpl;
+import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.engine.BaseHandler;
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.Link;
+import org.apache.qpid.proton.engine.Receiver;
+import org.apache.qpid.proton.engine.Sasl;
+import org.apache.qpid.proton.engine.Sender;
+import org.apache.qpid.proton.engine.SslDomain;
+import org.apache.qpid.proton.engine.Transport;
+import org.apache.qpid.proton.message.Message;
+import org.apache.qpid.proton.reactor.Acceptor;
+import org.apache.qpid.proton.reactor.Reactor;
+import org.apache.qpid.proton.reactor.impl.AcceptorImpl;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.ConnectionStringBuilder;
+import com.microsoft.azure.servicebus.MessagingFactory;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+import com.microsoft.azure.servicebus.amqp.AmqpErrorCode;
+import com.microsoft.azure.servicebus.amqp.AmqpResponseCode;
+
+/**
+ * In-process AMQP broker emulating the subset of EventHubs the client uses - so that the whole client pipeline
+ * (encode, reactor, transport, disposition, decode) can be run and measured on loopback, without the throttling of a live namespace:
+ * <ul>
+ * <li>TLS and SASL ANONYMOUS, and put-token on $cbs - any token is accepted</li>
+ * <li>sender links to the EventHub or to one of its partitions - single messages and batches are appended to the partition log and accepted</li>
+ * <li>receiver links to a partition, in any consumer group - starting at the offset, sequence number or enqueued time of the link filter</li>
+ * <li>READ of the EventHub and of the partition runtime information on $management</li>
+ * </ul>
+ * Events sent to the EventHub go round-robin to the partitions, or - with a partitionKey - to the partition picked by the key's String hash;
+ * which is not the hash the service uses. Epochs, authorization and throttling are not emulated.
+ * <p>
+ * Partition logs keep the last {@code partitionCapacity} events in memory. {@link #setSendLatency(Duration)} delays
+ * the append, and the disposition, of every send - to emulate the service's write latency.
+ */
+public final class LoopbackBroker implements Closeable
+{
+	public static final String HOST_NAME = "127.0.0.1";
+	public static final int DEFAULT_PARTITION_CAPACITY = 10000;
+
+	private static final Logger TRACE_LOGGER = Logger.getLogger("servicebus.test.trace");
+	private static final Pattern FILTER_PATTERN = Pattern.compile("amqp\\.annotation\\.(\\S+) >(=?) '(.*)'");
+	private static final String PARTITIONS_SEGMENT = "/Partitions/";
+	private static final String CONSUMER_GROUPS_SEGMENT = "/ConsumerGroups/";
+	private static final int LINK_CREDIT = 1000;
+	private static final String KEY_STORE_RESOURCE = "/loopback-broker.p12";
+	private static final char[] KEY_STORE_PASSWORD = "loopback".toCharArray();
+
+	static
+	{
+		enableAnonymousCipherSuites();
+	}
+
+	private final String eventHubName;
+	private final String[] partitionIds;
+	private final Map<String, LoopbackPartition> partitions;
+	private final ConcurrentLinkedQueue<Runnable> pendingWork;
+	private final Reactor reactor;
+	private final Acceptor acceptor;
+	private final int port;
+	private final Thread reactorThread;
+
+	// accessed only on the Reactor thread
+	private final Map<String, List<ReceiverCursor>> receivers;
+	private final DecoderImpl decoder;
+	private byte[] encodeBuffer;
+	private long deliveryTag;
+	private int nextPartitionIndex;
+
+	private volatile int sendLatencyMillis;
+	private final AtomicInteger sendsToReject = new AtomicInteger();
+	private volatile ErrorCondition sendRejection;
+	private volatile boolean closeRequested;
+
+	private LoopbackBroker(final String eventHubName, final int partitionCount, final int partitionCapacity) throws IOException
+	{
+		this.eventHubName = eventHubName;
+		this.partitionIds = new String[partitionCount];
+		this.partitions = new LinkedHashMap<String, LoopbackPartition>();
+		for (int i = 0; i < partitionCount; i++)
+		{
+			this.partitionIds[i] = Integer.toString(i);
+			this.partitions.put(this.partitionIds[i], new LoopbackPartition(this.partitionIds[i], partitionCapacity));
+		}
+
+		this.pendingWork = new ConcurrentLinkedQueue<Runnable>();
+		this.receivers = new HashMap<String, List<ReceiverCursor>>();
+		this.decoder = new DecoderImpl();
+		AMQPDefinedTypes.registerAllTypes(this.decoder, new EncoderImpl(this.decoder));
+		this.encodeBuffer = new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES];
+
+		this.reactor = Proton.reactor();
+		this.acceptor = this.reactor.acceptor(HOST_NAME, 0, new BrokerHandler());
+		this.port = ((AcceptorImpl) this.acceptor).getPortNumber();
+
+		this.reactorThread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				LoopbackBroker.this.runReactor();
+			}
+		}, "loopback-broker-" + this.port);
+		this.reactorThread.setDaemon(true);
+		this.reactorThread.start();
+	}
+
+	public static LoopbackBroker create(final String eventHubName, final int partitionCount) throws IOException
+	{
+		return create(eventHubName, partitionCount, DEFAULT_PARTITION_CAPACITY);
+	}
+
+	/**
+	 * Starts a broker on an ephemeral port of {@link #HOST_NAME}, with one EventHub.
+	 * @param eventHubName name of the EventHub
+	 * @param partitionCount number of partitions - with ids "0" to partitionCount - 1
+	 * @param partitionCapacity number of events each partition log keeps - older events are dropped
+	 * @return the started broker
+	 * @throws IOException if the port could not be bound
+	 */
+	public static LoopbackBroker create(final String eventHubName, final int partitionCount, final int partitionCapacity) throws IOException
+	{
+		if (partitionCount <= 0 || partitionCapacity <= 0)
+		{
+			throw new IllegalArgumentException("partitionCount and partitionCapacity must be greater than 0");
+		}
+
+		return new LoopbackBroker(eventHubName, partitionCount, partitionCapacity);
+	}
+
+	public int getPort()
+	{
+		return this.port;
+	}
+
+	public String getEventHubName()
+	{
+		return this.eventHubName;
+	}
+
+	public String[] getPartitionIds()
+	{
+		return this.partitionIds.clone();
+	}
+
+	public LoopbackPartition getPartition(final String partitionId)
+	{
+		return this.partitions.get(partitionId);
+	}
+
+	/**
+	 * @return a connection string to the EventHub on this broker - the SAS key is not checked
+	 */
+	public ConnectionStringBuilder getConnectionString()
+	{
+		return new ConnectionStringBuilder(
+				URI.create(String.format(Locale.US, "sb://%s:%s", HOST_NAME, this.port)), this.eventHubName, "RootManageSharedAccessKey", "bG9vcGJhY2s=");
+	}
+
+	public Duration getSendLatency()
+	{
+		return Duration.ofMillis(this.sendLatencyMillis);
+	}
+
+	/**
+	 * @param sendLatency delay between receiving a send and appending it to the partition log - and accepting it
+	 */
+	public void setSendLatency(final Duration sendLatency)
+	{
+		if (sendLatency == null || sendLatency.isNegative())
+		{
+			throw new IllegalArgumentException("sendLatency cannot be null or negative");
+		}
+
+		this.sendLatencyMillis = (int) sendLatency.toMillis();
+	}
+
+	/**
+	 * Rejects the next sends right away - without appending them - as the service does when it is busy or fails.
+	 * @param count number of sends to reject
+	 * @param errorCondition error the sends are rejected with
+	 */
+	public void rejectSends(final int count, final ErrorCondition errorCondition)
+	{
+		this.sendRejection = errorCondition;
+		this.sendsToReject.set(count);
+	}
+
+	/**
+	 * Appends events to a partition log, as if they were sent - for ex: to fill partitions before a receive benchmark.
+	 * @param partitionId the partition
+	 * @param eventCount number of events to append
+	 * @param payloadSize size of the body of each event
+	 * @return a CompletableFuture which completes once the events are appended
+	 */
+	public CompletableFuture<Void> appendEvents(final String partitionId, final int eventCount, final int payloadSize)
+	{
+		final LoopbackPartition partition = this.partitions.get(partitionId);
+		if (partition == null)
+		{
+			throw new IllegalArgumentException("partition " + partitionId + " does not exist");
+		}
+
+		final CompletableFuture<Void> appended = new CompletableFuture<Void>();
+		this.invoke(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final byte[] payload = new byte[payloadSize];
+				for (int i = 0; i < eventCount; i++)
+				{
+					final Message event = Proton.message();
+					event.setBody(new Data(new Binary(payload)));
+					LoopbackBroker.this.appendEvent(partition, event);
+				}
+
+				LoopbackBroker.this.deliverAvailableEvents(partition);
+				appended.complete(null);
+			}
+		});
+
+		return appended;
+	}
+
+	/**
+	 * Stops the broker. Connections still open to it are dropped.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.closeRequested = true;
+		this.reactor.wakeup();
+		try
+		{
+			this.reactorThread.join(MessagingFactory.DefaultOperationTimeout.toMillis());
+		}
+		catch (InterruptedException interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void invoke(final Runnable work)
+	{
+		this.pendingWork.offer(work);
+		this.reactor.wakeup();
+	}
+
+	private void runReactor()
+	{
+		try
+		{
+			this.reactor.setTimeout(100);
+			this.reactor.start();
+			while (!this.closeRequested && this.reactor.process())
+			{
+				Runnable work;
+				while ((work = this.pendingWork.poll()) != null)
+				{
+					work.run();
+				}
+			}
+
+			this.acceptor.close();
+			this.reactor.stop();
+		}
+		catch (RuntimeException failure)
+		{
+			TRACE_LOGGER.log(Level.SEVERE, "loopback broker failed", failure);
+		}
+		finally
+		{
+			this.reactor.free();
+		}
+	}
+
+	private void onSendLinkOpen(final Receiver link, final String address)
+	{
+		if (address.equals(ClientConstants.CBS_ADDRESS) || address.equals(ClientConstants.MANAGEMENT_ADDRESS))
+		{
+			link.setContext(address);
+		}
+		else if (address.equals(this.eventHubName))
+		{
+			link.setContext(new SendTarget(null));
+		}
+		else if (address.startsWith(this.eventHubName + PARTITIONS_SEGMENT)
+				&& this.partitions.containsKey(address.substring(this.eventHubName.length() + PARTITIONS_SEGMENT.length())))
+		{
+			link.setContext(new SendTarget(this.partitions.get(address.substring(this.eventHubName.length() + PARTITIONS_SEGMENT.length()))));
+		}
+		else
+		{
+			rejectLink(link, AmqpErrorCode.NotFound, "The messaging entity '" + address + "' could not be found.");
+			return;
+		}
+
+		openLink(link);
+		link.flow(LINK_CREDIT);
+	}
+
+	private void onReceiveLinkOpen(final Sender link, final String address)
+	{
+		if (address.equals(ClientConstants.CBS_ADDRESS) || address.equals(ClientConstants.MANAGEMENT_ADDRESS))
+		{
+			// the response link of a request-response channel - responses are sent on it by the reply-to address of the request
+			getReplyLinks(link.getSession().getConnection()).put(((Target) link.getRemoteTarget()).getAddress(), link);
+			openLink(link);
+			return;
+		}
+
+		final int consumerGroupIndex = address.indexOf(CONSUMER_GROUPS_SEGMENT);
+		final int partitionIndex = address.lastIndexOf(PARTITIONS_SEGMENT);
+		final LoopbackPartition partition = partitionIndex < 0 ? null : this.partitions.get(address.substring(partitionIndex + PARTITIONS_SEGMENT.length()));
+		if (consumerGroupIndex < 0 || partition == null || !address.substring(0, consumerGroupIndex).equals(this.eventHubName))
+		{
+			rejectLink(link, AmqpErrorCode.NotFound, "The messaging entity '" + address + "' could not be found.");
+			return;
+		}
+
+		final long startingSequenceNumber;
+		try
+		{
+			startingSequenceNumber = seek(partition, ((Source) link.getRemoteSource()).getFilter());
+		}
+		catch (IllegalArgumentException invalidFilter)
+		{
+			rejectLink(link, AmqpErrorCode.NotImplemented, invalidFilter.getMessage());
+			return;
+		}
+
+		final ReceiverCursor cursor = new ReceiverCursor(link, partition, startingSequenceNumber);
+		link.setContext(cursor);
+		List<ReceiverCursor> partitionReceivers = this.receivers.get(partition.getPartitionId());
+		if (partitionReceivers == null)
+		{
+			partitionReceivers = new ArrayList<ReceiverCursor>();
+			this.receivers.put(partition.getPartitionId(), partitionReceivers);
+		}
+
+		partitionReceivers.add(cursor);
+		openLink(link);
+	}
+
+	private static long seek(final LoopbackPartition partition, final Map<?, ?> filters)
+	{
+		final Object filter = filters == null ? null : filters.get(AmqpConstants.STRING_FILTER);
+		if (filter == null)
+		{
+			return partition.getNextSequenceNumber();
+		}
+
+		final String expression = filter instanceof DescribedType ? String.valueOf(((DescribedType) filter).getDescribed()) : String.valueOf(filter);
+		final Matcher matcher = FILTER_PATTERN.matcher(expression);
+		if (!matcher.matches())
+		{
+			throw new IllegalArgumentException("filter '" + expression + "' is not supported");
+		}
+
+		return partition.seek(matcher.group(1), !matcher.group(2).isEmpty(), matcher.group(3));
+	}
+
+	private void onSend(final Delivery delivery, final SendTarget target, final byte[] bytes)
+	{
+		// only the Reactor thread takes from the count
+		if (this.sendsToReject.get() > 0 && this.sendsToReject.getAndDecrement() > 0)
+		{
+			final Rejected rejected = new Rejected();
+			rejected.setError(this.sendRejection);
+			delivery.disposition(rejected);
+			delivery.settle();
+			return;
+		}
+
+		final List<Message> events = this.decodeEvents(bytes, delivery.getMessageFormat());
+		final BaseHandler append = new BaseHandler()
+		{
+			@Override
+			public void onTimerTask(Event event)
+			{
+				final LoopbackPartition partition = target.partition != null ? target.partition : LoopbackBroker.this.pickPartition(events);
+				for (Message sentEvent : events)
+				{
+					LoopbackBroker.this.appendEvent(partition, sentEvent);
+				}
+
+				if (!delivery.remotelySettled())
+				{
+					delivery.disposition(Accepted.getInstance());
+				}
+
+				delivery.settle();
+				LoopbackBroker.this.deliverAvailableEvents(partition);
+			}
+		};
+
+		final int latency = this.sendLatencyMillis;
+		if (latency > 0)
+		{
+			this.reactor.schedule(latency, append);
+		}
+		else
+		{
+			append.onTimerTask(null);
+		}
+	}
+
+	// a batch is the batch message's sections followed by a Data section per event - holding the encoded event
+	private List<Message> decodeEvents(final byte[] bytes, final int messageFormat)
+	{
+		if (messageFormat != AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT)
+		{
+			final Message event = Proton.message();
+			event.decode(bytes, 0, bytes.length);
+			return Collections.singletonList(event);
+		}
+
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		this.decoder.setByteBuffer(buffer);
+		final List<Message> events = new ArrayList<Message>();
+		Object partitionKey = null;
+		while (buffer.hasRemaining())
+		{
+			final Object section = this.decoder.readObject();
+			if (section instanceof MessageAnnotations && ((MessageAnnotations) section).getValue() != null)
+			{
+				partitionKey = ((MessageAnnotations) section).getValue().get(AmqpConstants.PARTITION_KEY);
+			}
+			else if (section instanceof Data)
+			{
+				final Binary encodedEvent = ((Data) section).getValue();
+				final Message event = Proton.message();
+				event.decode(encodedEvent.getArray(), encodedEvent.getArrayOffset(), encodedEvent.getLength());
+				if (partitionKey != null)
+				{
+					getAnnotations(event).put(AmqpConstants.PARTITION_KEY, partitionKey);
+				}
+
+				events.add(event);
+			}
+		}
+
+		this.decoder.setByteBuffer(null);
+		return events;
+	}
+
+	private LoopbackPartition pickPartition(final List<Message> events)
+	{
+		final Object partitionKey = events.isEmpty() || events.get(0).getMessageAnnotations() == null
+				? null
+				: events.get(0).getMessageAnnotations().getValue().get(AmqpConstants.PARTITION_KEY);
+		if (partitionKey != null)
+		{
+			return this.partitions.get(this.partitionIds[Math.abs(partitionKey.hashCode() % this.partitionIds.length)]);
+		}
+
+		this.nextPartitionIndex = (this.nextPartitionIndex + 1) % this.partitionIds.length;
+		return this.partitions.get(this.partitionIds[this.nextPartitionIndex]);
+	}
+
+	private void appendEvent(final LoopbackPartition partition, final Message event)
+	{
+		final long enqueuedTimeMillis = partition.nextEnqueuedTimeMillis();
+		final Map<Symbol, Object> annotations = getAnnotations(event);
+		annotations.put(AmqpConstants.OFFSET, Long.toString(partition.getNextOffset()));
+		annotations.put(AmqpConstants.SEQUENCE_NUMBER, partition.getNextSequenceNumber());
+		annotations.put(AmqpConstants.ENQUEUED_TIME_UTC, new Date(enqueuedTimeMillis));
+
+		partition.append(enqueuedTimeMillis, this.encode(event));
+	}
+
+	private void deliverAvailableEvents(final LoopbackPartition partition)
+	{
+		final List<ReceiverCursor> partitionReceivers = this.receivers.get(partition.getPartitionId());
+		if (partitionReceivers != null)
+		{
+			for (ReceiverCursor cursor : partitionReceivers)
+			{
+				this.deliverAvailableEvents(cursor);
+			}
+		}
+	}
+
+	private void deliverAvailableEvents(final ReceiverCursor cursor)
+	{
+		final Sender link = cursor.link;
+		while (link.getCredit() > 0 && link.getLocalState() == EndpointState.ACTIVE)
+		{
+			final LoopbackPartition.Entry entry = cursor.partition.get(cursor.nextSequenceNumber);
+			if (entry == null)
+			{
+				// the receiver fell behind the events dropped from the log - it continues at the oldest event, like on the service
+				final long beginSequenceNumber = cursor.partition.getBeginSequenceNumber();
+				if (cursor.nextSequenceNumber < beginSequenceNumber)
+				{
+					cursor.nextSequenceNumber = beginSequenceNumber;
+					continue;
+				}
+
+				break;
+			}
+
+			final Delivery delivery = link.delivery(this.nextDeliveryTag());
+			link.send(entry.encodedEvent, 0, entry.encodedEvent.length);
+			link.advance();
+			if (cursor.isPreSettled)
+			{
+				delivery.settle();
+			}
+
+			cursor.nextSequenceNumber++;
+		}
+	}
+
+	private void onRequest(final Connection connection, final String node, final byte[] bytes)
+	{
+		final Message request = Proton.message();
+		request.decode(bytes, 0, bytes.length);
+		final Map<?, ?> properties = request.getApplicationProperties() != null
+				? request.getApplicationProperties().getValue()
+				: Collections.emptyMap();
+
+		final Map<String, Object> responseProperties = new HashMap<String, Object>();
+		Object responseBody = null;
+		AmqpResponseCode status = AmqpResponseCode.OK;
+		if (node.equals(ClientConstants.CBS_ADDRESS))
+		{
+			if (!ClientConstants.PUT_TOKEN_OPERATION_VALUE.equals(properties.get(ClientConstants.PUT_TOKEN_OPERATION)))
+			{
+				status = AmqpResponseCode.BAD_REQUEST;
+			}
+		}
+		else if (!ClientConstants.READ_OPERATION_VALUE.equals(properties.get(ClientConstants.MANAGEMENT_OPERATION_KEY)))
+		{
+			status = AmqpResponseCode.BAD_REQUEST;
+		}
+		else if (!this.eventHubName.equals(properties.get(ClientConstants.MANAGEMENT_ENTITY_NAME_KEY)))
+		{
+			status = AmqpResponseCode.NOT_FOUND;
+		}
+		else if (ClientConstants.MANAGEMENT_EVENTHUB_ENTITY_TYPE.equals(properties.get(ClientConstants.MANAGEMENT_ENTITY_TYPE_KEY)))
+		{
+			final Map<String, Object> information = new HashMap<String, Object>();
+			information.put(ClientConstants.MANAGEMENT_ENTITY_NAME_KEY, this.eventHubName);
+			information.put(ClientConstants.MANAGEMENT_ENTITY_TYPE_KEY, ClientConstants.MANAGEMENT_EVENTHUB_ENTITY_TYPE);
+			information.put(ClientConstants.MANAGEMENT_RESULT_PARTITION_COUNT, this.partitionIds.length);
+			information.put(ClientConstants.MANAGEMENT_RESULT_PARTITION_IDS, this.partitionIds);
+			responseBody = information;
+		}
+		else if (ClientConstants.MANAGEMENT_PARTITION_ENTITY_TYPE.equals(properties.get(ClientConstants.MANAGEMENT_ENTITY_TYPE_KEY))
+				&& this.partitions.containsKey(properties.get(ClientConstants.MANAGEMENT_PARTITION_NAME_KEY)))
+		{
+			final LoopbackPartition partition = this.partitions.get(properties.get(ClientConstants.MANAGEMENT_PARTITION_NAME_KEY));
+			final Map<String, Object> information = new HashMap<String, Object>();
+			information.put(ClientConstants.MANAGEMENT_ENTITY_NAME_KEY, this.eventHubName);
+			information.put(ClientConstants.MANAGEMENT_ENTITY_TYPE_KEY, ClientConstants.MANAGEMENT_PARTITION_ENTITY_TYPE);
+			information.put(ClientConstants.MANAGEMENT_PARTITION_NAME_KEY, partition.getPartitionId());
+			information.put(ClientConstants.MANAGEMENT_RESULT_BEGIN_SEQUENCE_NUMBER, partition.getBeginSequenceNumber());
+			information.put(ClientConstants.MANAGEMENT_RESULT_LAST_ENQUEUED_SEQUENCE_NUMBER, partition.getLastSequenceNumber());
+			information.put(ClientConstants.MANAGEMENT_RESULT_LAST_ENQUEUED_OFFSET, partition.getLastOffset());
+			information.put(ClientConstants.MANAGEMENT_RESULT_LAST_ENQUEUED_TIME_UTC, Date.from(partition.getLastEnqueuedTime()));
+			responseBody = information;
+		}
+		else
+		{
+			status = AmqpResponseCode.NOT_FOUND;
+		}
+
+		responseProperties.put(ClientConstants.MANAGEMENT_STATUS_CODE_KEY, status.getValue());
+		responseProperties.put(ClientConstants.MANAGEMENT_STATUS_DESCRIPTION_KEY, status.name());
+
+		final Message response = Proton.message();
+		response.setCorrelationId(request.getMessageId());
+		response.setApplicationProperties(new ApplicationProperties(responseProperties));
+		if (responseBody != null)
+		{
+			response.setBody(new AmqpValue(responseBody));
+		}
+
+		final Sender replyLink = getReplyLinks(connection).get(request.getReplyTo());
+		if (replyLink != null && replyLink.getLocalState() == EndpointState.ACTIVE)
+		{
+			final byte[] encodedResponse = this.encode(response);
+			final Delivery delivery = replyLink.delivery(this.nextDeliveryTag());
+			replyLink.send(encodedResponse, 0, encodedResponse.length);
+			replyLink.advance();
+			delivery.settle();
+		}
+	}
+
+	private byte[] encode(final Message message)
+	{
+		while (true)
+		{
+			try
+			{
+				final int length = message.encode(this.encodeBuffer, 0, this.encodeBuffer.length);
+				return Arrays.copyOf(this.encodeBuffer, length);
+			}
+			catch (BufferOverflowException overflow)
+			{
+				this.encodeBuffer = new byte[this.encodeBuffer.length * 2];
+			}
+		}
+	}
+
+	private byte[] nextDeliveryTag()
+	{
+		return Long.toString(this.deliveryTag++).getBytes();
+	}
+
+	private void removeReceiver(final Link link)
+	{
+		if (link.getContext() instanceof ReceiverCursor)
+		{
+			final ReceiverCursor cursor = (ReceiverCursor) link.getContext();
+			this.receivers.get(cursor.partition.getPartitionId()).remove(cursor);
+		}
+	}
+
+	private void removeReceivers(final Connection connection)
+	{
+		for (List<ReceiverCursor> partitionReceivers : this.receivers.values())
+		{
+			final Iterator<ReceiverCursor> cursors = partitionReceivers.iterator();
+			while (cursors.hasNext())
+			{
+				if (cursors.next().link.getSession().getConnection() == connection)
+				{
+					cursors.remove();
+				}
+			}
+		}
+	}
+
+	private static Map<Symbol, Object> getAnnotations(final Message event)
+	{
+		if (event.getMessageAnnotations() == null || event.getMessageAnnotations().getValue() == null)
+		{
+			event.setMessageAnnotations(new MessageAnnotations(new HashMap<Symbol, Object>()));
+		}
+
+		return event.getMessageAnnotations().getValue();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Sender> getReplyLinks(final Connection connection)
+	{
+		if (connection.getContext() == null)
+		{
+			connection.setContext(new HashMap<String, Sender>());
+		}
+
+		return (Map<String, Sender>) connection.getContext();
+	}
+
+	private static void openLink(final Link link)
+	{
+		link.setSource(link.getRemoteSource());
+		link.setTarget(link.getRemoteTarget());
+		link.setSenderSettleMode(link.getRemoteSenderSettleMode());
+		link.setReceiverSettleMode(link.getRemoteReceiverSettleMode());
+		link.open();
+	}
+
+	// attach without a source or target, then detach with the error - as the service does
+	private static void rejectLink(final Link link, final Symbol errorCode, final String description)
+	{
+		link.open();
+		link.setCondition(new ErrorCondition(errorCode, description));
+		link.close();
+	}
+
+	// Proton-j refuses to create the engine of the client's anonymous SslDomain unless the JDK supports anonymous
+	// cipher suites - which newer JDK's disable. Only the security property can enable them for the client's engine,
+	// and the JDK reads it once per JVM: the module runs the test classes using the broker in a surefire execution
+	// of their own, each class in its own JVM, so that this does not reach the classes which do not use the broker.
+	private static void enableAnonymousCipherSuites()
+	{
+		final String disabledAlgorithms = Security.getProperty("jdk.tls.disabledAlgorithms");
+		if (disabledAlgorithms == null)
+		{
+			return;
+		}
+
+		final StringBuilder enabledAnonymous = new StringBuilder();
+		for (String algorithm : disabledAlgorithms.split(","))
+		{
+			if (!algorithm.trim().equalsIgnoreCase("anon"))
+			{
+				enabledAnonymous.append(enabledAnonymous.length() == 0 ? "" : ",").append(algorithm);
+			}
+		}
+
+		Security.setProperty("jdk.tls.disabledAlgorithms", enabledAnonymous.toString());
+	}
+
+	// proton-j's TLS wrapper stalls on TLS 1.3 handshakes - the broker only offers TLS 1.2.
+	// The client's SslDomain trusts any certificate: the broker presents a self-signed one from the test resources.
+	private static SSLContext createTls12Context()
+	{
+		try
+		{
+			final SSLContext inner = SSLContext.getInstance("TLSv1.2");
+			inner.init(loadBrokerKey(), null, null);
+			return new SSLContext(new SSLContextSpi()
+			{
+				@Override
+				protected void engineInit(KeyManager[] keyManagers, TrustManager[] trustManagers, SecureRandom random)
+				{
+				}
+
+				@Override
+				protected SSLSocketFactory engineGetSocketFactory()
+				{
+					return inner.getSocketFactory();
+				}
+
+				@Override
+				protected SSLServerSocketFactory engineGetServerSocketFactory()
+				{
+					return inner.getServerSocketFactory();
+				}
+
+				@Override
+				protected SSLEngine engineCreateSSLEngine()
+				{
+					return tls12Only(inner.createSSLEngine());
+				}
+
+				@Override
+				protected SSLEngine engineCreateSSLEngine(String host, int port)
+				{
+					return tls12Only(inner.createSSLEngine(host, port));
+				}
+
+				@Override
+				protected SSLSessionContext engineGetServerSessionContext()
+				{
+					return inner.getServerSessionContext();
+				}
+
+				@Override
+				protected SSLSessionContext engineGetClientSessionContext()
+				{
+					return inner.getClientSessionContext();
+				}
+			}, inner.getProvider(), inner.getProtocol()) {};
+		}
+		catch (NoSuchAlgorithmException|KeyManagementException tlsUnavailable)
+		{
+			throw new IllegalStateException("TLSv1.2 is not available", tlsUnavailable);
+		}
+	}
+
+	private static KeyManager[] loadBrokerKey()
+	{
+		try (final InputStream keyStoreStream = LoopbackBroker.class.getResourceAsStream(KEY_STORE_RESOURCE))
+		{
+			if (keyStoreStream == null)
+			{
+				throw new IllegalStateException(KEY_STORE_RESOURCE + " is not on the test classpath");
+			}
+
+			final KeyStore keyStore = KeyStore.getInstance("PKCS12");
+			keyStore.load(keyStoreStream, KEY_STORE_PASSWORD);
+			final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+			keyManagerFactory.init(keyStore, KEY_STORE_PASSWORD);
+			return keyManagerFactory.getKeyManagers();
+		}
+		catch (IOException|GeneralSecurityException keyUnavailable)
+		{
+			throw new IllegalStateException("cannot load the key of the broker", keyUnavailable);
+		}
+	}
+
+	private static SSLEngine tls12Only(final SSLEngine engine)
+	{
+		engine.setEnabledProtocols(new String[] { "TLSv1.2" });
+		return engine;
+	}
+
+	private static final class SendTarget
+	{
+		// null for the EventHub - the partition is picked per send
+		final LoopbackPartition partition;
+
+		SendTarget(final LoopbackPartition partition)
+		{
+			this.partition = partition;
+		}
+	}
+
+	private static final class ReceiverCursor
+	{
+		final Sender link;
+		final LoopbackPartition partition;
+		final boolean isPreSettled;
+		long nextSequenceNumber;
+
+		ReceiverCursor(final Sender link, final LoopbackPartition partition, final long nextSequenceNumber)
+		{
+			this.link = link;
+			this.partition = partition;
+			this.isPreSettled = link.getRemoteSenderSettleMode() == SenderSettleMode.SETTLED;
+			this.nextSequenceNumber = nextSequenceNumber;
+		}
+	}
+
+	private final class BrokerHandler extends BaseHandler
+	{
+		private final SSLContext sslContext = createTls12Context();
+
+		@Override
+		public void onConnectionBound(Event event)
+		{
+			final Transport transport = event.getTransport();
+			final SslDomain domain = Proton.sslDomain();
+			domain.init(SslDomain.Mode.SERVER);
+			domain.setPeerAuthentication(SslDomain.VerifyMode.ANONYMOUS_PEER);
+			domain.setSslContext(this.sslContext);
+			transport.ssl(domain);
+
+			final Sasl sasl = transport.sasl();
+			sasl.server();
+			sasl.setMechanisms("ANONYMOUS");
+			sasl.done(Sasl.SaslOutcome.PN_SASL_OK);
+		}
+
+		@Override
+		public void onConnectionRemoteOpen(Event event)
+		{
+			event.getConnection().setContainer("loopback-broker");
+			event.getConnection().open();
+		}
+
+		@Override
+		public void onConnectionRemoteClose(Event event)
+		{
+			LoopbackBroker.this.removeReceivers(event.getConnection());
+			event.getConnection().close();
+		}
+
+		@Override
+		public void onSessionRemoteOpen(Event event)
+		{
+			event.getSession().open();
+		}
+
+		@Override
+		public void onSessionRemoteClose(Event event)
+		{
+			event.getSession().close();
+		}
+
+		@Override
+		public void onLinkRemoteOpen(Event event)
+		{
+			final Link link = event.getLink();
+			if (link instanceof Receiver)
+			{
+				final Target target = (Target) link.getRemoteTarget();
+				LoopbackBroker.this.onSendLinkOpen((Receiver) link, target != null && target.getAddress() != null ? target.getAddress() : "");
+			}
+			else
+			{
+				final Source source = (Source) link.getRemoteSource();
+				LoopbackBroker.this.onReceiveLinkOpen((Sender) link, source != null && source.getAddress() != null ? source.getAddress() : "");
+			}
+		}
+
+		@Override
+		public void onLinkRemoteClose(Event event)
+		{
+			LoopbackBroker.this.removeReceiver(event.getLink());
+			event.getLink().close();
+		}
+
+		@Override
+		public void onLinkFlow(Event event)
+		{
+			if (event.getLink().getContext() instanceof ReceiverCursor)
+			{
+				LoopbackBroker.this.deliverAvailableEvents((ReceiverCursor) event.getLink().getContext());
+			}
+		}
+
+		@Override
+		public void onDelivery(Event event)
+		{
+			final Delivery delivery = event.getDelivery();
+			final Link link = delivery.getLink();
+			if (link instanceof Sender)
+			{
+				// the client settled an event or a response
+				if (delivery.remotelySettled())
+				{
+					delivery.settle();
+				}
+
+				return;
+			}
+
+			if (delivery.isPartial())
+			{
+				return;
+			}
+
+			final Receiver receiver = (Receiver) link;
+			final byte[] bytes = new byte[delivery.pending()];
+			receiver.recv(bytes, 0, bytes.length);
+			receiver.advance();
+
+			if (link.getContext() instanceof SendTarget)
+			{
+				LoopbackBroker.this.onSend(delivery, (SendTarget) link.getContext(), bytes);
+			}
+			else
+			{
+				delivery.settle();
+				LoopbackBroker.this.onRequest(link.getSession().getConnection(), (String) link.getContext(), bytes);
+			}
+
+			if (receiver.getCredit() < LINK_CREDIT / 2)
+			{
+				receiver.flow(LINK_CREDIT - receiver.getCredit());
+			}
+		}
+
+		@Override
+		public void onTransportClosed(Event event)
+		{
+			if (event.getConnection() != null)
+			{
+				LoopbackBroker.this.removeReceivers(event.getConnection());
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.lib.Mock;
+
+import java.time.Instant;
+
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * In-memory log of one partition of the {@link LoopbackBroker}: the last {@code capacity} events, already encoded
+ * with the offset, sequence number and enqueued time annotations - so that they are delivered to receivers as is.
+ * Like the service, offsets are byte positions in the partition and sequence numbers start at 0.
+ * <p>
+ * Appended to only on the broker's Reactor thread; readable from any thread.
+ */
+public final class LoopbackPartition
+{
+	private static final String OFFSET = AmqpConstants.OFFSET_ANNOTATION_NAME;
+	private static final String SEQUENCE_NUMBER = AmqpConstants.SEQUENCE_NUMBER_ANNOTATION_NAME;
+	private static final String ENQUEUED_TIME = AmqpConstants.ENQUEUED_TIME_UTC_ANNOTATION_NAME;
+
+	private final String partitionId;
+	private final Entry[] entries;
+
+	private long nextSequenceNumber;
+	private long nextOffset;
+	private long lastEnqueuedTimeMillis;
+
+	LoopbackPartition(final String partitionId, final int capacity)
+	{
+		this.partitionId = partitionId;
+		this.entries = new Entry[capacity];
+	}
+
+	public String getPartitionId()
+	{
+		return this.partitionId;
+	}
+
+	public int getCapacity()
+	{
+		return this.entries.length;
+	}
+
+	/**
+	 * @return sequence number of the oldest event still in the log - events before it were dropped to keep the log within capacity
+	 */
+	public synchronized long getBeginSequenceNumber()
+	{
+		return Math.max(0, this.nextSequenceNumber - this.entries.length);
+	}
+
+	/**
+	 * @return sequence number of the last event appended, -1 if the partition is empty
+	 */
+	public synchronized long getLastSequenceNumber()
+	{
+		return this.nextSequenceNumber - 1;
+	}
+
+	/**
+	 * @return offset of the last event appended, "-1" if the partition is empty
+	 */
+	public synchronized String getLastOffset()
+	{
+		return this.nextSequenceNumber == 0 ? "-1" : Long.toString(this.get(this.nextSequenceNumber - 1).offset);
+	}
+
+	public synchronized Instant getLastEnqueuedTime()
+	{
+		return Instant.ofEpochMilli(this.lastEnqueuedTimeMillis);
+	}
+
+	/**
+	 * @return number of events appended since the broker started - including the ones dropped from the log
+	 */
+	public synchronized long getEventCount()
+	{
+		return this.nextSequenceNumber;
+	}
+
+	synchronized long getNextSequenceNumber()
+	{
+		return this.nextSequenceNumber;
+	}
+
+	synchronized long getNextOffset()
+	{
+		return this.nextOffset;
+	}
+
+	// enqueued times never go back - so that the log can be searched by time
+	synchronized long nextEnqueuedTimeMillis()
+	{
+		return Math.max(System.currentTimeMillis(), this.lastEnqueuedTimeMillis);
+	}
+
+	synchronized void append(final long enqueuedTimeMillis, final byte[] encodedEvent)
+	{
+		final Entry entry = new Entry(this.nextSequenceNumber, this.nextOffset, enqueuedTimeMillis, encodedEvent);
+		this.entries[(int) (this.nextSequenceNumber % this.entries.length)] = entry;
+		this.nextSequenceNumber++;
+		this.nextOffset += encodedEvent.length;
+		this.lastEnqueuedTimeMillis = enqueuedTimeMillis;
+	}
+
+	// null if the event was dropped or is not appended yet
+	synchronized Entry get(final long sequenceNumber)
+	{
+		if (sequenceNumber < this.getBeginSequenceNumber() || sequenceNumber >= this.nextSequenceNumber)
+		{
+			return null;
+		}
+
+		return this.entries[(int) (sequenceNumber % this.entries.length)];
+	}
+
+	/**
+	 * Resolves the starting position of a receiver filter to the sequence number of the first event to deliver.
+	 * @param annotation x-opt-offset, x-opt-sequence-number or x-opt-enqueued-time
+	 * @param inclusive whether an event at exactly the filter value is delivered
+	 * @param value the filter value - "-1" is the start of the stream for offsets
+	 */
+	synchronized long seek(final String annotation, final boolean inclusive, final String value)
+	{
+		if (!OFFSET.equals(annotation) && !SEQUENCE_NUMBER.equals(annotation) && !ENQUEUED_TIME.equals(annotation))
+		{
+			throw new IllegalArgumentException("filter on annotation " + annotation + " is not supported");
+		}
+
+		final long begin = this.getBeginSequenceNumber();
+		final long filterValue = Long.parseLong(value);
+		if (filterValue < 0)
+		{
+			return begin;
+		}
+
+		// binary search for the first event past the filter value - all three annotations grow with the sequence number
+		long low = begin;
+		long high = this.nextSequenceNumber;
+		while (low < high)
+		{
+			final long middle = (low + high) >>> 1;
+			final long middleValue = this.positionOf(annotation, middle);
+			if (middleValue > filterValue || (inclusive && middleValue == filterValue))
+			{
+				high = middle;
+			}
+			else
+			{
+				low = middle + 1;
+			}
+		}
+
+		return low;
+	}
+
+	private long positionOf(final String annotation, final long sequenceNumber)
+	{
+		if (OFFSET.equals(annotation))
+		{
+			return this.get(sequenceNumber).offset;
+		}
+
+		return ENQUEUED_TIME.equals(annotation) ? this.get(sequenceNumber).enqueuedTimeMillis : sequenceNumber;
+	}
+
+	static final class Entry
+	{
+		final long sequenceNumber;
+		final long offset;
+		final long enqueuedTimeMillis;
+		final byte[] encodedEvent;
+
+		Entry(final long sequenceNumber, final long offset, final long enqueuedTimeMillis, final byte[] encodedEvent)
+		{
+			this.sequenceNumber = sequenceNumber;
+			this.offset = offset;
+			this.enqueuedTimeMillis = enqueuedTimeMillis;
+			this.encodedEvent = encodedEvent;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.Mock.LoopbackBroker;
+import com.microsoft.azure.servicebus.ServiceBusException;
+import com.microsoft.azure.servicebus.metrics.InMemoryClientMetrics;
+import com.microsoft.azure.servicebus.metrics.LatencyHistogram;
+
+public class ClientMetricsTest extends TestBase
+{
+	static final String partitionId = "0";
+
+	static LoopbackBroker broker;
+	static InMemoryClientMetrics metrics;
+	static EventHubClient ehClient;
+
+	@BeforeClass
+	public static void initialize() throws Exception
+	{
+		broker = LoopbackBroker.create("metrics", 1);
+		metrics = new InMemoryClientMetrics();
+		ehClient = EventHubClient.createFromConnectionStringSync(broker.getConnectionString().toString(), null, null, metrics);
+	}
+
+	@Test()
+	public void testHistogramPercentiles()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals(0, histogram.getPercentileNanos(99));
+
+		for (int i = 1; i <= 1000; i++)
+		{
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+		}
+
+		Assert.assertEquals(1000, histogram.getCount());
+		Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getMaxNanos());
+		Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getPercentileNanos(100));
+
+		// a percentile is reported with an error of at most 1/16th of its value
+		final long p50 = TimeUnit.MICROSECONDS.toNanos(500);
+		Assert.assertTrue(histogram.getPercentileNanos(50) >= p50);
+		Assert.assertTrue(histogram.getPercentileNanos(50) <= p50 + p50 / 16);
+	}
+
+	@Test()
+	public void testSendsAndReceivesAreRecorded() throws ServiceBusException
+	{
+		final PartitionSender sender = ehClient.createPartitionSenderSync(partitionId);
+		try
+		{
+			for (int i = 0; i < 10; i++)
+			{
+				sender.sendSync(new EventData(("metrics" + i).getBytes()));
+			}
+		}
+		finally
+		{
+			sender.closeSync();
+		}
+
+		final PartitionReceiver receiver = ehClient.createReceiverSync(EventHubClient.DEFAULT_CONSUMER_GROUP_NAME, partitionId, PartitionReceiver.START_OF_STREAM);
+		try
+		{
+			LoopbackBrokerTest.receiveAll(receiver, 10);
+		}
+		finally
+		{
+			receiver.closeSync();
+		}
+
+		Assert.assertEquals(1, metrics.getSenders().size());
+		final InMemoryClientMetrics.Sender senderMetrics = metrics.getSenders().values().iterator().next();
+		Assert.assertEquals(10, senderMetrics.getSendCount());
+		Assert.assertEquals(0, senderMetrics.getFailedSendCount());
+		Assert.assertTrue(senderMetrics.getSendLatency().getMaxNanos() > 0);
+		Assert.assertTrue(senderMetrics.getMaxInFlight() >= 1);
+
+		Assert.assertEquals(1, metrics.getReceivers().size());
+		final InMemoryClientMetrics.Receiver receiverMetrics = metrics.getReceivers().values().iterator().next();
+		Assert.assertEquals(10, receiverMetrics.getReceivedCount());
+		Assert.assertTrue(receiverMetrics.getMaxPrefetchDepth() >= 1);
+
+		// the client has a Reactor of its own - which records in the client's metrics
+		Assert.assertEquals(1, metrics.getReactors().size());
+		final InMemoryClientMetrics.Reactor reactorMetrics = metrics.getReactors().values().iterator().next();
+		Assert.assertFalse(reactorMetrics.getHandlerTimes().isEmpty());
+	}
+
+	@AfterClass
+	public static void cleanup() throws Exception
+	{
+		if (ehClient != null)
+		{
+			ehClient.closeSync();
+		}
+
+		if (broker != null)
+		{
+			broker.close();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.Mock.LoopbackBroker;
+import com.microsoft.azure.servicebus.CompletionExecutor;
+
+public class CompletionExecutorTest extends TestBase
+{
+	static LoopbackBroker broker;
+	static ExecutorService executor;
+
+	@BeforeClass
+	public static void initialize() throws Exception
+	{
+		broker = LoopbackBroker.create("completions", 2);
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@Test()
+	public void testIoThreadCompletionsHandOffNothing() throws Exception
+	{
+		final EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(broker.getConnectionString().toString(), null, null, null, CompletionExecutor.IO_THREAD);
+		try
+		{
+			sendAndReceive(ehClient, "0");
+			ehClient.sendSync(new EventData("any partition".getBytes()));
+			ehClient.getRuntimeInformationSync();
+
+			Assert.assertEquals(0, ehClient.getCompletionHandoffCount());
+		}
+		finally
+		{
+			ehClient.closeSync();
+		}
+	}
+
+	@Test()
+	public void testExecutorCompletionsHandOffOncePerOperation() throws Exception
+	{
+		final EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(broker.getConnectionString().toString(), null, null, null, executor);
+		try
+		{
+			Assert.assertEquals(1, ehClient.getCompletionHandoffCount());
+
+			// create sender, send, create receiver, receive
+			sendAndReceive(ehClient, "1");
+			Assert.assertEquals(5, ehClient.getCompletionHandoffCount());
+
+			// the first send of the client creates its internal sender first
+			ehClient.sendSync(new EventData("any partition".getBytes()));
+			Assert.assertEquals(7, ehClient.getCompletionHandoffCount());
+
+			ehClient.sendSync(new EventData("any partition".getBytes()));
+			Assert.assertEquals(8, ehClient.getCompletionHandoffCount());
+		}
+		finally
+		{
+			ehClient.closeSync();
+		}
+	}
+
+	static void sendAndReceive(final EventHubClient ehClient, final String partitionId) throws Exception
+	{
+		final PartitionSender sender = ehClient.createPartitionSenderSync(partitionId);
+		try
+		{
+			sender.send(new EventData("completion".getBytes())).get();
+		}
+		finally
+		{
+			sender.closeSync();
+		}
+
+		final PartitionReceiver receiver = ehClient.createReceiverSync(EventHubClient.DEFAULT_CONSUMER_GROUP_NAME, partitionId, PartitionReceiver.START_OF_STREAM);
+		try
+		{
+			Assert.assertNotNull(receiver.receive(1).get());
+		}
+		finally
+		{
+			receiver.closeSync();
+		}
+	}
+
+	@AfterClass
+	public static void cleanup() throws Exception
+	{
+		if (executor != null)
+		{
+			executor.shutdownNow();
+		}
+
+		if (broker != null)
+		{
+			broker.close();
+		}
+	}
+}
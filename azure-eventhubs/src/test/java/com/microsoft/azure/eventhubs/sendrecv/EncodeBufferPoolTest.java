@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.EncodeBufferPool;
+
+public class EncodeBufferPoolTest
+{
+	@Test
+	public void releasedBufferIsReused()
+	{
+		final EncodeBufferPool pool = new EncodeBufferPool(4, ClientConstants.MAX_MESSAGE_LENGTH_BYTES * 4L);
+
+		final byte[] first = pool.acquire(1000);
+		Assert.assertEquals(EncodeBufferPool.MIN_BUFFER_SIZE_BYTES, first.length);
+		pool.release(first);
+
+		final byte[] second = pool.acquire(10);
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, pool.getAllocationCount());
+		Assert.assertEquals(1, pool.getReuseCount());
+	}
+
+	@Test
+	public void buffersAreRoundedToSizeClasses()
+	{
+		final EncodeBufferPool pool = new EncodeBufferPool(4, ClientConstants.MAX_MESSAGE_LENGTH_BYTES * 4L);
+
+		Assert.assertEquals(8 * 1024, pool.acquire(4 * 1024 + 1).length);
+		Assert.assertEquals(ClientConstants.MAX_MESSAGE_LENGTH_BYTES, pool.acquire(ClientConstants.MAX_MESSAGE_LENGTH_BYTES).length);
+
+		final byte[] small = pool.acquire(100);
+		pool.release(small);
+		Assert.assertNotSame(small, pool.acquire(5000));
+	}
+
+	@Test
+	public void poolHonoursLimits()
+	{
+		final EncodeBufferPool pool = new EncodeBufferPool(1, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+
+		pool.release(pool.acquire(100));
+		pool.release(pool.acquire(9000));
+		Assert.assertEquals(1, pool.getPooledBufferCount());
+		Assert.assertEquals(1, pool.getDiscardCount());
+
+		pool.setMaxPooledBuffers(8);
+		pool.setMaxRetainedBytes(EncodeBufferPool.MIN_BUFFER_SIZE_BYTES - 1);
+		Assert.assertEquals(0, pool.getPooledBufferCount());
+		Assert.assertEquals(0, pool.getRetainedBytes());
+
+		pool.release(new byte[123]);
+		Assert.assertEquals(0, pool.getPooledBufferCount());
+	}
+}
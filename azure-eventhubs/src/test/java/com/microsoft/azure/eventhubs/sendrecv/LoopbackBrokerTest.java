@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubRuntimeInformation;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.PartitionRuntimeInformation;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.Mock.LoopbackBroker;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+/**
+ * Runs the client end to end against the {@link LoopbackBroker} - needs no EventHubs namespace.
+ */
+public class LoopbackBrokerTest extends TestBase
+{
+	static final String partitionId = "1";
+
+	static LoopbackBroker broker;
+	static EventHubClient ehClient;
+	static PartitionSender sender;
+
+	@BeforeClass
+	public static void initialize() throws Exception
+	{
+		broker = LoopbackBroker.create("loopback", 2);
+		ehClient = EventHubClient.createFromConnectionStringSync(broker.getConnectionString().toString());
+		sender = ehClient.createPartitionSenderSync(partitionId);
+
+		for (int i = 0; i < 5; i++)
+		{
+			sender.sendSync(new EventData(("single" + i).getBytes()));
+		}
+
+		final List<EventData> batch = new LinkedList<EventData>();
+		for (int i = 0; i < 5; i++)
+		{
+			batch.add(new EventData(("batched" + i).getBytes()));
+		}
+
+		sender.sendSync(batch);
+	}
+
+	@Test()
+	public void testSentEventsAreReceivedInOrder() throws ServiceBusException
+	{
+		Assert.assertEquals(10, broker.getPartition(partitionId).getEventCount());
+
+		final PartitionReceiver receiver = ehClient.createReceiverSync(EventHubClient.DEFAULT_CONSUMER_GROUP_NAME, partitionId, PartitionReceiver.START_OF_STREAM);
+		try
+		{
+			final List<EventData> received = receiveAll(receiver, 10);
+			long lastOffset = -1;
+			for (int i = 0; i < 10; i++)
+			{
+				final EventData event = received.get(i);
+				Assert.assertEquals(i, event.getSystemProperties().getSequenceNumber());
+				Assert.assertEquals(i < 5 ? "single" + i : "batched" + (i - 5), new String(event.getBytes()));
+				Assert.assertTrue(Long.parseLong(event.getSystemProperties().getOffset()) > lastOffset);
+				lastOffset = Long.parseLong(event.getSystemProperties().getOffset());
+			}
+		}
+		finally
+		{
+			receiver.closeSync();
+		}
+	}
+
+	@Test()
+	public void testReceiverStartsAtOffset() throws ServiceBusException
+	{
+		final PartitionReceiver firstReceiver = ehClient.createReceiverSync(EventHubClient.DEFAULT_CONSUMER_GROUP_NAME, partitionId, PartitionReceiver.START_OF_STREAM);
+		final String thirdOffset;
+		try
+		{
+			thirdOffset = receiveAll(firstReceiver, 3).get(2).getSystemProperties().getOffset();
+		}
+		finally
+		{
+			firstReceiver.closeSync();
+		}
+
+		final PartitionReceiver inclusiveReceiver = ehClient.createReceiverSync(EventHubClient.DEFAULT_CONSUMER_GROUP_NAME, partitionId, thirdOffset, true);
+		try
+		{
+			Assert.assertEquals(2, receiveAll(inclusiveReceiver, 1).get(0).getSystemProperties().getSequenceNumber());
+		}
+		finally
+		{
+			inclusiveReceiver.closeSync();
+		}
+
+		final PartitionReceiver exclusiveReceiver = ehClient.createReceiverSync(EventHubClient.DEFAULT_CONSUMER_GROUP_NAME, partitionId, thirdOffset, false);
+		try
+		{
+			Assert.assertEquals(3, receiveAll(exclusiveReceiver, 1).get(0).getSystemProperties().getSequenceNumber());
+		}
+		finally
+		{
+			exclusiveReceiver.closeSync();
+		}
+	}
+
+	@Test()
+	public void testRuntimeInformation() throws ServiceBusException
+	{
+		final EventHubRuntimeInformation eventHubInformation = ehClient.getRuntimeInformationSync();
+		Assert.assertEquals("loopback", eventHubInformation.getPath());
+		Assert.assertArrayEquals(new String[] { "0", "1" }, eventHubInformation.getPartitionIds());
+
+		final PartitionRuntimeInformation partitionInformation = ehClient.getPartitionRuntimeInformationSync(partitionId);
+		Assert.assertEquals(0, partitionInformation.getBeginSequenceNumber());
+		Assert.assertEquals(9, partitionInformation.getLastEnqueuedSequenceNumber());
+		Assert.assertEquals(broker.getPartition(partitionId).getLastOffset(), partitionInformation.getLastEnqueuedOffset());
+	}
+
+	static List<EventData> receiveAll(final PartitionReceiver receiver, final int eventCount) throws ServiceBusException
+	{
+		final List<EventData> received = new ArrayList<EventData>();
+		while (received.size() < eventCount)
+		{
+			final Iterable<EventData> events = receiver.receiveSync(eventCount - received.size());
+			Assert.assertNotNull("receive timed out", events);
+			for (EventData event : events)
+			{
+				received.add(event);
+			}
+		}
+
+		return received;
+	}
+
+	@AfterClass
+	public static void cleanup() throws Exception
+	{
+		if (sender != null)
+		{
+			sender.closeSync();
+		}
+
+		if (ehClient != null)
+		{
+			ehClient.closeSync();
+		}
+
+		if (broker != null)
+		{
+			broker.close();
+		}
+	}
+}
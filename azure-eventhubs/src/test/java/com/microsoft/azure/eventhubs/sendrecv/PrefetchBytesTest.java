@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.time.Instant;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.eventhubs.ReceiverOptions;
+import com.microsoft.azure.eventhubs.lib.ApiTestBase;
+import com.microsoft.azure.eventhubs.lib.TestContext;
+import com.microsoft.azure.servicebus.ConnectionStringBuilder;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+public class PrefetchBytesTest extends ApiTestBase {
+
+    static final String partitionId = "0";
+    static final int eventCount = 20;
+    static final int eventSize = 64 * 1024;
+    static final long prefetchBytes = 2 * eventSize;
+
+    static EventHubClient ehClient;
+    static PartitionSender sender;
+    static PartitionReceiver receiver;
+
+    @BeforeClass
+    public static void initializeEventHub() throws Exception {
+
+        final ConnectionStringBuilder connectionString = TestContext.getConnectionString();
+        ehClient = EventHubClient.createFromConnectionStringSync(connectionString.toString());
+        sender = ehClient.createPartitionSenderSync(partitionId);
+
+        final ReceiverOptions receiverOptions = new ReceiverOptions();
+        receiverOptions.setPrefetchBytes(prefetchBytes);
+        receiver = ehClient.createReceiverSync(TestContext.getConsumerGroupName(), partitionId, Instant.now(), receiverOptions);
+    }
+
+    @Test()
+    public void testLargeEventsAreReceivedUnderPrefetchBytes() throws Exception {
+
+        Assert.assertEquals(prefetchBytes, receiver.getPrefetchBytes());
+
+        final List<CompletableFuture<Void>> sends = new LinkedList<>();
+        for (int i = 0; i < eventCount; i++) {
+            sends.add(sender.send(new EventData(new byte[eventSize])));
+        }
+
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[sends.size()])).get();
+
+        // credit is granted a few events at a time - all of them still arrive
+        int received = 0;
+        for (int attempt = 0; attempt < 20 && received < eventCount; attempt++) {
+            final Iterable<EventData> events = receiver.receiveSync(100);
+            if (events != null) {
+                for (EventData event : events) {
+                    Assert.assertEquals(eventSize, event.getBytes().length);
+                    received++;
+                }
+            }
+        }
+
+        Assert.assertEquals(eventCount, received);
+    }
+
+    @AfterClass()
+    public static void cleanup() throws ServiceBusException {
+
+        if (receiver != null)
+            receiver.closeSync();
+
+        if (sender != null)
+            sender.closeSync();
+
+        if (ehClient != null)
+            ehClient.closeSync();
+    }
+}
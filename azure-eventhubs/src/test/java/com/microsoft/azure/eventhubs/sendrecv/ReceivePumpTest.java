@@ -5,8 +5,13 @@
 package com.microsoft.azure.eventhubs.sendrecv;
 
 import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -157,6 +162,133 @@ public class ReceivePumpTest
 		Assert.assertTrue(assertion);
 	}
 	
+	@Test()
+	public void testEventDrivenPumpInvokesHandlerSeriallyOnExecutor() throws Exception
+	{
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final AtomicInteger activeHandlers = new AtomicInteger();
+		final AtomicInteger handlerInvocations = new AtomicInteger();
+		final LinkedList<CompletableFuture<Iterable<EventData>>> pendingReceives = new LinkedList<CompletableFuture<Iterable<EventData>>>();
+
+		try
+		{
+			final ReceivePump receivePump = new ReceivePump(
+					new ReceivePump.IAsyncPartitionReceiver()
+					{
+						@Override public CompletableFuture<Iterable<EventData>> receive(int maxBatchSize)
+						{
+							final CompletableFuture<Iterable<EventData>> receive = new CompletableFuture<Iterable<EventData>>();
+							synchronized (pendingReceives)
+							{
+								pendingReceives.add(receive);
+								pendingReceives.notifyAll();
+							}
+							return receive;
+						}
+						@Override public String getPartitionId()
+						{
+							return "0";
+						}
+					},
+					new PartitionReceiveHandler(10) {
+						@Override public void onReceive(Iterable<EventData> events)
+						{
+							Assert.assertEquals(1, activeHandlers.incrementAndGet());
+							Assert.assertFalse(Thread.currentThread().getName().startsWith("main"));
+							handlerInvocations.incrementAndGet();
+							activeHandlers.decrementAndGet();
+						}
+						@Override public void onError(Throwable error)
+						{
+							assertion = false;
+						}
+					},
+					true,
+					executor);
+
+			assertion = true;
+			receivePump.start();
+
+			// events arrive from the "reactor" - the test thread - and each one is handed to the executor
+			for (int index = 0; index < 100; index++)
+			{
+				final CompletableFuture<Iterable<EventData>> receive;
+				synchronized (pendingReceives)
+				{
+					final long waitUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+					while (pendingReceives.isEmpty() && System.currentTimeMillis() < waitUntil)
+					{
+						pendingReceives.wait(100);
+					}
+					Assert.assertTrue("pump stopped issuing receives", assertion && !pendingReceives.isEmpty());
+					receive = pendingReceives.removeFirst();
+				}
+
+				final LinkedList<EventData> events = new LinkedList<EventData>();
+				events.add(new EventData("some".getBytes()));
+				receive.complete(index % 10 == 0 ? null : events);
+			}
+
+			// the receive issued after the last handler, if any, completes when the receiver times out or closes
+			final CompletableFuture<Void> stopped = receivePump.stop();
+			final long waitUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+			while (!stopped.isDone() && System.currentTimeMillis() < waitUntil)
+			{
+				synchronized (pendingReceives)
+				{
+					while (!pendingReceives.isEmpty())
+					{
+						pendingReceives.removeFirst().complete(null);
+					}
+				}
+				Thread.sleep(10);
+			}
+
+			stopped.get(5, TimeUnit.SECONDS);
+			Assert.assertTrue(assertion);
+			Assert.assertFalse(receivePump.isRunning());
+			Assert.assertTrue(handlerInvocations.get() >= 100);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test()
+	public void testEventDrivenPumpReceiveExceptionsPropagated() throws Exception
+	{
+		final ReceivePump receivePump = new ReceivePump(
+				new ReceivePump.IAsyncPartitionReceiver()
+				{
+					@Override public CompletableFuture<Iterable<EventData>> receive(int maxBatchSize)
+					{
+						final CompletableFuture<Iterable<EventData>> receive = new CompletableFuture<Iterable<EventData>>();
+						receive.completeExceptionally(new ServiceBusException(false, exceptionMessage));
+						return receive;
+					}
+					@Override public String getPartitionId()
+					{
+						return "0";
+					}
+				},
+				new PartitionReceiveHandler(10) {
+					@Override public void onReceive(Iterable<EventData> events)
+					{
+					}
+					@Override public void onError(Throwable error)
+					{
+						assertion = error.getMessage().equals(exceptionMessage);
+					}
+				},
+				true,
+				null);
+
+		receivePump.start();
+		receivePump.stop().get(5, TimeUnit.SECONDS);
+		Assert.assertTrue(assertion);
+	}
+
 	public class PumpClosedException extends RuntimeException
 	{
 		private static final long serialVersionUID = -5050327636359966016L;
@@ -4,6 +4,7 @@
  */
 package com.microsoft.azure.eventhubs.sendrecv;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Iterator;
 import java.util.function.Consumer;
@@ -147,6 +148,35 @@ public class ReceiveTest extends ApiTestBase
 		}
 	}
 	
+	@Test()
+	public void testReceiveWaitsForMinBatchSize() throws ServiceBusException
+	{
+		datetimeReceiver = ehClient.createReceiverSync(cgName, partitionId, Instant.now());
+		datetimeReceiver.setReceiveBatchOptions(10, Duration.ofSeconds(30));
+
+		final PartitionSender sender = ehClient.createPartitionSenderSync(partitionId);
+		try
+		{
+			// events sent one by one arrive one by one - the receive still returns them as a single batch
+			for (int i = 0; i < 10; i++)
+			{
+				sender.sendSync(new EventData(("batch " + i).getBytes()));
+			}
+
+			int receivedCount = 0;
+			for (EventData event : datetimeReceiver.receiveSync(100))
+			{
+				receivedCount++;
+			}
+
+			Assert.assertEquals(10, receivedCount);
+		}
+		finally
+		{
+			sender.closeSync();
+		}
+	}
+	
 	@After
 	public void testCleanup() throws ServiceBusException
 	{
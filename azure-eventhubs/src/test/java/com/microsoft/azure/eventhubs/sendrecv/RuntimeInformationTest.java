@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.time.Instant;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubRuntimeInformation;
+import com.microsoft.azure.eventhubs.PartitionRuntimeInformation;
+import com.microsoft.azure.eventhubs.lib.ApiTestBase;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.TestContext;
+import com.microsoft.azure.servicebus.ConnectionStringBuilder;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+public class RuntimeInformationTest extends ApiTestBase {
+
+    static final String partitionId = "0";
+    static final Instant beforeTestStart = Instant.now();
+
+    static EventHubClient ehClient;
+
+    @BeforeClass
+    public static void initializeEventHub() throws Exception {
+
+        final ConnectionStringBuilder connectionString = TestContext.getConnectionString();
+        ehClient = EventHubClient.createFromConnectionStringSync(connectionString.toString());
+
+        TestBase.pushEventsToPartition(ehClient, partitionId, 1).get();
+    }
+
+    @Test()
+    public void testEventHubRuntimeInformation() throws Exception {
+
+        final EventHubRuntimeInformation runtimeInformation = ehClient.getRuntimeInformationSync();
+
+        Assert.assertEquals(TestContext.getConnectionString().getEntityPath(), runtimeInformation.getPath());
+        Assert.assertEquals(TestContext.getPartitionCount(), runtimeInformation.getPartitionCount());
+        Assert.assertEquals(runtimeInformation.getPartitionCount(), runtimeInformation.getPartitionIds().length);
+
+        // served from the cache
+        Assert.assertSame(ehClient.getRuntimeInformation().get(), ehClient.getRuntimeInformation().get());
+    }
+
+    @Test()
+    public void testPartitionRuntimeInformation() throws ServiceBusException {
+
+        final PartitionRuntimeInformation runtimeInformation = ehClient.getPartitionRuntimeInformationSync(partitionId);
+
+        Assert.assertEquals(partitionId, runtimeInformation.getPartitionId());
+        Assert.assertTrue(runtimeInformation.getLastEnqueuedSequenceNumber() >= runtimeInformation.getBeginSequenceNumber());
+        Assert.assertTrue(runtimeInformation.getLastEnqueuedTimeUtc().isAfter(beforeTestStart.minusSeconds(60)));
+    }
+
+    @AfterClass()
+    public static void cleanup() throws ServiceBusException {
+
+        if (ehClient != null)
+            ehClient.closeSync();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.qpid.proton.amqp.transport.AmqpError;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.Mock.LoopbackBroker;
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.ConnectionStringBuilder;
+import com.microsoft.azure.servicebus.EncodeBufferPool;
+
+public class SendRetryTest extends TestBase
+{
+	private static final String PARTITION_ID = "0";
+
+	private LoopbackBroker broker;
+	private EventHubClient ehClient;
+	private PartitionSender sender;
+
+	@Before
+	public void initialize() throws Exception
+	{
+		this.broker = LoopbackBroker.create("sendretry", 1);
+		final ConnectionStringBuilder connectionString = this.broker.getConnectionString();
+		connectionString.setOperationTimeout(Duration.ofSeconds(3));
+		this.ehClient = EventHubClient.createFromConnectionStringSync(connectionString.toString());
+		this.sender = this.ehClient.createPartitionSenderSync(PARTITION_ID);
+	}
+
+	@Test()
+	public void testRejectedSendIsRetried() throws Exception
+	{
+		this.broker.rejectSends(1, new ErrorCondition(AmqpError.INTERNAL_ERROR, "rejected by the test"));
+
+		this.sender.sendSync(new EventData("retried".getBytes()));
+
+		Assert.assertEquals(1, this.broker.getPartition(PARTITION_ID).getEventCount());
+		assertNoBufferIsPooledTwice();
+	}
+
+	@Test()
+	public void testRetryOutlivingTheRejectedAttemptKeepsItsBuffer() throws Exception
+	{
+		// the retry goes out about a second after the rejection - and is acknowledged after
+		// the timeout of the rejected attempt would have fired, but before its own
+		this.broker.rejectSends(1, new ErrorCondition(AmqpError.INTERNAL_ERROR, "rejected by the test"));
+		this.broker.setSendLatency(Duration.ofMillis(2500));
+
+		this.sender.sendSync(new EventData("retried".getBytes()));
+
+		Assert.assertEquals(1, this.broker.getPartition(PARTITION_ID).getEventCount());
+		assertNoBufferIsPooledTwice();
+	}
+
+	// a buffer released twice is handed out to two senders at once
+	private static void assertNoBufferIsPooledTwice()
+	{
+		final EncodeBufferPool pool = EncodeBufferPool.getDefault();
+		final Set<byte[]> pooled = Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>());
+		final List<byte[]> acquired = new ArrayList<byte[]>();
+		for (int size = EncodeBufferPool.MIN_BUFFER_SIZE_BYTES; size <= ClientConstants.MAX_MESSAGE_LENGTH_BYTES; size <<= 1)
+		{
+			final long allocations = pool.getAllocationCount();
+			while (pool.getAllocationCount() == allocations)
+			{
+				final byte[] buffer = pool.acquire(size);
+				Assert.assertTrue("a buffer was returned to the pool twice", pooled.add(buffer));
+				acquired.add(buffer);
+			}
+		}
+
+		for (byte[] buffer : acquired)
+		{
+			pool.release(buffer);
+		}
+	}
+
+	@After
+	public void cleanup() throws Exception
+	{
+		if (this.sender != null)
+		{
+			this.sender.closeSync();
+		}
+
+		if (this.ehClient != null)
+		{
+			this.ehClient.closeSync();
+		}
+
+		if (this.broker != null)
+		{
+			this.broker.close();
+		}
+	}
+}
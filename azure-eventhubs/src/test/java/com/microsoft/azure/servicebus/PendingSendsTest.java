@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PendingSendsTest
+{
+	@Test
+	public void retriesDrainFirstAndNewSendsStayInOrder()
+	{
+		final PendingSends<String> pendingSends = new PendingSends<String>();
+		pendingSends.add(1L, "new1", false);
+		pendingSends.add(2L, "new2", false);
+		pendingSends.add(3L, "retry3", true);
+		pendingSends.add(4L, "new4", false);
+		pendingSends.add(5L, "retry5", true);
+
+		Assert.assertEquals(Arrays.asList(3L, 5L, 1L, 2L), drain(pendingSends, 4));
+		Assert.assertEquals(5, pendingSends.size());
+
+		// an unacknowledged send replayed after a link recreate goes out before the new send still waiting
+		pendingSends.replay(1L);
+		Assert.assertEquals(Arrays.asList(1L, 4L), drain(pendingSends, 2));
+		Assert.assertNull(pendingSends.pollRetry());
+		Assert.assertNull(pendingSends.pollNew());
+
+		Assert.assertEquals("new1", pendingSends.remove(1L));
+		Assert.assertNull("outcome of a send seen twice", pendingSends.remove(1L));
+		Assert.assertEquals(4, pendingSends.size());
+	}
+
+	@Test
+	public void newSendsOfEachThreadStayInOrderWhileDrained() throws Exception
+	{
+		final int threadCount = 4;
+		final int sendsPerThread = 20000;
+		final PendingSends<Integer> pendingSends = new PendingSends<Integer>();
+		final AtomicLong nextTag = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+
+		final List<Thread> producers = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++)
+		{
+			final int producer = i;
+			final Thread thread = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+					}
+					catch (InterruptedException interrupted)
+					{
+						return;
+					}
+
+					for (int send = 0; send < sendsPerThread; send++)
+					{
+						pendingSends.add(nextTag.incrementAndGet(), producer, send % 100 == 0);
+					}
+				}
+			});
+			thread.start();
+			producers.add(thread);
+		}
+
+		// drained on this thread, as on the reactor thread, while the producers add
+		start.countDown();
+		final long[] lastNewTag = new long[threadCount];
+		int drained = 0;
+		while (drained < threadCount * sendsPerThread)
+		{
+			final Long retryTag = pendingSends.pollRetry();
+			final Long tag = retryTag != null ? retryTag : pendingSends.pollNew();
+			if (tag == null)
+			{
+				Thread.yield();
+				continue;
+			}
+
+			final Integer producer = pendingSends.remove(tag);
+			Assert.assertNotNull("tag was queued before its send was indexed", producer);
+			if (retryTag == null)
+			{
+				Assert.assertTrue("new sends of a thread were reordered", tag > lastNewTag[producer]);
+				lastNewTag[producer] = tag;
+			}
+
+			drained++;
+		}
+
+		for (Thread producer : producers)
+		{
+			producer.join();
+		}
+
+		Assert.assertEquals(0, pendingSends.size());
+		Assert.assertEquals(0, pendingSends.getWaitingForCreditCount());
+	}
+
+	// in the order the sender hands them to the link
+	private static List<Long> drain(final PendingSends<?> pendingSends, final int count)
+	{
+		final List<Long> drained = new ArrayList<Long>();
+		while (drained.size() < count)
+		{
+			final Long retryTag = pendingSends.pollRetry();
+			drained.add(retryTag != null ? retryTag : pendingSends.pollNew());
+		}
+
+		return drained;
+	}
+}
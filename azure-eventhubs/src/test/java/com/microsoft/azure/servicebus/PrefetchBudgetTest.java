@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrefetchBudgetTest
+{
+	private static final long MAX_EVENT = ClientConstants.MAX_MESSAGE_LENGTH_BYTES;
+	private static final long ONE_SECOND_NANOS = Duration.ofSeconds(1).toNanos();
+
+	@Test
+	public void idleReceiversKeepTheMinimumShare()
+	{
+		final PrefetchBudget budget = PrefetchBudget.create(10 * MAX_EVENT);
+		final FakeMember busy = register(budget);
+		final FakeMember idle1 = register(budget);
+		final FakeMember idle2 = register(budget);
+
+		busy.consumedBytes += 50 * MAX_EVENT;
+		rebalance(budget, 1);
+
+		Assert.assertEquals(MAX_EVENT, idle1.budgetBytes);
+		Assert.assertEquals(MAX_EVENT, idle2.budgetBytes);
+		Assert.assertEquals(10 * MAX_EVENT - 2 * MAX_EVENT, busy.budgetBytes);
+	}
+
+	@Test
+	public void smallBudgetIsSharedEqually()
+	{
+		final PrefetchBudget budget = PrefetchBudget.create(MAX_EVENT);
+		final List<FakeMember> members = new ArrayList<FakeMember>();
+		for (int i = 0; i < 4; i++)
+		{
+			members.add(register(budget));
+		}
+
+		members.get(0).consumedBytes += 10 * MAX_EVENT;
+		rebalance(budget, 1);
+
+		for (FakeMember member : members)
+		{
+			Assert.assertEquals(MAX_EVENT / 4, member.budgetBytes);
+		}
+	}
+
+	@Test
+	public void restIsSplitInProportionToConsumptionRate()
+	{
+		final PrefetchBudget budget = PrefetchBudget.create(10 * MAX_EVENT);
+		final FakeMember fast = register(budget);
+		final FakeMember slow = register(budget);
+
+		fast.consumedBytes += 3_000_000;
+		slow.consumedBytes += 1_000_000;
+		rebalance(budget, 1);
+
+		// the rates are in bytes per second - allow for their rounding
+		final long distributable = 10 * MAX_EVENT - 2 * MAX_EVENT;
+		Assert.assertEquals(MAX_EVENT + distributable * 3 / 4, fast.budgetBytes, 1);
+		Assert.assertEquals(MAX_EVENT + distributable / 4, slow.budgetBytes, 1);
+	}
+
+	@Test
+	public void sharesAreRebalancedAsReceiversComeAndGo()
+	{
+		final PrefetchBudget budget = PrefetchBudget.create(8 * MAX_EVENT);
+
+		final FakeMember first = register(budget);
+		Assert.assertEquals(1, budget.getReceiverCount());
+		Assert.assertEquals(8 * MAX_EVENT, first.budgetBytes);
+
+		final FakeMember second = register(budget);
+		Assert.assertEquals(2, budget.getReceiverCount());
+		Assert.assertEquals(4 * MAX_EVENT, first.budgetBytes);
+		Assert.assertEquals(4 * MAX_EVENT, second.budgetBytes);
+
+		// registering twice changes nothing
+		budget.register(second);
+		Assert.assertEquals(2, budget.getReceiverCount());
+
+		budget.unregister(second);
+		Assert.assertEquals(1, budget.getReceiverCount());
+		Assert.assertEquals(8 * MAX_EVENT, first.budgetBytes);
+	}
+
+	@Test
+	public void sharesNeverAddUpToMoreThanTheBudget()
+	{
+		final Random random = new Random(7);
+		for (long maxBytes : new long[] { 1000, MAX_EVENT, 3 * MAX_EVENT + 17, 100 * MAX_EVENT })
+		{
+			final PrefetchBudget budget = PrefetchBudget.create(maxBytes);
+			final List<FakeMember> members = new ArrayList<FakeMember>();
+			for (int round = 1; round <= 50; round++)
+			{
+				if (members.size() < 8 && random.nextBoolean())
+				{
+					members.add(register(budget));
+				}
+				else if (members.size() > 1 && random.nextInt(4) == 0)
+				{
+					budget.unregister(members.remove(random.nextInt(members.size())));
+				}
+
+				for (FakeMember member : members)
+				{
+					member.consumedBytes += random.nextInt(4) == 0 ? 0 : random.nextInt(10_000_000);
+				}
+
+				rebalance(budget, round);
+
+				long total = 0;
+				for (FakeMember member : members)
+				{
+					Assert.assertTrue(member.budgetBytes > 0);
+					total += member.budgetBytes;
+				}
+
+				Assert.assertTrue(String.format("%s members were given %s of a %s byte budget", members.size(), total, maxBytes), total <= maxBytes);
+			}
+		}
+	}
+
+	private static FakeMember register(final PrefetchBudget budget)
+	{
+		final FakeMember member = new FakeMember();
+		budget.register(member);
+		return member;
+	}
+
+	// as if the receivers were consumed from for the given number of seconds since the budget was created
+	private static void rebalance(final PrefetchBudget budget, final int seconds)
+	{
+		synchronized (budget)
+		{
+			budget.rebalance(System.nanoTime() + seconds * ONE_SECOND_NANOS);
+		}
+	}
+
+	private static final class FakeMember implements IPrefetchBudgetMember
+	{
+		long consumedBytes;
+		long budgetBytes;
+
+		@Override
+		public long getConsumedBytes()
+		{
+			return this.consumedBytes;
+		}
+
+		@Override
+		public void onPrefetchBudgetChanged(final long budgetBytes)
+		{
+			this.budgetBytes = budgetBytes;
+		}
+	}
+}